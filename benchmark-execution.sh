@@ -0,0 +1,105 @@
+#!/bin/bash
+
+# Benchmark des modes d'exécution : pool de threads Tomcat vs threads virtuels
+# Compare le débit et la latence p99 de voiture-service pour chaque mode.
+#
+# Usage : ./benchmark-execution.sh [durée] [concurrence]
+#   ex. : ./benchmark-execution.sh 60s 1000
+#
+# La charge est générée par "hey" (image Docker williamyeh/hey) sur un endpoint
+# qui interroge la base à chaque appel (pagination, non mise en cache).
+
+DURATION=${1:-30s}
+CONCURRENCY=${2:-500}
+URL="http://localhost:8089/api/voitures?limit=50&after=0"
+
+if ! command -v docker &> /dev/null; then
+    echo "❌ Docker n'est pas installé. Veuillez installer Docker d'abord."
+    exit 1
+fi
+
+wait_for_service() {
+    echo "⏳ Attente de $1..."
+    for i in $(seq 1 90); do
+        if curl -s -o /dev/null "$2"; then
+            return 0
+        fi
+        sleep 2
+    done
+    echo "❌ $1 n'a pas démarré"
+    exit 1
+}
+
+# POST JSON : affiche le corps de la réponse, échoue sur tout code hors 2xx
+post_json() {
+    local response status
+    response=$(curl -s -w '\n%{http_code}' -X POST "$1" -H 'Content-Type: application/json' -d "$2")
+    status=${response##*$'\n'}
+    response=${response%$'\n'*}
+    if [[ "$status" != 2?? ]]; then
+        echo "❌ POST $1 : HTTP $status $response" >&2
+        return 1
+    fi
+    echo "$response"
+}
+
+# Attend que la réplique des clients de voiture-service ait lu tout le journal de client-service
+# (sinon les voitures de clients tout juste créés sont refusées : 422 ou 503)
+wait_for_client_replica() {
+    local last_seq seq
+    last_seq=$(curl -s "http://localhost:8088/api/clients/changes?since=0&wait=0" | grep -o '"lastSeq":[0-9]*' | cut -d: -f2)
+    echo "⏳ Attente de la réplique des clients (journal jusqu'à $last_seq)..."
+    for i in $(seq 1 60); do
+        seq=$(curl -s http://localhost:8089/actuator/metrics/client.replica.seq | grep -o '"value":[0-9.E]*' | cut -d: -f2)
+        if [ -n "$seq" ] && awk "BEGIN { exit !($seq >= $last_seq) }"; then
+            return 0
+        fi
+        sleep 1
+    done
+    echo "❌ La réplique des clients n'a pas rattrapé le journal"
+    exit 1
+}
+
+seed_voitures() {
+    # Emails et immatriculations uniques : chaque mode réensemence la même base
+    local run client body
+    local client_ids=()
+    run=$(date +%s)
+    echo "👤 Création de 20 clients de test..."
+    for i in $(seq 1 20); do
+        body=$(post_json http://localhost:8088/api/clients \
+            "{\"nom\":\"Bench\",\"prenom\":\"C$i\",\"email\":\"bench-$run-$i@example.com\"}") || exit 1
+        client_ids+=("$(echo "$body" | grep -o '"id":[0-9]*' | head -1 | cut -d: -f2)")
+    done
+    wait_for_client_replica
+
+    echo "📦 Insertion de 200 voitures de test..."
+    for i in $(seq 1 200); do
+        client=${client_ids[$((i % 20))]}
+        post_json http://localhost:8089/api/voitures \
+            "{\"marque\":\"Bench\",\"modele\":\"M$i\",\"immatriculation\":\"BENCH-$run-$i\",\"prix\":10000,\"clientId\":$client}" \
+            > /dev/null || exit 1
+    done
+}
+
+for MODE in false true; do
+    echo ""
+    echo "🚀 Mode threads virtuels = $MODE"
+    VIRTUAL_THREADS=$MODE docker compose up -d --build client-service voiture-service
+    wait_for_service client-service http://localhost:8088/api/clients/health
+    wait_for_service voiture-service http://localhost:8089/api/voitures/health
+    seed_voitures
+
+    echo "📊 Charge : $CONCURRENCY connexions pendant $DURATION sur $URL"
+    docker run --rm --network host williamyeh/hey -z "$DURATION" -c "$CONCURRENCY" "$URL" \
+        | grep -E "Requests/sec|99% in|\[200\]|\[503\]"
+
+    echo "📈 Bulkhead base de données :"
+    for METRIC in db.bulkhead.rejected db.bulkhead.wait; do
+        curl -s "http://localhost:8089/actuator/metrics/$METRIC"
+        echo ""
+    done
+done
+
+echo ""
+echo "✅ Benchmark terminé"
@@ -0,0 +1,65 @@
+#!/usr/bin/env python3
+"""Compare deux fichiers de résultats JMH (-rf json) et signale les régressions.
+
+Usage : compare-results.py baseline.json candidate.json [--threshold 10]
+
+Un benchmark régresse quand son score se dégrade de plus de --threshold % :
+score plus bas en mode thrpt, plus haut dans les autres modes (avgt, sample, ss).
+Code de sortie 1 si au moins une régression est détectée.
+"""
+import argparse
+import json
+import sys
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for run in json.load(f):
+            params = ",".join(f"{k}={v}" for k, v in sorted((run.get("params") or {}).items()))
+            key = run["benchmark"].rsplit(".", 2)[-2] + "." + run["benchmark"].rsplit(".", 1)[-1]
+            if params:
+                key += f" [{params}]"
+            metric = run["primaryMetric"]
+            results[key] = (run["mode"], metric["score"], metric.get("scoreError"), metric["scoreUnit"])
+        return results
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare deux résultats JMH au format JSON")
+    parser.add_argument("baseline")
+    parser.add_argument("candidate")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="dégradation tolérée en pourcentage (défaut : 10)")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    candidate = load(args.candidate)
+    regressions = 0
+    width = max((len(k) for k in candidate), default=0)
+    for key in sorted(candidate):
+        mode, score, _, unit = candidate[key]
+        if key not in baseline:
+            print(f"{key:<{width}}  {score:>12.3f} {unit:<8}  (nouveau)")
+            continue
+        base = baseline[key][1]
+        change = (score - base) / base * 100 if base else 0.0
+        worse = -change if mode == "thrpt" else change
+        status = ""
+        if worse > args.threshold:
+            status = "REGRESSION"
+            regressions += 1
+        elif worse < -args.threshold:
+            status = "amélioration"
+        print(f"{key:<{width}}  {base:>12.3f} -> {score:>12.3f} {unit:<8} {change:+7.1f}%  {status}")
+    for key in sorted(set(baseline) - set(candidate)):
+        print(f"{key:<{width}}  (absent du second fichier)")
+
+    if regressions:
+        print(f"\n{regressions} régression(s) au-delà de {args.threshold:g} %", file=sys.stderr)
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
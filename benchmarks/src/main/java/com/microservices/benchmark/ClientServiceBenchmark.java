@@ -0,0 +1,103 @@
+package com.microservices.benchmark;
+
+import com.microservices.client.model.Client;
+import com.microservices.client.service.ClientService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opérations CRUD de ClientService contre une base H2 en mémoire (mode MySQL)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientServiceBenchmark {
+
+    private static final int CLIENTS = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private ClientService clientService;
+
+    /**
+     * Compteur des clients créés par createAndDelete (emails hors du jeu initial)
+     */
+    private final AtomicLong created = new AtomicLong(CLIENTS);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ServiceContexts.startClientService("clients_crud");
+        Fixtures.insertClients(context.getBean(JdbcTemplate.class), CLIENTS);
+        clientService = context.getBean(ClientService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, CLIENTS + 1);
+    }
+
+    @Benchmark
+    public Client getClientById() {
+        return clientService.getClientById(randomId());
+    }
+
+    /**
+     * Lecture groupée de 100 clients (utilisée par la composition côté gateway)
+     */
+    @Benchmark
+    public Map<Long, Client> getClientsByIds() {
+        List<Long> ids = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            ids.add(randomId());
+        }
+        return clientService.getClientsByIds(ids);
+    }
+
+    /**
+     * Création puis suppression (le volume de la table reste constant)
+     */
+    @Benchmark
+    public boolean createAndDelete() {
+        Client saved = clientService.createClient(Fixtures.client(created.getAndIncrement()));
+        return clientService.deleteClient(saved.getId());
+    }
+
+    @Benchmark
+    public Client updateClient() {
+        long id = randomId();
+        Client client = Fixtures.client(id - 1);
+        client.setAdresse(ThreadLocalRandom.current().nextInt(1, 200) + " avenue Foch, Lyon");
+        return clientService.updateClient(id, client);
+    }
+
+    @Benchmark
+    public boolean patchClient() {
+        return clientService.patchClient(randomId(),
+                Map.of("adresse", ThreadLocalRandom.current().nextInt(1, 200) + " boulevard Voltaire, Nantes"), null);
+    }
+}
@@ -0,0 +1,80 @@
+package com.microservices.benchmark;
+
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.repository.VoitureRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * findByClientId avec et sans l'index (client_id, version) créé par la migration V2
+ * 
+ * Sans index, la requête devient un parcours complet de la table (100 000 lignes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindByClientIdBenchmark {
+
+    private static final int VOITURES = 100_000;
+    private static final int CLIENTS = 10_000;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private VoitureRepository voitureRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ServiceContexts.startVoitureService("voitures_by_client_" + indexed);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        if (!indexed) {
+            jdbcTemplate.execute("DROP INDEX idx_voitures_client_id_version");
+        }
+        Fixtures.insertVoitures(jdbcTemplate, VOITURES, CLIENTS);
+        voitureRepository = context.getBean(VoitureRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static long randomClientId() {
+        return ThreadLocalRandom.current().nextLong(1, CLIENTS + 1);
+    }
+
+    @Benchmark
+    public List<Voiture> findByClientId() {
+        return voitureRepository.findByClientId(randomClientId());
+    }
+
+    /**
+     * Lecture de la version de la liste, seule requête d'un GET /api/voitures/client/{clientId}
+     * avec If-None-Match (indépendante de l'index : clé primaire de voiture_client_versions)
+     */
+    @Benchmark
+    public Long fleetVersion() {
+        return voitureRepository.findFleetVersionByClientId(randomClientId()).orElse(0L);
+    }
+}
@@ -0,0 +1,105 @@
+package com.microservices.benchmark;
+
+import com.microservices.client.model.Client;
+import com.microservices.voiture.model.Voiture;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jeux de données déterministes pour les benchmarks
+ */
+final class Fixtures {
+
+    private static final String[] MARQUES = {"Renault", "Peugeot", "Citroën", "Toyota", "Mercedes-Benz"};
+    private static final String[] MODELES = {"Clio", "208", "C3", "Yaris", "Classe A", "Mégane", "Corolla"};
+    private static final String[] COULEURS = {"Rouge", "Bleu", "Noir", "Blanc", "Gris"};
+
+    private static final int INSERT_BATCH = 1000;
+
+    private Fixtures() {
+    }
+
+    /**
+     * Voiture numéro i (immatriculation unique, client i % clients + 1)
+     */
+    static Voiture voiture(long i, int clients) {
+        return new Voiture(null,
+                MARQUES[(int) (i % MARQUES.length)],
+                MODELES[(int) (i % MODELES.length)],
+                COULEURS[(int) (i % COULEURS.length)],
+                immatriculation(i),
+                10_000.0 + (i % 40_000),
+                i % clients + 1,
+                null);
+    }
+
+    /**
+     * Client numéro i (email unique)
+     */
+    static Client client(long i) {
+        return new Client(null, "Nom" + i, "Prénom" + i, "client" + i + "@example.com", i + " rue de la Paix, Paris", null);
+    }
+
+    /**
+     * Immatriculation unique au format AB-123-CD
+     */
+    static String immatriculation(long i) {
+        return "" + (char) ('A' + i % 26) + (char) ('A' + i / 26 % 26) + "-" + String.format("%03d", i / 676 % 1000)
+                + "-" + (char) ('A' + i / 676_000 % 26) + (char) ('A' + i / 17_576_000 % 26);
+    }
+
+    static List<Voiture> voitures(int count) {
+        List<Voiture> voitures = new ArrayList<>(count);
+        for (long i = 0; i < count; i++) {
+            Voiture voiture = voiture(i, Math.max(1, count / 10));
+            voiture.setId(i + 1);
+            voiture.setVersion(0L);
+            voitures.add(voiture);
+        }
+        return voitures;
+    }
+
+    static List<Client> clients(int count) {
+        List<Client> clients = new ArrayList<>(count);
+        for (long i = 0; i < count; i++) {
+            Client client = client(i);
+            client.setId(i + 1);
+            client.setVersion(0L);
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    /**
+     * Insère count voitures (IDs 1..count) réparties sur clients clients, par batch JDBC
+     */
+    static void insertVoitures(JdbcTemplate jdbcTemplate, int count, int clients) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (long i = 0; i < count; i++) {
+            Voiture v = voiture(i, clients);
+            rows.add(new Object[]{v.getMarque(), v.getModele(), v.getCouleur(), v.getImmatriculation(), v.getPrix(), v.getClientId()});
+            if (rows.size() == INSERT_BATCH || i == count - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO voitures (marque, modele, couleur, immatriculation, prix, client_id, version) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, 0)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    /**
+     * Insère count clients (IDs 1..count), par batch JDBC
+     */
+    static void insertClients(JdbcTemplate jdbcTemplate, int count) {
+        List<Object[]> rows = new ArrayList<>(INSERT_BATCH);
+        for (long i = 0; i < count; i++) {
+            Client c = client(i);
+            rows.add(new Object[]{c.getNom(), c.getPrenom(), c.getEmail(), c.getAdresse()});
+            if (rows.size() == INSERT_BATCH || i == count - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO clients (nom, prenom, email, adresse, version) VALUES (?, ?, ?, ?, 0)", rows);
+                rows.clear();
+            }
+        }
+    }
+}
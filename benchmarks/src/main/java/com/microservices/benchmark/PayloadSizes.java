@@ -0,0 +1,54 @@
+package com.microservices.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Taille des réponses de GET /api/voitures et GET /api/clients selon l'encodage (JSON ou CBOR)
+ * et la compression gzip du Gateway
+ * 
+ * Exécution : mvn package exec:java -Dexec.mainClass=com.microservices.benchmark.PayloadSizes
+ * (le temps CPU correspondant est mesuré par SerializationBenchmark).
+ */
+public class PayloadSizes {
+
+    private static final int[] SIZES = {10, 100, 1000, 10000};
+
+    public static void main(String[] args) throws IOException {
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+
+        System.out.printf("%-9s %6s | %10s %10s %6s | %10s %10s%n",
+                "liste", "taille", "JSON", "CBOR", "CBOR %", "JSON+gzip", "CBOR+gzip");
+        for (int size : SIZES) {
+            print("voitures", size, json, cbor, Fixtures.voitures(size));
+            print("clients", size, json, cbor, Fixtures.clients(size));
+        }
+        System.out.println("(octets ; CBOR % : taille CBOR / taille JSON)");
+    }
+
+    private static void print(String name, int size, ObjectMapper json, ObjectMapper cbor, List<?> values) throws IOException {
+        byte[] jsonBytes = json.writeValueAsBytes(values);
+        byte[] cborBytes = cbor.writeValueAsBytes(values);
+        System.out.printf("%-9s %6d | %10d %10d %5.0f%% | %10d %10d%n", name, size,
+                jsonBytes.length, cborBytes.length, 100.0 * cborBytes.length / jsonBytes.length,
+                gzip(jsonBytes).length, gzip(cborBytes).length);
+    }
+
+    /**
+     * Compresse en gzip avec le niveau par défaut (celui du serveur Reactor Netty du Gateway)
+     */
+    static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,90 @@
+package com.microservices.benchmark;
+
+import com.microservices.voiture.analytics.VoitureAnalytics;
+import com.microservices.voiture.model.PrixStatistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Statistiques de prix par groupe sur un million de voitures : copie en colonnes (VoitureAnalytics)
+ * contre un GROUP BY en base (H2, sans les centiles que MySQL ne calcule pas)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx3g")
+public class PrixStatisticsBenchmark {
+
+    private static final int VOITURES = 1_000_000;
+    private static final int CLIENTS = 10_000;
+    private static final List<Double> PERCENTILES = List.of(50.0, 95.0, 99.0);
+
+    /**
+     * Champs de regroupement séparés par des virgules ("-" : aucun, un seul groupe)
+     */
+    @Param({"-", "marque", "marque,couleur", "marque,modele,couleur"})
+    public String groupBy;
+
+    private ConfigurableApplicationContext context;
+    private VoitureAnalytics voitureAnalytics;
+    private JdbcTemplate jdbcTemplate;
+    private List<String> fields;
+    private String sql;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ServiceContexts.startVoitureService("voitures_prix", "voiture.analytics.rebuild-interval=0");
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Fixtures.insertVoitures(jdbcTemplate, VOITURES, CLIENTS);
+        voitureAnalytics = context.getBean(VoitureAnalytics.class);
+        voitureAnalytics.rebuild();
+        fields = groupBy.equals("-") ? List.of() : Arrays.asList(groupBy.split(","));
+        String columns = String.join(", ", fields);
+        // Borne aléatoire (toujours vraie) : H2 ne peut pas resservir le résultat précédent depuis son cache
+        sql = fields.isEmpty()
+                ? "SELECT COUNT(*), MIN(prix), MAX(prix), AVG(prix) FROM voitures WHERE prix > ?"
+                : "SELECT " + columns + ", COUNT(*), MIN(prix), MAX(prix), AVG(prix) FROM voitures WHERE prix > ? GROUP BY " + columns;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Min, max, moyenne et centiles 50/95/99 par groupe, en mémoire
+     */
+    @Benchmark
+    public PrixStatistics columnar() {
+        return voitureAnalytics.prixStatistics(fields, PERCENTILES, Map.of());
+    }
+
+    /**
+     * Min, max et moyenne par groupe, en base
+     */
+    @Benchmark
+    public List<Map<String, Object>> sqlGroupBy() {
+        return jdbcTemplate.queryForList(sql, -ThreadLocalRandom.current().nextDouble(1, 1000));
+    }
+}
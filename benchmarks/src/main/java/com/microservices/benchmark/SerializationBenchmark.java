@@ -0,0 +1,108 @@
+package com.microservices.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.microservices.client.model.Client;
+import com.microservices.voiture.model.Voiture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation des listes renvoyées par GET /api/voitures et GET /api/clients, en JSON et en CBOR
+ * (Accept: application/cbor), et compression gzip des réponses par le Gateway
+ * 
+ * Les ObjectMapper sont construits comme ceux de Spring MVC (Jackson2ObjectMapperBuilder, voir CborConfig).
+ * Les tailles des réponses sont données par PayloadSizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private ObjectMapper cborMapper;
+    private List<Voiture> voitures;
+    private List<Client> clients;
+    private byte[] voituresJson;
+    private byte[] voituresCbor;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+        voitures = Fixtures.voitures(size);
+        clients = Fixtures.clients(size);
+        voituresJson = objectMapper.writeValueAsBytes(voitures);
+        voituresCbor = cborMapper.writeValueAsBytes(voitures);
+    }
+
+    @Benchmark
+    public byte[] serializeVoitures() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(voitures);
+    }
+
+    @Benchmark
+    public byte[] serializeClients() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(clients);
+    }
+
+    @Benchmark
+    public byte[] serializeVoituresCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(voitures);
+    }
+
+    @Benchmark
+    public byte[] serializeClientsCbor() throws JsonProcessingException {
+        return cborMapper.writeValueAsBytes(clients);
+    }
+
+    /**
+     * Lecture de la liste par l'appelant (ex. Gateway pour les réponses composées)
+     */
+    @Benchmark
+    public List<Voiture> deserializeVoitures() throws IOException {
+        return objectMapper.readValue(voituresJson, new TypeReference<List<Voiture>>() {
+        });
+    }
+
+    @Benchmark
+    public List<Voiture> deserializeVoituresCbor() throws IOException {
+        return cborMapper.readValue(voituresCbor, new TypeReference<List<Voiture>>() {
+        });
+    }
+
+    /**
+     * Compression gzip de la réponse par le Gateway (niveau par défaut, comme Reactor Netty)
+     */
+    @Benchmark
+    public byte[] gzipVoitures() throws IOException {
+        return PayloadSizes.gzip(voituresJson);
+    }
+
+    @Benchmark
+    public byte[] gzipVoituresCbor() throws IOException {
+        return PayloadSizes.gzip(voituresCbor);
+    }
+}
@@ -0,0 +1,75 @@
+package com.microservices.benchmark;
+
+import com.microservices.client.ClientServiceApplication;
+import com.microservices.voiture.VoitureServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Démarrage des services Client et Voiture sur une base H2 en mémoire, sans serveur web
+ * 
+ * Le schéma est créé par les migrations Flyway des services (copiées dans db/client et db/voiture).
+ * Consul et le contrôle des plans d'exécution (propre à MySQL) sont désactivés ;
+ * chaque appel utilise sa propre base (nom donné par l'appelant).
+ */
+final class ServiceContexts {
+
+    private ServiceContexts() {
+    }
+
+    /**
+     * Démarre le service Client
+     * 
+     * @param database Nom de la base H2 en mémoire
+     */
+    static ConfigurableApplicationContext startClientService(String database) {
+        return start(ClientServiceApplication.class, database, "db/client");
+    }
+
+    /**
+     * Démarre le service Voiture (variante JPA)
+     * 
+     * @param database Nom de la base H2 en mémoire
+     */
+    static ConfigurableApplicationContext startVoitureService(String database) {
+        return start(VoitureServiceApplication.class, database, "db/voiture");
+    }
+
+    /**
+     * Démarre le service Voiture (variante JPA) avec des propriétés supplémentaires
+     * 
+     * @param database Nom de la base H2 en mémoire
+     * @param properties Propriétés "clé=valeur" ajoutées à la configuration commune
+     */
+    static ConfigurableApplicationContext startVoitureService(String database, String... properties) {
+        return start(VoitureServiceApplication.class, database, "db/voiture", properties);
+    }
+
+    private static ConfigurableApplicationContext start(Class<?> application, String database, String migrations,
+                                                        String... properties) {
+        return new SpringApplicationBuilder(application)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN",
+                        "spring.datasource.url=jdbc:h2:mem:" + database + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "spring.flyway.locations=classpath:" + migrations,
+                        "client.query-plan-check.enabled=false",
+                        "voiture.query-plan-check.enabled=false",
+                        "spring.cloud.consul.enabled=false",
+                        "spring.cloud.discovery.enabled=false",
+                        "spring.cloud.compatibility-verifier.enabled=false",
+                        "spring.autoconfigure.exclude="
+                                + "org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration,"
+                                + "org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration")
+                .properties(properties)
+                .run();
+    }
+}
@@ -0,0 +1,255 @@
+package com.microservices.benchmark;
+
+import org.h2.tools.Server;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Démarrage à froid des services Client et Voiture, chacun dans sa propre JVM :
+ * fat jar habituel (mvn package) contre le profil Maven fast-startup (traitement AOT, archive CDS)
+ * 
+ * Mesure pour chaque variante, sur RUNS lancements (médiane et minimum) :
+ * - le délai entre le lancement de la JVM et la première réponse 200 à une requête qui lit la base
+ *   (GET /api/clients?ids=1, GET /api/voitures/client/1) ;
+ * - la mémoire résidente du processus (VmRSS) à ce moment-là.
+ * La variante "AOT" (sans archive CDS) sépare les gains des deux techniques.
+ * 
+ * Les services utilisent une base H2 en mode MySQL servie en TCP par ce programme (le pilote H2
+ * est ajouté au classpath des JVM lancées) ; le premier lancement de chaque service, non mesuré,
+ * applique les migrations. Consul n'est pas démarré : l'enregistrement est désactivé.
+ * 
+ * Prérequis, dans clientService et voitureService : mvn package && mvn -Pfast-startup package
+ * Exécution : mvn package exec:java -Dexec.mainClass=com.microservices.benchmark.StartupTime [-Druns=5]
+ * Le programme s'arrête avec le code 1 si un lancement échoue.
+ */
+public class StartupTime {
+
+    private static final int RUNS = Integer.getInteger("runs", 5);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+    private static final Path PROJECT = Path.of("..").toAbsolutePath().normalize();
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(500))
+            .build();
+
+    private static int failures;
+
+    /**
+     * Un service et la requête qui signale qu'il est prêt
+     */
+    private record Service(String name, String module, String artifact, String mainClass, String database, String path) {
+
+        Path fatJar() {
+            return PROJECT.resolve(module).resolve("target").resolve(artifact + ".jar");
+        }
+
+        Path fastStartupJar() {
+            return PROJECT.resolve(module).resolve("target/fast-startup").resolve(artifact + ".jar");
+        }
+
+        Path cdsArchive() {
+            return PROJECT.resolve(module).resolve("target/fast-startup").resolve(artifact + ".jsa");
+        }
+    }
+
+    private enum Variant {
+        FAT_JAR("fat jar"),
+        AOT("AOT"),
+        AOT_CDS("AOT + CDS");
+
+        final String label;
+
+        Variant(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Résultat d'un lancement
+     */
+    private record Startup(long millis, long rssKb) {
+    }
+
+    public static void main(String[] args) throws IOException, SQLException, InterruptedException {
+        List<Service> services = List.of(
+                new Service("Client", "clientService", "client-service-1.0.0",
+                        "com.microservices.client.ClientServiceApplication", "clients", "/api/clients?ids=1"),
+                new Service("Voiture", "voitureService", "voiture-service-1.0.0",
+                        "com.microservices.voiture.VoitureServiceApplication", "voitures", "/api/voitures/client/1"));
+        for (Service service : services) {
+            for (Path file : List.of(service.fatJar(), service.fastStartupJar(), service.cdsArchive())) {
+                if (!Files.exists(file)) {
+                    System.out.println("Fichier absent : " + file
+                            + " (mvn package && mvn -Pfast-startup package dans " + service.module() + ")");
+                    System.exit(1);
+                }
+            }
+        }
+
+        Path h2Jar = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().getPath());
+        Path workDirectory = Files.createTempDirectory("startup-time");
+        Server h2 = Server.createTcpServer("-tcpPort", String.valueOf(freePort()), "-ifNotExists").start();
+        try {
+            System.out.printf("%d CPU, %s, %d lancements par variante%n",
+                    Runtime.getRuntime().availableProcessors(), System.getProperty("java.vm.version"), RUNS);
+            for (Service service : services) {
+                String jdbcUrl = "jdbc:h2:tcp://localhost:" + h2.getPort() + "/mem:" + service.database()
+                        + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+                // Migrations (et cache disque des JAR) : premier lancement non mesuré
+                launch(service, Variant.FAT_JAR, h2Jar, jdbcUrl, workDirectory);
+
+                List<List<Startup>> results = new ArrayList<>();
+                for (Variant variant : Variant.values()) {
+                    results.add(new ArrayList<>());
+                }
+                // Variantes alternées : une perturbation de la machine touche toutes les variantes
+                for (int run = 0; run < RUNS; run++) {
+                    for (Variant variant : Variant.values()) {
+                        Startup startup = launch(service, variant, h2Jar, jdbcUrl, workDirectory);
+                        if (startup != null) {
+                            results.get(variant.ordinal()).add(startup);
+                        }
+                    }
+                }
+                print(service, results);
+            }
+        } finally {
+            h2.stop();
+        }
+        System.out.println(failures == 0 ? "OK" : failures + " lancement(s) en échec");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Lance le service, attend sa première réponse 200 puis l'arrête
+     * 
+     * @return La durée et la mémoire résidente à la première réponse, ou null en cas d'échec
+     */
+    private static Startup launch(Service service, Variant variant, Path h2Jar, String jdbcUrl, Path workDirectory)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        switch (variant) {
+            // Le fat jar est lancé par son JarLauncher pour ajouter le pilote H2 au classpath
+            case FAT_JAR -> command.addAll(List.of("-cp", service.fatJar() + ":" + h2Jar,
+                    "org.springframework.boot.loader.JarLauncher"));
+            case AOT -> command.addAll(List.of("-Dspring.aot.enabled=true",
+                    "-cp", service.fastStartupJar() + ":" + h2Jar, service.mainClass()));
+            // -Xshare:on : la JVM refuse de démarrer si l'archive ne correspond pas au classpath
+            case AOT_CDS -> command.addAll(List.of("-Xshare:on", "-XX:SharedArchiveFile=" + service.cdsArchive(),
+                    "-Dspring.aot.enabled=true", "-cp", service.fastStartupJar() + ":" + h2Jar, service.mainClass()));
+        }
+        command.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.cloud.consul.host=localhost",
+                "--spring.cloud.consul.discovery.register=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+
+        // Répertoire de travail temporaire (checkpoint de la réplique des clients, etc.)
+        Path log = workDirectory.resolve(service.database() + "-" + variant.name().toLowerCase() + ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + service.path()))
+                    .timeout(Duration.ofSeconds(5))
+                    .build();
+            long deadline = start + STARTUP_TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline && process.isAlive()) {
+                try {
+                    if (HTTP_CLIENT.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                        return new Startup(millis, rssKb(process.pid()));
+                    }
+                } catch (ConnectException | HttpTimeoutException e) {
+                    // Serveur web pas encore démarré
+                }
+                Thread.sleep(10);
+            }
+            failures++;
+            System.out.printf("ÉCHEC : %s (%s) sans réponse 200 après %d s, journal :%n", service.name(), variant.label,
+                    TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+            List<String> lines = Files.readAllLines(log);
+            lines.subList(Math.max(0, lines.size() - 30), lines.size()).forEach(System.out::println);
+            return null;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static void print(Service service, List<List<Startup>> results) {
+        System.out.printf("%nService %s%n", service.name());
+        System.out.printf("  %-10s  %26s  %14s%n", "variante", "1re requête (médiane / min)", "RSS (médiane)");
+        long baseline = median(results.get(Variant.FAT_JAR.ordinal()).stream().mapToLong(Startup::millis).toArray());
+        for (Variant variant : Variant.values()) {
+            List<Startup> startups = results.get(variant.ordinal());
+            if (startups.isEmpty()) {
+                continue;
+            }
+            long[] millis = startups.stream().mapToLong(Startup::millis).toArray();
+            long[] rss = startups.stream().mapToLong(Startup::rssKb).toArray();
+            long median = median(millis);
+            System.out.printf("  %-10s  %,10d ms / %,8d ms  %10d Mo%s%n", variant.label, median,
+                    Arrays.stream(millis).min().orElse(0), median(rss) / 1024,
+                    variant == Variant.FAT_JAR || baseline == 0 ? "" : String.format("   %+d %%", (median - baseline) * 100 / baseline));
+        }
+    }
+
+    /**
+     * Mémoire résidente d'un processus (Linux : /proc/PID/status), 0 si indisponible
+     */
+    private static long rssKb(long pid) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(pid), "status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException e) {
+            // Autre système que Linux
+        }
+        return 0;
+    }
+
+    private static long median(long[] values) {
+        if (values.length == 0) {
+            return 0;
+        }
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
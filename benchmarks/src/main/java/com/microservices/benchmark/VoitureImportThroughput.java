@@ -0,0 +1,195 @@
+package com.microservices.benchmark;
+
+import com.microservices.voiture.analytics.VoitureAnalytics;
+import com.microservices.voiture.model.VoitureImport;
+import com.microservices.voiture.model.VoitureImportRejection;
+import com.microservices.voiture.service.VoitureService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedWriter;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import en masse de voitures (VoitureService.importVoitures) sur H2, fichiers générés sur disque
+ * 
+ * Mesure et vérifie :
+ * - le débit d'un import CSV puis NDJSON de VOITURES enregistrements (avec 1 % de lignes invalides
+ *   et 0,4 % d'immatriculations répétées, rejetées) ;
+ * - la reprise d'un import interrompu au milieu du fichier (coupure simulée de la lecture) :
+ *   aucune voiture en double ni manquante ;
+ * - les rejets enregistrés (numéro d'enregistrement et raison) ;
+ * - la cohérence des résumés de parc (réconciliation sans correction) et des statistiques en mémoire ;
+ * - le renvoi d'un import terminé (rien n'est relu).
+ * 
+ * Exécution : mvn package exec:java -Dexec.mainClass=com.microservices.benchmark.VoitureImportThroughput
+ * Le programme s'arrête avec le code 1 si une vérification échoue.
+ */
+public class VoitureImportThroughput {
+
+    private static final int VOITURES = 500_000;
+    private static final int CLIENTS = 10_000;
+    private static final int INVALID_EVERY = 100;
+    private static final int DUPLICATE_EVERY = 250;
+
+    private static int failures;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("voiture-import");
+        Path csv = directory.resolve("voitures.csv");
+        Path ndjson = directory.resolve("voitures.ndjson");
+        long expectedRejected = write(csv, ndjson);
+        long expectedImported = VOITURES - expectedRejected;
+        System.out.printf("Fichiers : CSV %d Mo, NDJSON %d Mo, %d enregistrements chacun (%d rejets attendus)%n",
+                Files.size(csv) >> 20, Files.size(ndjson) >> 20, VOITURES, expectedRejected);
+
+        try (ConfigurableApplicationContext context = ServiceContexts.startVoitureService("voitures_import",
+                "voiture.client-replica.enabled=false", "voiture.analytics.rebuild-interval=0")) {
+            VoitureService voitureService = context.getBean(VoitureService.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            context.getBean(VoitureAnalytics.class).rebuild();
+
+            // 1. Import CSV complet
+            long start = System.nanoTime();
+            VoitureImport result;
+            try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+                result = voitureService.importVoitures("csv-1", VoitureImport.Format.CSV, reader);
+            }
+            printRate("Import CSV", result, start);
+            checkResult(result, expectedImported, expectedRejected);
+
+            // 2. Import NDJSON interrompu aux deux tiers du fichier, puis repris
+            long interruptAfter = Files.size(ndjson) * 2 / 3;
+            start = System.nanoTime();
+            try (Reader reader = new InterruptedReader(Files.newBufferedReader(ndjson, StandardCharsets.UTF_8), interruptAfter)) {
+                voitureService.importVoitures("ndjson-1", VoitureImport.Format.NDJSON, reader);
+                check(false, "import NDJSON non interrompu");
+            } catch (IOException e) {
+                VoitureImport interrupted = voitureService.getImport("ndjson-1");
+                System.out.printf("Import NDJSON interrompu : %s après %d enregistrements validés (%s)%n",
+                        interrupted.getStatus(), interrupted.getRecordCount(), interrupted.getError());
+                check(interrupted.getStatus() == VoitureImport.Status.FAILED, "statut après interruption");
+                check(interrupted.getRecordCount() > 0 && interrupted.getRecordCount() < VOITURES, "avancement après interruption");
+            }
+            try (Reader reader = Files.newBufferedReader(ndjson, StandardCharsets.UTF_8)) {
+                result = voitureService.importVoitures("ndjson-1", VoitureImport.Format.NDJSON, reader);
+            }
+            printRate("Import NDJSON (interrompu puis repris)", result, start);
+            checkResult(result, expectedImported, expectedRejected);
+
+            // 3. Contenu de la base
+            long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM voitures", Long.class);
+            long plates = jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT immatriculation) FROM voitures", Long.class);
+            check(rows == 2 * expectedImported, "voitures en base = " + rows);
+            check(plates == rows, "immatriculations distinctes = " + plates);
+            List<VoitureImportRejection> rejections = voitureService.getImportRejections("csv-1", 0, 3);
+            System.out.println("Premiers rejets : " + rejections);
+            check(rejections.size() == 3 && rejections.get(0).getRecordNumber() == INVALID_EVERY, "premiers rejets");
+
+            // 4. Résumés de parc et statistiques en mémoire
+            long corrected = voitureService.rebuildFleetSummaries().getClientsCorrected();
+            check(corrected == 0, "résumés corrigés par la réconciliation = " + corrected);
+            long counted = voitureService.getPrixStatistics(List.of(), List.of(50.0), Map.of()).getVoitureCount();
+            check(counted == rows, "voitures dans les statistiques en mémoire = " + counted);
+
+            // 5. Renvoi d'un import terminé : rien n'est relu
+            start = System.nanoTime();
+            try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+                result = voitureService.importVoitures("csv-1", VoitureImport.Format.CSV, reader);
+            }
+            check(result.getImportedCount() == expectedImported, "renvoi d'un import terminé");
+            System.out.printf("Renvoi d'un import terminé : %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(ndjson);
+            Files.deleteIfExists(directory);
+        }
+        System.out.println(failures == 0 ? "OK" : failures + " vérification(s) en échec");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Écrit les deux fichiers (immatriculations distinctes d'un fichier à l'autre)
+     * 
+     * @return Le nombre d'enregistrements à rejeter dans chaque fichier
+     */
+    private static long write(Path csv, Path ndjson) throws IOException {
+        long rejected = 0;
+        try (BufferedWriter csvWriter = Files.newBufferedWriter(csv, StandardCharsets.UTF_8);
+             BufferedWriter ndjsonWriter = Files.newBufferedWriter(ndjson, StandardCharsets.UTF_8)) {
+            csvWriter.write("immatriculation,marque,modele,couleur,prix,clientId,commentaire\n");
+            for (long i = 1; i <= VOITURES; i++) {
+                String marque = Fixtures.voiture(i, CLIENTS).getMarque();
+                String modele = Fixtures.voiture(i, CLIENTS).getModele();
+                String couleur = i % 7 == 0 ? "" : Fixtures.voiture(i, CLIENTS).getCouleur();
+                // Demi-centimes : les résumés doivent arrondir comme la base
+                String prix = i % INVALID_EVERY == 0 ? "n/a" : String.valueOf(10_000 + i % 40_000 + (i % 1000) / 1000.0);
+                // Répète l'immatriculation de l'enregistrement précédent
+                long plate = i % DUPLICATE_EVERY == 0 ? i - 1 : i;
+                long clientId = i % CLIENTS + 1;
+                if (i % INVALID_EVERY == 0 || i % DUPLICATE_EVERY == 0) {
+                    rejected++;
+                }
+                csvWriter.write(Fixtures.immatriculation(plate) + "," + marque + ",\"" + modele + "\"," + couleur + ","
+                        + prix + "," + clientId + ",\"importé, \"\"lot\"\" " + i + "\"\n");
+                ndjsonWriter.write("{\"immatriculation\":\"" + Fixtures.immatriculation(VOITURES + plate)
+                        + "\",\"marque\":\"" + marque + "\",\"modele\":\"" + modele + "\",\"couleur\":"
+                        + (couleur.isEmpty() ? "null" : "\"" + couleur + "\"") + ",\"prix\":"
+                        + (i % INVALID_EVERY == 0 ? "\"n/a\"" : prix) + ",\"clientId\":" + clientId + "}\n");
+            }
+        }
+        return rejected;
+    }
+
+    private static void checkResult(VoitureImport result, long imported, long rejected) {
+        check(result.getStatus() == VoitureImport.Status.COMPLETED, "statut " + result.getStatus());
+        check(result.getRecordCount() == VOITURES, "enregistrements traités = " + result.getRecordCount());
+        check(result.getImportedCount() == imported, "voitures importées = " + result.getImportedCount());
+        check(result.getRejectedCount() == rejected, "enregistrements rejetés = " + result.getRejectedCount());
+    }
+
+    private static void printRate(String name, VoitureImport result, long start) {
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%s : %d enregistrements (%d importés, %d rejetés) en %d ms, %d enregistrements/s%n",
+                name, result.getRecordCount(), result.getImportedCount(), result.getRejectedCount(),
+                TimeUnit.NANOSECONDS.toMillis(nanos), result.getRecordCount() * 1_000_000_000L / nanos);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            failures++;
+            System.out.println("ÉCHEC : " + message);
+        }
+    }
+
+    /**
+     * Lecture coupée après limit caractères, comme une connexion interrompue pendant l'envoi
+     */
+    private static final class InterruptedReader extends FilterReader {
+
+        private long remaining;
+
+        InterruptedReader(Reader in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                throw new IOException("Connexion interrompue (simulée)");
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            remaining -= Math.max(read, 0);
+            return read;
+        }
+    }
+}
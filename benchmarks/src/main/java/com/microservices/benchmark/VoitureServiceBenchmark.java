@@ -0,0 +1,133 @@
+package com.microservices.benchmark;
+
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoiturePage;
+import com.microservices.voiture.model.VoitureSuggestion;
+import com.microservices.voiture.repository.VoitureRepository;
+import com.microservices.voiture.search.VoitureSearchIndex;
+import com.microservices.voiture.service.VoitureService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opérations CRUD de VoitureService contre une base H2 en mémoire (mode MySQL)
+ * 
+ * Les plans d'exécution de H2 ne sont pas ceux de MySQL : ces mesures servent à comparer
+ * deux versions du code entre elles, pas à prédire la latence en production.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VoitureServiceBenchmark {
+
+    private static final int VOITURES = 20_000;
+    private static final int CLIENTS = 2_000;
+
+    private ConfigurableApplicationContext context;
+    private VoitureService voitureService;
+    private VoitureRepository voitureRepository;
+
+    /**
+     * Compteur des voitures créées par createAndDelete (immatriculations hors du jeu initial)
+     */
+    private final AtomicLong created = new AtomicLong(VOITURES);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = ServiceContexts.startVoitureService("voitures_crud");
+        Fixtures.insertVoitures(context.getBean(JdbcTemplate.class), VOITURES, CLIENTS);
+        context.getBean(VoitureSearchIndex.class).rebuild();
+        voitureService = context.getBean(VoitureService.class);
+        voitureRepository = context.getBean(VoitureRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private static long randomId() {
+        return ThreadLocalRandom.current().nextLong(1, VOITURES + 1);
+    }
+
+    /**
+     * Lecture par ID à travers le cache Caffeine (chaud après le warmup)
+     */
+    @Benchmark
+    public Voiture getVoitureByIdCached() {
+        return voitureService.getVoitureById(randomId());
+    }
+
+    /**
+     * Lecture par ID sans cache (requête SQL à chaque appel)
+     */
+    @Benchmark
+    public Optional<Voiture> findById() {
+        return voitureRepository.findById(randomId());
+    }
+
+    /**
+     * Page de 100 voitures à partir d'un curseur aléatoire
+     */
+    @Benchmark
+    public VoiturePage getVoituresPage() {
+        return voitureService.getVoituresPage(randomId(), 100);
+    }
+
+    @Benchmark
+    public List<VoitureSuggestion> searchVoitures() {
+        return voitureService.searchVoitures("clio", 10);
+    }
+
+    /**
+     * Création puis suppression (le volume de la table reste constant)
+     */
+    @Benchmark
+    public boolean createAndDelete() {
+        Voiture voiture = Fixtures.voiture(created.getAndIncrement(), CLIENTS);
+        Voiture saved = voitureService.createVoiture(voiture);
+        return voitureService.deleteVoiture(saved.getId());
+    }
+
+    /**
+     * Remplacement complet (PUT) : lecture puis écriture JPA
+     */
+    @Benchmark
+    public Voiture updateVoiture() {
+        long id = randomId();
+        Voiture voiture = Fixtures.voiture(id - 1, CLIENTS);
+        voiture.setPrix(ThreadLocalRandom.current().nextDouble(5_000, 50_000));
+        return voitureService.updateVoiture(id, voiture);
+    }
+
+    /**
+     * Mise à jour partielle (PATCH) : un seul UPDATE
+     */
+    @Benchmark
+    public boolean patchVoiture() {
+        return voitureService.patchVoiture(randomId(),
+                Map.of("prix", ThreadLocalRandom.current().nextDouble(5_000, 50_000)), null);
+    }
+}
@@ -0,0 +1,72 @@
+package com.microservices.client.config;
+
+import com.microservices.database.BulkheadDataSource;
+import com.microservices.database.DatabaseBulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Configuration de la limite d'accès simultanés à la base
+ * 
+ * La DataSource (pool Hikari de la primaire) est enveloppée dans une BulkheadDataSource :
+ * tous les accès (JPA, JdbcTemplate) à la primaire passent par le DatabaseBulkhead.
+ * Chaque réplique en lecture a son propre bulkhead (ReadReplicas), dimensionné sur son pool.
+ */
+@Configuration
+public class DatabaseBulkheadConfig {
+
+    /**
+     * Bulkhead dimensionné par défaut sur la taille du pool de connexions
+     */
+    @Bean
+    public DatabaseBulkhead databaseBulkhead(
+            @Value("${client.db.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int maxConcurrency,
+            @Value("${client.db.max-queue:200}") int maxQueue,
+            @Value("${client.db.max-wait:500ms}") Duration maxWait,
+            @Value("${client.db.retry-after:1s}") Duration retryAfter,
+            MeterRegistry meterRegistry) {
+        return new DatabaseBulkhead("primary", maxConcurrency, maxQueue, maxWait, retryAfter, meterRegistry);
+    }
+
+    /**
+     * Enveloppe chaque DataSource dans une BulkheadDataSource
+     * (méthode static : un BeanPostProcessor doit être créé avant les autres beans)
+     * 
+     * Appliqué en premier, directement sur le pool de la primaire : le routage vers les répliques
+     * (ReadReplicasConfig) enveloppe la primaire déjà limitée, les répliques gardent leurs propres permis.
+     */
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(ObjectProvider<DatabaseBulkhead> bulkhead) {
+        return new BulkheadDataSourcePostProcessor(bulkhead);
+    }
+
+    private static final class BulkheadDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<DatabaseBulkhead> bulkhead;
+
+        BulkheadDataSourcePostProcessor(ObjectProvider<DatabaseBulkhead> bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                return new BulkheadDataSource(dataSource, bulkhead.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
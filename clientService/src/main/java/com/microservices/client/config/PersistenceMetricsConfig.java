@@ -0,0 +1,59 @@
+package com.microservices.client.config;
+
+import com.microservices.database.SqlMetrics;
+import com.microservices.database.SqlMetricsDataSource;
+import com.microservices.database.SqlStatementCountFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+
+/**
+ * Configuration des métriques de la couche de persistance
+ * 
+ * Complète les métriques fournies par Spring Boot (spring.data.repository.invocations,
+ * hibernate.*, hikaricp.*) par la mesure de chaque requête SQL, le journal des requêtes lentes
+ * et le détecteur de requêtes N+1.
+ * 
+ * Activée par client.sql-metrics.enabled=true
+ */
+@Configuration
+@ConditionalOnProperty(name = "client.sql-metrics.enabled", havingValue = "true")
+public class PersistenceMetricsConfig {
+
+    @Bean
+    public SqlMetrics sqlMetrics(@Value("${client.sql-metrics.slow-query-threshold:200ms}") Duration slowQueryThreshold,
+                                 MeterRegistry meterRegistry) {
+        return new SqlMetrics(slowQueryThreshold, meterRegistry);
+    }
+
+    @Bean
+    public SqlStatementCountFilter sqlStatementCountFilter(SqlMetrics sqlMetrics,
+                                                           @Value("${client.sql-metrics.max-statements-per-request:10}") int maxStatements,
+                                                           MeterRegistry meterRegistry) {
+        return new SqlStatementCountFilter(sqlMetrics, maxStatements, meterRegistry);
+    }
+
+    /**
+     * Enveloppe chaque DataSource dans une SqlMetricsDataSource
+     * (méthode static : un BeanPostProcessor doit être créé avant les autres beans)
+     */
+    @Bean
+    public static BeanPostProcessor sqlMetricsDataSourcePostProcessor(ObjectProvider<SqlMetrics> sqlMetrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SqlMetricsDataSource)) {
+                    return new SqlMetricsDataSource(dataSource, sqlMetrics.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
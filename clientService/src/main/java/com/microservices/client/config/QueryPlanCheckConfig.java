@@ -0,0 +1,42 @@
+package com.microservices.client.config;
+
+import com.microservices.database.QueryPlanCheck;
+import com.microservices.database.SqlCaptureInspector;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Configuration de la vérification des plans d'exécution au démarrage (voir QueryPlanCheck)
+ * 
+ * Activée par client.query-plan-check.enabled=true
+ */
+@Configuration
+@ConditionalOnProperty(name = "client.query-plan-check.enabled", havingValue = "true")
+public class QueryPlanCheckConfig {
+
+    @Bean
+    public SqlCaptureInspector sqlCaptureInspector() {
+        return new SqlCaptureInspector();
+    }
+
+    /**
+     * Enregistre le SqlCaptureInspector auprès d'Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer sqlCaptureHibernateCustomizer(SqlCaptureInspector sqlCaptureInspector) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCaptureInspector);
+    }
+
+    @Bean
+    public QueryPlanCheck queryPlanCheck(ApplicationContext applicationContext, JdbcTemplate jdbcTemplate,
+                                         PlatformTransactionManager transactionManager,
+                                         SqlCaptureInspector sqlCaptureInspector) {
+        return new QueryPlanCheck(applicationContext, jdbcTemplate, transactionManager, sqlCaptureInspector);
+    }
+}
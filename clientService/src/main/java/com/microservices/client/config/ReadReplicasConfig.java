@@ -0,0 +1,98 @@
+package com.microservices.client.config;
+
+import com.microservices.database.DatabaseBulkhead;
+import com.microservices.database.ReadReplicas;
+import com.microservices.database.ReadWriteRoutingDataSource;
+import com.microservices.database.ReadYourWritesFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * Configuration des répliques en lecture
+ * 
+ * Les lectures des services (ReadRouting.replicaRead()) vont à une réplique dont le retard
+ * mesuré ne dépasse pas max-lag ; les écritures et un appelant qui vient d'écrire
+ * (ReadYourWritesFilter) restent sur la primaire.
+ * 
+ * Activée par client.read-replicas.enabled=true
+ */
+@Configuration
+@ConditionalOnProperty(name = "client.read-replicas.enabled", havingValue = "true")
+public class ReadReplicasConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReadReplicas readReplicas(@Value("${client.read-replicas.urls}") String urls,
+                                     @Value("${spring.datasource.username:}") String username,
+                                     @Value("${spring.datasource.password:}") String password,
+                                     @Value("${client.read-replicas.pool-size:10}") int poolSize,
+                                     @Value("${client.read-replicas.max-lag:3s}") Duration maxLag,
+                                     @Value("${client.read-replicas.check-interval:1s}") Duration checkInterval,
+                                     @Value("${client.read-replicas.read-your-writes-window:5s}") Duration window,
+                                     ObjectProvider<JdbcTemplate> jdbcTemplate,
+                                     DatabaseBulkhead databaseBulkhead,
+                                     MeterRegistry meterRegistry) {
+        List<String> replicaUrls = Arrays.stream(urls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        if (replicaUrls.isEmpty()) {
+            throw new IllegalArgumentException("client.read-replicas.urls est vide");
+        }
+        // Une réplique peut être en retard de max-lag sans être écartée avant la mesure suivante
+        if (window.compareTo(maxLag.plus(checkInterval)) < 0) {
+            throw new IllegalArgumentException("client.read-replicas.read-your-writes-window (" + window
+                    + ") doit couvrir max-lag + check-interval (" + maxLag.plus(checkInterval) + ")");
+        }
+        return new ReadReplicas("client", replicaUrls, username, password, poolSize, maxLag, checkInterval, jdbcTemplate,
+                databaseBulkhead, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${client.read-replicas.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesFilter("client", window);
+    }
+
+    /**
+     * Enveloppe chaque DataSource dans une ReadWriteRoutingDataSource
+     * (méthode static : un BeanPostProcessor doit être créé avant les autres beans)
+     * 
+     * Appliqué juste après le bulkhead de la primaire (qui ne limite donc que la primaire) et avant
+     * les métriques SQL, qui voient aussi les requêtes envoyées aux répliques.
+     */
+    @Bean
+    public static BeanPostProcessor readWriteRoutingDataSourcePostProcessor(ObjectProvider<ReadReplicas> replicas) {
+        return new RoutingDataSourcePostProcessor(replicas);
+    }
+
+    private static final class RoutingDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReadReplicas> replicas;
+
+        RoutingDataSourcePostProcessor(ObjectProvider<ReadReplicas> replicas) {
+            this.replicas = replicas;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof ReadWriteRoutingDataSource)) {
+                return new ReadWriteRoutingDataSource(dataSource, replicas.getObject());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE + 1;
+        }
+    }
+}
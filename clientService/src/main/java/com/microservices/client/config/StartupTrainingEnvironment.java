@@ -0,0 +1,34 @@
+package com.microservices.client.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Configuration d'une exécution d'entraînement CDS (voir StartupTrainingConfig) :
+ * démarrage complet du contexte sans base de données ni agent Consul
+ * 
+ * Ces propriétés ne sont lues qu'à l'exécution, elles restent donc valables avec le traitement AOT
+ * (qui fige en revanche les conditions @ConditionalOnProperty, ex. spring.flyway.enabled).
+ * Enregistré dans META-INF/spring.factories.
+ */
+public class StartupTrainingEnvironment implements EnvironmentPostProcessor {
+
+    private static final Map<String, Object> TRAINING_PROPERTIES = Map.of(
+            // Ni validation du schéma ni lecture des métadonnées JDBC (dialecte déjà configuré)
+            "spring.jpa.hibernate.ddl-auto", "none",
+            "spring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults", "false",
+            "spring.cloud.consul.discovery.register", "false",
+            // Port libre : l'entraînement peut tourner à côté d'une instance démarrée
+            "server.port", "0");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (StartupTrainingConfig.isTrainingRun()) {
+            environment.getPropertySources().addFirst(new MapPropertySource("startupTraining", TRAINING_PROPERTIES));
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package com.microservices.client.controller;
 
 import com.microservices.client.model.Client;
+import com.microservices.client.model.ClientBatchResult;
+import com.microservices.client.model.ClientChangePage;
+import com.microservices.client.service.ClientChangeFeed;
 import com.microservices.client.service.ClientService;
+import com.microservices.database.ETags;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Contrôleur REST pour gérer les opérations sur les clients
@@ -28,11 +39,31 @@ public class ClientController {
     @Autowired
     private ClientService clientService;
 
+    /**
+     * Journal des changements de clients (GET /api/clients/changes)
+     */
+    @Autowired
+    private ClientChangeFeed clientChangeFeed;
+
+    /**
+     * Nombre maximal de clients acceptés dans un import en masse
+     */
+    @Value("${client.batch.max-size:50000}")
+    private int batchMaxSize;
+
+    /**
+     * Type de contenu JSON Merge Patch (RFC 7396) accepté par PATCH, en plus de application/json
+     */
+    public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
     /**
      * Récupère tous les clients
      * 
      * GET /api/clients
      * 
+     * En JSON par défaut, en CBOR avec l'en-tête Accept: application/cbor (voir CborConfig),
+     * comme les autres réponses de ce contrôleur.
+     * 
      * @return Liste de tous les clients
      */
     @GetMapping
@@ -41,19 +72,65 @@ public class ClientController {
         return ResponseEntity.ok(clients);
     }
 
+    /**
+     * Récupère plusieurs clients en un seul appel
+     * 
+     * GET /api/clients?ids=1,2,3
+     * 
+     * @param ids Les identifiants des clients
+     * @return Les clients trouvés, indexés par ID (les IDs inconnus sont absents)
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<Map<Long, Client>> getClientsByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(clientService.getClientsByIds(ids));
+    }
+
+    /**
+     * Changements de clients postérieurs à un numéro (création, modification, suppression)
+     * 
+     * GET /api/clients/changes?since=0&limit=1000&wait=30
+     * 
+     * Le journal est compacté : seule la dernière entrée de chaque client est conservée.
+     * L'appelant relit avec since=nextSince ; s'il est à jour, la réponse attend le prochain
+     * changement au plus wait secondes (bornée par client.changes.max-wait).
+     * Si lastSeq est inférieur à since, le journal a été réinitialisé : repartir de 0.
+     * 
+     * @param since Le dernier numéro déjà lu (0 pour tout lire)
+     * @param limit Le nombre maximal de changements
+     * @param wait L'attente maximale en secondes s'il n'y a aucun changement (0 : réponse immédiate)
+     * @return Les changements, par numéro croissant
+     */
+    @GetMapping("/changes")
+    public DeferredResult<ClientChangePage> getChanges(@RequestParam(defaultValue = "0") long since,
+                                                       @RequestParam(defaultValue = "1000") int limit,
+                                                       @RequestParam(defaultValue = "0") long wait) {
+        return clientChangeFeed.changes(since, limit, Duration.ofSeconds(Math.max(0, wait)));
+    }
+
     /**
      * Récupère un client par son ID
      * 
      * GET /api/clients/{id}
      * 
+     * La réponse porte un ETag (version du client). Si la requête contient If-None-Match
+     * avec cet ETag, seule la version est lue en base et la réponse est 304 sans body.
+     * 
      * @param id L'identifiant du client
-     * @return Le client trouvé ou 404 si non trouvé
+     * @param ifNoneMatch Les ETags déjà connus par l'appelant (optionnel)
+     * @return Le client trouvé, 304 s'il n'a pas changé ou 404 si non trouvé
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Client> getClientById(@PathVariable Long id) {
+    public ResponseEntity<Client> getClientById(@PathVariable Long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Long version = clientService.getClientVersion(id);
+            if (version != null && ETags.matches(ifNoneMatch, ETags.of("v" + version))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of("v" + version)).build();
+            }
+        }
         Client client = clientService.getClientById(id);
         if (client != null) {
-            return ResponseEntity.ok(client);
+            return ResponseEntity.ok().eTag(ETags.of("v" + client.getVersion())).body(client);
         }
         return ResponseEntity.notFound().build();
     }
@@ -72,6 +149,23 @@ public class ClientController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdClient);
     }
 
+    /**
+     * Crée des clients en masse
+     * 
+     * POST /api/clients/batch
+     * 
+     * @param clients Les clients à créer (tableau JSON dans le body)
+     * @return Un résultat par client (CREATED, DUPLICATE ou INVALID), 413 si le lot est trop grand ;
+     *         un email inséré en parallèle par une autre requête ne rejette que la ligne concernée (DUPLICATE)
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<ClientBatchResult>> createClients(@RequestBody List<Client> clients) {
+        if (clients.size() > batchMaxSize) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        return ResponseEntity.ok(clientService.createClients(clients));
+    }
+
     /**
      * Met à jour un client existant
      * 
@@ -91,16 +185,53 @@ public class ClientController {
     }
 
     /**
-     * Supprime un client
+     * Modifie uniquement les champs fournis d'un client (une seule requête UPDATE)
+     * 
+     * PATCH /api/clients/{id} avec par ex. {"adresse": "12 rue de la Paix"}
+     * 
+     * Un champ à null est effacé (s'il est facultatif). Avec If-Match: "v<version>",
+     * la modification n'a lieu que si le client a encore cette version (sinon 412),
+     * et la réponse porte le nouvel ETag.
+     * 
+     * @param id L'identifiant du client
+     * @param changes Les champs à modifier
+     * @param ifMatch L'ETag de la version attendue (optionnel)
+     * @return 204 (No Content) si modifié, 404 si non trouvé, 400 si un champ est invalide,
+     *         409 si l'email est déjà utilisé
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_MERGE_PATCH_JSON_VALUE})
+    public ResponseEntity<Void> patchClient(@PathVariable Long id, @RequestBody Map<String, Object> changes,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.version(ifMatch, "v");
+        boolean patched;
+        try {
+            patched = clientService.patchClient(id, changes, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (patched) {
+            return expectedVersion != null
+                    ? ResponseEntity.noContent().eTag(ETags.of("v" + (expectedVersion + 1))).build()
+                    : ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Supprime un client (une seule requête DELETE)
      * 
      * DELETE /api/clients/{id}
      * 
+     * Avec If-Match: "v<version>", la suppression n'a lieu que si le client a encore cette version (sinon 412).
+     * 
      * @param id L'identifiant du client à supprimer
+     * @param ifMatch L'ETag de la version attendue (optionnel)
      * @return 204 (No Content) si supprimé, 404 si non trouvé
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteClient(@PathVariable Long id) {
-        boolean deleted = clientService.deleteClient(id);
+    public ResponseEntity<Void> deleteClient(@PathVariable Long id,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        boolean deleted = clientService.deleteClient(id, ETags.version(ifMatch, "v"));
         if (deleted) {
             return ResponseEntity.noContent().build();
         }
@@ -0,0 +1,47 @@
+package com.microservices.client.controller;
+
+import com.microservices.database.DatabaseOverloadedException;
+import com.microservices.client.exception.InvalidPatchException;
+import com.microservices.client.exception.VersionConflictException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Traduction des exceptions en réponses HTTP pour tous les contrôleurs
+ * 
+ * @RestControllerAdvice : les méthodes @ExceptionHandler s'appliquent à tous les @RestController
+ * (l'exception est aussi reconnue lorsqu'elle est la cause d'une autre, ex. CannotCreateTransactionException)
+ */
+@RestControllerAdvice
+public class ControllerExceptionHandler {
+
+    /**
+     * Base saturée : 503 avec Retry-After (en secondes) pour que le client réessaie plus tard
+     */
+    @ExceptionHandler(DatabaseOverloadedException.class)
+    public ResponseEntity<String> handleDatabaseOverloaded(DatabaseOverloadedException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(e.getMessage());
+    }
+
+    /**
+     * Corps de PATCH invalide : 400 avec la raison
+     */
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<String> handleInvalidPatch(InvalidPatchException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * Version attendue (If-Match) périmée : 412, l'appelant doit relire l'enregistrement
+     */
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<String> handleVersionConflict(VersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+    }
+}
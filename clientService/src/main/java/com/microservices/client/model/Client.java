@@ -48,4 +48,12 @@ public class Client {
      * Adresse du client
      */
     private String adresse;
+
+    /**
+     * Version de l'enregistrement (verrouillage optimiste), incrémentée à chaque mise à jour
+     * Sert d'ETag pour les GET conditionnels
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
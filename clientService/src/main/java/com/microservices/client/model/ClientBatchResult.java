@@ -0,0 +1,45 @@
+package com.microservices.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat de création d'un client dans un import en masse (POST /api/clients/batch)
+ * 
+ * Un résultat est renvoyé pour chaque élément reçu, dans le même ordre.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientBatchResult {
+
+    /**
+     * Statut possible d'un élément de l'import
+     */
+    public enum Status {
+        CREATED,   // Client inséré
+        DUPLICATE, // Email déjà présent en base ou répété dans le lot
+        INVALID    // Champ obligatoire manquant
+    }
+
+    /**
+     * Position de l'élément dans le lot reçu
+     */
+    private int index;
+
+    /**
+     * Statut de l'élément
+     */
+    private Status status;
+
+    /**
+     * ID généré (uniquement si CREATED)
+     */
+    private Long id;
+
+    /**
+     * Message explicatif (uniquement en cas d'erreur)
+     */
+    private String message;
+}
@@ -0,0 +1,36 @@
+package com.microservices.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Entrée du journal des changements de clients (GET /api/clients/changes)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientChange {
+
+    /**
+     * Type de changement
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    /**
+     * Numéro de séquence, croissant dans l'ordre de validation des écritures
+     */
+    private long seq;
+
+    private Long clientId;
+
+    private Type type;
+
+    private Instant changedAt;
+}
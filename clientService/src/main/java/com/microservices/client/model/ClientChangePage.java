@@ -0,0 +1,34 @@
+package com.microservices.client.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Réponse de GET /api/clients/changes?since=
+ * 
+ * Le lecteur rappelle avec since=nextSince. Si lastSeq est inférieur au since envoyé,
+ * le journal a été recréé (base réinitialisée) : le lecteur doit repartir de since=0.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientChangePage {
+
+    /**
+     * Changements postérieurs à since, par numéro croissant (vide si aucun avant la fin de l'attente)
+     */
+    private List<ClientChange> changes;
+
+    /**
+     * Valeur de since pour l'appel suivant (numéro du dernier changement renvoyé)
+     */
+    private long nextSince;
+
+    /**
+     * Dernier numéro attribué au moment de la lecture
+     */
+    private long lastSeq;
+}
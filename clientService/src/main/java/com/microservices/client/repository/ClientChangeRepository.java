@@ -0,0 +1,123 @@
+package com.microservices.client.repository;
+
+import com.microservices.client.model.ClientChange;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Accès JDBC au journal des changements de clients (tables client_changes et client_change_sequence)
+ * 
+ * append() doit être appelé dans la transaction de l'écriture du client, après celle-ci : il insère
+ * les changements sans numéro (seq null, id auto-incrémenté) et ne verrouille que les lignes du client,
+ * les écritures de clients différents ne sont pas sérialisées.
+ * 
+ * assignSequence(), appelé après la validation, numérote les changements validés dans une transaction
+ * courte qui verrouille client_change_sequence : seuls les numérotages sont sérialisés entre eux,
+ * et les numéros deviennent visibles dans l'ordre croissant (un lecteur ne peut pas voir N+1 puis N).
+ * 
+ * Le journal est compacté : un UPDATED ou DELETED remplace l'entrée précédente du client.
+ * Un lecteur qui repart de 0 reçoit donc une entrée par client, quel que soit l'historique.
+ */
+@Repository
+public class ClientChangeRepository {
+
+    private static final String INSERT =
+            "INSERT INTO client_changes (client_id, change_type) VALUES (?, ?)";
+
+    private static final String SELECT_UNSEQUENCED = "SELECT id FROM client_changes WHERE seq IS NULL ORDER BY id LIMIT ?";
+
+    private static final String SELECT_AFTER = "SELECT seq, client_id, change_type, changed_at FROM client_changes "
+            + "WHERE seq > ? ORDER BY seq LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ajoute un changement par client, sans numéro (voir assignSequence())
+     * 
+     * @param clientIds Les clients modifiés
+     * @param type Le type de changement
+     */
+    public void append(List<Long> clientIds, ClientChange.Type type) {
+        if (type != ClientChange.Type.CREATED) {
+            jdbcTemplate.batchUpdate("DELETE FROM client_changes WHERE client_id = ?", clientIds, clientIds.size(),
+                    (ps, clientId) -> ps.setLong(1, clientId));
+        }
+        jdbcTemplate.batchUpdate(INSERT, clientIds, clientIds.size(), (ps, clientId) -> {
+            ps.setLong(1, clientId);
+            ps.setString(2, type.name());
+        });
+    }
+
+    /**
+     * Numérote les changements validés qui n'ont pas encore de numéro, par id croissant
+     * 
+     * La ligne de client_change_sequence est verrouillée avant la recherche : deux numérotages
+     * (de deux instances du service) ne peuvent pas attribuer les mêmes numéros, et un numérotage
+     * voit les numéros attribués par le précédent.
+     * 
+     * @param limit Le nombre maximal de changements numérotés
+     * @return Le nombre de changements numérotés
+     */
+    @Transactional
+    public int assignSequence(int limit) {
+        Long locked = jdbcTemplate.queryForObject("SELECT last_seq FROM client_change_sequence WHERE id = 1 FOR UPDATE",
+                Long.class);
+        long lastSeq = locked != null ? locked : 0L;
+        List<Long> ids = jdbcTemplate.queryForList(SELECT_UNSEQUENCED, Long.class, limit);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("UPDATE client_changes SET seq = ? WHERE id = ?", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, lastSeq + i + 1);
+                ps.setLong(2, ids.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.size();
+            }
+        });
+        jdbcTemplate.update("UPDATE client_change_sequence SET last_seq = ? WHERE id = 1", lastSeq + ids.size());
+        return ids.size();
+    }
+
+    /**
+     * @return true si des changements validés attendent leur numéro
+     */
+    public boolean hasUnsequenced() {
+        return !jdbcTemplate.queryForList(SELECT_UNSEQUENCED, Long.class, 1).isEmpty();
+    }
+
+    /**
+     * Lit les changements postérieurs à un numéro
+     * 
+     * @param since Le dernier numéro déjà lu (0 pour tout lire)
+     * @param limit Le nombre maximal de changements
+     * @return Les changements, par numéro croissant
+     */
+    public List<ClientChange> findAfter(long since, int limit) {
+        return jdbcTemplate.query(SELECT_AFTER, (rs, rowNum) -> new ClientChange(
+                rs.getLong("seq"),
+                rs.getLong("client_id"),
+                ClientChange.Type.valueOf(rs.getString("change_type")),
+                rs.getTimestamp("changed_at").toInstant()), since, limit);
+    }
+
+    /**
+     * Dernier numéro attribué (et validé)
+     */
+    public long lastSeq() {
+        Long lastSeq = jdbcTemplate.queryForObject("SELECT last_seq FROM client_change_sequence WHERE id = 1", Long.class);
+        return lastSeq != null ? lastSeq : 0L;
+    }
+}
@@ -0,0 +1,104 @@
+package com.microservices.client.repository;
+
+import com.microservices.client.model.Client;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accès JDBC direct à la table clients pour les insertions en masse et les écritures partielles
+ * 
+ * Avec GenerationType.IDENTITY, Hibernate doit exécuter chaque INSERT immédiatement
+ * pour connaître l'ID : il ne peut pas regrouper les insertions.
+ * Ici, les INSERT sont envoyés en batch JDBC ; avec rewriteBatchedStatements=true
+ * (dans l'URL MySQL), le driver les réécrit en INSERT multi-lignes.
+ * 
+ * Les modifications partielles et suppressions sont une seule requête UPDATE/DELETE
+ * (JPA relit l'entité avant de la modifier ou de la supprimer).
+ */
+@Repository
+public class ClientJdbcRepository {
+
+    private static final String INSERT =
+            "INSERT INTO clients (nom, prenom, email, adresse, version) VALUES (?, ?, ?, ?, 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insère les clients en un seul batch JDBC
+     * Participe à la transaction Spring en cours s'il y en a une.
+     * 
+     * @param clients Les clients à insérer
+     * @return Les IDs générés, dans l'ordre des clients
+     */
+    public List<Long> batchInsert(List<Client> clients) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Client client : clients) {
+                    ps.setString(1, client.getNom());
+                    ps.setString(2, client.getPrenom());
+                    ps.setString(3, client.getEmail());
+                    ps.setString(4, client.getAdresse());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(clients.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    /**
+     * Modifie les colonnes données d'un client et incrémente sa version, en une seule requête
+     * UPDATE clients SET ..., version = version + 1 WHERE id = ? [AND version = ?]
+     * 
+     * @param id L'identifiant du client
+     * @param columns Les colonnes modifiées et leurs valeurs (noms de colonnes issus d'une liste fixe)
+     * @param expectedVersion La version attendue, ou null pour modifier quelle que soit la version
+     * @return Le nombre de lignes modifiées (0 si le client n'existe pas ou n'a pas la version attendue)
+     */
+    public int update(Long id, Map<String, Object> columns, Long expectedVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE clients SET ");
+        List<Object> args = new ArrayList<>();
+        columns.forEach((column, value) -> {
+            sql.append(column).append(" = ?, ");
+            args.add(value);
+        });
+        sql.append("version = version + 1 WHERE id = ?");
+        args.add(id);
+        if (expectedVersion != null) {
+            sql.append(" AND version = ?");
+            args.add(expectedVersion);
+        }
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Supprime un client en une seule requête DELETE
+     * 
+     * @param id L'identifiant du client
+     * @param expectedVersion La version attendue, ou null pour supprimer quelle que soit la version
+     * @return Le nombre de lignes supprimées (0 si le client n'existe pas ou n'a pas la version attendue)
+     */
+    public int delete(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return jdbcTemplate.update("DELETE FROM clients WHERE id = ?", id);
+        }
+        return jdbcTemplate.update("DELETE FROM clients WHERE id = ? AND version = ?", id, expectedVersion);
+    }
+}
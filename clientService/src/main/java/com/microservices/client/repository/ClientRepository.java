@@ -2,8 +2,12 @@ package com.microservices.client.repository;
 
 import com.microservices.client.model.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -25,4 +29,24 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
      * @return Un Optional contenant le client s'il existe
      */
     Optional<Client> findByEmail(String email);
+
+    /**
+     * Parmi les emails donnés, retourne ceux déjà présents en base
+     * Une seule requête (WHERE email IN (...)) qui s'appuie sur l'index unique de la colonne email
+     * 
+     * @param emails Les emails à vérifier
+     * @return Les emails existants
+     */
+    @Query("SELECT c.email FROM Client c WHERE c.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Lit uniquement la version d'un client (sans charger l'entité)
+     * Utilisé pour répondre 304 Not Modified aux GET conditionnels
+     * 
+     * @param id L'identifiant du client
+     * @return La version du client s'il existe
+     */
+    @Query("SELECT c.version FROM Client c WHERE c.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
 }
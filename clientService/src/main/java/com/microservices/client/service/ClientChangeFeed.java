@@ -0,0 +1,216 @@
+package com.microservices.client.service;
+
+import com.microservices.client.model.ClientChange;
+import com.microservices.client.model.ClientChangePage;
+import com.microservices.client.repository.ClientChangeRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flux des changements de clients (GET /api/clients/changes?since=), avec attente longue ("long polling")
+ * 
+ * Les changements sont ajoutés sans numéro dans la transaction de l'écriture, puis numérotés après
+ * sa validation (ClientChangeRepository.assignSequence()) :
+ * - aussitôt pour les écritures de cette instance (synchronisation de transaction, les validations
+ *   rapprochées sont numérotées ensemble) ;
+ * - sinon toutes les poll-interval, si des changements attendent leur numéro (instance arrêtée
+ *   entre la validation et le numérotage).
+ * 
+ * Un lecteur à jour reste en attente (DeferredResult, sans occuper de thread) jusqu'au prochain
+ * changement ou jusqu'à la fin de son attente. Il est réveillé :
+ * - dès le numérotage des écritures faites par cette instance ;
+ * - sinon par une lecture du dernier numéro toutes les poll-interval, tant que des lecteurs attendent
+ *   (écritures faites par une autre instance du service).
+ * Les numérotages et les lectures du journal sont faits par un seul thread (client-changes).
+ */
+@Slf4j
+@Component
+public class ClientChangeFeed {
+
+    @Autowired
+    private ClientChangeRepository clientChangeRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Attente maximale d'un lecteur à jour
+     */
+    @Value("${client.changes.max-wait:30s}")
+    private Duration maxWait;
+
+    /**
+     * Intervalle de lecture du dernier numéro tant que des lecteurs attendent
+     */
+    @Value("${client.changes.poll-interval:1s}")
+    private Duration pollInterval;
+
+    /**
+     * Nombre maximal de changements par réponse
+     */
+    @Value("${client.changes.max-page-size:10000}")
+    private int maxPageSize;
+
+    /**
+     * Nombre maximal de changements numérotés par transaction
+     */
+    private static final int SEQUENCE_BATCH = 10_000;
+
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final AtomicLong lastKnownSeq = new AtomicLong();
+    private final AtomicBoolean sequencePending = new AtomicBoolean();
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "client-changes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        Gauge.builder("client.changes.waiters", waiters, Queue::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Ajoute des changements au journal, dans la transaction en cours (obligatoire)
+     * Ils sont numérotés après la validation, puis les lecteurs en attente sont réveillés.
+     * 
+     * @param clientIds Les clients modifiés (rien n'est fait si la liste est vide)
+     * @param type Le type de changement
+     */
+    public void record(List<Long> clientIds, ClientChange.Type type) {
+        if (clientIds.isEmpty()) {
+            return;
+        }
+        clientChangeRepository.append(clientIds, type);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                if (sequencePending.compareAndSet(false, true)) {
+                    scheduler.execute(() -> {
+                        sequencePending.set(false);
+                        sequence();
+                        wakeUp();
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Changements postérieurs à since ; s'il n'y en a aucun, attend le prochain au plus wait
+     * 
+     * @param since Le dernier numéro déjà lu
+     * @param limit Le nombre maximal de changements (borné à max-page-size)
+     * @param wait L'attente maximale (bornée à max-wait, zéro pour répondre tout de suite)
+     * @return La page (sans changement si l'attente s'est terminée sans changement)
+     */
+    public DeferredResult<ClientChangePage> changes(long since, int limit, Duration wait) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        Duration timeout = wait.compareTo(maxWait) > 0 ? maxWait : wait;
+        DeferredResult<ClientChangePage> result = new DeferredResult<>(Math.max(1, timeout.toMillis()),
+                () -> new ClientChangePage(List.of(), since, clientChangeRepository.lastSeq()));
+        ClientChangePage page = read(since, size);
+        if (!page.getChanges().isEmpty() || timeout.isZero() || timeout.isNegative()) {
+            result.setResult(page);
+            return result;
+        }
+        Waiter waiter = new Waiter(since, size, result);
+        waiters.add(waiter);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // Changement validé entre la lecture et l'enregistrement du lecteur : il ne doit pas attendre
+        if (lastKnownSeq.get() > since) {
+            scheduler.execute(this::wakeUp);
+        }
+        return result;
+    }
+
+    private ClientChangePage read(long since, int limit) {
+        List<ClientChange> changes = clientChangeRepository.findAfter(since, limit);
+        long lastSeq = clientChangeRepository.lastSeq();
+        lastKnownSeq.accumulateAndGet(lastSeq, Math::max);
+        long nextSince = changes.isEmpty() ? since : changes.get(changes.size() - 1).getSeq();
+        return new ClientChangePage(changes, nextSince, lastSeq);
+    }
+
+    /**
+     * Numérote les changements validés qui n'ont pas encore de numéro
+     */
+    private void sequence() {
+        try {
+            while (clientChangeRepository.assignSequence(SEQUENCE_BATCH) == SEQUENCE_BATCH) {
+                // Lot complet : d'autres changements attendent peut-être
+            }
+            lastKnownSeq.accumulateAndGet(clientChangeRepository.lastSeq(), Math::max);
+        } catch (RuntimeException e) {
+            // Nouvel essai à la prochaine lecture périodique
+            log.warn("Numérotage du journal des changements de clients impossible : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Numérotage des changements restés sans numéro, puis lecture du dernier numéro (écritures
+     * des autres instances) tant que des lecteurs attendent
+     */
+    private void poll() {
+        try {
+            if (clientChangeRepository.hasUnsequenced()) {
+                sequence();
+            }
+            if (waiters.isEmpty()) {
+                return;
+            }
+            lastKnownSeq.accumulateAndGet(clientChangeRepository.lastSeq(), Math::max);
+            wakeUp();
+        } catch (RuntimeException e) {
+            log.warn("Lecture du journal des changements de clients impossible : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Répond aux lecteurs en retard sur le dernier numéro connu
+     */
+    private void wakeUp() {
+        long seq = lastKnownSeq.get();
+        for (Waiter waiter : waiters) {
+            if (waiter.since() < seq && !waiter.result().isSetOrExpired()) {
+                try {
+                    ClientChangePage page = read(waiter.since(), waiter.limit());
+                    if (!page.getChanges().isEmpty()) {
+                        waiter.result().setResult(page);
+                    }
+                } catch (RuntimeException e) {
+                    waiter.result().setErrorResult(e);
+                }
+            }
+        }
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<ClientChangePage> result) {
+    }
+}
@@ -1,18 +1,41 @@
 package com.microservices.client.service;
 
+import com.microservices.database.ReadRouting;
+import com.microservices.client.exception.InvalidPatchException;
+import com.microservices.client.exception.VersionConflictException;
 import com.microservices.client.model.Client;
+import com.microservices.client.model.ClientBatchResult;
+import com.microservices.client.model.ClientChange;
+import com.microservices.client.repository.ClientJdbcRepository;
 import com.microservices.client.repository.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service métier pour la gestion des clients
  * 
  * @Service : Indique que cette classe est un service Spring
  * Contient la logique métier de l'application
+ * 
+ * Les lectures getAllClients, getClientById et getClientsByIds peuvent aller à une réplique
+ * (ReadRouting.replicaRead()) ; les versions (préconditions If-Match) sont lues sur la primaire.
  */
 @Service
 public class ClientService {
@@ -23,13 +46,57 @@ public class ClientService {
     @Autowired
     private ClientRepository clientRepository;
 
+    /**
+     * Repository JDBC pour les insertions en masse
+     */
+    @Autowired
+    private ClientJdbcRepository clientJdbcRepository;
+
+    /**
+     * Journal des changements, alimenté dans la transaction de chaque écriture
+     */
+    @Autowired
+    private ClientChangeFeed clientChangeFeed;
+
+    /**
+     * Transactions des batchs de l'import en masse (une par batch)
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Nombre de lignes par batch JDBC lors d'un import en masse
+     */
+    @Value("${client.batch.chunk-size:1000}")
+    private int batchChunkSize;
+
+    /**
+     * Nombre maximal d'emails par requête IN (reste sous la limite de paramètres de MySQL)
+     */
+    private static final int EMAIL_LOOKUP_CHUNK = 10_000;
+
+    /**
+     * Nombre maximal d'IDs par requête IN lors des recherches groupées
+     */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /**
+     * Champs modifiables par PATCH (propriété JSON = colonne)
+     */
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("nom", "prenom", "email", "adresse");
+
+    /**
+     * Champs qui ne peuvent pas être mis à null (colonnes NOT NULL)
+     */
+    private static final Set<String> REQUIRED_FIELDS = Set.of("nom", "prenom", "email");
+
     /**
      * Récupère tous les clients
      * 
      * @return Liste de tous les clients
      */
     public List<Client> getAllClients() {
-        return clientRepository.findAll();
+        return ReadRouting.replicaRead(clientRepository::findAll);
     }
 
     /**
@@ -39,18 +106,190 @@ public class ClientService {
      * @return Le client trouvé ou null si non trouvé
      */
     public Client getClientById(Long id) {
-        Optional<Client> client = clientRepository.findById(id);
+        Optional<Client> client = ReadRouting.replicaRead(() -> clientRepository.findById(id));
         return client.orElse(null);
     }
 
+    /**
+     * Récupère plusieurs clients par leurs IDs
+     * Une requête IN par paquet de IN_CLAUSE_CHUNK IDs au lieu d'une requête par client.
+     * 
+     * @param ids Les identifiants des clients
+     * @return Les clients trouvés, indexés par ID dans l'ordre des IDs demandés
+     */
+    public Map<Long, Client> getClientsByIds(Collection<Long> ids) {
+        List<Long> keys = new ArrayList<>(new LinkedHashSet<>(ids));
+        keys.remove(null);
+        Map<Long, Client> found = new LinkedHashMap<>();
+        for (int from = 0; from < keys.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = keys.subList(from, Math.min(from + IN_CLAUSE_CHUNK, keys.size()));
+            for (Client client : ReadRouting.replicaRead(() -> clientRepository.findAllById(chunk))) {
+                found.put(client.getId(), client);
+            }
+        }
+        Map<Long, Client> result = new LinkedHashMap<>();
+        for (Long id : keys) {
+            if (found.containsKey(id)) {
+                result.put(id, found.get(id));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Récupère uniquement la version d'un client
+     * 
+     * @param id L'identifiant du client
+     * @return La version ou null si le client n'existe pas
+     */
+    public Long getClientVersion(Long id) {
+        return clientRepository.findVersionById(id).orElse(null);
+    }
+
     /**
      * Crée un nouveau client
      * 
      * @param client Le client à créer
      * @return Le client créé avec son ID généré
      */
+    @Transactional
     public Client createClient(Client client) {
-        return clientRepository.save(client);
+        client.setVersion(null); // Version initialisée par Hibernate
+        Client created = clientRepository.saveAndFlush(client);
+        clientChangeFeed.record(List.of(created.getId()), ClientChange.Type.CREATED);
+        return created;
+    }
+
+    /**
+     * Crée des clients en masse
+     * 
+     * - les éléments sans nom, prénom ou email sont rejetés (INVALID)
+     * - les emails répétés dans le lot ou déjà en base sont rejetés (DUPLICATE),
+     *   la vérification en base se fait par requêtes IN de EMAIL_LOOKUP_CHUNK emails
+     * - les clients valides sont insérés par batchs JDBC de chunk-size lignes, une transaction par batch :
+     *   un gros lot ne garde pas de verrous ni de transaction ouverte jusqu'à sa fin
+     * - un batch refusé par la base (email inséré entre-temps par une autre requête, ou que la comparaison
+     *   en mémoire n'a pas reconnu) est réessayé ligne par ligne : seules les lignes en cause sont rejetées
+     * 
+     * Les batchs déjà validés le restent si un batch suivant échoue : le résultat indique l'état de chaque ligne.
+     * 
+     * @param clients Les clients à créer
+     * @return Un résultat par client, dans le même ordre
+     */
+    public List<ClientBatchResult> createClients(List<Client> clients) {
+        List<ClientBatchResult> results = new ArrayList<>(clients.size());
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> emailsInBatch = new HashSet<>();
+
+        // 1. Validation et dédoublonnage à l'intérieur du lot
+        for (int i = 0; i < clients.size(); i++) {
+            Client client = clients.get(i);
+            if (client == null || isBlank(client.getNom()) || isBlank(client.getPrenom()) || isBlank(client.getEmail())) {
+                results.add(new ClientBatchResult(i, ClientBatchResult.Status.INVALID, null,
+                        "nom, prenom et email sont obligatoires"));
+            } else if (!emailsInBatch.add(emailKey(client.getEmail()))) {
+                results.add(new ClientBatchResult(i, ClientBatchResult.Status.DUPLICATE, null,
+                        "Email répété dans le lot"));
+            } else {
+                results.add(null);
+                candidates.add(i);
+            }
+        }
+
+        // 2. Emails déjà présents en base (colonne email unique, comparaison selon la collation de la colonne)
+        Set<String> existingEmails = new HashSet<>();
+        List<String> emails = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            emails.add(clients.get(i).getEmail());
+        }
+        for (int from = 0; from < emails.size(); from += EMAIL_LOOKUP_CHUNK) {
+            List<String> chunk = emails.subList(from, Math.min(from + EMAIL_LOOKUP_CHUNK, emails.size()));
+            for (String email : clientRepository.findExistingEmails(chunk)) {
+                existingEmails.add(emailKey(email));
+            }
+        }
+
+        List<Integer> toInsert = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            if (existingEmails.contains(emailKey(clients.get(i).getEmail()))) {
+                results.set(i, duplicate(i));
+            } else {
+                toInsert.add(i);
+            }
+        }
+
+        // 3. Insertion par batchs JDBC, une transaction par batch
+        for (int from = 0; from < toInsert.size(); from += batchChunkSize) {
+            List<Integer> chunk = toInsert.subList(from, Math.min(from + batchChunkSize, toInsert.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertChunk(clients, chunk, results));
+            } catch (DataIntegrityViolationException e) {
+                for (int i : chunk) {
+                    results.set(i, insertOne(clients, i));
+                }
+            }
+        }
+        return results;
+    }
+
+    private void insertChunk(List<Client> clients, List<Integer> chunk, List<ClientBatchResult> results) {
+        List<Client> batch = new ArrayList<>(chunk.size());
+        for (int i : chunk) {
+            batch.add(clients.get(i));
+        }
+        List<Long> ids = clientJdbcRepository.batchInsert(batch);
+        clientChangeFeed.record(ids, ClientChange.Type.CREATED);
+        for (int k = 0; k < chunk.size(); k++) {
+            int i = chunk.get(k);
+            results.set(i, new ClientBatchResult(i, ClientBatchResult.Status.CREATED, ids.get(k), null));
+        }
+    }
+
+    /**
+     * Insertion d'une seule ligne dans sa propre transaction (batch refusé par la base)
+     */
+    private ClientBatchResult insertOne(List<Client> clients, int i) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> {
+                List<Long> inserted = clientJdbcRepository.batchInsert(List.of(clients.get(i)));
+                clientChangeFeed.record(inserted, ClientChange.Type.CREATED);
+                return inserted;
+            });
+            return new ClientBatchResult(i, ClientBatchResult.Status.CREATED, ids.get(0), null);
+        } catch (DuplicateKeyException e) {
+            return duplicate(i);
+        } catch (DataIntegrityViolationException e) {
+            return new ClientBatchResult(i, ClientBatchResult.Status.INVALID, null, "Valeur refusée par la base");
+        }
+    }
+
+    private static ClientBatchResult duplicate(int i) {
+        return new ClientBatchResult(i, ClientBatchResult.Status.DUPLICATE, null, "Email déjà utilisé");
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Clé de comparaison d'un email proche de la collation de la colonne (utf8mb4_0900_ai_ci de MySQL 8) :
+     * insensible à la casse et aux accents ("Élodie@x.fr" = "elodie@X.FR"), ß = ss, æ = ae, œ = oe ;
+     * les espaces de fin comptent (collation NO PAD).
+     * 
+     * C'est une approximation : une égalité qu'elle ne reconnaît pas est refusée par l'index unique,
+     * et la ligne est alors rejetée par le réessai ligne par ligne.
+     */
+    static String emailKey(String email) {
+        String decomposed = Normalizer.normalize(email, Normalizer.Form.NFKD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+        decomposed.codePoints()
+                .filter(c -> Character.getType(c) != Character.NON_SPACING_MARK)
+                .forEach(key::appendCodePoint);
+        return key.toString()
+                .toUpperCase(Locale.ROOT)
+                .toLowerCase(Locale.ROOT)
+                .replace("æ", "ae")
+                .replace("œ", "oe");
     }
 
     /**
@@ -60,25 +299,94 @@ public class ClientService {
      * @param client Les nouvelles données du client
      * @return Le client mis à jour ou null si non trouvé
      */
+    @Transactional
     public Client updateClient(Long id, Client client) {
         Optional<Client> existingClient = clientRepository.findById(id);
         if (existingClient.isPresent()) {
             client.setId(id); // S'assurer que l'ID est correct
-            return clientRepository.save(client);
+            client.setVersion(existingClient.get().getVersion()); // Le PUT remplace la version courante
+            // flush : la ligne du client est verrouillée avant la compaction du journal
+            Client updated = clientRepository.saveAndFlush(client);
+            clientChangeFeed.record(List.of(id), ClientChange.Type.UPDATED);
+            return updated;
         }
         return null;
     }
 
+    /**
+     * Modifie uniquement les champs donnés d'un client, en une seule requête UPDATE
+     * 
+     * @param id L'identifiant du client
+     * @param changes Les champs modifiés (propriété JSON -> nouvelle valeur, null pour effacer)
+     * @param expectedVersion La version attendue (If-Match), ou null
+     * @return true si modifié, false si non trouvé
+     * @throws InvalidPatchException si un champ est inconnu, non modifiable ou invalide
+     * @throws VersionConflictException si le client existe mais n'a plus la version attendue
+     */
+    @Transactional
+    public boolean patchClient(Long id, Map<String, Object> changes, Long expectedVersion) {
+        if (changes == null || changes.isEmpty()) {
+            throw new InvalidPatchException("Aucun champ à modifier");
+        }
+        Map<String, Object> columns = new LinkedHashMap<>();
+        changes.forEach((field, value) -> {
+            if (!PATCHABLE_FIELDS.contains(field)) {
+                throw new InvalidPatchException("Champ inconnu ou non modifiable : " + field);
+            }
+            if (value == null && REQUIRED_FIELDS.contains(field)) {
+                throw new InvalidPatchException("Le champ " + field + " est obligatoire");
+            }
+            if (value != null && !(value instanceof String)) {
+                throw new InvalidPatchException("Valeur invalide pour le champ " + field + " : " + value);
+            }
+            columns.put(field, value);
+        });
+        if (clientJdbcRepository.update(id, columns, expectedVersion) == 0) {
+            return versionConflict(id, expectedVersion);
+        }
+        clientChangeFeed.record(List.of(id), ClientChange.Type.UPDATED);
+        return true;
+    }
+
     /**
      * Supprime un client
      * 
      * @param id L'identifiant du client à supprimer
      * @return true si supprimé, false si non trouvé
      */
+    @Transactional
     public boolean deleteClient(Long id) {
-        if (clientRepository.existsById(id)) {
-            clientRepository.deleteById(id);
-            return true;
+        return deleteClient(id, null);
+    }
+
+    /**
+     * Supprime un client en une seule requête DELETE
+     * 
+     * @param id L'identifiant du client à supprimer
+     * @param expectedVersion La version attendue (If-Match), ou null
+     * @return true si supprimé, false si non trouvé
+     * @throws VersionConflictException si le client existe mais n'a plus la version attendue
+     */
+    @Transactional
+    public boolean deleteClient(Long id, Long expectedVersion) {
+        if (clientJdbcRepository.delete(id, expectedVersion) == 0) {
+            return versionConflict(id, expectedVersion);
+        }
+        clientChangeFeed.record(List.of(id), ClientChange.Type.DELETED);
+        return true;
+    }
+
+    /**
+     * Aucune ligne modifiée : client absent (retourne false), ou présent avec une autre version
+     * que celle attendue (exception). La version n'est relue que dans ce cas.
+     */
+    private boolean versionConflict(Long id, Long expectedVersion) {
+        if (expectedVersion != null) {
+            Optional<Long> version = clientRepository.findVersionById(id);
+            if (version.isPresent()) {
+                throw new VersionConflictException("Version attendue " + expectedVersion
+                        + ", version actuelle " + version.get());
+            }
         }
         return false;
     }
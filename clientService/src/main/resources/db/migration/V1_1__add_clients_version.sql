@@ -0,0 +1,3 @@
+-- Version de chaque client (verrouillage optimiste, ETag "v<version>")
+-- Absente des bases créées par Hibernate avant les migrations : les clients existants partent de 0
+ALTER TABLE clients ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,13 @@
+-- Schéma initial de la table clients (identique à celui généré auparavant par Hibernate)
+-- IF NOT EXISTS : une base existante créée par ddl-auto=update est reprise telle quelle,
+-- la colonne version lui est ajoutée par V1_1
+-- L'index unique sur email sert aussi à findByEmail et findExistingEmails
+CREATE TABLE IF NOT EXISTS clients (
+    id      BIGINT       NOT NULL AUTO_INCREMENT,
+    nom     VARCHAR(255) NOT NULL,
+    prenom  VARCHAR(255) NOT NULL,
+    email   VARCHAR(255) NOT NULL,
+    adresse VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_clients_email UNIQUE (email)
+) ENGINE = InnoDB;
@@ -0,0 +1,33 @@
+-- Journal des changements de clients (GET /api/clients/changes), lu par les autres services
+-- Compacté : seule la dernière entrée de chaque client est conservée (voir ClientChangeRepository)
+-- Chaque changement reçoit un id auto-incrémenté à l'insertion, sans verrou partagé entre les écritures
+-- de clients ; son numéro (seq) est attribué après la validation par ClientChangeRepository.assignSequence().
+CREATE TABLE IF NOT EXISTS client_changes (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    seq         BIGINT       NULL,
+    client_id   BIGINT       NOT NULL,
+    change_type VARCHAR(16)  NOT NULL,
+    changed_at  TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Lecture par numéro et recherche des changements sans numéro (seq IS NULL)
+CREATE UNIQUE INDEX idx_client_changes_seq ON client_changes (seq);
+
+-- Compaction : suppression de l'entrée précédente d'un client
+CREATE INDEX idx_client_changes_client_id ON client_changes (client_id);
+
+-- Dernier numéro attribué (une seule ligne) : verrouillée par assignSequence() seul jusqu'à sa validation,
+-- les numéros sont donc visibles dans l'ordre croissant (un lecteur ne peut pas voir N+1 puis N)
+CREATE TABLE IF NOT EXISTS client_change_sequence (
+    id       INT    NOT NULL,
+    last_seq BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Clients existants : une entrée CREATED chacun, numérotée par l'ID du client
+INSERT INTO client_changes (seq, client_id, change_type)
+SELECT id, id, 'CREATED' FROM clients;
+
+INSERT INTO client_change_sequence (id, last_seq)
+SELECT 1, COALESCE(MAX(seq), 0) FROM client_changes;
@@ -0,0 +1,50 @@
+package com.microservices.client.config;
+
+import com.microservices.client.model.Client;
+import com.microservices.client.service.ClientService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reprise d'une base créée par Hibernate (ddl-auto=update) avant les migrations Flyway
+ * 
+ * La table clients est créée avec le schéma généré alors par Hibernate (sans colonne version)
+ * avant le démarrage du service : Flyway adopte la base en version 0, applique les migrations,
+ * puis Hibernate valide les entités (ddl-auto=validate).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "test.database=legacy_clients")
+@ActiveProfiles("test")
+class LegacySchemaMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:legacy_clients;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private ClientService clientService;
+
+    @DynamicPropertySource
+    static void legacySchema(DynamicPropertyRegistry registry) {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbc.execute("create table clients (id bigint not null auto_increment, adresse varchar(255), "
+                + "email varchar(255) not null, nom varchar(255) not null, prenom varchar(255) not null, "
+                + "primary key (id)) engine=InnoDB");
+        jdbc.execute("alter table clients add constraint UK_email unique (email)");
+        jdbc.update("insert into clients (id, adresse, email, nom, prenom) values (1, 'Lyon', 'anne.martin@example.com', 'Martin', 'Anne')");
+    }
+
+    @Test
+    void clientsExistantsEnVersionZero() {
+        Client existing = clientService.getClientById(1L);
+        assertThat(existing.getVersion()).isZero();
+
+        existing.setAdresse("Paris");
+        assertThat(clientService.updateClient(1L, existing).getVersion()).isEqualTo(1L);
+    }
+}
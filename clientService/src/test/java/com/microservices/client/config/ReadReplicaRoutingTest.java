@@ -0,0 +1,157 @@
+package com.microservices.client.config;
+
+import com.microservices.client.model.Client;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lecture de ses propres écritures avec une réplique en retard, avec deux bases H2 en mémoire :
+ * la primaire du service et une "réplique" tenue à jour par le test (battement de réplication recopié
+ * toutes les 100 ms, tables copiées à la demande)
+ * 
+ * Après un POST, le GET de l'appelant qui renvoie le cookie lit la primaire (200) ;
+ * un GET sans le cookie lit la réplique, qui n'a pas encore le client (404).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "test.database=routing_clients",
+        "client.read-replicas.enabled=true",
+        "client.read-replicas.pool-size=4",
+        "client.read-replicas.max-lag=1s",
+        "client.read-replicas.check-interval=200ms",
+        "client.read-replicas.read-your-writes-window=2s"})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadReplicaRoutingTest {
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_clients_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final long WINDOW_MILLIS = 2000;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private Thread heartbeat;
+
+    /**
+     * Crée la base de la réplique (mêmes migrations que la primaire) avant le démarrage du contexte
+     */
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/migration").load().migrate();
+        registry.add("client.read-replicas.urls", () -> REPLICA_URL);
+    }
+
+    @BeforeAll
+    void startReplication() throws InterruptedException {
+        heartbeat = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                Long beat = primary.queryForObject("SELECT beat FROM replication_heartbeat WHERE id = 1", Long.class);
+                replica.update("UPDATE replication_heartbeat SET beat = ? WHERE id = 1", beat);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "replication-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!(replicaLag() <= 1.0)) {
+            assertThat(System.nanoTime()).as("réplique jamais à jour").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @AfterAll
+    void stopReplication() {
+        heartbeat.interrupt();
+    }
+
+    @Test
+    void callerReadsItsOwnWritesFromThePrimary() throws InterruptedException {
+        ResponseEntity<Client> created = restTemplate.postForEntity("/api/clients",
+                new Client(null, "Martin", "Léa", "lea.martin@example.com", "Paris", null), Client.class);
+        assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        String cookie = created.getHeaders().getFirst(HttpHeaders.SET_COOKIE);
+        assertThat(cookie).startsWith("client-primary-until=");
+        String path = "/api/clients/" + created.getBody().getId();
+        String cookieValue = cookie.split(";", 2)[0];
+
+        assertThat(get(path, cookieValue)).as("GET avec le cookie après POST : lu sur la primaire")
+                .isEqualTo(HttpStatus.OK);
+        assertThat(get(path, null)).as("GET sans le cookie : lu sur la réplique").isEqualTo(HttpStatus.NOT_FOUND);
+
+        Thread.sleep(WINDOW_MILLIS + 100);
+        assertThat(get(path, cookieValue)).as("GET avec un cookie expiré : lu sur la réplique")
+                .isEqualTo(HttpStatus.NOT_FOUND);
+
+        copy("clients");
+        assertThat(get(path, null)).as("GET après réplication").isEqualTo(HttpStatus.OK);
+    }
+
+    private HttpStatus get(String path, String cookie) {
+        HttpHeaders headers = new HttpHeaders();
+        if (cookie != null) {
+            headers.add(HttpHeaders.COOKIE, cookie);
+        }
+        return HttpStatus.valueOf(restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class)
+                .getStatusCode().value());
+    }
+
+    /**
+     * Recopie toute la table de la primaire sur la réplique
+     */
+    private void copy(String table) {
+        List<Map<String, Object>> rows = primary.queryForList("SELECT * FROM " + table);
+        replica.update("DELETE FROM " + table);
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + "?, ".repeat(columns.size() - 1) + "?)";
+        replica.batchUpdate(sql, rows.stream().map(row -> columns.stream().map(row::get).toArray()).toList());
+    }
+
+    /**
+     * Retard mesuré de la réplique en secondes (NaN tant qu'il est inconnu)
+     */
+    private double replicaLag() {
+        Gauge gauge = meterRegistry.find("db.replica.lag").tag("replica", "replica-1").gauge();
+        return gauge != null ? gauge.value() : Double.NaN;
+    }
+}
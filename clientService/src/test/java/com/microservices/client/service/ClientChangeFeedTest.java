@@ -0,0 +1,132 @@
+package com.microservices.client.service;
+
+import com.microservices.client.model.Client;
+import com.microservices.client.model.ClientChange;
+import com.microservices.client.model.ClientChangePage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Journal des changements de clients lu par la réplique du service Voiture (GET /api/clients/changes)
+ * 
+ * Chaque test part du dernier numéro du journal au moment où il commence : les changements
+ * des autres tests ne le gênent pas.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "test.database=changes_clients",
+        "client.changes.poll-interval=200ms"})
+@ActiveProfiles("test")
+class ClientChangeFeedTest {
+
+    private static final AtomicLong NEXT_EMAIL = new AtomicLong();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ClientService clientService;
+
+    @Test
+    void creationsPuisSuppressionDansLOrdre() {
+        long since = lastSeq();
+        Client first = clientService.createClient(client());
+        Client second = clientService.createClient(client());
+        Client deleted = clientService.createClient(client());
+
+        List<ClientChange> created = readAll(since, 3);
+        assertThat(created).extracting(ClientChange::getClientId)
+                .containsExactly(first.getId(), second.getId(), deleted.getId());
+        assertThat(created).extracting(ClientChange::getType).containsOnly(ClientChange.Type.CREATED);
+        assertThat(created).extracting(ClientChange::getSeq).isSorted().doesNotHaveDuplicates()
+                .allMatch(seq -> seq > since);
+
+        long afterCreations = created.get(created.size() - 1).getSeq();
+        clientService.deleteClient(deleted.getId());
+        List<ClientChange> deletions = readAll(afterCreations, 1);
+        assertThat(deletions).singleElement().satisfies(change -> {
+            assertThat(change.getClientId()).isEqualTo(deleted.getId());
+            assertThat(change.getType()).isEqualTo(ClientChange.Type.DELETED);
+        });
+
+        // Journal compacté : une seule entrée par client, la dernière
+        Map<Long, ClientChange.Type> latest = readAll(since, 3).stream()
+                .collect(Collectors.toMap(ClientChange::getClientId, ClientChange::getType));
+        assertThat(latest).containsOnly(
+                Map.entry(first.getId(), ClientChange.Type.CREATED),
+                Map.entry(second.getId(), ClientChange.Type.CREATED),
+                Map.entry(deleted.getId(), ClientChange.Type.DELETED));
+    }
+
+    @Test
+    void attenteLongueReveilleeParUnChangement() throws Exception {
+        long since = lastSeq();
+        long started = System.nanoTime();
+        CompletableFuture<ClientChangePage> waiting = CompletableFuture.supplyAsync(() -> changes(since, 10));
+        Thread.sleep(300);
+        assertThat(waiting).as("réponse avant le changement").isNotDone();
+
+        Client client = clientService.createClient(client());
+        ClientChangePage page = waiting.get(5, TimeUnit.SECONDS);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(5));
+        assertThat(page.getChanges()).extracting(ClientChange::getClientId).contains(client.getId());
+        assertThat(page.getNextSince()).isGreaterThan(since);
+    }
+
+    @Test
+    void attenteLongueSansChangement() {
+        long since = lastSeq();
+        long started = System.nanoTime();
+
+        ClientChangePage page = changes(since, 1);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+        assertThat(page.getChanges()).isEmpty();
+        assertThat(page.getNextSince()).isEqualTo(since);
+    }
+
+    /**
+     * Lit le journal depuis since jusqu'à obtenir count changements (numérotés après la validation,
+     * ils peuvent arriver en plusieurs réponses)
+     */
+    private List<ClientChange> readAll(long since, int count) {
+        List<ClientChange> changes = new ArrayList<>();
+        long next = since;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (changes.size() < count) {
+            assertThat(System.nanoTime()).as("%d changement(s) après %d", count, since).isLessThan(deadline);
+            ClientChangePage page = changes(next, 1);
+            changes.addAll(page.getChanges());
+            next = page.getNextSince();
+        }
+        return changes;
+    }
+
+    private ClientChangePage changes(long since, long waitSeconds) {
+        return restTemplate.getForObject("/api/clients/changes?since={since}&wait={wait}",
+                ClientChangePage.class, since, waitSeconds);
+    }
+
+    private long lastSeq() {
+        return changes(0, 0).getLastSeq();
+    }
+
+    private static Client client() {
+        long n = NEXT_EMAIL.incrementAndGet();
+        return new Client(null, "Durand", "Paul", "paul.durand" + n + "@example.com", "Lyon", null);
+    }
+}
@@ -0,0 +1,123 @@
+package com.microservices.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite le nombre d'accès simultanés à la base de données
+ * 
+ * - maxConcurrency permis (aligné sur la taille du pool de connexions) ;
+ * - au plus maxQueue requêtes en attente d'un permis, pendant au plus maxWait ;
+ * - au-delà, la requête échoue immédiatement (DatabaseOverloadedException → 503 + Retry-After)
+ *   au lieu de s'accumuler sans limite.
+ * 
+ * Un bulkhead par pool de connexions (primaire, chaque réplique) : les lectures envoyées aux répliques
+ * n'occupent pas les permis de la primaire.
+ * 
+ * Métriques Micrometer, par pool (tag pool) : db.bulkhead.active, db.bulkhead.waiting,
+ * db.bulkhead.rejected et db.bulkhead.wait (temps d'attente d'un permis).
+ */
+public class DatabaseBulkhead {
+
+    private final Semaphore permits;
+    private final int maxQueue;
+    private final MeterRegistry meterRegistry;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejected;
+    private final Timer waitTimer;
+
+    /**
+     * @param pool Nom du pool de connexions protégé (tag pool des métriques)
+     * @param maxConcurrency Nombre maximal d'accès simultanés à la base
+     * @param maxQueue Nombre maximal de requêtes en attente
+     * @param maxWait Attente maximale d'un permis
+     * @param retryAfter Délai conseillé au client en cas de rejet
+     * @param meterRegistry Registre Micrometer
+     */
+    public DatabaseBulkhead(String pool, int maxConcurrency, int maxQueue, Duration maxWait, Duration retryAfter,
+                            MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("db.bulkhead.active", () -> maxConcurrency - permits.availablePermits())
+                .description("Accès à la base en cours")
+                .tag("pool", pool)
+                .register(meterRegistry);
+        Gauge.builder("db.bulkhead.waiting", waiting::get)
+                .description("Requêtes en attente d'un accès à la base")
+                .tag("pool", pool)
+                .register(meterRegistry);
+        Gauge.builder("db.bulkhead.limit", () -> maxConcurrency)
+                .description("Nombre maximal d'accès simultanés à la base")
+                .tag("pool", pool)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("db.bulkhead.rejected")
+                .description("Requêtes rejetées (file d'attente pleine ou attente trop longue)")
+                .tag("pool", pool)
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("db.bulkhead.wait")
+                .description("Temps d'attente d'un accès à la base")
+                .tag("pool", pool)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bulkhead d'un autre pool de connexions, avec la même file d'attente et la même attente maximale
+     * 
+     * @param pool Nom du pool (ex. "replica-1")
+     * @param maxConcurrency Nombre maximal d'accès simultanés à ce pool (sa taille)
+     */
+    public DatabaseBulkhead forPool(String pool, int maxConcurrency) {
+        return new DatabaseBulkhead(pool, maxConcurrency, maxQueue, maxWait, retryAfter, meterRegistry);
+    }
+
+    /**
+     * Obtient un permis d'accès à la base (à libérer avec release())
+     * 
+     * @throws DatabaseOverloadedException si la file d'attente est pleine ou si l'attente dépasse maxWait
+     */
+    public void acquire() {
+        if (permits.tryAcquire()) {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejected.increment();
+            throw new DatabaseOverloadedException("File d'attente de la base pleine", retryAfter);
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new DatabaseOverloadedException("Attente de la base supérieure à " + maxWait.toMillis() + " ms", retryAfter);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new DatabaseOverloadedException("Attente de la base interrompue", retryAfter);
+        } finally {
+            waiting.decrementAndGet();
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Libère un permis obtenu par acquire()
+     */
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,24 @@
+package com.microservices.database;
+
+import java.time.Duration;
+
+/**
+ * Levée quand la base de données est saturée et qu'une requête ne peut pas attendre son tour
+ * Traduite en 503 Service Unavailable avec l'en-tête Retry-After
+ */
+public class DatabaseOverloadedException extends RuntimeException {
+
+    /**
+     * Délai conseillé avant de réessayer
+     */
+    private final Duration retryAfter;
+
+    public DatabaseOverloadedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,52 @@
+package com.microservices.database;
+
+/**
+ * Construction et comparaison des ETags des contrôleurs (versions lues en base : "v<version>"
+ * pour une ligne, "l<version>" pour la liste des voitures d'un client)
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * ETag fort construit à partir d'une version
+     */
+    public static String of(String version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Compare l'en-tête If-None-Match à l'ETag courant (comparaison faible, RFC 9110)
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version attendue d'après l'en-tête If-Match, qui doit contenir un seul ETag fort "<prefix><version>"
+     * 
+     * @return null sans en-tête ou pour "*", -1 si l'ETag n'est pas une version (la précondition échoue alors)
+     */
+    public static Long version(String ifMatch, String prefix) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        String start = "\"" + prefix;
+        if (value.startsWith(start) && value.endsWith("\"") && value.length() > start.length() + 1) {
+            try {
+                return Long.parseLong(value.substring(start.length(), value.length() - 1));
+            } catch (NumberFormatException e) {
+                return -1L;
+            }
+        }
+        return -1L;
+    }
+}
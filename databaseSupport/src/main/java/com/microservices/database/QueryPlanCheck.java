@@ -0,0 +1,219 @@
+package com.microservices.database;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Vérification au démarrage des plans d'exécution des requêtes des repositories
+ * 
+ * Chaque méthode déclarée dans un repository JPA du service (requête dérivée ou @Query)
+ * est appelée avec des arguments fictifs, dans une transaction annulée ; le SQL généré
+ * par Hibernate est relevé (SqlCaptureInspector) puis passé à EXPLAIN avec les mêmes valeurs.
+ * 
+ * Le démarrage échoue si un plan parcourt toute une table (type = ALL) sans aucun index
+ * utilisable (possible_keys vide) : il manque un index dans les migrations Flyway.
+ * Un parcours complet choisi par l'optimiseur alors qu'un index existe (table presque vide)
+ * n'est pas une erreur.
+ * 
+ * Les méthodes héritées de JpaRepository (findAll, findById...) ne sont pas vérifiées.
+ * La vérification ne s'exécute que sur MySQL (le format d'EXPLAIN dépend de la base).
+ */
+@Slf4j
+public class QueryPlanCheck implements ApplicationRunner {
+
+    private static final long SAMPLE_ID = 1L;
+    private static final String SAMPLE_TEXT = "x";
+
+    private final ApplicationContext applicationContext;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlCaptureInspector sqlCaptureInspector;
+
+    public QueryPlanCheck(ApplicationContext applicationContext, JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager, SqlCaptureInspector sqlCaptureInspector) {
+        this.applicationContext = applicationContext;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sqlCaptureInspector = sqlCaptureInspector;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String database = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"MySQL".equalsIgnoreCase(database)) {
+            log.info("Vérification des plans d'exécution ignorée (base {})", database);
+            return;
+        }
+
+        List<String> fullScans = new ArrayList<>();
+        int checked = 0;
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+            Class<?> repositoryInterface = repositories.getRequiredRepositoryInformation(domainType).getRepositoryInterface();
+            for (Method method : repositoryInterface.getDeclaredMethods()) {
+                if (method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                Optional<Object[]> arguments = sampleArguments(method);
+                if (arguments.isEmpty()) {
+                    log.warn("Plan non vérifié pour {}.{} (type de paramètre non géré)",
+                            repositoryInterface.getSimpleName(), method.getName());
+                    continue;
+                }
+                List<Object> bindValues = bindValues(arguments.get());
+                for (String sql : captureSql(repository, method, arguments.get())) {
+                    checked++;
+                    String fullScan = explain(sql, bindValues);
+                    if (fullScan != null) {
+                        fullScans.add(repositoryInterface.getSimpleName() + "." + method.getName()
+                                + " : parcours complet de " + fullScan + "\n    " + sql);
+                    }
+                }
+            }
+        }
+
+        if (!fullScans.isEmpty()) {
+            throw new IllegalStateException("Requêtes sans index utilisable (ajouter une migration Flyway) :\n"
+                    + String.join("\n", fullScans));
+        }
+        log.info("Plans d'exécution vérifiés : {} requête(s), aucun parcours complet de table", checked);
+    }
+
+    /**
+     * Appelle la méthode dans une transaction annulée et retourne le SQL généré
+     */
+    private List<String> captureSql(Object repository, Method method, Object[] arguments) {
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            return sqlCaptureInspector.capture(() -> invoke(repository, method, arguments));
+        });
+    }
+
+    private static Object invoke(Object repository, Method method, Object[] arguments) {
+        try {
+            return method.invoke(repository, arguments);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Échec de l'appel de " + method.getName() + " pendant la vérification des plans",
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Exécute EXPLAIN sur la requête
+     * 
+     * @return La table parcourue entièrement sans index utilisable, ou null si le plan est correct
+     */
+    private String explain(String sql, List<Object> bindValues) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameterCount = statement.getParameterMetaData().getParameterCount();
+                if (parameterCount != bindValues.size()) {
+                    throw new IllegalStateException("Impossible de lier " + bindValues.size()
+                            + " valeur(s) aux " + parameterCount + " paramètre(s) de : " + sql);
+                }
+                for (int i = 0; i < parameterCount; i++) {
+                    statement.setObject(i + 1, bindValues.get(i));
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        if ("ALL".equalsIgnoreCase(rs.getString("type")) && rs.getString("possible_keys") == null
+                                && rs.getString("table") != null) {
+                            return rs.getString("table");
+                        }
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Arguments fictifs pour chaque paramètre de la méthode (une seule valeur par collection, première page)
+     */
+    private static Optional<Object[]> sampleArguments(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] arguments = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            Object sample = sampleValue(types[i]);
+            if (sample == null) {
+                return Optional.empty();
+            }
+            arguments[i] = sample;
+        }
+        return Optional.of(arguments);
+    }
+
+    private static Object sampleValue(Type type) {
+        if (type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw && Collection.class.isAssignableFrom(raw)) {
+            Object element = sampleValue(parameterized.getActualTypeArguments()[0]);
+            return element == null ? null : List.of(element);
+        }
+        if (!(type instanceof Class<?> clazz)) {
+            return null;
+        }
+        if (clazz == Long.class || clazz == long.class) {
+            return SAMPLE_ID;
+        }
+        if (clazz == Integer.class || clazz == int.class) {
+            return (int) SAMPLE_ID;
+        }
+        if (clazz == Double.class || clazz == double.class) {
+            return (double) SAMPLE_ID;
+        }
+        if (clazz == String.class) {
+            return SAMPLE_TEXT;
+        }
+        if (clazz == Pageable.class) {
+            return PageRequest.of(0, 1);
+        }
+        return null;
+    }
+
+    /**
+     * Valeurs liées aux paramètres JDBC, dans l'ordre où Hibernate les place :
+     * les arguments dans l'ordre, chaque collection dépliée, puis LIMIT offset, taille (dialecte MySQL)
+     */
+    private static List<Object> bindValues(Object[] arguments) {
+        List<Object> values = new ArrayList<>();
+        List<Object> limits = new ArrayList<>();
+        for (Object argument : arguments) {
+            if (argument instanceof Pageable pageable) {
+                limits.add(pageable.getOffset());
+                limits.add(pageable.getPageSize());
+            } else if (argument instanceof Collection<?> collection) {
+                values.addAll(collection);
+            } else {
+                values.add(argument);
+            }
+        }
+        values.addAll(limits);
+        return values;
+    }
+}
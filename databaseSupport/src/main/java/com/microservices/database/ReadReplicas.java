@@ -0,0 +1,221 @@
+package com.microservices.database;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+/**
+ * Pools de connexions des répliques en lecture et mesure de leur retard de réplication
+ * 
+ * Toutes les checkInterval, un battement (heure courante) est écrit dans replication_heartbeat
+ * sur la primaire puis relu sur chaque réplique : le retard d'une réplique est l'âge du battement
+ * qu'elle a reçu. Une réplique en retard de plus de maxLag, injoignable ou pas encore vérifiée
+ * (avant ApplicationReadyEvent) ne reçoit pas de lectures ; sans réplique disponible, les lectures
+ * vont à la primaire.
+ * 
+ * Chaque réplique a son propre DatabaseBulkhead, dimensionné sur son pool (tag pool des métriques db.bulkhead.*) :
+ * les lectures envoyées aux répliques s'ajoutent à la capacité de la primaire au lieu de la partager.
+ * 
+ * Métriques : db.replica.lag (secondes, par réplique) et db.routing.reads (lectures de replicaRead()
+ * par base cible et raison : replica, sticky, lagging).
+ */
+@Slf4j
+public class ReadReplicas {
+
+    private static final String WRITE_HEARTBEAT = "UPDATE replication_heartbeat SET beat = ? WHERE id = 1";
+    private static final String READ_HEARTBEAT = "SELECT beat FROM replication_heartbeat WHERE id = 1";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final Duration checkInterval;
+    private final ObjectProvider<JdbcTemplate> primaryJdbcTemplate;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter stickyReads;
+    private final Counter laggingReads;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Une réplique : son pool, son bulkhead et son dernier retard mesuré
+     */
+    static final class Replica {
+        final String name;
+        final HikariDataSource dataSource;
+        /**
+         * Le pool derrière le bulkhead de la réplique (connexions des lectures)
+         */
+        final DataSource readDataSource;
+        final JdbcTemplate jdbcTemplate;
+        final Counter reads;
+        /**
+         * Retard mesuré, Long.MAX_VALUE si inconnu (pas encore vérifiée, injoignable)
+         */
+        volatile long lagMillis = Long.MAX_VALUE;
+
+        Replica(String name, HikariDataSource dataSource, DatabaseBulkhead bulkhead, Counter reads) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.readDataSource = new BulkheadDataSource(dataSource, bulkhead);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.reads = reads;
+        }
+    }
+
+    /**
+     * @param service Nom du service (préfixe des noms de pools, ex. "voiture-replica-1")
+     * @param urls URLs JDBC des répliques
+     * @param username Utilisateur (celui de la primaire)
+     * @param password Mot de passe
+     * @param poolSize Taille du pool de chaque réplique
+     * @param maxLag Retard au-delà duquel une réplique est écartée
+     * @param checkInterval Période d'écriture et de lecture du battement
+     * @param primaryJdbcTemplate Accès à la primaire (écriture du battement)
+     * @param primaryBulkhead Bulkhead de la primaire, dont chaque réplique reprend la file et l'attente maximales
+     * @param meterRegistry Registre Micrometer (pools hikaricp.* des répliques compris)
+     */
+    public ReadReplicas(String service, List<String> urls, String username, String password, int poolSize, Duration maxLag,
+                        Duration checkInterval, ObjectProvider<JdbcTemplate> primaryJdbcTemplate,
+                        DatabaseBulkhead primaryBulkhead, MeterRegistry meterRegistry) {
+        this.maxLagMillis = maxLag.toMillis();
+        this.checkInterval = checkInterval;
+        this.primaryJdbcTemplate = primaryJdbcTemplate;
+        for (String url : urls) {
+            String name = "replica-" + (replicas.size() + 1);
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(service + "-" + name);
+            config.setJdbcUrl(url);
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            config.setReadOnly(true);
+            // Une réplique arrêtée ne bloque ni le démarrage ni longtemps une lecture (repli sur la primaire)
+            config.setInitializationFailTimeout(-1);
+            config.setConnectionTimeout(1000);
+            config.setMetricRegistry(meterRegistry);
+            Replica replica = new Replica(name, new HikariDataSource(config), primaryBulkhead.forPool(name, poolSize),
+                    readCounter(meterRegistry, name, "replica"));
+            Gauge.builder("db.replica.lag", replica, r -> r.lagMillis == Long.MAX_VALUE ? Double.NaN : r.lagMillis / 1000.0)
+                    .description("Retard de réplication mesuré par le battement (NaN : inconnu ou injoignable)")
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+            replicas.add(replica);
+        }
+        this.stickyReads = readCounter(meterRegistry, "primary", "sticky");
+        this.laggingReads = readCounter(meterRegistry, "primary", "lagging");
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String target, String reason) {
+        return Counter.builder("db.routing.reads")
+                .description("Lectures pouvant aller à une réplique, par base choisie")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Choisit la réplique d'une lecture, à tour de rôle parmi les répliques à jour
+     * 
+     * @return La réplique, ou null si la lecture doit aller à la primaire
+     */
+    Replica select() {
+        if (ReadRouting.isPrimaryRequired()) {
+            stickyReads.increment();
+            return null;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.lagMillis <= maxLagMillis) {
+                replica.reads.increment();
+                return replica;
+            }
+        }
+        laggingReads.increment();
+        return null;
+    }
+
+    /**
+     * Écarte une réplique jusqu'à la prochaine vérification (connexion impossible)
+     */
+    void markDown(Replica replica, Exception cause) {
+        if (replica.lagMillis != Long.MAX_VALUE) {
+            log.warn("Réplique {} injoignable, lectures envoyées à la primaire : {}", replica.name, cause.getMessage());
+        }
+        replica.lagMillis = Long.MAX_VALUE;
+    }
+
+    /**
+     * Démarre les vérifications une fois le contexte prêt (la primaire est alors migrée)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-replicas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Écrit le battement sur la primaire puis mesure le retard de chaque réplique
+     */
+    void check() {
+        try {
+            primaryJdbcTemplate.getObject().update(WRITE_HEARTBEAT, System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Les retards mesurés augmentent : les répliques finissent écartées
+            log.warn("Écriture du battement de réplication impossible : {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            try {
+                Long beat = replica.jdbcTemplate.queryForObject(READ_HEARTBEAT, Long.class);
+                long lag = Math.max(0, System.currentTimeMillis() - (beat != null ? beat : 0L));
+                if (lag > maxLagMillis && replica.lagMillis <= maxLagMillis) {
+                    log.warn("Réplique {} en retard de {} ms (max {} ms) : écartée", replica.name, lag, maxLagMillis);
+                } else if (lag <= maxLagMillis && replica.lagMillis > maxLagMillis) {
+                    log.info("Réplique {} à jour (retard {} ms) : lectures rétablies", replica.name, lag);
+                }
+                replica.lagMillis = lag;
+            } catch (RuntimeException e) {
+                markDown(replica, e);
+            }
+        }
+    }
+
+    /**
+     * Arrête les vérifications et ferme les pools des répliques
+     */
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.dataSource.close();
+        }
+    }
+
+    /**
+     * @return Les pools des répliques (diagnostic, harnais de test)
+     */
+    public List<DataSource> dataSources() {
+        return replicas.stream().<DataSource>map(replica -> replica.dataSource).toList();
+    }
+}
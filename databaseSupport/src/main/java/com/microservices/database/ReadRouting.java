@@ -0,0 +1,60 @@
+package com.microservices.database;
+
+import java.util.function.Supplier;
+
+/**
+ * Choix de la base (primaire ou réplique) pour le thread courant, lu par ReadWriteRoutingDataSource
+ * 
+ * - replicaRead() : les connexions obtenues pendant la lecture peuvent venir d'une réplique ;
+ *   à réserver aux lectures des services (getAll*, get*ById...) : tout le reste, écritures comprises,
+ *   reste sur la primaire ;
+ * - primaryRequired : posé par ReadYourWritesFilter pour un appelant qui vient d'écrire,
+ *   ses lectures vont à la primaire même dans replicaRead().
+ * 
+ * Sans répliques configurées, replicaRead() exécute simplement la lecture.
+ */
+public final class ReadRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Exécute une lecture qui accepte des données en retard d'au plus le retard toléré des répliques
+     * 
+     * @param read La lecture (requêtes de repository)
+     * @return Le résultat de la lecture
+     */
+    public static <T> T replicaRead(Supplier<T> read) {
+        if (REPLICA_READ.get() != null) {
+            return read.get();
+        }
+        REPLICA_READ.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            REPLICA_READ.remove();
+        }
+    }
+
+    /**
+     * @return true si l'appelant de la requête HTTP courante vient d'écrire (lectures sur la primaire)
+     */
+    public static boolean isPrimaryRequired() {
+        return PRIMARY_REQUIRED.get() != null;
+    }
+
+    static boolean isReplicaRead() {
+        return REPLICA_READ.get() != null;
+    }
+
+    static void setPrimaryRequired(boolean required) {
+        if (required) {
+            PRIMARY_REQUIRED.set(Boolean.TRUE);
+        } else {
+            PRIMARY_REQUIRED.remove();
+        }
+    }
+}
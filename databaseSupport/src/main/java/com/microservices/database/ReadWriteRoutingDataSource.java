@@ -0,0 +1,65 @@
+package com.microservices.database;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+
+/**
+ * DataSource qui envoie les lectures de ReadRouting.replicaRead() à une réplique à jour
+ * 
+ * Toutes les autres connexions (écritures, transactions, Flyway, battement) viennent de la primaire ;
+ * une connexion impossible à une réplique l'écarte jusqu'à sa prochaine vérification et la lecture
+ * se replie sur la primaire. Une réplique dont le bulkhead est saturé refuse la lecture
+ * (DatabaseOverloadedException) sans la reporter sur la primaire.
+ * 
+ * unwrap() et isWrapperFor() visent la primaire : les métriques du pool Hikari de Spring Boot
+ * la retrouvent derrière les enveloppes.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final ReadReplicas replicas;
+
+    /**
+     * @param primary La DataSource de la primaire
+     * @param replicas Les répliques en lecture
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, ReadReplicas replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReadReplicas.Replica replica = ReadRouting.isReplicaRead() ? replicas.select() : null;
+        if (replica == null) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.readDataSource.getConnection();
+        } catch (SQLException e) {
+            replicas.markDown(replica, e);
+            return primary.getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,85 @@
+package com.microservices.database;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Lecture de ses propres écritures avec des répliques en retard
+ * 
+ * Une requête d'écriture (méthode autre que GET, HEAD, OPTIONS) pose un cookie qui porte l'heure
+ * de fin de la fenêtre (window) ; pendant cette fenêtre les lectures de l'appelant qui renvoie
+ * le cookie vont à la primaire. La fenêtre couvre le retard maximal toléré d'une réplique et
+ * l'intervalle de mesure de ce retard.
+ * 
+ * Seul le thread de la requête est concerné (comme SqlStatementCountFilter).
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final String cookieName;
+    private final Duration window;
+
+    /**
+     * @param service Nom du service : le cookie est "<service>-primary-until" (un par service derrière la gateway)
+     * @param window Durée pendant laquelle un appelant qui vient d'écrire lit la primaire
+     */
+    public ReadYourWritesFilter(String service, Duration window) {
+        this.cookieName = service + "-primary-until";
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        if (write) {
+            // Posé avant l'exécution : l'en-tête ne peut plus être ajouté une fois la réponse envoyée
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(cookieName, String.valueOf(now + window.toMillis()))
+                    .path("/")
+                    .maxAge(window)
+                    .httpOnly(true)
+                    .sameSite("Lax")
+                    .build()
+                    .toString());
+        }
+        if (!write && primaryUntil(request) <= now) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        ReadRouting.setPrimaryRequired(true);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReadRouting.setPrimaryRequired(false);
+        }
+    }
+
+    private long primaryUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookieName.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
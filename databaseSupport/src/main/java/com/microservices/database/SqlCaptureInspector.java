@@ -0,0 +1,43 @@
+package com.microservices.database;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * StatementInspector Hibernate qui relève le SQL généré pendant un appel donné
+ * 
+ * Hors capture, le SQL est transmis tel quel (aucun coût notable).
+ */
+public class SqlCaptureInspector implements StatementInspector {
+
+    private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = captured.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Exécute l'action et retourne les requêtes SQL préparées par Hibernate sur ce thread pendant son exécution
+     * 
+     * @param action L'action à exécuter (ex. l'appel d'une méthode de repository)
+     * @return Les requêtes SQL, dans l'ordre
+     */
+    public List<String> capture(Supplier<?> action) {
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            action.get();
+        } finally {
+            captured.remove();
+        }
+        return statements;
+    }
+}
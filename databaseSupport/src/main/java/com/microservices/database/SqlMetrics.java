@@ -0,0 +1,118 @@
+package com.microservices.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure des requêtes SQL exécutées par le service (JPA et JdbcTemplate)
+ * 
+ * - db.statements : durée d'exécution par type de requête (select, insert, update, delete, other) ;
+ * - db.statements.slow : requêtes plus lentes que slowThreshold, journalisées en WARN avec leur SQL ;
+ * - comptage des requêtes de la requête HTTP en cours (voir SqlStatementCountFilter).
+ */
+@Slf4j
+public class SqlMetrics {
+
+    private static final String[] TYPES = {"select", "insert", "update", "delete"};
+
+    /**
+     * Longueur maximale du SQL recopié dans le journal des requêtes lentes
+     */
+    private static final int MAX_LOGGED_SQL = 2000;
+
+    private final Map<String, Timer> timers;
+    private final Counter slow;
+    private final long slowThresholdNanos;
+
+    /**
+     * Nombre de requêtes SQL de la requête HTTP en cours sur ce thread (null hors requête HTTP)
+     */
+    private final ThreadLocal<int[]> requestCount = new ThreadLocal<>();
+
+    /**
+     * @param slowThreshold Durée au-delà de laquelle une requête est journalisée
+     * @param meterRegistry Registre Micrometer
+     */
+    public SqlMetrics(Duration slowThreshold, MeterRegistry meterRegistry) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.timers = new HashMap<>();
+        for (String type : TYPES) {
+            timers.put(type, timer(type, meterRegistry));
+        }
+        timers.put("other", timer("other", meterRegistry));
+        this.slow = Counter.builder("db.statements.slow")
+                .description("Requêtes SQL plus lentes que le seuil de journalisation")
+                .register(meterRegistry);
+    }
+
+    private static Timer timer(String type, MeterRegistry meterRegistry) {
+        return Timer.builder("db.statements")
+                .description("Durée d'exécution des requêtes SQL")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enregistre l'exécution d'une requête
+     * 
+     * @param sql Le SQL exécuté (null s'il n'est pas connu, ex. executeBatch d'un Statement simple)
+     * @param nanos Durée d'exécution
+     */
+    public void record(String sql, long nanos) {
+        timers.get(type(sql)).record(nanos, TimeUnit.NANOSECONDS);
+        int[] count = requestCount.get();
+        if (count != null) {
+            count[0]++;
+        }
+        if (nanos > slowThresholdNanos) {
+            slow.increment();
+            log.warn("Requête SQL lente ({} ms) : {}", TimeUnit.NANOSECONDS.toMillis(nanos), truncate(sql));
+        }
+    }
+
+    /**
+     * Commence le comptage des requêtes SQL de la requête HTTP en cours sur ce thread
+     */
+    public void startCounting() {
+        requestCount.set(new int[1]);
+    }
+
+    /**
+     * Termine le comptage commencé par startCounting()
+     * 
+     * @return Le nombre de requêtes SQL exécutées depuis startCounting()
+     */
+    public int stopCounting() {
+        int[] count = requestCount.get();
+        requestCount.remove();
+        return count == null ? 0 : count[0];
+    }
+
+    private static String type(String sql) {
+        if (sql != null) {
+            String start = sql.stripLeading();
+            for (String type : TYPES) {
+                if (start.regionMatches(true, 0, type, 0, type.length())) {
+                    return type;
+                }
+            }
+        }
+        return "other";
+    }
+
+    private static String truncate(String sql) {
+        if (sql == null) {
+            return "(SQL inconnu)";
+        }
+        String singleLine = sql.replaceAll("\\s+", " ").trim();
+        return singleLine.length() <= MAX_LOGGED_SQL ? singleLine : singleLine.substring(0, MAX_LOGGED_SQL) + "...";
+    }
+}
@@ -0,0 +1,87 @@
+package com.microservices.database;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource qui mesure chaque exécution de requête (execute, executeQuery, executeUpdate, executeBatch...)
+ * et la transmet à SqlMetrics
+ * 
+ * Les connexions et les statements sont enveloppés par des proxies ; les autres appels JDBC
+ * sont transmis tels quels.
+ */
+public class SqlMetricsDataSource extends DelegatingDataSource {
+
+    private final SqlMetrics sqlMetrics;
+
+    public SqlMetricsDataSource(DataSource targetDataSource, SqlMetrics sqlMetrics) {
+        super(targetDataSource);
+        this.sqlMetrics = sqlMetrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return measuring(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return measuring(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Enveloppe la connexion pour que les statements qu'elle crée soient mesurés
+     */
+    private Connection measuring(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Statement statement) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                        return measuring(statement, sql);
+                    }
+                    return result;
+                });
+    }
+
+    /**
+     * Enveloppe le statement pour mesurer ses exécutions
+     * 
+     * @param preparedSql Le SQL d'un PreparedStatement / CallableStatement (null pour un Statement simple)
+     */
+    private Statement measuring(Statement target, String preparedSql) {
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (!method.getName().startsWith("execute")) {
+                        return invoke(target, method, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql;
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(target, method, args);
+                    } finally {
+                        sqlMetrics.record(sql, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
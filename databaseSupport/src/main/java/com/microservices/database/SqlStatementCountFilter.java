@@ -0,0 +1,73 @@
+package com.microservices.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Détecteur de requêtes N+1 : compte les requêtes SQL exécutées pendant chaque requête HTTP
+ * 
+ * - db.statements.per.request : distribution du nombre de requêtes SQL, par route (tag uri) ;
+ * - db.statements.per.request.exceeded : requêtes HTTP au-delà de maxStatements, journalisées en WARN.
+ * 
+ * Seul le thread de la requête est compté : le SQL exécuté après le passage en asynchrone
+ * (StreamingResponseBody) n'est pas inclus.
+ */
+@Slf4j
+public class SqlStatementCountFilter extends OncePerRequestFilter {
+
+    private final SqlMetrics sqlMetrics;
+    private final int maxStatements;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param sqlMetrics Compteur des requêtes SQL
+     * @param maxStatements Nombre de requêtes SQL au-delà duquel la requête HTTP est signalée
+     * @param meterRegistry Registre Micrometer
+     */
+    public SqlStatementCountFilter(SqlMetrics sqlMetrics, int maxStatements, MeterRegistry meterRegistry) {
+        this.sqlMetrics = sqlMetrics;
+        this.maxStatements = maxStatements;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        sqlMetrics.startCounting();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            record(request, sqlMetrics.stopCounting());
+        }
+    }
+
+    private void record(HttpServletRequest request, int statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("db.statements.per.request")
+                .description("Nombre de requêtes SQL par requête HTTP")
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statements);
+        if (statements > maxStatements) {
+            Counter.builder("db.statements.per.request.exceeded")
+                    .description("Requêtes HTTP ayant exécuté plus de requêtes SQL que le seuil")
+                    .tag("uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("{} {} a exécuté {} requêtes SQL (seuil {}) : requêtes N+1 probables",
+                    request.getMethod(), request.getRequestURI(), statements, maxStatements);
+        }
+    }
+}
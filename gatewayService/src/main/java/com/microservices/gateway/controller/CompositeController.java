@@ -0,0 +1,43 @@
+package com.microservices.gateway.controller;
+
+import com.microservices.gateway.model.CompositeClient;
+import com.microservices.gateway.service.CompositeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Contrôleur REST des réponses composées par le Gateway
+ * 
+ * Ces routes ne sont pas transmises telles quelles à un microservice :
+ * le Gateway appelle lui-même plusieurs services et fusionne les résultats.
+ */
+@RestController
+@RequestMapping("/api/composite")
+public class CompositeController {
+
+    /**
+     * Injection du service de composition
+     */
+    @Autowired
+    private CompositeService compositeService;
+
+    /**
+     * Récupère un client et toutes ses voitures en un seul appel
+     * 
+     * GET /api/composite/clients/{id}
+     * 
+     * @param id L'identifiant du client
+     * @param exchange La requête (ses en-têtes sont transmis aux services)
+     * @return Le client et ses voitures (partial=true si un des services n'a pas répondu)
+     */
+    @GetMapping("/clients/{id}")
+    public Mono<ResponseEntity<CompositeClient>> getClientWithVoitures(@PathVariable Long id, ServerWebExchange exchange) {
+        return compositeService.getClientWithVoitures(id, exchange);
+    }
+}
@@ -0,0 +1,25 @@
+package com.microservices.gateway.discovery;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Source des instances du load balancer de chaque service : ConsulInstanceCache
+ * 
+ * Volontairement sans @Configuration (contexte propre à chaque service, voir LoadBalancerConfig).
+ * Sans ConsulInstanceCache (Consul désactivé ou gateway.discovery.watch.enabled=false), la source
+ * par défaut de Spring Cloud est conservée (DiscoveryClient avec cache à durée de vie).
+ */
+public class CachedInstancesConfiguration {
+
+    @Bean
+    @ConditionalOnBean(ConsulInstanceCache.class)
+    public ServiceInstanceListSupplier cachedServiceInstanceListSupplier(Environment environment,
+                                                                         ConsulInstanceCache consulInstanceCache) {
+        return new CachedServiceInstanceListSupplier(
+                environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME), consulInstanceCache);
+    }
+}
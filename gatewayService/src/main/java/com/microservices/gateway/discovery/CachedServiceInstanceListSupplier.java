@@ -0,0 +1,31 @@
+package com.microservices.gateway.discovery;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/**
+ * Instances d'un service lues dans ConsulInstanceCache (au lieu d'un appel à Consul par requête)
+ */
+public class CachedServiceInstanceListSupplier implements ServiceInstanceListSupplier {
+
+    private final String serviceId;
+    private final ConsulInstanceCache cache;
+
+    public CachedServiceInstanceListSupplier(String serviceId, ConsulInstanceCache cache) {
+        this.serviceId = serviceId;
+        this.cache = cache;
+    }
+
+    @Override
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return cache.instances(serviceId);
+    }
+}
@@ -0,0 +1,256 @@
+package com.microservices.gateway.discovery;
+
+import com.ecwid.consul.v1.ConsulClient;
+import com.ecwid.consul.v1.QueryParams;
+import com.ecwid.consul.v1.Response;
+import com.ecwid.consul.v1.health.HealthServicesRequest;
+import com.ecwid.consul.v1.health.model.HealthService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.consul.discovery.ConsulDiscoveryProperties;
+import org.springframework.cloud.consul.discovery.ConsulServiceInstance;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache local des instances de chaque service, tenu à jour par les "blocking queries" de Consul
+ * 
+ * Pour chaque service, une tâche interroge /v1/health/service/{service}?passing avec l'index
+ * de la dernière réponse : Consul ne répond que lorsque la liste change (ou au bout de wait),
+ * puis la tâche se replanifie. Les tâches de tous les services partagent un même ordonnanceur
+ * (gateway.discovery.watch.threads) ; une blocking query occupe un thread pendant son attente :
+ * prévoir au moins un thread par service surveillé. Chaque réponse remplace une photo immuable (InstanceSnapshot)
+ * lue sans verrou par le load balancer : aucune requête n'attend Consul, sauf la toute première
+ * d'un service.
+ * 
+ * Une réponse de Consul est toujours appliquée, même vide : aucune instance saine signifie
+ * qu'il n'y a plus d'instance à appeler. La dernière liste connue n'est conservée que si Consul
+ * est injoignable ; la tâche réessaie alors avec un délai croissant (retry-min à retry-max).
+ * 
+ * Métriques (tag service) : gateway.discovery.instances, gateway.discovery.staleness (secondes depuis
+ * la dernière réponse de Consul), gateway.discovery.errors.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"spring.cloud.consul.enabled", "spring.cloud.consul.discovery.enabled",
+        "gateway.discovery.watch.enabled"}, havingValue = "true", matchIfMissing = true)
+public class ConsulInstanceCache {
+
+    @Autowired
+    private ConsulClient consulClient;
+
+    @Autowired
+    private ConsulDiscoveryProperties discoveryProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Services surveillés dès le démarrage (les autres le sont à leur premier appel)
+     */
+    @Value("${gateway.discovery.watch.services:}")
+    private List<String> services;
+
+    /**
+     * Attente maximale d'une blocking query (Consul répond au plus tard après ce délai)
+     */
+    @Value("${gateway.discovery.watch.wait:55s}")
+    private Duration wait;
+
+    @Value("${gateway.discovery.watch.retry-min:1s}")
+    private Duration retryMin;
+
+    @Value("${gateway.discovery.watch.retry-max:30s}")
+    private Duration retryMax;
+
+    /**
+     * Attente maximale de la première liste d'un service par une requête
+     */
+    @Value("${gateway.discovery.watch.initial-timeout:5s}")
+    private Duration initialTimeout;
+
+    /**
+     * Threads partagés par les surveillances de tous les services
+     */
+    @Value("${gateway.discovery.watch.threads:4}")
+    private int threads;
+
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWatches() {
+        services.stream().map(String::trim).filter(service -> !service.isEmpty()).forEach(this::watch);
+    }
+
+    @PreDestroy
+    public void stopWatches() {
+        watches.values().forEach(Watch::stop);
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            synchronized (this) {
+                if (scheduler == null) {
+                    AtomicInteger count = new AtomicInteger();
+                    scheduler = Executors.newScheduledThreadPool(Math.max(1, threads), runnable -> {
+                        Thread thread = new Thread(runnable, "consul-watch-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * Instances actuelles du service (dernière liste connue)
+     * 
+     * Sans liste encore reçue, attend la première réponse de Consul (au plus initial-timeout) ;
+     * si Consul n'a pas pu être joint, renvoie une liste vide.
+     */
+    public Flux<List<ServiceInstance>> instances(String serviceId) {
+        Watch watch = watch(serviceId);
+        InstanceSnapshot snapshot = watch.snapshot;
+        if (snapshot != null) {
+            return Flux.just(snapshot.instances());
+        }
+        return watch.firstAttempt.asMono()
+                .map(attempted -> watch.snapshot != null ? watch.snapshot.instances() : List.<ServiceInstance>of())
+                .timeout(initialTimeout, Mono.just(List.of()))
+                .flux();
+    }
+
+    /**
+     * Dernière liste connue du service (null si aucune réponse de Consul pour l'instant)
+     */
+    public InstanceSnapshot snapshot(String serviceId) {
+        Watch watch = watches.get(serviceId);
+        return watch != null ? watch.snapshot : null;
+    }
+
+    private Watch watch(String serviceId) {
+        Watch watch = watches.get(serviceId);
+        if (watch != null) {
+            return watch;
+        }
+        return watches.computeIfAbsent(serviceId, id -> {
+            Watch created = new Watch(id);
+            Gauge.builder("gateway.discovery.instances", created,
+                            w -> w.snapshot != null ? w.snapshot.instances().size() : 0)
+                    .tag("service", id)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.discovery.staleness", created,
+                            w -> w.lastContactNanos == 0 ? Double.NaN : (System.nanoTime() - w.lastContactNanos) / 1e9)
+                    .tag("service", id)
+                    .register(meterRegistry);
+            scheduler().execute(created::poll);
+            return created;
+        });
+    }
+
+    /**
+     * Surveillance d'un service : une blocking query par exécution de poll(), qui replanifie la suivante
+     */
+    private final class Watch {
+
+        private final String serviceId;
+        private final Counter errors;
+        /**
+         * Émis après la première tentative (réussie ou non)
+         */
+        private final Sinks.One<Boolean> firstAttempt = Sinks.one();
+        private volatile InstanceSnapshot snapshot;
+        private volatile long lastContactNanos;
+        private volatile boolean running = true;
+        // Accès par une seule exécution de poll() à la fois
+        private long index;
+        private Duration backoff = retryMin;
+
+        Watch(String serviceId) {
+            this.serviceId = serviceId;
+            this.errors = meterRegistry.counter("gateway.discovery.errors", "service", serviceId);
+        }
+
+        void poll() {
+            if (!running) {
+                return;
+            }
+            long delayMillis = 0;
+            try {
+                Response<List<HealthService>> response = consulClient.getHealthServices(serviceId,
+                        HealthServicesRequest.newBuilder()
+                                .setPassing(true)
+                                .setToken(discoveryProperties.getAclToken())
+                                .setQueryParams(new QueryParams(wait.toSeconds(), index))
+                                .build());
+                lastContactNanos = System.nanoTime();
+                long responseIndex = response.getConsulIndex() != null ? response.getConsulIndex() : 0;
+                if (snapshot == null || responseIndex != index) {
+                    update(response.getValue(), responseIndex);
+                }
+                // Index qui recule (redémarrage de Consul) : repartir d'une requête non bloquante
+                index = responseIndex < index ? 0 : Math.max(responseIndex, 1);
+                backoff = retryMin;
+            } catch (RuntimeException e) {
+                errors.increment();
+                log.warn("Consul injoignable pour {} : {} (dernière liste conservée : {} instance(s), nouvel essai dans {} ms)",
+                        serviceId, e.getMessage(), snapshot != null ? snapshot.instances().size() : 0, backoff.toMillis());
+                firstAttempt.tryEmitValue(false);
+                delayMillis = backoff.toMillis();
+                backoff = backoff.multipliedBy(2).compareTo(retryMax) > 0 ? retryMax : backoff.multipliedBy(2);
+            }
+            if (running) {
+                try {
+                    scheduler().schedule(this::poll, delayMillis, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Arrêt de l'application
+                    running = false;
+                }
+            }
+        }
+
+        private void update(List<HealthService> healthServices, long index) {
+            List<ServiceInstance> instances = healthServices.stream()
+                    .<ServiceInstance>map(healthService -> new ConsulServiceInstance(healthService, serviceId))
+                    .toList();
+            InstanceSnapshot previous = snapshot;
+            snapshot = new InstanceSnapshot(instances, index, System.currentTimeMillis());
+            if (instances.isEmpty() && (previous == null || !previous.instances().isEmpty())) {
+                log.warn("Consul ne renvoie aucune instance saine de {}", serviceId);
+            } else if (previous == null || previous.instances().size() != instances.size()) {
+                log.info("{} : {} instance(s)", serviceId, instances.size());
+            }
+            firstAttempt.tryEmitValue(true);
+        }
+
+        void stop() {
+            running = false;
+        }
+    }
+}
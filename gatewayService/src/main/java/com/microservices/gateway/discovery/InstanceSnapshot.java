@@ -0,0 +1,19 @@
+package com.microservices.gateway.discovery;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.List;
+
+/**
+ * Liste des instances d'un service à un instant donné (immuable, remplacée à chaque changement)
+ * 
+ * @param instances Instances saines (liste non modifiable)
+ * @param consulIndex Index Consul de la réponse (X-Consul-Index)
+ * @param updatedAt Date de réception de la liste (millisecondes depuis l'epoch)
+ */
+public record InstanceSnapshot(List<ServiceInstance> instances, long consulIndex, long updatedAt) {
+
+    public InstanceSnapshot {
+        instances = List.copyOf(instances);
+    }
+}
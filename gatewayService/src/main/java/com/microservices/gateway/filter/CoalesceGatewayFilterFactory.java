@@ -0,0 +1,285 @@
+package com.microservices.gateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filtre "Coalesce" : regroupe les GET identiques simultanés en un seul appel au service
+ * 
+ * La première requête (leader) est transmise au service ; les requêtes identiques qui arrivent
+ * pendant qu'elle est en cours (followers) attendent sa réponse et en reçoivent une copie
+ * (statut, en-têtes, body). Deux requêtes sont identiques si elles ont le même chemin, la même
+ * query string, le même en-tête Cookie (toujours dans la clé : la réponse peut dépendre de l'appelant,
+ * ex. le cookie de lecture de ses écritures des services) et les mêmes valeurs pour les en-têtes
+ * de Config.headers.
+ * 
+ * - Erreur du service (connexion refusée, timeout...) : transmise à toutes les requêtes en attente ;
+ * - leader annulé (client parti) : une des requêtes en attente devient le nouveau leader ;
+ * - réponse non partageable (body plus grand que Config.maxBodySize, réponse streamée, Set-Cookie,
+ *   Cache-Control private ou no-store) : chaque requête en attente appelle le service elle-même.
+ * 
+ * Activation par route : spring.cloud.gateway.routes[n].filters[m]=Coalesce
+ * (désactivable globalement avec gateway.coalesce.enabled=false).
+ * Métrique : gateway.coalesce.requests (tags route, role=leader|follower|bypass).
+ */
+@Component
+public class CoalesceGatewayFilterFactory extends AbstractGatewayFilterFactory<CoalesceGatewayFilterFactory.Config> {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${gateway.coalesce.enabled:true}")
+    private boolean enabled;
+
+    public CoalesceGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Map<String, Flight> flights = new ConcurrentHashMap<>();
+        // Avant NettyWriteResponseFilter : il doit écrire le body dans la réponse enveloppée par ce filtre
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!enabled || exchange.getRequest().getMethod() != HttpMethod.GET) {
+                count(exchange, "bypass");
+                return chain.filter(exchange);
+            }
+            return coalesce(exchange, chain, flights, key(exchange.getRequest(), config.getHeaders()), config, true);
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    /**
+     * Rejoint l'appel en cours pour cette clé, ou en démarre un
+     * 
+     * @param retry true si la requête peut encore réessayer après l'abandon d'un leader
+     */
+    private Mono<Void> coalesce(ServerWebExchange exchange, GatewayFilterChain chain, Map<String, Flight> flights,
+                                String key, Config config, boolean retry) {
+        Flight flight = new Flight();
+        Flight existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            count(exchange, "follower");
+            return existing.result()
+                    .flatMap(response -> response.writeTo(exchange.getResponse()))
+                    .onErrorResume(LeaderCancelled.class, e -> retry
+                            ? coalesce(exchange, chain, flights, key, config, false)
+                            : chain.filter(exchange))
+                    .onErrorResume(NotShareable.class, e -> chain.filter(exchange));
+        }
+
+        count(exchange, "leader");
+        CapturingResponse capturing = new CapturingResponse(exchange.getResponse(), flight, config.getMaxBodySize().toBytes());
+        return chain.filter(exchange.mutate().response(capturing).build())
+                .doOnError(flight::fail)
+                .doFinally(signal -> {
+                    flights.remove(key, flight);
+                    if (signal == SignalType.CANCEL) {
+                        flight.fail(new LeaderCancelled());
+                    } else {
+                        // Terminé sans réponse copiée : les requêtes en attente appellent le service elles-mêmes
+                        flight.fail(new NotShareable());
+                    }
+                });
+    }
+
+    private static String key(ServerHttpRequest request, List<String> headers) {
+        StringBuilder key = new StringBuilder(request.getURI().getRawPath());
+        if (request.getURI().getRawQuery() != null) {
+            key.append('?').append(request.getURI().getRawQuery());
+        }
+        key.append('\n').append(HttpHeaders.COOKIE).append(':').append(request.getHeaders().getOrEmpty(HttpHeaders.COOKIE));
+        for (String header : headers) {
+            key.append('\n').append(header).append(':').append(request.getHeaders().getOrEmpty(header));
+        }
+        return key.toString();
+    }
+
+    private void count(ServerWebExchange exchange, String role) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        meterRegistry.counter("gateway.coalesce.requests", "route", route != null ? route.getId() : "unknown", "role", role)
+                .increment();
+    }
+
+    /**
+     * Configuration du filtre (par route)
+     */
+    @Data
+    public static class Config {
+
+        /**
+         * En-têtes de requête qui font partie de la clé (ils peuvent changer la réponse), en plus de Cookie
+         */
+        private List<String> headers = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE,
+                HttpHeaders.AUTHORIZATION, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+
+        /**
+         * Taille maximale d'une réponse partagée (au-delà, les requêtes en attente appellent le service)
+         */
+        private DataSize maxBodySize = DataSize.ofMegabytes(1);
+    }
+
+    /**
+     * Appel en cours : la réponse (ou l'erreur) est publiée une seule fois à toutes les requêtes en attente
+     */
+    private static final class Flight {
+
+        private final Sinks.One<SharedResponse> sink = Sinks.one();
+
+        Mono<SharedResponse> result() {
+            return sink.asMono();
+        }
+
+        synchronized void complete(SharedResponse response) {
+            sink.tryEmitValue(response);
+        }
+
+        synchronized void fail(Throwable error) {
+            sink.tryEmitError(error);
+        }
+    }
+
+    /**
+     * Copie de la réponse du leader
+     */
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+        Mono<Void> writeTo(ServerHttpResponse response) {
+            response.setStatusCode(status);
+            response.getHeaders().putAll(headers);
+            response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+            response.getHeaders().setContentLength(body.length);
+            if (body.length == 0) {
+                return response.setComplete();
+            }
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+    }
+
+    /**
+     * Réponse du leader : transmise au client au fil de l'eau et copiée (jusqu'à maxBodySize) pour les followers
+     */
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final Flight flight;
+        private final long maxBodySize;
+
+        CapturingResponse(ServerHttpResponse delegate, Flight flight, long maxBodySize) {
+            super(delegate);
+            this.flight = flight;
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isShareable(getDelegate().getHeaders())) {
+                flight.fail(new NotShareable());
+                return super.writeWith(body);
+            }
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            AtomicBoolean tooLarge = new AtomicBoolean();
+            Flux<? extends DataBuffer> copying = Flux.from(body)
+                    .doOnNext(buffer -> {
+                        if (tooLarge.get() || copy.size() + buffer.readableByteCount() > maxBodySize) {
+                            tooLarge.set(true);
+                            flight.fail(new NotShareable());
+                            return;
+                        }
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        int position = buffer.readPosition();
+                        buffer.read(bytes);
+                        buffer.readPosition(position);
+                        copy.writeBytes(bytes);
+                    })
+                    .doOnComplete(() -> complete(copy.toByteArray()));
+            return super.writeWith(copying);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // Réponse écrite par morceaux (streaming) : pas de partage
+            flight.fail(new NotShareable());
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            complete(new byte[0]);
+            return super.setComplete();
+        }
+
+        private void complete(byte[] body) {
+            if (!isShareable(getDelegate().getHeaders())) {
+                flight.fail(new NotShareable());
+                return;
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.putAll(getDelegate().getHeaders());
+            flight.complete(new SharedResponse(getDelegate().getStatusCode(), headers, body));
+        }
+
+        /**
+         * Une réponse propre à l'appelant (cookie de session, cache privé) n'est jamais copiée
+         */
+        private static boolean isShareable(HttpHeaders headers) {
+            if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+                return false;
+            }
+            for (String cacheControl : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+                String directives = cacheControl.toLowerCase(Locale.ROOT);
+                if (directives.contains("private") || directives.contains("no-store")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Le leader a été annulé avant d'avoir reçu la réponse
+     */
+    private static final class LeaderCancelled extends RuntimeException {
+        LeaderCancelled() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * La réponse du leader ne peut pas être partagée (trop grande, streamée ou propre à l'appelant)
+     */
+    private static final class NotShareable extends RuntimeException {
+        NotShareable() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.microservices.gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Rend effectif le seuil de compression (server.compression.min-response-size) pour les réponses
+ * des services
+ * 
+ * Le serveur du Gateway ne compresse pas une réponse dont le Content-Length est inférieur au seuil,
+ * mais les services (Spring MVC) répondent en "chunked", sans Content-Length : toutes leurs réponses
+ * seraient compressées, même de quelques octets. Ce filtre retient le début du body jusqu'au seuil ;
+ * si la réponse se termine avant, elle est envoyée d'un bloc avec son Content-Length (et n'est pas
+ * compressée), sinon elle est transmise au fil de l'eau (et compressée).
+ * 
+ * Les réponses streamées (NDJSON, server-sent events) ne sont pas retenues.
+ */
+@Component
+public class CompressionThresholdFilter implements GlobalFilter, Ordered {
+
+    @Value("${server.compression.enabled:false}")
+    private boolean enabled;
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize minResponseSize;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String acceptEncoding = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        if (!enabled || acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+            return chain.filter(exchange);
+        }
+        ThresholdResponse response = new ThresholdResponse(exchange.getResponse(), minResponseSize.toBytes());
+        return chain.filter(exchange.mutate().response(response).build());
+    }
+
+    /**
+     * Avant NettyWriteResponseFilter (qui écrit le body) et avant le filtre Coalesce (qui le copie)
+     */
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    /**
+     * Réponse dont le début est retenu jusqu'au seuil
+     */
+    private static final class ThresholdResponse extends ServerHttpResponseDecorator {
+
+        private final long threshold;
+
+        ThresholdResponse(ServerHttpResponse delegate, long threshold) {
+            super(delegate);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (getHeaders().getContentLength() >= 0) {
+                return super.writeWith(body);
+            }
+            long[] size = {0};
+            // Premier lot : les buffers jusqu'au seuil (ou tout le body s'il est plus petit), puis un buffer par lot
+            Flux<List<DataBuffer>> batches = Flux.<DataBuffer>from(body)
+                    .bufferUntil(buffer -> (size[0] += buffer.readableByteCount()) >= threshold);
+            return batches.switchOnFirst((first, rest) -> {
+                if (first.hasValue() && size(first.get()) < threshold) {
+                    // Body complet sous le seuil
+                    getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+                    getHeaders().setContentLength(size(first.get()));
+                }
+                return super.writeWith(rest.flatMapIterable(buffers -> buffers));
+            }).then();
+        }
+
+        private static long size(List<DataBuffer> buffers) {
+            return buffers.stream().mapToLong(DataBuffer::readableByteCount).sum();
+        }
+    }
+}
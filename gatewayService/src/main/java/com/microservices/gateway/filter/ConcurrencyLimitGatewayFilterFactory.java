@@ -0,0 +1,185 @@
+package com.microservices.gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Filtre "ConcurrencyLimit" : limite adaptative des requêtes simultanées vers le service d'une route
+ * 
+ * La limite suit la capacité réelle du service (voir GradientConcurrencyLimit) : elle baisse quand
+ * ses temps de réponse montent (base de données lente) et remonte quand ils redeviennent normaux.
+ * Au-delà de la limite, la requête est refusée aussitôt avec 503 au lieu d'allonger la file
+ * d'attente du service : les requêtes acceptées gardent un temps de réponse normal.
+ * 
+ * Les GET regroupés par le filtre Coalesce (followers) ne passent pas par ce filtre : seuls
+ * les appels réellement transmis au service occupent une place. Les requêtes longues
+ * (LongRunningRequests : long-poll, import, flux NDJSON) ne sont ni limitées ni mesurées :
+ * une attente de 30 s occuperait une place et passerait pour un service saturé.
+ * Les appels faits par le Gateway lui-même (réponses composées) partagent la limite de la route
+ * du service appelé (voir limit).
+ * 
+ * Activation par route : spring.cloud.gateway.routes[n].filters[m]=ConcurrencyLimit
+ * (désactivable globalement avec gateway.concurrency-limit.enabled=false).
+ * Métriques (tag route) : gateway.concurrency.limit, gateway.concurrency.in-flight,
+ * gateway.concurrency.requests (tag outcome=accepted|rejected).
+ */
+@Component
+public class ConcurrencyLimitGatewayFilterFactory
+        extends AbstractGatewayFilterFactory<ConcurrencyLimitGatewayFilterFactory.Config> {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LongRunningRequests longRunningRequests;
+
+    @Value("${gateway.concurrency-limit.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Limite de chaque route : conservée quand les routes sont rechargées (événements Consul)
+     */
+    private final Map<String, RouteLimit> limits = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String route = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        RouteLimit routeLimit = limits.computeIfAbsent(route, id -> register(id, config));
+        GradientConcurrencyLimit limit = routeLimit.limit();
+        return (exchange, chain) -> {
+            if (!enabled || longRunningRequests.matches(exchange.getRequest())) {
+                return chain.filter(exchange);
+            }
+            if (!limit.tryAcquire()) {
+                routeLimit.rejected().increment();
+                exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                return exchange.getResponse().setComplete();
+            }
+            routeLimit.accepted().increment();
+            long start = System.nanoTime();
+            // Fin de la chaîne : réponse du service reçue (le body est ensuite transmis au client)
+            return chain.filter(exchange).doFinally(signal -> {
+                if (signal == SignalType.CANCEL) {
+                    limit.cancel();
+                    return;
+                }
+                HttpStatusCode status = exchange.getResponse().getStatusCode();
+                boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                limit.release(System.nanoTime() - start, failed);
+            });
+        };
+    }
+
+    /**
+     * Applique la limite d'une route à un appel fait par le Gateway lui-même, hors de la chaîne
+     * de filtres (réponses composées, voir CompositeService)
+     * 
+     * Sans limite pour cette route (route sans ConcurrencyLimit, filtre désactivé), l'appel est lancé
+     * tel quel. Au-delà de la limite, il n'est pas lancé : erreur 503 (ResponseStatusException),
+     * comme la réponse du filtre.
+     * 
+     * @param routeId L'identifiant de la route dont la limite est partagée
+     * @param call L'appel au service
+     * @param failed Erreurs de l'appel comptées comme un échec du service (5xx, connexion impossible)
+     */
+    public <T> Mono<T> limit(String routeId, Mono<T> call, Predicate<Throwable> failed) {
+        return Mono.defer(() -> {
+            RouteLimit routeLimit = limits.get(routeId);
+            if (!enabled || routeLimit == null) {
+                return call;
+            }
+            GradientConcurrencyLimit limit = routeLimit.limit();
+            if (!limit.tryAcquire()) {
+                routeLimit.rejected().increment();
+                return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Limite de requêtes simultanées atteinte (route " + routeId + ")"));
+            }
+            routeLimit.accepted().increment();
+            long start = System.nanoTime();
+            AtomicBoolean failure = new AtomicBoolean();
+            return call.doOnError(e -> failure.set(failed.test(e))).doFinally(signal -> {
+                if (signal == SignalType.CANCEL) {
+                    limit.cancel();
+                    return;
+                }
+                limit.release(System.nanoTime() - start, failure.get());
+            });
+        });
+    }
+
+    private RouteLimit register(String route, Config config) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(config.getInitialLimit(), config.getMinLimit(),
+                config.getMaxLimit(), config.getTolerance(), config.getSmoothing(), config.getWindow().toNanos());
+        Gauge.builder("gateway.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                .tag("route", route)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in-flight", limit, GradientConcurrencyLimit::getInFlight)
+                .tag("route", route)
+                .register(meterRegistry);
+        return new RouteLimit(limit,
+                meterRegistry.counter("gateway.concurrency.requests", "route", route, "outcome", "accepted"),
+                meterRegistry.counter("gateway.concurrency.requests", "route", route, "outcome", "rejected"));
+    }
+
+    /**
+     * Configuration du filtre (par route)
+     */
+    @Data
+    public static class Config implements HasRouteId {
+
+        private String routeId;
+
+        /**
+         * Limite au démarrage du Gateway
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 4;
+
+        private int maxLimit = 500;
+
+        /**
+         * Hausse du temps de réponse tolérée avant de baisser la limite (1.5 : +50 %)
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * Part de la nouvelle valeur à chaque ajustement (plus elle est faible, plus la limite est stable)
+         */
+        private double smoothing = 0.2;
+
+        /**
+         * Durée minimale entre deux ajustements de la limite
+         */
+        private Duration window = Duration.ofMillis(100);
+    }
+
+    /**
+     * Limite d'une route et ses compteurs
+     */
+    private record RouteLimit(GradientConcurrencyLimit limit, Counter accepted, Counter rejected) {
+    }
+}
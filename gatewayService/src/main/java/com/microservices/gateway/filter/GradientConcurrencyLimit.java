@@ -0,0 +1,188 @@
+package com.microservices.gateway.filter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite adaptative du nombre de requêtes simultanées vers un service (algorithme du gradient)
+ * 
+ * Les temps de réponse sont regroupés par fenêtre (window, au moins MIN_WINDOW_SAMPLES mesures).
+ * À la fin de chaque fenêtre, le temps médian de la fenêtre (court terme) est comparé à une moyenne
+ * long terme. La médiane ignore les quelques requêtes très longues d'une fenêtre (gros export,
+ * requête lente isolée), qui feraient croire à une saturation avec une simple moyenne :
+ * - temps stable : la limite augmente de √limite (recherche de la capacité réelle) ;
+ * - temps qui dépasse tolerance × moyenne long terme : la limite baisse proportionnellement
+ *   (au plus de moitié), le service est en train de saturer ;
+ * - erreurs (5xx, échec de connexion) : la limite baisse de 10 %.
+ * La limite n'augmente pas quand moins de la moitié est utilisée (charge trop faible pour mesurer),
+ * et reste comprise entre minLimit et maxLimit.
+ * 
+ * Les requêtes au-delà de la limite sont refusées aussitôt par tryAcquire() (pas de file d'attente).
+ */
+public class GradientConcurrencyLimit {
+
+    /**
+     * Nombre minimal de mesures pour clore une fenêtre
+     */
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    /**
+     * Nombre maximal de mesures conservées par fenêtre (les plus récentes remplacent les plus anciennes)
+     */
+    private static final int MAX_WINDOW_SAMPLES = 1024;
+
+    /**
+     * Poids d'une fenêtre dans la moyenne long terme (environ les 100 dernières fenêtres)
+     */
+    private static final double LONG_TERM_WEIGHT = 2.0 / (100 + 1);
+
+    /**
+     * Poids relatif des fenêtres saturées dans la moyenne long terme : un ralentissement durable
+     * du service (et non dû à la file d'attente) devient la nouvelle référence en une à deux minutes
+     */
+    private static final double SATURATED_WEIGHT_RATIO = 0.1;
+
+    /**
+     * Baisse de la limite après une fenêtre avec des erreurs
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    // Valeur non arrondie de la limite : les petites hausses s'accumulent d'une fenêtre à l'autre
+    private double estimate;
+
+    // Fenêtre en cours et moyenne long terme (accès synchronisés)
+    private long windowStart = System.nanoTime();
+    private final long[] windowRtts = new long[MAX_WINDOW_SAMPLES];
+    private int windowSamples;
+    private int windowErrors;
+    private int windowMaxInFlight;
+    private double longTermRttNanos;
+
+    /**
+     * @param initialLimit Limite de départ
+     * @param minLimit Limite minimale
+     * @param maxLimit Limite maximale
+     * @param tolerance Hausse du temps de réponse tolérée avant de baisser la limite (1.5 : +50 %)
+     * @param smoothing Part de la nouvelle valeur dans la limite à chaque fenêtre (entre 0 et 1)
+     * @param windowNanos Durée minimale d'une fenêtre de mesure
+     */
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                                    long windowNanos) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limites invalides : min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.windowNanos = windowNanos;
+        this.estimate = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimate;
+    }
+
+    /**
+     * Réserve une place pour une requête
+     * 
+     * @return false si la limite est atteinte (la requête doit être refusée)
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libère la place d'une requête terminée et enregistre son temps de réponse
+     * 
+     * @param rttNanos Temps de réponse du service
+     * @param failed true si la requête a échoué (5xx ou erreur)
+     */
+    public void release(long rttNanos, boolean failed) {
+        int pending = inFlight.getAndDecrement();
+        sample(rttNanos, failed, pending, System.nanoTime());
+    }
+
+    /**
+     * Libère la place d'une requête annulée (client parti) : aucune mesure
+     */
+    public void cancel() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, boolean failed, int pending, long now) {
+        if (failed) {
+            windowErrors++;
+        } else {
+            windowRtts[windowSamples % MAX_WINDOW_SAMPLES] = rttNanos;
+            windowSamples++;
+        }
+        windowMaxInFlight = Math.max(windowMaxInFlight, pending);
+        if (now - windowStart < windowNanos || windowSamples + windowErrors < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+
+        double current = estimate;
+        double next = current;
+        if (windowErrors > 0) {
+            next = current * BACKOFF_RATIO;
+        } else {
+            double shortTermRtt = median(windowRtts, Math.min(windowSamples, MAX_WINDOW_SAMPLES));
+            if (longTermRttNanos == 0) {
+                longTermRttNanos = shortTermRtt;
+            } else if (shortTermRtt > tolerance * longTermRttNanos) {
+                // Fenêtre saturée : la moyenne ne suit que lentement, sinon la file d'attente
+                // deviendrait la nouvelle référence et la limite ne cesserait d'augmenter
+                longTermRttNanos += (shortTermRtt - longTermRttNanos) * LONG_TERM_WEIGHT * SATURATED_WEIGHT_RATIO;
+            } else {
+                longTermRttNanos += (shortTermRtt - longTermRttNanos) * LONG_TERM_WEIGHT;
+            }
+            // Le service est redevenu beaucoup plus rapide : la moyenne long terme le rattrape plus vite
+            if (longTermRttNanos > 2 * shortTermRtt) {
+                longTermRttNanos *= 0.95;
+            }
+            if (windowMaxInFlight >= current / 2) {
+                double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTermRttNanos / shortTermRtt));
+                next = current * gradient + Math.sqrt(current);
+            }
+        }
+        next = current * (1 - smoothing) + next * smoothing;
+        estimate = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimate;
+
+        windowStart = now;
+        windowSamples = 0;
+        windowErrors = 0;
+        windowMaxInFlight = 0;
+    }
+
+    /**
+     * Médiane des count premières valeurs (réordonnées sur place)
+     */
+    static double median(long[] values, int count) {
+        Arrays.sort(values, 0, count);
+        int middle = count / 2;
+        return count % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2.0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.microservices.gateway.filter;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/**
+ * Requêtes dont la durée ne dit rien de la charge du service : attente longue (long-poll),
+ * envoi d'un gros fichier ou réponse streamée
+ * 
+ * Leur durée fausserait les temps de réponse mesurés par ConcurrencyLimit et par le load balancer
+ * (une attente de 30 s passerait pour un service saturé) : elles ne sont pas mesurées.
+ * 
+ * Sont concernées :
+ * - les requêtes dont l'en-tête Accept demande du NDJSON (réponse streamée) ;
+ * - les requêtes décrites par gateway.long-running.requests, sous la forme "[METHODE ]chemin"
+ *   (chemin au format PathPattern, sans méthode : toutes les méthodes).
+ */
+@Component
+public class LongRunningRequests {
+
+    private final List<Rule> rules;
+
+    /**
+     * @param requests Les requêtes longues, ex. "/api/clients/changes" ou "PUT /api/voitures/imports/*"
+     */
+    public LongRunningRequests(@Value("${gateway.long-running.requests:/api/clients/changes,PUT /api/voitures/imports/*}")
+                               List<String> requests) {
+        this.rules = requests.stream()
+                .map(String::trim)
+                .filter(request -> !request.isEmpty())
+                .map(Rule::parse)
+                .toList();
+    }
+
+    /**
+     * @return true si la durée de la requête ne doit pas être mesurée
+     */
+    public boolean matches(ServerHttpRequest request) {
+        for (MediaType accept : acceptedTypes(request)) {
+            if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(accept)) {
+                return true;
+            }
+        }
+        for (Rule rule : rules) {
+            if ((rule.method() == null || rule.method().equals(request.getMethod().name()))
+                    && rule.path().matches(request.getPath().pathWithinApplication())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<MediaType> acceptedTypes(ServerHttpRequest request) {
+        try {
+            return request.getHeaders().getAccept();
+        } catch (IllegalArgumentException e) {
+            // En-tête Accept invalide : le service répondra 406 ou 400, aussitôt
+            return List.of();
+        }
+    }
+
+    /**
+     * Une requête longue : méthode (null pour toutes) et chemin
+     */
+    private record Rule(String method, PathPattern path) {
+
+        static Rule parse(String request) {
+            int space = request.indexOf(' ');
+            String method = space > 0 ? request.substring(0, space).toUpperCase() : null;
+            String path = space > 0 ? request.substring(space + 1).trim() : request;
+            return new Rule(method, PathPatternParser.defaultInstance.parse(path));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.microservices.gateway.loadbalancer;
+
+import com.microservices.gateway.filter.LongRunningRequests;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Mesure chaque requête routée vers une instance choisie par le load balancer (routes lb://)
+ * et transmet le résultat à InstanceLoadTracker
+ * 
+ * Placé juste après ReactiveLoadBalancerClientFilter, qui a déjà choisi l'instance.
+ * Les annulations (client parti) libèrent aussi la requête en cours : les callbacks
+ * LoadBalancerLifecycle de Spring Cloud ne sont pas appelés dans ce cas.
+ * 
+ * Les requêtes longues (LongRunningRequests : long-poll, import, flux NDJSON) ne sont pas suivies :
+ * une attente de 30 s ferait passer l'instance pour lente et lui retirerait son trafic.
+ */
+@Component
+public class InstanceLoadFilter implements GlobalFilter, Ordered {
+
+    @Autowired
+    private InstanceLoadTracker tracker;
+
+    @Autowired
+    private LongRunningRequests longRunningRequests;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> response = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (response == null || !response.hasServer() || longRunningRequests.matches(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+        ServiceInstance instance = response.getServer();
+        tracker.start(instance);
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                tracker.cancel(instance);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean failed = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            tracker.complete(instance, System.nanoTime() - start, failed);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
@@ -0,0 +1,151 @@
+package com.microservices.gateway.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Charge observée de chaque instance de service : requêtes en cours et temps de réponse moyen (EWMA)
+ * 
+ * La moyenne est "à pic" (peak EWMA) : une réponse plus lente que la moyenne la remplace aussitôt,
+ * une réponse plus rapide ne la fait baisser que progressivement. Sans nouvelle mesure, la moyenne
+ * décroît vers 0 avec la constante de temps decay : une instance écartée parce qu'elle était lente
+ * finit par être de nouveau essayée.
+ * 
+ * Le coût d'une instance est moyenne × (requêtes en cours + 1) ; PeakEwmaLoadBalancer choisit
+ * la moins coûteuse de deux instances tirées au hasard. Les mesures sont faites par InstanceLoadFilter.
+ * 
+ * Les mesures d'une instance qui n'est plus dans la liste de son service (instance arrêtée,
+ * redéployée sur un autre port) sont supprimées au premier choix qui suit le changement de liste.
+ */
+@Component
+public class InstanceLoadTracker {
+
+    /**
+     * Coût d'une instance sans mesure mais avec des requêtes en cours (ex. première requête lente)
+     */
+    private static final double UNMEASURED_PENALTY_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final double decayNanos;
+    private final long failurePenaltyNanos;
+    private final Map<String, Load> loads = new ConcurrentHashMap<>();
+    /**
+     * Dernière liste d'instances vue pour chaque service (comparée par identité : les listes sont immuables)
+     */
+    private final Map<String, List<ServiceInstance>> knownInstances = new ConcurrentHashMap<>();
+
+    /**
+     * @param decay Constante de temps de la moyenne (plus elle est courte, plus la moyenne suit les dernières mesures)
+     * @param failurePenalty Temps de réponse minimal compté pour une erreur (5xx ou échec de connexion)
+     */
+    public InstanceLoadTracker(@Value("${gateway.loadbalancer.decay:10s}") Duration decay,
+                               @Value("${gateway.loadbalancer.failure-penalty:1s}") Duration failurePenalty) {
+        this.decayNanos = decay.toNanos();
+        this.failurePenaltyNanos = failurePenalty.toNanos();
+    }
+
+    /**
+     * Coût actuel de l'instance (plus il est bas, plus l'instance est préférable)
+     */
+    public double cost(ServiceInstance instance) {
+        Load load = loads.get(key(instance));
+        return load == null ? 0 : load.cost(System.nanoTime());
+    }
+
+    /**
+     * Début d'une requête vers l'instance
+     */
+    public void start(ServiceInstance instance) {
+        load(instance).inFlight.incrementAndGet();
+    }
+
+    /**
+     * Fin d'une requête vers l'instance
+     * 
+     * @param elapsedNanos Durée de la requête
+     * @param failed true si la requête a échoué (l'échec compte au moins failurePenalty)
+     */
+    public void complete(ServiceInstance instance, long elapsedNanos, boolean failed) {
+        Load load = loads.get(key(instance));
+        if (load == null) {
+            // Instance retirée de la liste pendant la requête : ses mesures ont été supprimées
+            return;
+        }
+        load.inFlight.decrementAndGet();
+        load.observe(failed ? Math.max(elapsedNanos, failurePenaltyNanos) : elapsedNanos, System.nanoTime());
+    }
+
+    /**
+     * Fin d'une requête annulée (client parti) : aucune mesure de durée
+     */
+    public void cancel(ServiceInstance instance) {
+        Load load = loads.get(key(instance));
+        if (load != null) {
+            load.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Supprime les mesures des instances du service qui ne sont plus dans sa liste
+     * 
+     * @param serviceId Le service
+     * @param instances La liste actuelle de ses instances (immuable)
+     */
+    public void retain(String serviceId, List<ServiceInstance> instances) {
+        if (knownInstances.get(serviceId) == instances) {
+            return;
+        }
+        knownInstances.put(serviceId, instances);
+        Set<String> current = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            current.add(key(instance));
+        }
+        String prefix = serviceId + "@";
+        loads.keySet().removeIf(key -> key.startsWith(prefix) && !current.contains(key));
+    }
+
+    private Load load(ServiceInstance instance) {
+        return loads.computeIfAbsent(key(instance), k -> new Load());
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getServiceId() + "@" + instance.getHost() + ":" + instance.getPort();
+    }
+
+    /**
+     * Requêtes en cours et moyenne d'une instance
+     */
+    private final class Load {
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        private double ewmaNanos;
+        private long stamp = System.nanoTime();
+
+        synchronized void observe(long rttNanos, long now) {
+            if (rttNanos > ewmaNanos) {
+                ewmaNanos = rttNanos;
+            } else {
+                double weight = Math.exp(-(now - stamp) / decayNanos);
+                ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+            }
+            stamp = now;
+        }
+
+        synchronized double cost(long now) {
+            double decayed = ewmaNanos * Math.exp(-Math.max(now - stamp, 0) / decayNanos);
+            int pending = inFlight.get();
+            if (decayed == 0 && pending > 0) {
+                return UNMEASURED_PENALTY_NANOS + pending;
+            }
+            return decayed * (pending + 1);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.microservices.gateway.loadbalancer;
+
+import com.microservices.gateway.discovery.CachedInstancesConfiguration;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClient;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Choix du load balancer pour les services appelés via lb:// (routes et réponses composées)
+ * 
+ * service-client et service-voiture utilisent PeakEwmaLoadBalancer (voir PeakEwmaLoadBalancerConfiguration),
+ * avec les instances du cache local alimenté par Consul (voir CachedInstancesConfiguration).
+ */
+@Configuration
+@LoadBalancerClients({
+        @LoadBalancerClient(name = "service-client",
+                configuration = {PeakEwmaLoadBalancerConfiguration.class, CachedInstancesConfiguration.class}),
+        @LoadBalancerClient(name = "service-voiture",
+                configuration = {PeakEwmaLoadBalancerConfiguration.class, CachedInstancesConfiguration.class})
+})
+public class LoadBalancerConfig {
+}
@@ -0,0 +1,28 @@
+package com.microservices.gateway.loadbalancer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration du load balancer de chaque service (contexte Spring propre à chaque service)
+ * 
+ * Volontairement sans @Configuration : elle ne doit pas être chargée dans le contexte principal
+ * (voir LoadBalancerConfig). Avec gateway.loadbalancer.strategy=round-robin, le load balancer
+ * par défaut de Spring Cloud (round robin) est conservé.
+ */
+public class PeakEwmaLoadBalancerConfiguration {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.loadbalancer.strategy", havingValue = "peak-ewma", matchIfMissing = true)
+    public PeakEwmaLoadBalancer peakEwmaLoadBalancer(Environment environment,
+                                                     LoadBalancerClientFactory loadBalancerClientFactory,
+                                                     InstanceLoadTracker instanceLoadTracker) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PeakEwmaLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                serviceId, instanceLoadTracker);
+    }
+}
@@ -0,0 +1,42 @@
+package com.microservices.gateway.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Réponse composée pour la page d'un client : le client et ses voitures
+ * 
+ * Les deux parties sont reprises telles quelles (JSON) depuis service-client et service-voiture.
+ * Si un des deux appels échoue, la partie correspondante vaut null, partial vaut true
+ * et errors indique la cause.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompositeClient {
+
+    /**
+     * Le client (réponse de GET /api/clients/{id})
+     */
+    private JsonNode client;
+
+    /**
+     * Les voitures du client (réponse de GET /api/voitures/client/{id})
+     */
+    private JsonNode voitures;
+
+    /**
+     * true si une des deux parties est manquante
+     */
+    private boolean partial;
+
+    /**
+     * Code d'erreur par partie manquante ("client" ou "voitures") : timeout, unavailable,
+     * upstream_error ou unreachable
+     */
+    private Map<String, String> errors;
+}
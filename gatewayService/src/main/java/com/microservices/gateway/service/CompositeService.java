@@ -0,0 +1,327 @@
+package com.microservices.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.microservices.gateway.filter.ConcurrencyLimitGatewayFilterFactory;
+import com.microservices.gateway.loadbalancer.InstanceLoadTracker;
+import com.microservices.gateway.model.CompositeClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.filter.headers.observation.ObservedRequestHttpHeadersFilter;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service de composition : interroge service-client et service-voiture en parallèle
+ * 
+ * Les deux appels sont lancés en même temps (Mono.zip) : la latence totale est celle
+ * de l'appel le plus lent et non la somme des deux.
+ * Chaque appel a son propre timeout ; en mode partiel, l'échec d'un appel
+ * n'empêche pas de renvoyer l'autre partie.
+ * 
+ * Les appels vont directement à une instance choisie par le load balancer du service (PeakEwma),
+ * sans repasser par le serveur HTTP du Gateway. Ils appliquent en mémoire ce que font les routes :
+ * limite de la route du service (ConcurrencyLimit), mesure de l'instance (InstanceLoadTracker),
+ * regroupement des appels identiques simultanés (comme Coalesce) et filtres d'en-têtes du Gateway
+ * (en-têtes de l'appelant transmis, X-Forwarded-*, sans les en-têtes hop-by-hop).
+ * 
+ * Une partie en échec est signalée par un code fixe (voir Leg) ; le détail de l'erreur,
+ * qui peut révéler des adresses internes, n'est que journalisé.
+ */
+@Slf4j
+@Service
+public class CompositeService {
+
+    /**
+     * Appels composés : service appelé et route dont il partage la limite (routes de application.properties)
+     */
+    private static final Target CLIENT = new Target("service-client", "client-service", "/api/clients/{id}");
+    private static final Target VOITURES = new Target("service-voiture", "voiture-service", "/api/voitures/client/{id}");
+
+    /**
+     * En-têtes de l'appelant non transmis : chaque appel doit renvoyer le JSON complet, non compressé,
+     * de sa partie (l'ETag ou la plage demandés concernent la réponse composée, pas une de ses parties)
+     */
+    private static final List<String> NOT_FORWARDED = List.of(HttpHeaders.HOST, HttpHeaders.ACCEPT,
+            HttpHeaders.ACCEPT_ENCODING, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE,
+            HttpHeaders.IF_MATCH, HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.IF_RANGE, HttpHeaders.RANGE,
+            HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_TYPE);
+
+    /**
+     * En-têtes transmis qui font partie de la clé de regroupement, comme pour le filtre Coalesce
+     */
+    private static final List<String> COALESCE_KEY = List.of(HttpHeaders.COOKIE, HttpHeaders.AUTHORIZATION,
+            HttpHeaders.ACCEPT_LANGUAGE);
+
+    private final WebClient webClient;
+    private final LoadBalancerClientFactory loadBalancers;
+    private final InstanceLoadTracker tracker;
+    private final ConcurrencyLimitGatewayFilterFactory concurrencyLimit;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final MeterRegistry meterRegistry;
+    private final Duration clientTimeout;
+    private final Duration voituresTimeout;
+    private final boolean allowPartial;
+    private final boolean coalesce;
+
+    /**
+     * Appels en cours, par clé de regroupement
+     */
+    private final Map<String, Mono<Leg>> flights = new ConcurrentHashMap<>();
+
+    /**
+     * @param webClientBuilder Builder WebClient de Spring Boot
+     * @param loadBalancers Load balancers des services (les mêmes que ceux des routes lb://)
+     * @param tracker Charge des instances, partagée avec InstanceLoadFilter
+     * @param concurrencyLimit Limites des routes, partagées avec le filtre ConcurrencyLimit
+     * @param headersFilters Filtres d'en-têtes du Gateway (ceux appliqués aux requêtes routées)
+     * @param meterRegistry Registre des métriques (gateway.coalesce.requests)
+     * @param clientTimeout Timeout de l'appel à service-client
+     * @param voituresTimeout Timeout de l'appel à service-voiture
+     * @param allowPartial Renvoyer une réponse partielle si un des appels échoue
+     * @param coalesce Regrouper les appels identiques simultanés (gateway.coalesce.enabled)
+     */
+    public CompositeService(WebClient.Builder webClientBuilder,
+                            LoadBalancerClientFactory loadBalancers,
+                            InstanceLoadTracker tracker,
+                            ConcurrencyLimitGatewayFilterFactory concurrencyLimit,
+                            ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                            MeterRegistry meterRegistry,
+                            @Value("${gateway.composite.client-timeout:2s}") Duration clientTimeout,
+                            @Value("${gateway.composite.voitures-timeout:2s}") Duration voituresTimeout,
+                            @Value("${gateway.composite.allow-partial:true}") boolean allowPartial,
+                            @Value("${gateway.coalesce.enabled:true}") boolean coalesce) {
+        this.webClient = webClientBuilder.build();
+        this.loadBalancers = loadBalancers;
+        this.tracker = tracker;
+        this.concurrencyLimit = concurrencyLimit;
+        this.headersFilters = headersFilters;
+        this.meterRegistry = meterRegistry;
+        this.clientTimeout = clientTimeout;
+        this.voituresTimeout = voituresTimeout;
+        this.allowPartial = allowPartial;
+        this.coalesce = coalesce;
+    }
+
+    /**
+     * Récupère un client et ses voitures en parallèle
+     * 
+     * @param id L'identifiant du client
+     * @param exchange La requête de l'appelant (ses en-têtes sont transmis aux deux services)
+     * @return 200 avec la réponse composée (éventuellement partielle),
+     *         404 si le client n'existe pas, 502 si la réponse ne peut pas être composée
+     */
+    public Mono<ResponseEntity<CompositeClient>> getClientWithVoitures(Long id, ServerWebExchange exchange) {
+        HttpHeaders headers = forwardedHeaders(exchange);
+        Mono<Leg> client = call(CLIENT, id, headers, clientTimeout);
+        Mono<Leg> voitures = call(VOITURES, id, headers, voituresTimeout);
+
+        return Mono.zip(client, voitures).map(legs -> {
+            Leg clientLeg = legs.getT1();
+            Leg voituresLeg = legs.getT2();
+            if (clientLeg.notFound) {
+                return ResponseEntity.notFound().<CompositeClient>build();
+            }
+
+            Map<String, String> errors = new LinkedHashMap<>();
+            if (clientLeg.error != null) {
+                errors.put("client", clientLeg.error);
+            }
+            if (voituresLeg.error != null) {
+                errors.put("voitures", voituresLeg.error);
+            }
+            if (errors.size() == 2 || (!errors.isEmpty() && !allowPartial)) {
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                        .body(new CompositeClient(null, null, true, errors));
+            }
+            return ResponseEntity.ok(new CompositeClient(clientLeg.body, voituresLeg.body, !errors.isEmpty(), errors));
+        });
+    }
+
+    /**
+     * En-têtes transmis aux services : ceux de l'appelant après les filtres d'en-têtes du Gateway
+     * 
+     * Sauf l'observation du Gateway, liée à une route : les appels du WebClient de Spring Boot
+     * sont déjà observés.
+     */
+    private HttpHeaders forwardedHeaders(ServerWebExchange exchange) {
+        List<HttpHeadersFilter> filters = headersFilters.getIfAvailable(List::of).stream()
+                .filter(filter -> !(filter instanceof ObservedRequestHttpHeadersFilter))
+                .toList();
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(HttpHeadersFilter.filterRequest(filters, exchange));
+        NOT_FORWARDED.forEach(headers::remove);
+        return headers;
+    }
+
+    /**
+     * Appelle un service, ou rejoint l'appel identique déjà en cours ;
+     * le Mono retourné ne se termine jamais en erreur
+     */
+    private Mono<Leg> call(Target target, Long id, HttpHeaders headers, Duration timeout) {
+        if (!coalesce) {
+            return send(target, id, headers, timeout);
+        }
+        return Mono.defer(() -> {
+            String key = key(target, id, headers);
+            AtomicReference<Mono<Leg>> self = new AtomicReference<>();
+            // share : l'appel continue tant qu'une des requêtes qui l'attendent est encore là
+            Mono<Leg> flight = send(target, id, headers, timeout)
+                    .doFinally(signal -> flights.remove(key, self.get()))
+                    .share();
+            self.set(flight);
+            Mono<Leg> existing = flights.putIfAbsent(key, flight);
+            count(target, existing != null ? "follower" : "leader");
+            return existing != null ? existing : flight;
+        });
+    }
+
+    /**
+     * Appelle une instance du service dans la limite de sa route ; les erreurs sont converties
+     * en Leg pour que l'autre appel ne soit pas annulé
+     */
+    private Mono<Leg> send(Target target, Long id, HttpHeaders headers, Duration timeout) {
+        return Mono.defer(() -> {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            Mono<JsonNode> call = Mono.from(loadBalancers.getInstance(target.serviceId()).choose())
+                    .timeout(timeout)
+                    .flatMap(response -> response.hasServer()
+                            ? fetch(response.getServer(), target.path(), id, headers,
+                                    Duration.ofNanos(Math.max(0, deadline - System.nanoTime())))
+                            : Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                    "Aucune instance de " + target.serviceId())));
+            return concurrencyLimit.limit(target.routeId(), call, CompositeService::isServiceFailure);
+        })
+                .map(Leg::success)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Leg.NOT_FOUND))
+                .onErrorResume(e -> {
+                    Leg leg = Leg.failure(e);
+                    log.warn("Appel {} en échec ({}) : {}", target.path(), leg.error, e.getMessage());
+                    return Mono.just(leg);
+                });
+    }
+
+    /**
+     * GET sur l'instance choisie, mesuré pour InstanceLoadTracker comme par InstanceLoadFilter
+     * (un timeout compte comme un échec de l'instance)
+     */
+    private Mono<JsonNode> fetch(ServiceInstance instance, String path, Long id, HttpHeaders headers, Duration timeout) {
+        return Mono.defer(() -> {
+            tracker.start(instance);
+            long start = System.nanoTime();
+            AtomicBoolean failed = new AtomicBoolean();
+            return webClient.get()
+                    .uri(instance.getUri() + path, id)
+                    .headers(request -> request.addAll(headers))
+                    .retrieve()
+                    .bodyToMono(JsonNode.class)
+                    .timeout(timeout)
+                    .doOnError(e -> failed.set(isServiceFailure(e)))
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            tracker.cancel(instance);
+                            return;
+                        }
+                        tracker.complete(instance, System.nanoTime() - start, failed.get());
+                    });
+        });
+    }
+
+    /**
+     * @return false pour une réponse 4xx du service (réponse normale, ex. client inconnu)
+     */
+    private static boolean isServiceFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError();
+        }
+        if (e instanceof ResponseStatusException status) {
+            return status.getStatusCode().is5xxServerError();
+        }
+        return true;
+    }
+
+    private static String key(Target target, Long id, HttpHeaders headers) {
+        StringBuilder key = new StringBuilder(target.serviceId()).append(target.path()).append('#').append(id);
+        for (String header : COALESCE_KEY) {
+            key.append('\n').append(header).append(':').append(headers.getOrEmpty(header));
+        }
+        return key.toString();
+    }
+
+    private void count(Target target, String role) {
+        meterRegistry.counter("gateway.coalesce.requests", "route", target.routeId(), "role", role).increment();
+    }
+
+    /**
+     * Service appelé, route dont il partage la limite et chemin de l'appel
+     */
+    private record Target(String serviceId, String routeId, String path) {
+    }
+
+    /**
+     * Résultat d'un appel : body, 404 ou erreur
+     * 
+     * Codes d'erreur : timeout (pas de réponse dans le délai), unavailable (503 : limite de
+     * ConcurrencyLimit atteinte ou aucune instance), upstream_error (autre statut d'erreur),
+     * unreachable (connexion impossible, réponse illisible).
+     */
+    private static final class Leg {
+
+        static final Leg NOT_FOUND = new Leg(null, true, null);
+
+        static final String TIMEOUT = "timeout";
+        static final String UNAVAILABLE = "unavailable";
+        static final String UPSTREAM_ERROR = "upstream_error";
+        static final String UNREACHABLE = "unreachable";
+
+        final JsonNode body;
+        final boolean notFound;
+        final String error;
+
+        private Leg(JsonNode body, boolean notFound, String error) {
+            this.body = body;
+            this.notFound = notFound;
+            this.error = error;
+        }
+
+        static Leg success(JsonNode body) {
+            return new Leg(body, false, null);
+        }
+
+        static Leg failure(Throwable e) {
+            if (e instanceof TimeoutException) {
+                return new Leg(null, false, TIMEOUT);
+            }
+            if (e instanceof WebClientResponseException response) {
+                return new Leg(null, false,
+                        response.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value() ? UNAVAILABLE : UPSTREAM_ERROR);
+            }
+            if (e instanceof ResponseStatusException status) {
+                return new Leg(null, false,
+                        status.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value() ? UNAVAILABLE : UPSTREAM_ERROR);
+            }
+            return new Leg(null, false, UNREACHABLE);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.microservices.gateway.discovery;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Découverte des services par le Gateway face à un Consul simulé (FakeConsul), avec le cache
+ * tenu à jour par blocking queries (ConsulInstanceCache)
+ * 
+ * Deux instances simulées de service-voiture comptent les requêtes reçues. Chaque test change
+ * les instances déclarées dans Consul, ou rend Consul injoignable, et vérifie où le Gateway
+ * envoie ensuite les requêtes /api/voitures/{id}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.consul.enabled=true",
+        "spring.cloud.consul.host=127.0.0.1",
+        "spring.cloud.consul.discovery.enabled=true",
+        "spring.cloud.consul.discovery.register=false",
+        "spring.cloud.consul.discovery.catalog-services-watch.enabled=false",
+        "spring.cloud.compatibility-verifier.enabled=false",
+        "gateway.discovery.watch.enabled=true",
+        "gateway.discovery.watch.retry-min=100ms",
+        "gateway.discovery.watch.retry-max=1s",
+        "gateway.coalesce.enabled=false",
+        "spring.main.banner-mode=off",
+        "logging.level.root=WARN"})
+@AutoConfigureWebTestClient
+class DiscoveryOutageTest {
+
+    /**
+     * Délai maximal entre un changement dans Consul et son effet sur le routage
+     */
+    private static final Duration PROPAGATION = Duration.ofSeconds(5);
+
+    private static final int BATCH = 20;
+
+    private static final String VOITURE = "{\"id\":1,\"marque\":\"Renault\",\"modele\":\"Clio\",\"couleur\":\"Rouge\","
+            + "\"immatriculation\":\"AB-123-CD\",\"prix\":18990.0,\"clientId\":42,\"version\":0}";
+
+    private static final FakeConsul consul = new FakeConsul();
+    private static final Instance first = new Instance();
+    private static final Instance second = new Instance();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void consulProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.consul.port", consul::port);
+    }
+
+    @AfterAll
+    static void stopAll() {
+        consul.close();
+        first.server.disposeNow();
+        second.server.disposeNow();
+    }
+
+    @Test
+    void changementDInstancePropage() {
+        routeOnlyTo(first);
+
+        consul.setInstances("service-voiture", List.of(second.port()));
+        long changedAt = System.nanoTime();
+        awaitOnlyRoutedTo(second);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - changedAt)).isLessThan(PROPAGATION);
+    }
+
+    @Test
+    void consulInjoignableGardeLaDerniereListe() {
+        routeOnlyTo(second);
+
+        consul.stop();
+        try {
+            // Plusieurs nouvelles tentatives du cache (retry-min=100ms) pendant la panne
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (System.nanoTime() < until) {
+                assertThat(sendBatch()).as("réponses 200 pendant la panne de Consul").isEqualTo(BATCH);
+                assertThat(first.drain()).isZero();
+                assertThat(second.drain()).isEqualTo(BATCH);
+            }
+        } finally {
+            consul.start();
+        }
+
+        // Consul de nouveau joignable : ses changements sont de nouveau suivis
+        consul.setInstances("service-voiture", List.of(first.port()));
+        awaitOnlyRoutedTo(first);
+    }
+
+    @Test
+    void reponseVideDeConsulAppliquee() {
+        routeOnlyTo(first);
+
+        consul.setInstances("service-voiture", List.of());
+        long deadline = System.nanoTime() + PROPAGATION.toNanos();
+        while (status() != HttpStatus.SERVICE_UNAVAILABLE) {
+            assertThat(System.nanoTime()).as("503 sans instance saine").isLessThan(deadline);
+        }
+        first.drain();
+        assertThat(status()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(first.drain()).isZero();
+    }
+
+    /**
+     * Déclare une seule instance de service-voiture et attend que le Gateway n'appelle plus qu'elle
+     */
+    private void routeOnlyTo(Instance instance) {
+        consul.setInstances("service-voiture", List.of(instance.port()));
+        awaitOnlyRoutedTo(instance);
+    }
+
+    /**
+     * Attend (au plus PROPAGATION) qu'un lot complet de requêtes aboutisse sur la seule instance donnée
+     */
+    private void awaitOnlyRoutedTo(Instance instance) {
+        Instance other = instance == first ? second : first;
+        long deadline = System.nanoTime() + PROPAGATION.toNanos();
+        while (true) {
+            first.drain();
+            second.drain();
+            int ok = sendBatch();
+            if (ok == BATCH && instance.drain() == BATCH && other.drain() == 0) {
+                return;
+            }
+            assertThat(System.nanoTime()).as("routage vers la seule instance %d", instance.port())
+                    .isLessThan(deadline);
+        }
+    }
+
+    /**
+     * @return Nombre de réponses 200 sur BATCH requêtes
+     */
+    private int sendBatch() {
+        int ok = 0;
+        for (int i = 0; i < BATCH; i++) {
+            if (status() == HttpStatus.OK) {
+                ok++;
+            }
+        }
+        return ok;
+    }
+
+    private HttpStatus status() {
+        return HttpStatus.valueOf(webTestClient.get().uri("/api/voitures/1")
+                .exchange()
+                .returnResult(Void.class)
+                .getStatus()
+                .value());
+    }
+
+    /**
+     * Instance simulée de service-voiture : répond une voiture fixe et compte les requêtes reçues
+     */
+    private static final class Instance {
+
+        private final AtomicLong requests = new AtomicLong();
+        private final DisposableServer server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((request, response) -> {
+                    requests.incrementAndGet();
+                    return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                            .sendString(Mono.just(VOITURE))
+                            .then();
+                })
+                .bindNow();
+
+        int port() {
+            return server.port();
+        }
+
+        /**
+         * Nombre de requêtes reçues depuis le dernier appel
+         */
+        long drain() {
+            return requests.getAndSet(0);
+        }
+    }
+}
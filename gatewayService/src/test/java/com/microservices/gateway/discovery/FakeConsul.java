@@ -0,0 +1,122 @@
+package com.microservices.gateway.discovery;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.springframework.boot.convert.DurationStyle;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Agent Consul simulé : GET /v1/health/service/{service} avec blocking queries
+ * 
+ * Chaque changement (setInstances) incrémente l'index global renvoyé dans X-Consul-Index.
+ * Une requête avec ?index=N (N égal à l'index actuel) reste en attente jusqu'au prochain
+ * changement ou jusqu'à ?wait=, comme avec le vrai Consul. stop() ferme le port (Consul
+ * injoignable), start() le rouvre sur le même port. Les autres chemins répondent 404.
+ */
+public final class FakeConsul implements AutoCloseable {
+
+    private static final String HEALTH_SERVICE_PATH = "/v1/health/service/";
+
+    private final LoopResources loops = LoopResources.create("fake-consul", 1, true);
+    private final Map<String, List<Integer>> services = new ConcurrentHashMap<>();
+    private final AtomicLong index = new AtomicLong(1);
+    private final Sinks.Many<Long> changes = Sinks.many().multicast().directBestEffort();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private volatile DisposableServer server;
+    private int port;
+
+    public FakeConsul() {
+        start();
+    }
+
+    public int port() {
+        return port;
+    }
+
+    /**
+     * Remplace les instances (ports sur 127.0.0.1) d'un service
+     */
+    public synchronized void setInstances(String service, List<Integer> ports) {
+        services.put(service, List.copyOf(ports));
+        changes.tryEmitNext(index.incrementAndGet());
+    }
+
+    synchronized void start() {
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(port)
+                .runOn(loops)
+                .doOnConnection(connection -> {
+                    connections.add(connection);
+                    connection.onDispose(() -> connections.remove(connection));
+                })
+                .handle(this::handle)
+                .bindNow();
+        port = server.port();
+    }
+
+    synchronized void stop() {
+        server.disposeNow();
+        // Connexions keep-alive des clients comprises : sinon Consul resterait joignable par elles
+        connections.forEach(Connection::dispose);
+    }
+
+    private Mono<Void> handle(HttpServerRequest request, HttpServerResponse response) {
+        QueryStringDecoder query = new QueryStringDecoder(request.uri());
+        if (!query.path().startsWith(HEALTH_SERVICE_PATH)) {
+            return response.status(HttpResponseStatus.NOT_FOUND).send();
+        }
+        String service = query.path().substring(HEALTH_SERVICE_PATH.length());
+        long requestIndex = Long.parseLong(parameter(query, "index", "0"));
+        Duration wait = DurationStyle.detectAndParse(parameter(query, "wait", "5m"));
+
+        // Abonnement aux changements avant de lire l'index : aucun changement ne peut être manqué
+        Mono<Long> ready = Flux.merge(
+                        changes.asFlux().filter(changed -> changed > requestIndex),
+                        Mono.fromSupplier(index::get).filter(current -> current > requestIndex))
+                .next()
+                .timeout(wait, Mono.fromSupplier(index::get));
+        return ready.flatMap(current -> response
+                .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .header("X-Consul-Index", String.valueOf(current))
+                .sendString(Mono.just(body(service)), StandardCharsets.UTF_8)
+                .then());
+    }
+
+    private String body(String service) {
+        return services.getOrDefault(service, List.of()).stream()
+                .map(port -> ("{\"Node\":{\"ID\":\"node\",\"Node\":\"node\",\"Address\":\"127.0.0.1\",\"Meta\":{}},"
+                        + "\"Service\":{\"ID\":\"%s-%d\",\"Service\":\"%s\",\"Tags\":[],\"Address\":\"127.0.0.1\","
+                        + "\"Meta\":{},\"Port\":%d},\"Checks\":[]}").formatted(service, port, service, port))
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static String parameter(QueryStringDecoder query, String name, String defaultValue) {
+        List<String> values = query.parameters().get(name);
+        return values == null || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    @Override
+    public void close() {
+        stop();
+        loops.dispose();
+    }
+}
@@ -0,0 +1,189 @@
+package com.microservices.gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.microservices.gateway.discovery.FakeConsul;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Réponses composées (GET /api/composite/clients/{id}) face à un Consul simulé (FakeConsul)
+ * et à une instance simulée de service-client et de service-voiture
+ * 
+ * Les instances simulées gardent les en-têtes reçus et comptent les requêtes par chemin :
+ * chaque test utilise ses propres identifiants de client.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.consul.enabled=true",
+        "spring.cloud.consul.host=127.0.0.1",
+        "spring.cloud.consul.discovery.enabled=true",
+        "spring.cloud.consul.discovery.register=false",
+        "spring.cloud.consul.discovery.catalog-services-watch.enabled=false",
+        "spring.cloud.compatibility-verifier.enabled=false",
+        "gateway.discovery.watch.enabled=true",
+        "spring.main.banner-mode=off",
+        "logging.level.root=WARN"})
+class CompositeServiceTest {
+
+    /**
+     * Temps de réponse des instances simulées : les appels identiques se chevauchent
+     */
+    private static final Duration DELAY = Duration.ofMillis(300);
+
+    private static final FakeConsul consul = new FakeConsul();
+    private static final Instance clients = new Instance(
+            id -> "{\"id\":" + id + ",\"nom\":\"Durand\",\"prenom\":\"Paul\"}");
+    private static final Instance voitures = new Instance(
+            id -> "[{\"id\":1,\"marque\":\"Renault\",\"clientId\":" + id + "}]");
+
+    static {
+        consul.setInstances("service-client", List.of(clients.port()));
+        consul.setInstances("service-voiture", List.of(voitures.port()));
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void consulProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.consul.port", consul::port);
+    }
+
+    @AfterAll
+    static void stopAll() {
+        consul.close();
+        clients.server.disposeNow();
+        voitures.server.disposeNow();
+    }
+
+    @Test
+    void appelDirectAvecLesEntetesDeLAppelant() {
+        double accepted = accepted("client-service");
+
+        JsonNode body = gateway().get().uri("/api/composite/clients/{id}", 42)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer jeton")
+                .header(HttpHeaders.ACCEPT_LANGUAGE, "fr")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"l3\"")
+                .header("X-Forwarded-For", "203.0.113.7")
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .block();
+
+        assertThat(body.path("partial").asBoolean()).isFalse();
+        assertThat(body.path("client").path("id").asLong()).isEqualTo(42);
+        assertThat(body.path("voitures").path(0).path("clientId").asLong()).isEqualTo(42);
+
+        for (Instance instance : List.of(clients, voitures)) {
+            HttpHeaders received = instance.lastHeaders;
+            assertThat(received.getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer jeton");
+            assertThat(received.getFirst(HttpHeaders.ACCEPT_LANGUAGE)).isEqualTo("fr");
+            assertThat(received.containsKey(HttpHeaders.IF_NONE_MATCH)).isFalse();
+            // Un seul passage par le Gateway : son adresse n'est ajoutée qu'une fois
+            assertThat(received.getFirst("X-Forwarded-For")).isEqualTo("203.0.113.7,127.0.0.1");
+        }
+        assertThat(clients.requests("/api/clients/42")).isEqualTo(1);
+        assertThat(voitures.requests("/api/voitures/client/42")).isEqualTo(1);
+        // Limite de la route client-service partagée avec les appels composés
+        assertThat(accepted("client-service")).isEqualTo(accepted + 1);
+    }
+
+    @Test
+    void appelsIdentiquesSimultanesRegroupes() {
+        List<JsonNode> bodies = Flux.range(0, 5)
+                .flatMap(i -> gateway().get().uri("/api/composite/clients/{id}", 7)
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer jeton")
+                        .retrieve()
+                        .bodyToMono(JsonNode.class))
+                .collectList()
+                .block();
+
+        assertThat(bodies).hasSize(5)
+                .allSatisfy(body -> assertThat(body.path("client").path("id").asLong()).isEqualTo(7));
+        assertThat(clients.requests("/api/clients/7")).isEqualTo(1);
+        assertThat(voitures.requests("/api/voitures/client/7")).isEqualTo(1);
+    }
+
+    @Test
+    void clientInconnu() {
+        gateway().get().uri("/api/composite/clients/{id}", 404)
+                .exchangeToMono(response -> {
+                    assertThat(response.statusCode().value()).isEqualTo(404);
+                    return response.releaseBody();
+                })
+                .block();
+    }
+
+    private WebClient gateway() {
+        return WebClient.create("http://localhost:" + port);
+    }
+
+    private double accepted(String route) {
+        return meterRegistry.counter("gateway.concurrency.requests", "route", route, "outcome", "accepted").count();
+    }
+
+    /**
+     * Instance simulée : répond le JSON de body pour l'identifiant en fin de chemin
+     * (404 pour l'identifiant 404), après DELAY
+     */
+    private static final class Instance {
+
+        private final Map<String, AtomicLong> requests = new ConcurrentHashMap<>();
+        private volatile HttpHeaders lastHeaders;
+        private final DisposableServer server;
+
+        Instance(Function<String, String> body) {
+            server = HttpServer.create()
+                    .host("127.0.0.1")
+                    .port(0)
+                    .handle((request, response) -> {
+                        String path = request.path().startsWith("/") ? request.path() : "/" + request.path();
+                        requests.computeIfAbsent(path, p -> new AtomicLong()).incrementAndGet();
+                        HttpHeaders headers = new HttpHeaders();
+                        request.requestHeaders().forEach(header -> headers.add(header.getKey(), header.getValue()));
+                        lastHeaders = headers;
+                        String id = path.substring(path.lastIndexOf('/') + 1);
+                        if (id.equals("404")) {
+                            return Mono.delay(DELAY).then(response.status(HttpResponseStatus.NOT_FOUND).send());
+                        }
+                        return Mono.delay(DELAY).then(response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                .sendString(Mono.just(body.apply(id)))
+                                .then());
+                    })
+                    .bindNow();
+        }
+
+        int port() {
+            return server.port();
+        }
+
+        long requests(String path) {
+            AtomicLong count = requests.get(path);
+            return count != null ? count.get() : 0;
+        }
+    }
+}
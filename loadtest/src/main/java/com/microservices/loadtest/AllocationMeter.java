@@ -0,0 +1,62 @@
+package com.microservices.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mesure des octets alloués par les threads du Gateway
+ * 
+ * Le Gateway, les services simulés et le générateur de charge tournent dans la même JVM :
+ * les threads "stub-*", "load-*" et "main" sont exclus, tous les autres (event loops Netty
+ * du Gateway, boundedElastic, etc.) sont comptés.
+ */
+final class AllocationMeter {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final Map<Long, Long> start;
+
+    private AllocationMeter(Map<Long, Long> start) {
+        this.start = start;
+    }
+
+    /**
+     * Démarre une mesure (instantané des compteurs par thread)
+     */
+    static AllocationMeter start() {
+        return new AllocationMeter(snapshot());
+    }
+
+    /**
+     * Octets alloués depuis start() par les threads du Gateway, y compris ceux créés entre-temps
+     */
+    long allocatedBytes() {
+        long total = 0;
+        for (Map.Entry<Long, Long> entry : snapshot().entrySet()) {
+            total += entry.getValue() - start.getOrDefault(entry.getKey(), 0L);
+        }
+        return total;
+    }
+
+    private static Map<Long, Long> snapshot() {
+        long[] ids = THREADS.getAllThreadIds();
+        ThreadInfo[] infos = THREADS.getThreadInfo(ids);
+        long[] bytes = THREADS.getThreadAllocatedBytes(ids);
+        Map<Long, Long> snapshot = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            if (infos[i] != null && bytes[i] >= 0 && isGatewayThread(infos[i].getThreadName())) {
+                snapshot.put(ids[i], bytes[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    private static boolean isGatewayThread(String name) {
+        return !name.startsWith(StubBackends.THREAD_PREFIX)
+                && !name.startsWith(OpenLoadGenerator.THREAD_PREFIX)
+                && !name.equals("main");
+    }
+}
@@ -0,0 +1,92 @@
+package com.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pic de GET identiques sur GET /api/voitures/{id}, avec et sans le filtre Coalesce du Gateway
+ * 
+ * Toutes les requêtes portent sur quelques IDs (distinct-ids) et arrivent à fort débit pendant
+ * que le service met backend-delay à répondre. Le rapport compare le nombre de requêtes reçues
+ * par le Gateway et le nombre d'appels reçus par le service, ainsi que les percentiles de latence.
+ * 
+ * Options (nom=valeur) :
+ * rate=2000                 débit du pic (requêtes par seconde)
+ * duration=5s               durée du pic
+ * distinct-ids=10           nombre de ressources différentes demandées
+ * backend-delay=50ms        temps de réponse du service
+ * max-in-flight=5000
+ * output=coalescing.json
+ */
+public class CoalescingSpike {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rate", "2000");
+        options.put("duration", "5s");
+        options.put("distinct-ids", "10");
+        options.put("backend-delay", "50ms");
+        options.put("max-in-flight", "5000");
+        options.put("output", "coalescing.json");
+        GatewayLoadTest.parseOptions(options, args);
+
+        int rate = Integer.parseInt(options.get("rate"));
+        int distinctIds = Integer.parseInt(options.get("distinct-ids"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        Duration backendDelay = DurationStyle.detectAndParse(options.get("backend-delay"));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (OpenLoadGenerator generator = new OpenLoadGenerator(Integer.parseInt(options.get("max-in-flight")))) {
+            for (boolean coalesce : new boolean[]{false, true}) {
+                try (StubBackends backends = new StubBackends(backendDelay);
+                     ConfigurableApplicationContext gateway = GatewayLoadTest.startGateway(backends,
+                             "gateway.coalesce.enabled=" + coalesce)) {
+                    List<String> urls = new ArrayList<>();
+                    for (int id = 1; id <= distinctIds; id++) {
+                        urls.add("http://127.0.0.1:" + GatewayLoadTest.port(gateway) + "/api/voitures/" + id);
+                    }
+                    // Préchauffage à faible débit, puis le pic
+                    generator.run("coalesce=" + coalesce, "warmup", urls, Math.max(1, rate / 10), Duration.ofSeconds(5));
+                    backends.drainVoitureRequestCounts();
+                    RunResult result = generator.run("coalesce=" + coalesce, "gateway", urls, rate, duration);
+                    long upstream = backends.drainVoitureRequestCounts().get(0);
+
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("coalesce", coalesce);
+                    row.put("result", result);
+                    row.put("upstreamCalls", upstream);
+                    row.put("upstreamCallsPerSecond", upstream / (duration.toNanos() / 1e9));
+                    rows.add(row);
+                    System.out.printf("coalesce=%s terminé%n", coalesce);
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%d req/s sur %d IDs, service à %d ms%n", rate, distinctIds, backendDelay.toMillis());
+        System.out.printf("%-9s | %8s %8s %8s | %9s %6s | %14s %12s%n",
+                "coalesce", "p50", "p99", "p99.9", "débit", "err", "appels service", "appels/s");
+        for (Map<String, Object> row : rows) {
+            RunResult result = (RunResult) row.get("result");
+            System.out.printf("%-9s | %8.2f %8.2f %8.2f | %9.0f %6d | %14d %12.0f%n",
+                    row.get("coalesce"), result.p50(), result.p99(), result.p999(),
+                    result.throughput(), result.errors() + result.dropped(),
+                    row.get("upstreamCalls"), row.get("upstreamCallsPerSecond"));
+        }
+        System.out.println("(latences en ms, mesurées depuis l'instant prévu d'envoi)");
+
+        File output = new File(options.get("output"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, rows);
+        System.out.println("Résultats enregistrés dans " + output.getAbsolutePath());
+        System.exit(0);
+    }
+}
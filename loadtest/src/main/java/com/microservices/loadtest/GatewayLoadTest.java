@@ -0,0 +1,264 @@
+package com.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.microservices.gateway.GatewayServiceApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Test de charge du Gateway : latence ajoutée par le Gateway, débit et allocation par route
+ * 
+ * Tout tourne dans une seule JVM sur 127.0.0.1 : services simulés (StubBackends), Gateway
+ * (configuration réelle, Consul remplacé par une découverte statique) et générateur de charge.
+ * Pour chaque route et chaque débit, la même charge est envoyée directement au service simulé
+ * puis à travers le Gateway. Le rapport donne les deux distributions de latence, le temps passé
+ * dans le Gateway mesuré requête par requête (GatewayTimeProbe) et l'écart entre les percentiles
+ * des deux distributions : cet écart n'est qu'une approximation de la latence ajoutée (le p99
+ * via le Gateway et le p99 direct ne sont pas les mêmes requêtes).
+ * 
+ * Options (nom=valeur) :
+ * rates=500,1000,2000       débits à tester (requêtes par seconde)
+ * duration=10s              durée de chaque phase mesurée
+ * warmup=5s                 préchauffage (via le Gateway) avant chaque débit
+ * routes=client-service,voiture-service
+ * backend-delay=0ms         temps de traitement simulé des services
+ * max-in-flight=2000        requêtes simultanées maximales du générateur
+ * output=gateway-load.json
+ */
+public class GatewayLoadTest {
+
+    /**
+     * Nombre d'IDs différents appelés sur chaque route
+     */
+    private static final int DISTINCT_IDS = 1000;
+
+    private final Map<String, String> options;
+    private final Map<String, Route> routes = new LinkedHashMap<>();
+
+    private GatewayLoadTest(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("rates", "500,1000,2000");
+        options.put("duration", "10s");
+        options.put("warmup", "5s");
+        options.put("routes", "client-service,voiture-service");
+        options.put("backend-delay", "0ms");
+        options.put("max-in-flight", "2000");
+        options.put("output", "gateway-load.json");
+        new GatewayLoadTest(parseOptions(options, args)).run();
+        System.exit(0);
+    }
+
+    /**
+     * Lit les options nom=valeur (ou --nom=valeur) de la ligne de commande
+     * 
+     * @param options Valeurs par défaut, remplacées par celles de la ligne de commande
+     */
+    static Map<String, String> parseOptions(Map<String, String> options, String[] args) {
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            if (!option.contains("=")) {
+                throw new IllegalArgumentException("Option invalide : " + arg + " (format attendu nom=valeur)");
+            }
+            options.put(option.substring(0, option.indexOf('=')), option.substring(option.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private void run() throws Exception {
+        int[] rates = Arrays.stream(options.get("rates").split(",")).mapToInt(r -> Integer.parseInt(r.trim())).toArray();
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+
+        List<RunResult> results = new ArrayList<>();
+        List<Histogram> gatewayTimes = new ArrayList<>();
+        GatewayTimeProbe probe = new GatewayTimeProbe();
+        try (StubBackends backends = new StubBackends(DurationStyle.detectAndParse(options.get("backend-delay")));
+             ConfigurableApplicationContext gateway = startGateway(discoveryProperties(backends), probe::register);
+             OpenLoadGenerator generator = new OpenLoadGenerator(Integer.parseInt(options.get("max-in-flight")))) {
+            int gatewayPort = port(gateway);
+            routes.put("client-service", new Route("/api/clients/%d", backends.clientServicePort()));
+            routes.put("voiture-service", new Route("/api/voitures/%d", backends.voitureServicePort()));
+
+            for (String name : options.get("routes").split(",")) {
+                Route route = routes.get(name.trim());
+                if (route == null) {
+                    throw new IllegalArgumentException("Route inconnue : " + name + " (disponibles : " + routes.keySet() + ")");
+                }
+                List<String> direct = route.urls(route.port);
+                List<String> viaGateway = route.urls(gatewayPort);
+                for (int rate : rates) {
+                    generator.run(name, "warmup", viaGateway, rate, warmup);
+                    results.add(generator.run(name, "direct", direct, rate, duration));
+
+                    System.gc();
+                    AllocationMeter allocation = AllocationMeter.start();
+                    long startNanos = System.nanoTime();
+                    probe.reset();
+                    RunResult measured = generator.run(name, "gateway", viaGateway, rate, duration);
+                    gatewayTimes.add(probe.histogram());
+                    results.add(measured.withAllocation(allocation.allocatedBytes(), (System.nanoTime() - startNanos) / 1e9));
+                    System.out.printf("%s @ %d req/s terminé%n", name, rate);
+                }
+            }
+        }
+        report(results, gatewayTimes);
+    }
+
+    /**
+     * Démarre le Gateway avec sa configuration (application.properties), sur un port éphémère,
+     * en remplaçant Consul par la découverte statique de Spring Cloud (SimpleDiscoveryClient)
+     * 
+     * @param extraProperties Propriétés supplémentaires (ex. gateway.loadbalancer.strategy=round-robin)
+     */
+    static ConfigurableApplicationContext startGateway(StubBackends backends, String... extraProperties) {
+        List<String> properties = discoveryProperties(backends);
+        properties.addAll(List.of(extraProperties));
+        return startGateway(properties);
+    }
+
+    /**
+     * Découverte statique des services simulés, à la place de Consul
+     */
+    private static List<String> discoveryProperties(StubBackends backends) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.cloud.consul.enabled=false",
+                "spring.cloud.consul.discovery.enabled=false",
+                "spring.cloud.discovery.client.simple.instances.service-client[0].uri=http://127.0.0.1:"
+                        + backends.clientServicePort()));
+        List<Integer> voiturePorts = backends.voitureServicePorts();
+        for (int i = 0; i < voiturePorts.size(); i++) {
+            properties.add("spring.cloud.discovery.client.simple.instances.service-voiture[" + i + "].uri=http://127.0.0.1:"
+                    + voiturePorts.get(i));
+        }
+        return properties;
+    }
+
+    /**
+     * Démarre le Gateway avec sa configuration (application.properties), sur un port éphémère,
+     * sans autre changement que les propriétés données (découverte des services comprise)
+     * 
+     * @param properties Propriétés nom=valeur, prioritaires sur application.properties
+     * @param initializers Appelés avant le chargement des beans du Gateway (ex. filtres de mesure)
+     */
+    @SafeVarargs
+    static ConfigurableApplicationContext startGateway(List<String> properties,
+                                                       ApplicationContextInitializer<ConfigurableApplicationContext>... initializers) {
+        List<String> arguments = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                "spring.cloud.compatibility-verifier.enabled=false"));
+        arguments.addAll(properties);
+        // Arguments de ligne de commande : prioritaires sur application.properties
+        return new SpringApplicationBuilder(GatewayServiceApplication.class)
+                .initializers(initializers)
+                .run(arguments.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    /**
+     * Port HTTP du Gateway démarré par startGateway()
+     */
+    static int port(ConfigurableApplicationContext gateway) {
+        return Integer.parseInt(gateway.getEnvironment().getProperty("local.server.port"));
+    }
+
+    /**
+     * Affiche le tableau des résultats et les écrit au format JSON
+     * 
+     * @param gatewayTimes Temps dans le Gateway (µs) de chaque phase via le Gateway, dans l'ordre des résultats
+     */
+    private void report(List<RunResult> results, List<Histogram> gatewayTimes) throws IOException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        System.out.println();
+        System.out.printf("%-16s %7s | %23s | %23s | %23s | %23s | %9s %6s | %10s %9s%n",
+                "route", "req/s", "direct p50/p99/p99.9", "gateway p50/p99/p99.9", "interne p50/p99/p99.9",
+                "écart* p50/p99/p99.9", "débit", "err", "octets/req", "Mo/s");
+        for (int i = 0; i < results.size(); i += 2) {
+            RunResult direct = results.get(i);
+            RunResult gateway = results.get(i + 1);
+            Histogram gatewayTime = gatewayTimes.get(i / 2);
+            double[] inGateway = {millis(gatewayTime, 50), millis(gatewayTime, 99), millis(gatewayTime, 99.9)};
+            double[] gap = {gateway.p50() - direct.p50(), gateway.p99() - direct.p99(), gateway.p999() - direct.p999()};
+            System.out.printf("%-16s %7d | %s | %s | %s | %s | %9.0f %6d | %10d %9.1f%n",
+                    gateway.route(), gateway.rate(),
+                    percentiles(direct.p50(), direct.p99(), direct.p999()),
+                    percentiles(gateway.p50(), gateway.p99(), gateway.p999()),
+                    percentiles(inGateway[0], inGateway[1], inGateway[2]),
+                    percentiles(gap[0], gap[1], gap[2]),
+                    gateway.throughput(), gateway.errors() + gateway.dropped(),
+                    gateway.allocatedBytesPerRequest(), gateway.allocationRateMBps());
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("route", gateway.route());
+            row.put("rate", gateway.rate());
+            row.put("direct", direct);
+            row.put("gateway", gateway);
+            row.put("inGatewayRequests", gatewayTime.getTotalCount());
+            row.put("inGatewayP50Ms", inGateway[0]);
+            row.put("inGatewayP99Ms", inGateway[1]);
+            row.put("inGatewayP999Ms", inGateway[2]);
+            row.put("percentileGapP50Ms", gap[0]);
+            row.put("percentileGapP99Ms", gap[1]);
+            row.put("percentileGapP999Ms", gap[2]);
+            rows.add(row);
+        }
+        System.out.println("(latences en ms, mesurées depuis l'instant prévu d'envoi ; interne : temps mesuré"
+                + " par requête dans le Gateway, hors attente du service)");
+        System.out.println("* écart = percentile via le Gateway - percentile direct : approximation de la latence"
+                + " ajoutée, les deux percentiles ne portent pas sur les mêmes requêtes");
+
+        File output = new File(options.get("output"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, rows);
+        System.out.println("Résultats enregistrés dans " + output.getAbsolutePath());
+    }
+
+    private static double millis(Histogram micros, double percentile) {
+        return micros.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static String percentiles(double p50, double p99, double p999) {
+        return String.format("%7.2f %7.2f %7.2f", p50, p99, p999);
+    }
+
+    /**
+     * Route testée : chemin (avec l'ID) et port du service simulé correspondant
+     */
+    private record Route(String pathFormat, int port) {
+
+        List<String> urls(int port) {
+            return GatewayLoadTest.urls(port, pathFormat);
+        }
+    }
+
+    /**
+     * URLs http://127.0.0.1:port/... pour les IDs 1 à DISTINCT_IDS
+     * 
+     * @param pathFormat Chemin avec l'ID (ex. /api/voitures/%d)
+     */
+    static List<String> urls(int port, String pathFormat) {
+        IntFunction<String> url = id -> "http://127.0.0.1:" + port + String.format(pathFormat, id);
+        List<String> urls = new ArrayList<>(DISTINCT_IDS);
+        for (int id = 1; id <= DISTINCT_IDS; id++) {
+            urls.add(url.apply(id));
+        }
+        return urls;
+    }
+}
@@ -0,0 +1,100 @@
+package com.microservices.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temps passé dans le Gateway par chaque requête transmise à un service, mesuré dans le Gateway
+ * 
+ * Du début du traitement de la requête (premier WebFilter) à l'envoi des en-têtes de la réponse,
+ * moins l'attente du service : de l'envoi de la requête par NettyRoutingFilter à la réception
+ * des en-têtes de la réponse. Contrairement à l'écart entre les percentiles des appels directs
+ * et via le Gateway, la mesure est faite requête par requête ; elle ne compte ni la connexion
+ * supplémentaire vers le service, ni la lecture de la requête avant les filtres, ni l'envoi du body.
+ * Les GET regroupés par Coalesce (followers) n'appellent pas le service : ils ne sont pas mesurés.
+ */
+final class GatewayTimeProbe {
+
+    private static final String BACKEND_NANOS_ATTR = GatewayTimeProbe.class.getName() + ".backendNanos";
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Recorder recorder = new Recorder(MAX_MICROS, 3);
+
+    /**
+     * Ajoute les deux filtres de mesure au contexte du Gateway (initializer de SpringApplicationBuilder)
+     */
+    void register(ConfigurableApplicationContext context) {
+        context.getBeanFactory().registerSingleton("gatewayTimeProbeEdge", new EdgeFilter());
+        context.getBeanFactory().registerSingleton("gatewayTimeProbeBackend", new BackendFilter());
+    }
+
+    /**
+     * Oublie les mesures précédentes (préchauffage, autre phase)
+     */
+    void reset() {
+        recorder.reset();
+    }
+
+    /**
+     * @return Temps dans le Gateway (µs) des requêtes mesurées depuis reset()
+     */
+    Histogram histogram() {
+        return recorder.getIntervalHistogram();
+    }
+
+    /**
+     * Premier filtre de la requête : enregistre le temps total moins l'attente du service
+     * au moment où les en-têtes de la réponse partent
+     */
+    private final class EdgeFilter implements WebFilter, Ordered {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+            long start = System.nanoTime();
+            exchange.getResponse().beforeCommit(() -> {
+                Long backendNanos = exchange.getAttribute(BACKEND_NANOS_ATTR);
+                if (backendNanos != null) {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start - backendNanos);
+                    recorder.recordValue(Math.max(0, Math.min(micros, MAX_MICROS)));
+                }
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    /**
+     * Juste avant NettyRoutingFilter, dont le Mono se termine à la réception des en-têtes de la réponse
+     */
+    private static final class BackendFilter implements GlobalFilter, Ordered {
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            long start = System.nanoTime();
+            return chain.filter(exchange)
+                    .doOnSuccess(done -> exchange.getAttributes().put(BACKEND_NANOS_ATTR, System.nanoTime() - start));
+        }
+
+        @Override
+        public int getOrder() {
+            return NettyRoutingFilter.ORDER - 1;
+        }
+    }
+}
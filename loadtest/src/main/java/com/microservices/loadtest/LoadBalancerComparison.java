@@ -0,0 +1,99 @@
+package com.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comparaison des stratégies de load balancing du Gateway quand une instance est dégradée
+ * 
+ * service-voiture a plusieurs instances simulées ; la première répond avec un délai supplémentaire
+ * (pause GC, connexion à la base lente). Pour chaque stratégie (gateway.loadbalancer.strategy),
+ * un Gateway neuf reçoit la même charge en modèle ouvert sur GET /api/voitures/{id} ;
+ * le rapport donne les percentiles de latence et la part du trafic reçue par l'instance dégradée.
+ * 
+ * Options (nom=valeur) :
+ * strategies=round-robin,peak-ewma
+ * instances=3               instances de service-voiture
+ * rate=300                  débit (requêtes par seconde)
+ * duration=20s              durée de la phase mesurée
+ * warmup=10s                préchauffage avant la mesure
+ * backend-delay=2ms         temps de traitement des instances saines
+ * degraded-delay=100ms      délai supplémentaire de l'instance dégradée
+ * max-in-flight=2000
+ * output=loadbalancer.json
+ */
+public class LoadBalancerComparison {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("strategies", "round-robin,peak-ewma");
+        options.put("instances", "3");
+        options.put("rate", "300");
+        options.put("duration", "20s");
+        options.put("warmup", "10s");
+        options.put("backend-delay", "2ms");
+        options.put("degraded-delay", "100ms");
+        options.put("max-in-flight", "2000");
+        options.put("output", "loadbalancer.json");
+        GatewayLoadTest.parseOptions(options, args);
+
+        int instances = Integer.parseInt(options.get("instances"));
+        int rate = Integer.parseInt(options.get("rate"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+        Duration backendDelay = DurationStyle.detectAndParse(options.get("backend-delay"));
+        Duration degradedDelay = DurationStyle.detectAndParse(options.get("degraded-delay"));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (OpenLoadGenerator generator = new OpenLoadGenerator(Integer.parseInt(options.get("max-in-flight")))) {
+            for (String strategy : options.get("strategies").split(",")) {
+                strategy = strategy.trim();
+                try (StubBackends backends = new StubBackends(backendDelay, instances, degradedDelay);
+                     ConfigurableApplicationContext gateway = GatewayLoadTest.startGateway(backends,
+                             "gateway.loadbalancer.strategy=" + strategy)) {
+                    List<String> urls = GatewayLoadTest.urls(GatewayLoadTest.port(gateway), "/api/voitures/%d");
+                    generator.run(strategy, "warmup", urls, rate, warmup);
+                    backends.drainVoitureRequestCounts();
+                    RunResult result = generator.run(strategy, "gateway", urls, rate, duration);
+                    List<Long> perInstance = backends.drainVoitureRequestCounts();
+                    long total = perInstance.stream().mapToLong(Long::longValue).sum();
+
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("strategy", strategy);
+                    row.put("result", result);
+                    row.put("requestsPerInstance", perInstance);
+                    row.put("degradedShare", total == 0 ? 0 : (double) perInstance.get(0) / total);
+                    rows.add(row);
+                    System.out.printf("%s terminé%n", strategy);
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%d instances, la première avec +%d ms, %d req/s%n", instances, degradedDelay.toMillis(), rate);
+        System.out.printf("%-12s | %8s %8s %8s %8s | %9s %6s | %s%n",
+                "stratégie", "p50", "p99", "p99.9", "max", "débit", "err", "part de l'instance dégradée");
+        for (Map<String, Object> row : rows) {
+            RunResult result = (RunResult) row.get("result");
+            System.out.printf("%-12s | %8.2f %8.2f %8.2f %8.2f | %9.0f %6d | %.1f %% %s%n",
+                    row.get("strategy"), result.p50(), result.p99(), result.p999(), result.max(),
+                    result.throughput(), result.errors() + result.dropped(),
+                    (double) row.get("degradedShare") * 100, row.get("requestsPerInstance"));
+        }
+        System.out.println("(latences en ms, mesurées depuis l'instant prévu d'envoi)");
+
+        File output = new File(options.get("output"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, rows);
+        System.out.println("Résultats enregistrés dans " + output.getAbsolutePath());
+        System.exit(0);
+    }
+}
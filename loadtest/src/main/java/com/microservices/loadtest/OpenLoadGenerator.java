@@ -0,0 +1,151 @@
+package com.microservices.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Générateur de charge en modèle ouvert
+ * 
+ * Les requêtes partent à intervalle fixe (1 / débit), qu'elles aient reçu une réponse ou non :
+ * un serveur lent ne ralentit pas le générateur. La latence est mesurée depuis l'instant
+ * prévu d'envoi, et non depuis l'envoi effectif, pour ne pas masquer les files d'attente
+ * (omission coordonnée). Au-delà de maxInFlight requêtes en cours, les envois sont comptés
+ * comme abandonnés.
+ */
+final class OpenLoadGenerator implements AutoCloseable {
+
+    static final String THREAD_PREFIX = "load-";
+
+    /**
+     * Latence maximale enregistrable (µs) ; au-delà la valeur est plafonnée
+     */
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    /**
+     * Temps laissé aux requêtes en cours pour se terminer à la fin d'une phase
+     */
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final int maxInFlight;
+    private final LoopResources loops;
+    private final ConnectionProvider connections;
+    private final HttpClient httpClient;
+
+    /**
+     * @param maxInFlight Nombre maximal de requêtes en cours (et de connexions ouvertes)
+     */
+    OpenLoadGenerator(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.loops = LoopResources.create(THREAD_PREFIX + "http", 2, true);
+        this.connections = ConnectionProvider.builder(THREAD_PREFIX + "pool")
+                .maxConnections(maxInFlight)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        this.httpClient = HttpClient.create(connections).runOn(loops);
+    }
+
+    /**
+     * Envoie des GET au débit demandé pendant la durée demandée, en tournant sur la liste d'URLs
+     * 
+     * @param route Nom de la route (pour le rapport)
+     * @param target "direct" ou "gateway" (pour le rapport)
+     * @param urls URLs à appeler
+     * @param rate Débit cible (requêtes par seconde)
+     * @param duration Durée de la phase
+     * @return Percentiles, débit obtenu et erreurs
+     */
+    RunResult run(String route, String target, List<String> urls, int rate, Duration duration) throws InterruptedException {
+        return run(route, target, urls, rate, duration, null);
+    }
+
+    /**
+     * Comme run(), en comptant à part les réponses reçues dans le délai (goodput)
+     * 
+     * @param deadline Délai au-delà duquel une réponse réussie n'est plus utile (null : pas de délai)
+     */
+    RunResult run(String route, String target, List<String> urls, int rate, Duration duration, Duration deadline)
+            throws InterruptedException {
+        long deadlineMicros = deadline == null ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMicros(deadline.toNanos());
+        Recorder recorder = new Recorder(MAX_LATENCY_MICROS, 3);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicLong completed = new AtomicLong();
+        AtomicLong onTime = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long dropped = 0;
+
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long total = duration.toNanos() / intervalNanos;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            if (inFlight.get() >= maxInFlight) {
+                dropped++;
+                continue;
+            }
+            inFlight.incrementAndGet();
+            httpClient.get()
+                    .uri(urls.get((int) (i % urls.size())))
+                    .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                    .subscribe(status -> {
+                        if (status < 400) {
+                            long latency = latencyMicros(intended);
+                            recorder.recordValue(Math.min(latency, MAX_LATENCY_MICROS));
+                            completed.incrementAndGet();
+                            if (latency <= deadlineMicros) {
+                                onTime.incrementAndGet();
+                            }
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                        inFlight.decrementAndGet();
+                    }, error -> {
+                        errors.incrementAndGet();
+                        inFlight.decrementAndGet();
+                    });
+        }
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(1);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Histogram histogram = recorder.getIntervalHistogram();
+        return new RunResult(route, target, rate, total - dropped, completed.get(), errors.get() + inFlight.get(), dropped,
+                completed.get() / seconds,
+                onTime.get() / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()),
+                -1, 0);
+    }
+
+    private static long latencyMicros(long intendedNanos) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    @Override
+    public void close() {
+        connections.disposeLater().block();
+        loops.dispose();
+    }
+}
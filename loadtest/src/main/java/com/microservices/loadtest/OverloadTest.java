@@ -0,0 +1,114 @@
+package com.microservices.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Surcharge de service-voiture, avec et sans le filtre ConcurrencyLimit du Gateway
+ * 
+ * Le service simulé a une capacité limitée (capacity requêtes simultanées à backend-delay chacune,
+ * soit capacity / backend-delay requêtes par seconde) : au-delà, ses temps de réponse s'allongent
+ * comme ceux d'un service dont la base de données sature. Pour chaque mode
+ * (gateway.concurrency-limit.enabled), un Gateway neuf reçoit des débits croissants sur
+ * GET /api/voitures/{id}. Le rapport donne le goodput (réponses réussies reçues en moins de deadline),
+ * les refus (503) et la limite atteinte par le filtre.
+ * 
+ * Options (nom=valeur) :
+ * modes=false,true          valeurs de gateway.concurrency-limit.enabled
+ * rates=100,200,400,800     débits successifs (requêtes par seconde)
+ * capacity=10               requêtes simultanées traitées sans ralentir par le service
+ * backend-delay=50ms        temps de traitement d'une requête sans surcharge
+ * deadline=1s               délai au-delà duquel une réponse n'est plus utile
+ * duration=10s              durée de chaque débit
+ * warmup=5s                 préchauffage (au premier débit)
+ * max-in-flight=5000
+ * output=overload.json
+ */
+public class OverloadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("modes", "false,true");
+        options.put("rates", "100,200,400,800");
+        options.put("capacity", "10");
+        options.put("backend-delay", "50ms");
+        options.put("deadline", "1s");
+        options.put("duration", "10s");
+        options.put("warmup", "5s");
+        options.put("max-in-flight", "5000");
+        options.put("output", "overload.json");
+        GatewayLoadTest.parseOptions(options, args);
+
+        int[] rates = Arrays.stream(options.get("rates").split(",")).mapToInt(r -> Integer.parseInt(r.trim())).toArray();
+        int capacity = Integer.parseInt(options.get("capacity"));
+        Duration backendDelay = DurationStyle.detectAndParse(options.get("backend-delay"));
+        Duration deadline = DurationStyle.detectAndParse(options.get("deadline"));
+        Duration duration = DurationStyle.detectAndParse(options.get("duration"));
+        Duration warmup = DurationStyle.detectAndParse(options.get("warmup"));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        try (OpenLoadGenerator generator = new OpenLoadGenerator(Integer.parseInt(options.get("max-in-flight")))) {
+            for (String mode : options.get("modes").split(",")) {
+                mode = mode.trim();
+                try (StubBackends backends = new StubBackends(backendDelay, 1, Duration.ZERO, capacity);
+                     ConfigurableApplicationContext gateway = GatewayLoadTest.startGateway(backends,
+                             "gateway.concurrency-limit.enabled=" + mode,
+                             // Pas de regroupement des GET : chaque requête arrive au service
+                             "gateway.coalesce.enabled=false")) {
+                    List<String> urls = GatewayLoadTest.urls(GatewayLoadTest.port(gateway), "/api/voitures/%d");
+                    generator.run("limit=" + mode, "warmup", urls, rates[0], warmup);
+                    for (int rate : rates) {
+                        RunResult result = generator.run("limit=" + mode, "gateway", urls, rate, duration, deadline);
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("concurrencyLimit", Boolean.parseBoolean(mode));
+                        row.put("result", result);
+                        row.put("limit", Boolean.parseBoolean(mode) ? limit(gateway) : "-");
+                        rows.add(row);
+                        System.out.printf("limit=%s @ %d req/s terminé%n", mode, rate);
+                    }
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.printf("Service : %d requêtes simultanées à %d ms (%d req/s max), réponses utiles en moins de %d ms%n",
+                capacity, backendDelay.toMillis(), capacity * 1000 / Math.max(1, backendDelay.toMillis()), deadline.toMillis());
+        System.out.printf("%-6s %7s | %8s %8s | %8s %8s | %8s %8s | %6s%n",
+                "limite", "req/s", "goodput", "débit", "p50", "p99", "erreurs", "abandons", "limite");
+        for (Map<String, Object> row : rows) {
+            RunResult result = (RunResult) row.get("result");
+            System.out.printf("%-6s %7d | %8.0f %8.0f | %8.2f %8.2f | %8d %8d | %6s%n",
+                    row.get("concurrencyLimit"), result.rate(), result.goodput(), result.throughput(),
+                    result.p50(), result.p99(), result.errors(), result.dropped(), row.get("limit"));
+        }
+        System.out.println("(goodput et débit en réponses réussies par seconde, latences en ms des réponses réussies ;");
+        System.out.println(" erreurs : refus 503 du Gateway et requêtes sans réponse)");
+
+        File output = new File(options.get("output"));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, rows);
+        System.out.println("Résultats enregistrés dans " + output.getAbsolutePath());
+        System.exit(0);
+    }
+
+    /**
+     * Limite actuelle du filtre ConcurrencyLimit sur la route voiture-service ("-" s'il n'est pas actif)
+     */
+    private static String limit(ConfigurableApplicationContext gateway) {
+        Gauge gauge = gateway.getBean(MeterRegistry.class).find("gateway.concurrency.limit")
+                .tag("route", "voiture-service")
+                .gauge();
+        return gauge == null ? "-" : String.valueOf((int) gauge.value());
+    }
+}
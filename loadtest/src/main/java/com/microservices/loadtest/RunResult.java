@@ -0,0 +1,31 @@
+package com.microservices.loadtest;
+
+/**
+ * Résultat d'une phase de charge (une route, un débit, directement ou via le Gateway)
+ * 
+ * Les latences sont en millisecondes, mesurées depuis l'instant prévu d'envoi de la requête.
+ * allocatedBytesPerRequest vaut -1 quand l'allocation n'est pas mesurée (appels directs).
+ * goodput ne compte que les réponses reçues dans le délai demandé (égal à throughput sans délai).
+ */
+record RunResult(String route,
+                 String target,
+                 int rate,
+                 long sent,
+                 long completed,
+                 long errors,
+                 long dropped,
+                 double throughput,
+                 double goodput,
+                 double p50,
+                 double p99,
+                 double p999,
+                 double max,
+                 long allocatedBytesPerRequest,
+                 double allocationRateMBps) {
+
+    RunResult withAllocation(long allocatedBytes, double seconds) {
+        long perRequest = completed == 0 ? 0 : allocatedBytes / completed;
+        return new RunResult(route, target, rate, sent, completed, errors, dropped, throughput, goodput,
+                p50, p99, p999, max, perRequest, allocatedBytes / seconds / (1024 * 1024));
+    }
+}
@@ -0,0 +1,151 @@
+package com.microservices.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.LoopResources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Services Client et Voiture simulés : deux serveurs Reactor Netty sur 127.0.0.1 (ports éphémères)
+ * 
+ * Chaque GET sous /api/clients ou /api/voitures renvoie un document JSON fixe, de la taille
+ * d'un Client ou d'une Voiture réels. Les threads des simulateurs sont préfixés "stub-"
+ * pour être exclus de la mesure d'allocation du Gateway (voir AllocationMeter).
+ * 
+ * service-voiture peut avoir plusieurs instances, dont la première peut être dégradée
+ * (délai supplémentaire) pour comparer les stratégies de load balancing.
+ * 
+ * service-voiture peut aussi avoir une capacité limitée, comme un service dont les requêtes attendent
+ * une connexion du pool de la base : voitureCapacity requêtes sont traitées à la fois (delay chacune),
+ * les autres attendent leur tour. Au-delà de voitureCapacity / delay requêtes par seconde, la file
+ * d'attente et les temps de réponse augmentent sans limite.
+ */
+final class StubBackends implements AutoCloseable {
+
+    static final String THREAD_PREFIX = "stub-";
+
+    private static final byte[] CLIENT = ("{\"id\":42,\"nom\":\"Dupont\",\"prenom\":\"Marie\","
+            + "\"email\":\"marie.dupont@example.com\",\"adresse\":\"12 rue de la Paix, Paris\",\"version\":3}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] VOITURE = ("{\"id\":1337,\"marque\":\"Renault\",\"modele\":\"Clio\",\"couleur\":\"Rouge\","
+            + "\"immatriculation\":\"AB-123-CD\",\"prix\":18990.0,\"clientId\":42,\"version\":7}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final LoopResources loops;
+    private final Scheduler delayScheduler;
+    private final DisposableServer clientService;
+    private final List<DisposableServer> voitureServices = new ArrayList<>();
+    private final List<AtomicLong> voitureRequests = new ArrayList<>();
+    private final Scheduler voitureWorkers;
+
+    /**
+     * @param delay Temps de traitement simulé de chaque requête (0 : réponse immédiate)
+     */
+    StubBackends(Duration delay) {
+        this(delay, 1, Duration.ZERO);
+    }
+
+    /**
+     * @param delay Temps de traitement simulé de chaque requête (0 : réponse immédiate)
+     * @param voitureInstances Nombre d'instances de service-voiture
+     * @param degradedDelay Délai supplémentaire de la première instance de service-voiture
+     */
+    StubBackends(Duration delay, int voitureInstances, Duration degradedDelay) {
+        this(delay, voitureInstances, degradedDelay, 0);
+    }
+
+    /**
+     * @param delay Temps de traitement simulé de chaque requête (0 : réponse immédiate)
+     * @param voitureInstances Nombre d'instances de service-voiture
+     * @param degradedDelay Délai supplémentaire de la première instance de service-voiture
+     * @param voitureCapacity Requêtes traitées à la fois par service-voiture, les autres attendent (0 : illimité)
+     */
+    StubBackends(Duration delay, int voitureInstances, Duration degradedDelay, int voitureCapacity) {
+        this.voitureWorkers = voitureCapacity > 0
+                ? Schedulers.newBoundedElastic(voitureCapacity, Integer.MAX_VALUE, THREAD_PREFIX + "worker", 60, true)
+                : null;
+        this.loops = LoopResources.create(THREAD_PREFIX + "http", 2, true);
+        this.delayScheduler = Schedulers.newParallel(THREAD_PREFIX + "delay", 2, true);
+        this.clientService = start("/api/clients", CLIENT, delay, new AtomicLong(), null);
+        for (int i = 0; i < voitureInstances; i++) {
+            AtomicLong requests = new AtomicLong();
+            voitureRequests.add(requests);
+            voitureServices.add(start("/api/voitures", VOITURE, i == 0 ? delay.plus(degradedDelay) : delay, requests,
+                    voitureWorkers));
+        }
+    }
+
+    int clientServicePort() {
+        return clientService.port();
+    }
+
+    int voitureServicePort() {
+        return voitureServices.get(0).port();
+    }
+
+    List<Integer> voitureServicePorts() {
+        return voitureServices.stream().map(DisposableServer::port).toList();
+    }
+
+    /**
+     * Nombre de requêtes reçues par chaque instance de service-voiture depuis le dernier appel
+     */
+    List<Long> drainVoitureRequestCounts() {
+        return voitureRequests.stream().map(count -> count.getAndSet(0)).toList();
+    }
+
+    private DisposableServer start(String prefix, byte[] body, Duration delay, AtomicLong requests, Scheduler workers) {
+        return HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .runOn(loops)
+                .handle((request, response) -> respond(request, response, prefix, body, delay, requests, workers))
+                .bindNow();
+    }
+
+    private Mono<Void> respond(HttpServerRequest request, HttpServerResponse response, String prefix, byte[] body,
+                               Duration delay, AtomicLong requests, Scheduler workers) {
+        if (!request.uri().startsWith(prefix)) {
+            return response.status(HttpResponseStatus.NOT_FOUND).send();
+        }
+        requests.incrementAndGet();
+        Mono<byte[]> payload = Mono.just(body);
+        if (workers != null) {
+            // Capacité limitée : un worker est occupé pendant tout le traitement
+            payload = Mono.fromCallable(() -> {
+                Thread.sleep(delay.toMillis());
+                return body;
+            }).subscribeOn(workers);
+        } else if (!delay.isZero()) {
+            payload = payload.delayElement(delay, delayScheduler);
+        }
+        return response.header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(body.length))
+                .sendByteArray(payload)
+                .then();
+    }
+
+    @Override
+    public void close() {
+        clientService.disposeNow();
+        voitureServices.forEach(DisposableServer::disposeNow);
+        delayScheduler.dispose();
+        if (voitureWorkers != null) {
+            voitureWorkers.dispose();
+        }
+        loops.dispose();
+    }
+}
@@ -0,0 +1,101 @@
+package com.microservices.voiture.analytics;
+
+/**
+ * Table de hachage long -> int à adressage ouvert (sondage linéaire), sans objet par entrée
+ * 
+ * Associe l'ID d'une voiture à sa ligne dans VoitureColumns : un million d'entrées occupent
+ * environ 24 Mo, contre plus de 80 Mo pour un HashMap<Long, Integer>.
+ * La clé 0 est réservée (case vide) : les IDs de voitures commencent à 1.
+ * Non thread-safe (protégée par le verrou de VoitureAnalytics).
+ */
+final class LongIntMap {
+
+    static final int MISSING = -1;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+    }
+
+    int get(long key) {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return MISSING;
+    }
+
+    void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            size++;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    /**
+     * Supprime une clé en décalant les entrées suivantes de la même séquence de sondage
+     * (pas de marqueur de suppression : les recherches restent courtes)
+     */
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        size--;
+        for (int hole = i, j = (i + 1) & mask; ; j = (j + 1) & mask) {
+            if (keys[j] == 0) {
+                keys[hole] = 0;
+                return;
+            }
+            int home = index(keys[j], mask);
+            // L'entrée j peut combler le trou si sa position idéale n'est pas entre le trou et j
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int index(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
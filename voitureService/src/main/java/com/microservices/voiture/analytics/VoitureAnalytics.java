@@ -0,0 +1,503 @@
+package com.microservices.voiture.analytics;
+
+import com.microservices.voiture.exception.InvalidQueryException;
+import com.microservices.voiture.model.PrixStatistics;
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.repository.VoitureJdbcRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Statistiques de prix (moyenne, centiles) par marque, modèle et couleur, calculées en mémoire
+ * 
+ * Une copie en colonnes des voitures (VoitureColumns) est construite au démarrage par une lecture
+ * en streaming de la table, puis tenue à jour par VoitureService après chaque écriture validée :
+ * les requêtes d'analyse n'accèdent jamais à la base.
+ * 
+ * Les écritures sont mises en file sans verrou (une écriture ne peut pas attendre la fin d'une analyse) ;
+ * la file est appliquée avant chaque analyse, ou dès qu'elle dépasse DRAIN_THRESHOLD éléments.
+ * La copie ne voit que les écritures de cette instance du service : elle est reconstruite
+ * toutes les rebuild-interval (la nouvelle copie remplace l'ancienne une fois complète).
+ * 
+ * Une analyse se fait en trois passes parallélisées sur les coeurs (ForkJoinPool commun) :
+ * 1. numéro de groupe de chaque ligne et comptage par groupe, par tranche de lignes ;
+ * 2. copie des prix dans un seul tableau, regroupés par groupe (positions issues des comptages) ;
+ * 3. pour chaque groupe : min, max, moyenne, et centiles par sélection (quickselect, sans tri complet).
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class VoitureAnalytics {
+
+    /**
+     * Champs de regroupement et de filtre
+     */
+    public static final List<String> DIMENSIONS = List.of("marque", "modele", "couleur");
+
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final int DRAIN_THRESHOLD = 1000;
+
+    /**
+     * Borne le nombre de compteurs (tranches x groupes) alloués par une analyse
+     */
+    private static final int MAX_COUNTERS = 1 << 22;
+
+    private final VoitureJdbcRepository voitureJdbcRepository;
+    private final Duration rebuildInterval;
+    private final int maxGroups;
+    private final Timer queryTimer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Queue<Change> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    /**
+     * Copie interrogée ; remplacée à chaque reconstruction (sous le verrou d'écriture)
+     */
+    private VoitureColumns columns = new VoitureColumns(0);
+
+    /**
+     * Écritures appliquées pendant une reconstruction, rejouées sur la nouvelle copie
+     */
+    private List<Change> changesDuringRebuild;
+
+    private volatile boolean ready;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param voitureJdbcRepository Lecture en streaming de la table (construction de la copie)
+     * @param rebuildInterval Intervalle entre deux reconstructions (0 : au démarrage seulement)
+     * @param maxGroups Nombre maximal de combinaisons de valeurs des champs de regroupement
+     * @param meterRegistry Registre Micrometer
+     */
+    public VoitureAnalytics(VoitureJdbcRepository voitureJdbcRepository,
+                            @Value("${voiture.analytics.rebuild-interval:1h}") Duration rebuildInterval,
+                            @Value("${voiture.analytics.max-groups:1000000}") int maxGroups,
+                            MeterRegistry meterRegistry) {
+        this.voitureJdbcRepository = voitureJdbcRepository;
+        this.rebuildInterval = rebuildInterval;
+        this.maxGroups = maxGroups;
+        this.queryTimer = Timer.builder("voiture.analytics.query")
+                .description("Durée des analyses de prix")
+                .register(meterRegistry);
+        Gauge.builder("voiture.analytics.rows", this, analytics -> analytics.ready ? analytics.size() : 0)
+                .description("Nombre de voitures dans la copie en colonnes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Construit la copie une fois l'application démarrée (en arrière-plan), puis la reconstruit périodiquement
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "voiture-analytics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(() -> rebuild());
+        if (!rebuildInterval.isZero()) {
+            scheduler.scheduleWithFixedDelay(() -> rebuild(), rebuildInterval.toMillis(), rebuildInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * true une fois la première construction terminée
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Voiture créée ou remplacée (PUT)
+     */
+    public void upserted(Voiture voiture) {
+        enqueue(new Change(voiture.getId(), voiture, null));
+    }
+
+    /**
+     * Voiture modifiée partiellement
+     * 
+     * @param columns Les colonnes modifiées et leurs nouvelles valeurs
+     */
+    public void patched(Long id, Map<String, Object> columns) {
+        enqueue(new Change(id, null, new LinkedHashMap<>(columns)));
+    }
+
+    /**
+     * Voiture supprimée
+     */
+    public void removed(Long id) {
+        enqueue(new Change(id, null, null));
+    }
+
+    /**
+     * Statistiques de prix par groupe
+     * 
+     * @param groupBy Champs de regroupement (parmi DIMENSIONS), vide pour un seul groupe
+     * @param percentiles Centiles demandés, entre 0 et 100
+     * @param filters Valeur exigée par champ (parmi DIMENSIONS)
+     * @return Les statistiques, ou null si la copie n'est pas encore construite
+     * @throws InvalidQueryException si un champ ou un centile est invalide, ou s'il y a trop de groupes
+     */
+    public PrixStatistics prixStatistics(List<String> groupBy, List<Double> percentiles, Map<String, String> filters) {
+        for (String field : groupBy) {
+            if (!DIMENSIONS.contains(field)) {
+                throw new InvalidQueryException("Champ de regroupement inconnu : " + field);
+            }
+        }
+        if (groupBy.stream().distinct().count() != groupBy.size()) {
+            throw new InvalidQueryException("Champ de regroupement répété : " + groupBy);
+        }
+        for (String field : filters.keySet()) {
+            if (!DIMENSIONS.contains(field)) {
+                throw new InvalidQueryException("Champ de filtre inconnu : " + field);
+            }
+        }
+        double[] ranks = percentiles.stream().mapToDouble(Double::doubleValue).sorted().distinct().toArray();
+        for (double percentile : ranks) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new InvalidQueryException("Centile hors de [0, 100] : " + percentile);
+            }
+        }
+        if (!ready) {
+            return null;
+        }
+        if (pendingCount.get() > 0) {
+            lock.writeLock().lock();
+            try {
+                drain();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        long start = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            PrixStatistics statistics = compute(columns, groupBy, ranks, filters);
+            long duration = System.nanoTime() - start;
+            statistics.setDurationMicros(TimeUnit.NANOSECONDS.toMicros(duration));
+            queryTimer.record(duration, TimeUnit.NANOSECONDS);
+            return statistics;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PrixStatistics compute(VoitureColumns data, List<String> groupBy, double[] ranks, Map<String, String> filters) {
+        int rows = data.rows;
+
+        // Numéro de groupe = combinaison des codes des champs de regroupement
+        int dimensions = groupBy.size();
+        int[][] codes = new int[dimensions][];
+        VoitureColumns.Dictionary[] dictionaries = new VoitureColumns.Dictionary[dimensions];
+        int[] strides = new int[dimensions];
+        long groupCount = 1;
+        for (int d = dimensions - 1; d >= 0; d--) {
+            codes[d] = column(data, groupBy.get(d));
+            dictionaries[d] = dictionary(data, groupBy.get(d));
+            strides[d] = (int) groupCount;
+            groupCount *= Math.max(1, dictionaries[d].size());
+            if (groupCount > maxGroups) {
+                throw new InvalidQueryException("Trop de groupes pour " + groupBy + " (maximum " + maxGroups + ")");
+            }
+        }
+        int groups = (int) groupCount;
+
+        // Filtres : valeur jamais vue -> aucun résultat
+        int[][] filterColumns = new int[filters.size()][];
+        int[] filterCodes = new int[filters.size()];
+        int f = 0;
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            filterColumns[f] = column(data, filter.getKey());
+            filterCodes[f] = dictionary(data, filter.getKey()).lookup(filter.getValue());
+            if (filterCodes[f] < 0) {
+                return new PrixStatistics(groupBy, 0, 0, List.of());
+            }
+            f++;
+        }
+
+        // 1. Groupe de chaque ligne (-1 : ligne supprimée, sans prix ou filtrée) et comptage par tranche
+        int chunks = (int) Math.max(1, Math.min((rows + CHUNK_ROWS - 1) / CHUNK_ROWS, MAX_COUNTERS / groups));
+        int chunkRows = (rows + chunks - 1) / Math.max(1, chunks);
+        int[] groupOfRow = new int[rows];
+        int[][] counts = new int[chunks][groups];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] chunkCounts = counts[chunk];
+            int to = Math.min(rows, (chunk + 1) * chunkRows);
+            scan:
+            for (int row = chunk * chunkRows; row < to; row++) {
+                groupOfRow[row] = -1;
+                if (data.ids[row] == 0 || Double.isNaN(data.prix[row])) {
+                    continue;
+                }
+                for (int i = 0; i < filterColumns.length; i++) {
+                    if (filterColumns[i][row] != filterCodes[i]) {
+                        continue scan;
+                    }
+                }
+                int group = 0;
+                for (int d = 0; d < dimensions; d++) {
+                    group += codes[d][row] * strides[d];
+                }
+                groupOfRow[row] = group;
+                chunkCounts[group]++;
+            }
+        });
+
+        // Début de chaque groupe dans values, puis position d'écriture de chaque tranche dans chaque groupe
+        int[] groupStart = new int[groups + 1];
+        for (int group = 0; group < groups; group++) {
+            int offset = groupStart[group];
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                int count = counts[chunk][group];
+                counts[chunk][group] = offset;
+                offset += count;
+            }
+            groupStart[group + 1] = offset;
+        }
+        int total = groupStart[groups];
+
+        // 2. Prix regroupés par groupe
+        double[] values = new double[total];
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] positions = counts[chunk];
+            int to = Math.min(rows, (chunk + 1) * chunkRows);
+            for (int row = chunk * chunkRows; row < to; row++) {
+                int group = groupOfRow[row];
+                if (group >= 0) {
+                    values[positions[group]++] = data.prix[row];
+                }
+            }
+        });
+
+        // 3. Statistiques de chaque groupe non vide
+        int[] nonEmpty = IntStream.range(0, groups).filter(group -> groupStart[group + 1] > groupStart[group]).toArray();
+        PrixStatistics.Group[] results = new PrixStatistics.Group[nonEmpty.length];
+        IntStream.range(0, nonEmpty.length).parallel().forEach(i -> {
+            int group = nonEmpty[i];
+            int from = groupStart[group];
+            int to = groupStart[group + 1];
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0;
+            for (int k = from; k < to; k++) {
+                double value = values[k];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                sum += value;
+            }
+            int n = to - from;
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            int selectedFrom = from;
+            for (double rank : ranks) {
+                // Rang le plus proche : la plus petite valeur dont au moins rank % des valeurs sont inférieures ou égales
+                int index = from + Math.max(0, (int) Math.ceil(rank / 100 * n) - 1);
+                percentiles.put(percentileName(rank), select(values, selectedFrom, to, index));
+                selectedFrom = index;
+            }
+            Map<String, String> key = new LinkedHashMap<>();
+            for (int d = 0; d < dimensions; d++) {
+                key.put(groupBy.get(d), dictionaries[d].decode(group / strides[d] % Math.max(1, dictionaries[d].size())));
+            }
+            results[i] = new PrixStatistics.Group(key, n, min, max, sum / n, percentiles);
+        });
+
+        List<PrixStatistics.Group> sorted = new ArrayList<>(Arrays.asList(results));
+        sorted.sort(Comparator.comparingLong(PrixStatistics.Group::getCount).reversed());
+        return new PrixStatistics(groupBy, total, 0, sorted);
+    }
+
+    /**
+     * Place en values[k] la valeur de rang k de values[from, to) (quickselect de Hoare) : les valeurs
+     * de [from, k) lui sont inférieures ou égales, celles de (k, to) supérieures ou égales
+     * 
+     * @return values[k]
+     */
+    static double select(double[] values, int from, int to, int k) {
+        int lo = from;
+        int hi = to - 1;
+        while (hi > lo) {
+            int mid = (lo + hi) >>> 1;
+            double pivot = median(values[lo], values[mid], values[hi]);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double swap = values[i];
+                    values[i++] = values[j];
+                    values[j--] = swap;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                break;
+            }
+        }
+        return values[k];
+    }
+
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static String percentileName(double rank) {
+        return "p" + BigDecimal.valueOf(rank).stripTrailingZeros().toPlainString();
+    }
+
+    private static int[] column(VoitureColumns data, String field) {
+        return switch (field) {
+            case "marque" -> data.marques;
+            case "modele" -> data.modeles;
+            default -> data.couleurs;
+        };
+    }
+
+    private static VoitureColumns.Dictionary dictionary(VoitureColumns data, String field) {
+        return switch (field) {
+            case "marque" -> data.marqueDictionary;
+            case "modele" -> data.modeleDictionary;
+            default -> data.couleurDictionary;
+        };
+    }
+
+    private int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void enqueue(Change change) {
+        pending.add(change);
+        if (pendingCount.incrementAndGet() >= DRAIN_THRESHOLD && lock.writeLock().tryLock()) {
+            try {
+                drain();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Applique les écritures en file (appelé avec le verrou d'écriture)
+     */
+    private void drain() {
+        Change change;
+        while ((change = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            change.applyTo(columns);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    /**
+     * Construit une nouvelle copie à partir de la table puis remplace la copie courante
+     * Les écritures appliquées pendant la lecture sont rejouées sur la nouvelle copie
+     * (les versions empêchent une ligne lue plus récente d'être remplacée par une écriture plus ancienne).
+     *
+     * @return Le nombre de voitures de la nouvelle copie, ou -1 si la lecture de la table a échoué
+     */
+    public synchronized long rebuild() {
+        long start = System.nanoTime();
+        int capacity;
+        lock.writeLock().lock();
+        try {
+            drain();
+            changesDuringRebuild = new ArrayList<>();
+            capacity = columns.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        VoitureColumns rebuilt = new VoitureColumns(capacity);
+        try {
+            voitureJdbcRepository.streamAll(rebuilt::upsert);
+        } catch (RuntimeException e) {
+            log.warn("Construction de la copie des voitures pour l'analyse impossible : {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return -1;
+        }
+        lock.writeLock().lock();
+        try {
+            drain();
+            for (Change change : changesDuringRebuild) {
+                change.applyTo(rebuilt);
+            }
+            changesDuringRebuild = null;
+            columns = rebuilt;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Copie des voitures pour l'analyse construite : {} voitures en {} ms",
+                rebuilt.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rebuilt.size();
+    }
+
+    /**
+     * Écriture validée : voiture complète (création, PUT), colonnes modifiées (PATCH) ou suppression (les deux null)
+     */
+    private record Change(long id, Voiture voiture, Map<String, Object> columns) {
+
+        void applyTo(VoitureColumns data) {
+            if (voiture != null) {
+                data.upsert(voiture);
+            } else if (columns != null) {
+                data.patch(id, columns);
+            } else {
+                data.remove(id);
+            }
+        }
+    }
+}
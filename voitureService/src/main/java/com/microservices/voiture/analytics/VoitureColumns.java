@@ -0,0 +1,166 @@
+package com.microservices.voiture.analytics;
+
+import com.microservices.voiture.model.Voiture;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copie en colonnes de la table voitures, limitée aux champs analysés
+ * 
+ * Une ligne = une position dans chaque tableau : prix en double[], marque, modèle et couleur
+ * encodés par dictionnaire en int[] (quelques centaines de valeurs distinctes au plus).
+ * Une ligne supprimée garde sa position (id = 0) jusqu'à sa réutilisation par une insertion.
+ * Environ 40 octets par voiture.
+ * 
+ * Non thread-safe : modifiée sous le verrou d'écriture de VoitureAnalytics, lue sous son verrou de lecture.
+ */
+final class VoitureColumns {
+
+    long[] ids;
+    long[] versions;
+    double[] prix;
+    int[] marques;
+    int[] modeles;
+    int[] couleurs;
+
+    /**
+     * Nombre de positions utilisées (lignes vivantes et supprimées)
+     */
+    int rows;
+
+    final Dictionary marqueDictionary = new Dictionary();
+    final Dictionary modeleDictionary = new Dictionary();
+    final Dictionary couleurDictionary = new Dictionary();
+
+    private final LongIntMap rowsById;
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    VoitureColumns(int capacity) {
+        int initial = Math.max(16, capacity);
+        ids = new long[initial];
+        versions = new long[initial];
+        prix = new double[initial];
+        marques = new int[initial];
+        modeles = new int[initial];
+        couleurs = new int[initial];
+        rowsById = new LongIntMap(initial);
+    }
+
+    /**
+     * Nombre de voitures
+     */
+    int size() {
+        return rowsById.size();
+    }
+
+    /**
+     * Ajoute ou remplace une voiture, sauf si la copie contient déjà une version plus récente
+     */
+    void upsert(Voiture voiture) {
+        long id = voiture.getId();
+        int row = rowsById.get(id);
+        if (row == LongIntMap.MISSING) {
+            row = allocate();
+            ids[row] = id;
+            rowsById.put(id, row);
+        } else if (voiture.getVersion() != null && versions[row] > voiture.getVersion()) {
+            return;
+        }
+        versions[row] = voiture.getVersion() != null ? voiture.getVersion() : versions[row];
+        prix[row] = voiture.getPrix() != null ? voiture.getPrix() : Double.NaN;
+        marques[row] = marqueDictionary.encode(voiture.getMarque());
+        modeles[row] = modeleDictionary.encode(voiture.getModele());
+        couleurs[row] = couleurDictionary.encode(voiture.getCouleur());
+    }
+
+    /**
+     * Applique une modification partielle (colonnes SQL -> nouvelles valeurs) à une voiture présente
+     * La version n'est pas modifiée : la modification peut être rejouée après une reconstruction
+     * qui l'a déjà lue en base.
+     */
+    void patch(long id, Map<String, Object> columns) {
+        int row = rowsById.get(id);
+        if (row == LongIntMap.MISSING) {
+            return;
+        }
+        columns.forEach((column, value) -> {
+            switch (column) {
+                case "prix" -> prix[row] = value != null ? ((Number) value).doubleValue() : Double.NaN;
+                case "marque" -> marques[row] = marqueDictionary.encode((String) value);
+                case "modele" -> modeles[row] = modeleDictionary.encode((String) value);
+                case "couleur" -> couleurs[row] = couleurDictionary.encode((String) value);
+                default -> {
+                    // Colonne non analysée
+                }
+            }
+        });
+    }
+
+    void remove(long id) {
+        int row = rowsById.get(id);
+        if (row == LongIntMap.MISSING) {
+            return;
+        }
+        rowsById.remove(id);
+        ids[row] = 0;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row;
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rows == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            prix = Arrays.copyOf(prix, capacity);
+            marques = Arrays.copyOf(marques, capacity);
+            modeles = Arrays.copyOf(modeles, capacity);
+            couleurs = Arrays.copyOf(couleurs, capacity);
+        }
+        return rows++;
+    }
+
+    /**
+     * Dictionnaire valeur <-> code (null est une valeur comme une autre) ; les codes ne sont jamais retirés
+     */
+    static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        /**
+         * @return Le code de la valeur, ou -1 si elle n'a jamais été vue
+         */
+        int lookup(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.microservices.voiture.bulk;
+
+import com.microservices.voiture.exception.InvalidImportException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture d'un fichier d'import enregistrement par enregistrement, en mémoire bornée
+ * 
+ * Un enregistrement est une ligne (fin de ligne \n ou \r\n) ; en CSV, une ligne peut contenir
+ * des retours à la ligne entre guillemets. Les lignes vides sont ignorées et un BOM UTF-8
+ * en tête de fichier est retiré. Un enregistrement de plus de maxLength caractères interrompt
+ * l'import : sans fin de ligne, tout le fichier serait chargé en mémoire.
+ * 
+ * Non thread-safe.
+ */
+final class RecordReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final boolean csv;
+    private final int maxLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder record = new StringBuilder();
+    private int position;
+    private int limit;
+    private boolean started;
+    private boolean ended;
+
+    /**
+     * @param reader Le contenu du fichier
+     * @param csv true pour tenir compte des guillemets CSV
+     * @param maxLength Longueur maximale d'un enregistrement
+     */
+    RecordReader(Reader reader, boolean csv, int maxLength) {
+        this.reader = reader;
+        this.csv = csv;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * @return L'enregistrement suivant (sans la fin de ligne), ou null à la fin du fichier
+     * @throws InvalidImportException si l'enregistrement dépasse maxLength caractères
+     */
+    String next() throws IOException {
+        while (!ended) {
+            record.setLength(0);
+            boolean quoted = false;
+            boolean complete = false;
+            while (!complete) {
+                if (position == limit && !fill()) {
+                    ended = true;
+                    break;
+                }
+                int start = position;
+                while (position < limit) {
+                    char c = buffer[position];
+                    if (c == '\n' && !quoted) {
+                        complete = true;
+                        break;
+                    }
+                    if (c == '"' && csv) {
+                        quoted = !quoted;
+                    }
+                    position++;
+                }
+                append(start, position);
+                if (complete) {
+                    position++;
+                }
+            }
+            int length = record.length();
+            if (length > 0 && record.charAt(length - 1) == '\r') {
+                record.setLength(length - 1);
+            }
+            if (record.length() > 0) {
+                return record.toString();
+            }
+        }
+        return null;
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer);
+        while (read == 0) {
+            read = reader.read(buffer);
+        }
+        position = 0;
+        limit = Math.max(read, 0);
+        if (!started && limit > 0) {
+            started = true;
+            if (buffer[0] == '\uFEFF') {
+                position = 1;
+            }
+        }
+        return read > 0;
+    }
+
+    private void append(int start, int end) {
+        if (record.length() + end - start > maxLength) {
+            throw new InvalidImportException("Enregistrement de plus de " + maxLength + " caractères"
+                    + " (fin de ligne manquante ou guillemet CSV non fermé ?)");
+        }
+        record.append(buffer, start, end - start);
+    }
+
+    /**
+     * Découpe un enregistrement CSV en champs (séparateur virgule, guillemets doublés dans un champ entre guillemets)
+     * 
+     * @return Les champs ; un champ vide sans guillemets vaut null, "" vaut une chaîne vide
+     * @throws IllegalArgumentException si un guillemet est mal placé
+     */
+    static List<String> splitCsv(String record) {
+        List<String> fields = new ArrayList<>();
+        int length = record.length();
+        int i = 0;
+        while (true) {
+            if (i < length && record.charAt(i) == '"') {
+                StringBuilder field = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("guillemet non fermé");
+                    }
+                    char c = record.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < length && record.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && record.charAt(i) != ',') {
+                    throw new IllegalArgumentException("caractère après le guillemet fermant du champ " + (fields.size() + 1));
+                }
+                fields.add(field.toString());
+            } else {
+                int end = record.indexOf(',', i);
+                if (end < 0) {
+                    end = length;
+                }
+                String field = record.substring(i, end);
+                if (field.indexOf('"') >= 0) {
+                    throw new IllegalArgumentException("guillemet dans le champ " + (fields.size() + 1) + " non entouré de guillemets");
+                }
+                fields.add(field.isEmpty() ? null : field);
+                i = end;
+            }
+            if (i >= length) {
+                return fields;
+            }
+            i++; // Virgule
+        }
+    }
+}
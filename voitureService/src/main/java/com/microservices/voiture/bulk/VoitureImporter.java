@@ -0,0 +1,583 @@
+package com.microservices.voiture.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.microservices.voiture.analytics.VoitureAnalytics;
+import com.microservices.voiture.cache.VoitureCache;
+import com.microservices.voiture.exception.ImportConflictException;
+import com.microservices.voiture.exception.InvalidImportException;
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoitureImport;
+import com.microservices.voiture.model.VoitureImportRejection;
+import com.microservices.voiture.replica.ClientReplica;
+import com.microservices.voiture.repository.VoitureImportRepository;
+import com.microservices.voiture.repository.VoitureJdbcRepository;
+import com.microservices.voiture.repository.VoitureRepository;
+import com.microservices.voiture.search.VoitureSearchIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Import en masse de voitures depuis un fichier CSV ou NDJSON lu en streaming
+ * 
+ * Le fichier est découpé en tranches de chunk-size enregistrements, chacune traitée dans sa propre
+ * transaction : contrôle des immatriculations déjà en base (une requête IN par paquet de 1000),
+ * INSERT en un batch JDBC (les résumés du parc sont tenus à jour par les triggers de voitures),
+ * enregistrement des rejets et de l'avancement de l'import (voiture_imports). La tranche suivante
+ * est lue et analysée pendant l'écriture de la précédente (thread voiture-import-<importId>) :
+ * deux tranches au plus sont en mémoire, et le temps d'attente de la base recouvre celui de l'analyse.
+ * 
+ * Un import interrompu (coupure réseau, arrêt du service, erreur de base) garde les tranches validées :
+ * renvoyer le même fichier avec le même ID saute les enregistrements déjà traités et reprend
+ * à la tranche suivante. L'avancement est modifié avec l'avancement attendu en condition
+ * (voir VoitureImportRepository.advance) : deux envois simultanés du même import ne peuvent pas
+ * insérer deux fois la même tranche, le second est arrêté en 409.
+ * 
+ * Un enregistrement invalide (champ obligatoire manquant, prix non numérique, immatriculation
+ * déjà utilisée ou répétée, client inconnu) est rejeté sans interrompre l'import.
+ * Les caches, l'index de recherche et les statistiques de prix sont mis à jour après chaque tranche.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class VoitureImporter {
+
+    /**
+     * Identifiant d'import accepté (il apparaît dans l'URL et sert de clé primaire)
+     */
+    private static final Pattern IMPORT_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    /**
+     * Longueur maximale des champs texte (colonnes VARCHAR(255))
+     */
+    private static final int MAX_FIELD_LENGTH = 255;
+
+    /**
+     * Longueur maximale du contenu d'un rejet enregistré (colonne VARCHAR(1024))
+     */
+    private static final int MAX_REJECTION_CONTENT = 1024;
+
+    /**
+     * Nombre maximal d'immatriculations par requête IN
+     */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /**
+     * Tentatives d'une tranche en cas d'immatriculation insérée entre le contrôle et l'INSERT
+     * par une autre écriture (la tentative suivante la voit et rejette l'enregistrement)
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Intervalle minimal entre deux journalisations de l'avancement
+     */
+    private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Colonnes CSV reconnues -> champ de Voiture (les autres colonnes sont ignorées)
+     */
+    private static final Map<String, String> CSV_COLUMNS = Map.of(
+            "marque", "marque",
+            "modele", "modele",
+            "couleur", "couleur",
+            "immatriculation", "immatriculation",
+            "prix", "prix",
+            "clientId", "clientId",
+            "client_id", "clientId");
+
+    private static final List<String> REQUIRED_FIELDS = List.of("marque", "modele", "immatriculation", "prix");
+
+    @Autowired
+    private VoitureRepository voitureRepository;
+
+    @Autowired
+    private VoitureJdbcRepository voitureJdbcRepository;
+
+    @Autowired
+    private VoitureImportRepository voitureImportRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private VoitureCache voitureCache;
+
+    @Autowired
+    private VoitureSearchIndex voitureSearchIndex;
+
+    @Autowired
+    private VoitureAnalytics voitureAnalytics;
+
+    /**
+     * Réplique des IDs de clients pour valider clientId (absente si voiture.client-replica.enabled=false)
+     */
+    @Autowired(required = false)
+    private ClientReplica clientReplica;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Enregistrements par tranche (un batch JDBC, une transaction, un point de reprise)
+     */
+    @Value("${voiture.import.chunk-size:5000}")
+    private int chunkSize;
+
+    /**
+     * Longueur maximale d'un enregistrement (au-delà, l'import est interrompu)
+     */
+    @Value("${voiture.import.max-record-length:65536}")
+    private int maxRecordLength;
+
+    /**
+     * Nombre maximal de rejets enregistrés par import (les suivants sont seulement comptés)
+     */
+    @Value("${voiture.import.max-stored-rejections:10000}")
+    private long maxStoredRejections;
+
+    /**
+     * Importe un fichier, ou reprend son import après la dernière tranche validée
+     * 
+     * @param importId Identifiant choisi par l'appelant (le même pour reprendre)
+     * @param format Format du fichier
+     * @param body Le contenu du fichier
+     * @return L'avancement final (COMPLETED), ou l'import déjà terminé sans lire le fichier
+     * @throws InvalidImportException si l'import ne peut pas commencer ou si un enregistrement est trop long
+     * @throws ImportConflictException si un autre envoi du même import a avancé entre-temps
+     * @throws IOException si la lecture du fichier est interrompue (import FAILED, à reprendre)
+     */
+    public VoitureImport importVoitures(String importId, VoitureImport.Format format, Reader body) throws IOException {
+        if (importId == null || !IMPORT_ID.matcher(importId).matches()) {
+            throw new InvalidImportException("Identifiant d'import invalide (1 à 64 lettres, chiffres, '.', '_' ou '-') : " + importId);
+        }
+        Optional<VoitureImport> existing = voitureImportRepository.findById(importId);
+        if (existing.isPresent() && existing.get().getStatus() == VoitureImport.Status.COMPLETED) {
+            return existing.get();
+        }
+
+        RecordReader records = new RecordReader(body, format == VoitureImport.Format.CSV, maxRecordLength);
+        String header = null;
+        Function<String, Object> parser;
+        if (format == VoitureImport.Format.CSV) {
+            header = records.next();
+            if (header == null) {
+                throw new InvalidImportException("Fichier CSV vide : une ligne d'en-tête est attendue");
+            }
+            parser = csvParser(header);
+        } else {
+            ObjectReader reader = objectMapper.readerFor(Voiture.class);
+            parser = content -> parseJson(reader, content);
+        }
+
+        if (existing.isPresent()) {
+            VoitureImport previous = existing.get();
+            if (previous.getFormat() != format || !Objects.equals(previous.getHeader(), header)) {
+                throw new InvalidImportException("Le fichier ne correspond pas à celui de l'import " + importId
+                        + " (format " + previous.getFormat() + ", en-tête " + previous.getHeader() + ")");
+            }
+        } else if (!voitureImportRepository.create(importId, format, header)) {
+            throw new ImportConflictException("Import " + importId + " commencé simultanément par un autre envoi");
+        }
+        VoitureImport state = voitureImportRepository.findById(importId).orElseThrow();
+        for (long skipped = 0; skipped < state.getRecordCount(); skipped++) {
+            if (records.next() == null) {
+                throw new InvalidImportException("Le fichier a " + skipped + " enregistrement(s), l'import "
+                        + importId + " en a déjà traité " + state.getRecordCount());
+            }
+        }
+        if (existing.isPresent()) {
+            voitureImportRepository.updateStatus(importId, VoitureImport.Status.RUNNING, null);
+            log.info("Reprise de l'import {} après {} enregistrement(s)", importId, state.getRecordCount());
+        }
+
+        Progress progress = new Progress(state);
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "voiture-import-" + importId);
+            thread.setDaemon(true);
+            return thread;
+        });
+        Future<?> writing = null;
+        try {
+            List<Parsed> chunk = new ArrayList<>(chunkSize);
+            String content;
+            while ((content = records.next()) != null) {
+                chunk.add(new Parsed(content, parser.apply(content)));
+                if (chunk.size() == chunkSize) {
+                    await(writing);
+                    progress.log(state);
+                    List<Parsed> full = chunk;
+                    writing = writer.submit(() -> commit(state, full));
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            await(writing);
+            writing = null;
+            if (!chunk.isEmpty()) {
+                commit(state, chunk);
+            }
+        } catch (ImportConflictException e) {
+            // L'autre envoi poursuit l'import : son statut ne doit pas être modifié
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            // La tranche en cours d'écriture est validée ou annulée avant d'enregistrer l'échec
+            awaitQuietly(writing);
+            fail(importId, e);
+            throw e;
+        } finally {
+            writer.shutdown();
+        }
+        voitureImportRepository.updateStatus(importId, VoitureImport.Status.COMPLETED, null);
+        progress.completed(state);
+        return voitureImportRepository.findById(importId).orElseThrow();
+    }
+
+    /**
+     * Attend la fin de l'écriture d'une tranche et relance son exception éventuelle
+     */
+    private static void await(Future<?> writing) {
+        if (writing == null) {
+            return;
+        }
+        try {
+            writing.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrompu", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void awaitQuietly(Future<?> writing) {
+        try {
+            await(writing);
+        } catch (RuntimeException e) {
+            log.debug("Écriture de la tranche en cours interrompue : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return L'avancement d'un import, s'il existe
+     */
+    public Optional<VoitureImport> getImport(String importId) {
+        return voitureImportRepository.findById(importId);
+    }
+
+    /**
+     * @return Une page des enregistrements rejetés d'un import, après le numéro after
+     */
+    public List<VoitureImportRejection> getRejections(String importId, long after, int limit) {
+        return voitureImportRepository.findRejections(importId, after, limit);
+    }
+
+    /**
+     * Traite une tranche : contrôles qui ne dépendent que de la tranche, puis transaction
+     * (nouvelle tentative si une immatriculation a été insérée entre-temps par une autre écriture)
+     */
+    private void commit(VoitureImport state, List<Parsed> chunk) {
+        long start = System.nanoTime();
+        String[] rejections = new String[chunk.size()];
+        Set<String> immatriculations = new HashSet<>();
+        Set<Long> clientIds = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (chunk.get(i).result() instanceof Voiture voiture) {
+                if (!immatriculations.add(voiture.getImmatriculation())) {
+                    rejections[i] = "Immatriculation répétée dans le fichier : " + voiture.getImmatriculation();
+                } else if (voiture.getClientId() != null) {
+                    clientIds.add(voiture.getClientId());
+                }
+            } else {
+                rejections[i] = (String) chunk.get(i).result();
+            }
+        }
+        Set<Long> unknownClients = clientReplica != null ? clientReplica.findUnknown(clientIds) : Set.of();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (rejections[i] == null && chunk.get(i).result() instanceof Voiture voiture
+                    && unknownClients.contains(voiture.getClientId())) {
+                rejections[i] = "Client inconnu : " + voiture.getClientId();
+            }
+        }
+
+        Committed committed;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                committed = transactionTemplate.execute(status -> insert(state, chunk, rejections.clone()));
+                break;
+            } catch (DuplicateKeyException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Import {} : immatriculation insérée pendant la tranche, nouvelle tentative", state.getId());
+            }
+        }
+
+        Set<Long> clients = new HashSet<>();
+        for (Voiture voiture : committed.inserted()) {
+            clients.add(voiture.getClientId());
+            voitureSearchIndex.index(voiture);
+            voitureAnalytics.upserted(voiture);
+        }
+        clients.forEach(voitureCache::invalidateClient);
+        state.setRecordCount(state.getRecordCount() + chunk.size());
+        state.setImportedCount(state.getImportedCount() + committed.inserted().size());
+        state.setRejectedCount(state.getRejectedCount() + committed.rejected());
+        Counter.builder("voiture.import.records").description("Enregistrements importés ou rejetés")
+                .tag("outcome", "imported").register(meterRegistry).increment(committed.inserted().size());
+        Counter.builder("voiture.import.records").description("Enregistrements importés ou rejetés")
+                .tag("outcome", "rejected").register(meterRegistry).increment(committed.rejected());
+        Timer.builder("voiture.import.chunk").description("Traitement d'une tranche d'import")
+                .register(meterRegistry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Transaction d'une tranche : immatriculations déjà en base, INSERT, rejets et avancement
+     */
+    private Committed insert(VoitureImport state, List<Parsed> chunk, String[] rejections) {
+        List<String> candidates = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (rejections[i] == null) {
+                candidates.add(((Voiture) chunk.get(i).result()).getImmatriculation());
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += IN_CLAUSE_CHUNK) {
+            existing.addAll(voitureRepository.findExistingImmatriculations(
+                    candidates.subList(from, Math.min(from + IN_CLAUSE_CHUNK, candidates.size()))));
+        }
+
+        List<Voiture> voitures = new ArrayList<>(candidates.size());
+        List<VoitureImportRejection> stored = new ArrayList<>();
+        int rejected = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            Parsed parsed = chunk.get(i);
+            if (rejections[i] == null) {
+                Voiture voiture = (Voiture) parsed.result();
+                if (existing.contains(voiture.getImmatriculation())) {
+                    rejections[i] = "Immatriculation déjà utilisée : " + voiture.getImmatriculation();
+                } else {
+                    voitures.add(voiture);
+                    continue;
+                }
+            }
+            if (state.getRejectedCount() + rejected < maxStoredRejections) {
+                stored.add(new VoitureImportRejection(state.getRecordCount() + i + 1, truncate(rejections[i], 255),
+                        truncate(parsed.content(), MAX_REJECTION_CONTENT)));
+            }
+            rejected++;
+        }
+
+        if (!voitures.isEmpty()) {
+            List<Long> ids = voitureJdbcRepository.batchInsert(voitures);
+            for (int i = 0; i < voitures.size(); i++) {
+                voitures.get(i).setId(ids.get(i));
+                voitures.get(i).setVersion(0L);
+            }
+        }
+        if (!stored.isEmpty()) {
+            voitureImportRepository.insertRejections(state.getId(), stored);
+        }
+        if (voitureImportRepository.advance(state.getId(), state.getRecordCount(), state.getRecordCount() + chunk.size(),
+                voitures.size(), rejected) == 0) {
+            throw new ImportConflictException("Import " + state.getId() + " avancé par un autre envoi du même fichier");
+        }
+        return new Committed(voitures, rejected);
+    }
+
+    /**
+     * Analyseur des lignes CSV selon l'en-tête
+     */
+    private Function<String, Object> csvParser(String header) {
+        List<String> names;
+        try {
+            names = RecordReader.splitCsv(header);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidImportException("En-tête CSV invalide : " + e.getMessage());
+        }
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String field = names.get(i) != null ? CSV_COLUMNS.get(names.get(i).trim()) : null;
+            if (field != null && positions.put(field, i) != null) {
+                throw new InvalidImportException("Colonne CSV en double : " + names.get(i));
+            }
+        }
+        for (String field : REQUIRED_FIELDS) {
+            if (!positions.containsKey(field)) {
+                throw new InvalidImportException("Colonne CSV obligatoire manquante : " + field
+                        + " (colonnes reconnues : marque, modele, couleur, immatriculation, prix, clientId)");
+            }
+        }
+        int columnCount = names.size();
+        return content -> {
+            List<String> fields;
+            try {
+                fields = RecordReader.splitCsv(content);
+            } catch (IllegalArgumentException e) {
+                return "CSV invalide : " + e.getMessage();
+            }
+            if (fields.size() != columnCount) {
+                return fields.size() + " champ(s) au lieu de " + columnCount;
+            }
+            Voiture voiture = new Voiture();
+            voiture.setMarque(field(fields, positions, "marque"));
+            voiture.setModele(field(fields, positions, "modele"));
+            voiture.setCouleur(field(fields, positions, "couleur"));
+            voiture.setImmatriculation(field(fields, positions, "immatriculation"));
+            String prix = field(fields, positions, "prix");
+            String clientId = field(fields, positions, "clientId");
+            try {
+                voiture.setPrix(prix != null ? Double.valueOf(prix) : null);
+            } catch (NumberFormatException e) {
+                return "Prix invalide : " + prix;
+            }
+            try {
+                voiture.setClientId(clientId != null ? Long.valueOf(clientId) : null);
+            } catch (NumberFormatException e) {
+                return "clientId invalide : " + clientId;
+            }
+            return validate(voiture);
+        };
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> positions, String field) {
+        Integer position = positions.get(field);
+        return position != null ? fields.get(position) : null;
+    }
+
+    private static Object parseJson(ObjectReader reader, String content) {
+        Voiture voiture;
+        try {
+            voiture = reader.readValue(content);
+        } catch (JsonProcessingException e) {
+            return "JSON invalide : " + e.getOriginalMessage();
+        }
+        if (voiture == null) {
+            return "JSON invalide : objet attendu";
+        }
+        voiture.setId(null);
+        voiture.setVersion(null);
+        return validate(voiture);
+    }
+
+    /**
+     * @return La voiture si elle peut être insérée, sinon la raison du rejet
+     */
+    private static Object validate(Voiture voiture) {
+        if (isBlank(voiture.getMarque()) || isBlank(voiture.getModele()) || isBlank(voiture.getImmatriculation())
+                || voiture.getPrix() == null) {
+            return "marque, modele, immatriculation et prix sont obligatoires";
+        }
+        if (voiture.getPrix().isNaN() || voiture.getPrix().isInfinite()) {
+            return "Prix invalide : " + voiture.getPrix();
+        }
+        if (tooLong(voiture.getMarque()) || tooLong(voiture.getModele()) || tooLong(voiture.getCouleur())
+                || tooLong(voiture.getImmatriculation())) {
+            return "Champ texte de plus de " + MAX_FIELD_LENGTH + " caractères";
+        }
+        return voiture;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static boolean tooLong(String value) {
+        return value != null && value.length() > MAX_FIELD_LENGTH;
+    }
+
+    private static String truncate(String value, int length) {
+        return value.length() <= length ? value : value.substring(0, length);
+    }
+
+    private void fail(String importId, Exception cause) {
+        String error = cause instanceof IOException
+                ? "Lecture du fichier interrompue : " + cause.getMessage()
+                : cause.getMessage();
+        log.warn("Import {} interrompu (reprise possible en renvoyant le fichier) : {}", importId, error);
+        try {
+            voitureImportRepository.updateStatus(importId, VoitureImport.Status.FAILED,
+                    truncate(String.valueOf(error), 1024));
+        } catch (RuntimeException e) {
+            log.warn("Statut de l'import {} non enregistré : {}", importId, e.getMessage());
+        }
+    }
+
+    /**
+     * Enregistrement lu : contenu brut, et Voiture valide ou raison du rejet
+     */
+    private record Parsed(String content, Object result) {
+    }
+
+    /**
+     * Résultat de la transaction d'une tranche : voitures insérées (avec leur ID) et nombre de rejets
+     */
+    private record Committed(List<Voiture> inserted, int rejected) {
+    }
+
+    /**
+     * Journalisation périodique de l'avancement et du débit
+     */
+    private static final class Progress {
+
+        private final long start = System.nanoTime();
+        private final long initialRecordCount;
+        private long lastLog = start;
+
+        Progress(VoitureImport state) {
+            this.initialRecordCount = state.getRecordCount();
+        }
+
+        void log(VoitureImport state) {
+            long now = System.nanoTime();
+            if (now - lastLog >= PROGRESS_LOG_INTERVAL_NANOS) {
+                lastLog = now;
+                log.info("Import {} : {} enregistrement(s) traité(s), {} importé(s), {} rejeté(s), {} enregistrements/s",
+                        state.getId(), state.getRecordCount(), state.getImportedCount(), state.getRejectedCount(),
+                        rate(state, now));
+            }
+        }
+
+        void completed(VoitureImport state) {
+            log.info("Import {} terminé : {} enregistrement(s), {} importé(s), {} rejeté(s) en {} ms ({} enregistrements/s)",
+                    state.getId(), state.getRecordCount(), state.getImportedCount(), state.getRejectedCount(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), rate(state, System.nanoTime()));
+        }
+
+        private long rate(VoitureImport state, long now) {
+            long records = state.getRecordCount() - initialRecordCount;
+            return now == start ? 0 : records * 1_000_000_000L / (now - start);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.microservices.voiture.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microservices.voiture.model.ClientFleet;
+import com.microservices.voiture.model.Voiture;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache mémoire "read-through" des lectures de VoitureService
+ * 
+ * Deux caches Caffeine bornés (taille maximale + durée de vie) :
+ * - byId : une voiture par ID
+ * - byClientId : la liste des voitures d'un client, avec sa version (ETag) si elle a été chargée seule
+ * 
+ * Les compteurs hit/miss/eviction sont publiés dans Micrometer
+ * (GET /actuator/metrics/cache.gets?tag=cache:voitures.byId, etc.).
+ * 
+ * Une invalidation sur une clé en cours de chargement par getById/getFleetByClientId attend la fin
+ * du chargement puis le supprime. Les chargements groupés de getByClientIds ne sont insérés que si
+ * aucune liste n'a été invalidée pendant le chargement (compteur clientInvalidations, vérifié
+ * sous le verrou de la clé) : une lecture commencée avant une écriture ne peut donc pas
+ * réinsérer une valeur périmée après l'invalidation.
+ * 
+ * Une écriture dont le propriétaire précédent n'est pas connu (PATCH, DELETE en une seule requête)
+ * invalide la voiture seule : son numéro d'invalidation est retenu pendant la durée de vie des listes,
+ * et une liste chargée avant ce numéro qui contient la voiture est rechargée à sa prochaine lecture.
+ * 
+ * Avec des répliques en lecture, les clés invalidées sont retenues pendant freshReadWindow :
+ * leur rechargement doit lire la base primaire (isRecentlyInvalidated*), une réplique en retard
+ * remettrait en cache la valeur d'avant l'écriture pour toute la durée de vie de l'entrée.
+ */
+@Component
+@Profile("!reactive")
+public class VoitureCache {
+
+    private final Cache<Long, Voiture> byId;
+    private final Cache<Long, ClientVoitures> byClientId;
+    private final Cache<Long, Long> invalidatedVoitures;
+    private final Cache<Long, Boolean> recentlyInvalidatedIds;
+    private final Cache<Long, Boolean> recentlyInvalidatedClientIds;
+    private final boolean trackInvalidations;
+    private final AtomicLong clientInvalidations = new AtomicLong();
+    private final AtomicLong voitureInvalidations = new AtomicLong();
+
+    /**
+     * @param maxSize Nombre maximal d'entrées par cache
+     * @param ttl Durée de vie d'une entrée après son chargement
+     * @param readReplicas true si des répliques en lecture sont configurées
+     * @param freshReadWindow Durée pendant laquelle une clé invalidée se recharge depuis la primaire
+     * @param meterRegistry Registre Micrometer pour les statistiques
+     */
+    public VoitureCache(@Value("${voiture.cache.max-size:10000}") long maxSize,
+                        @Value("${voiture.cache.ttl:5m}") Duration ttl,
+                        @Value("${voiture.read-replicas.enabled:false}") boolean readReplicas,
+                        @Value("${voiture.read-replicas.read-your-writes-window:5s}") Duration freshReadWindow,
+                        MeterRegistry meterRegistry) {
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.byClientId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Pas de taille maximale : une liste encore en cache doit toujours retrouver ses voitures invalidées
+        // (au plus une entrée par voiture modifiée pendant ttl)
+        this.invalidatedVoitures = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+        this.trackInvalidations = readReplicas;
+        this.recentlyInvalidatedIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(freshReadWindow)
+                .build();
+        this.recentlyInvalidatedClientIds = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(freshReadWindow)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "voitures.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, byClientId, "voitures.byClientId");
+    }
+
+    /**
+     * Retourne la voiture en cache ou la charge (un résultat null n'est pas mis en cache)
+     * 
+     * @param id L'identifiant de la voiture
+     * @param loader Chargement depuis la base en cas d'absence
+     * @return La voiture ou null si elle n'existe pas
+     */
+    public Voiture getById(Long id, Function<Long, Voiture> loader) {
+        if (id == null) {
+            return loader.apply(null);
+        }
+        return byId.get(id, loader);
+    }
+
+    /**
+     * Retourne les voitures du client et la version de leur liste, en cache ou chargées
+     * 
+     * Une liste en cache est rechargée si elle est périmée, si elle a été chargée sans sa version
+     * (par getByClientIds) ou si sa version est inférieure à minVersion.
+     * 
+     * @param clientId L'identifiant du client
+     * @param minVersion Version de la liste déjà lue en base par l'appelant (null : toute version)
+     * @param loader Chargement depuis la base en cas d'absence
+     * @return Les voitures du client (liste non modifiable) et leur version
+     */
+    public ClientFleet getFleetByClientId(Long clientId, Long minVersion, Function<Long, ClientFleet> loader) {
+        if (clientId == null) {
+            return loader.apply(null);
+        }
+        ClientVoitures cached = byClientId.get(clientId, key -> load(key, loader));
+        if (isUsable(cached, minVersion)) {
+            return new ClientFleet(cached.fleetVersion(), cached.voitures());
+        }
+        ClientVoitures loaded = byClientId.asMap().compute(clientId, (key, current) -> current != null
+                && isUsable(current, minVersion) ? current : load(key, loader));
+        return new ClientFleet(loaded.fleetVersion(), loaded.voitures());
+    }
+
+    private ClientVoitures load(Long clientId, Function<Long, ClientFleet> loader) {
+        long loadedAfter = voitureInvalidations.get();
+        ClientFleet fleet = loader.apply(clientId);
+        return new ClientVoitures(loadedAfter, fleet.version(), List.copyOf(fleet.voitures()));
+    }
+
+    private boolean isUsable(ClientVoitures cached, Long minVersion) {
+        return cached.fleetVersion() != null && (minVersion == null || cached.fleetVersion() >= minVersion)
+                && !isStale(cached);
+    }
+
+    /**
+     * Retourne les voitures de plusieurs clients ; les clients absents du cache
+     * sont chargés ensemble par un seul appel au loader
+     * 
+     * Les listes chargées ne sont mises en cache que si aucune liste n'a été invalidée
+     * pendant le chargement : elles sont retournées dans tous les cas.
+     * 
+     * @param clientIds Les identifiants des clients
+     * @param loader Chargement groupé des clients absents (doit retourner une entrée par client)
+     * @return Les listes de voitures par client
+     */
+    public Map<Long, List<Voiture>> getByClientIds(Collection<Long> clientIds,
+                                                   Function<Set<? extends Long>, Map<Long, List<Voiture>>> loader) {
+        Map<Long, List<Voiture>> result = new HashMap<>();
+        byClientId.getAllPresent(clientIds).forEach((clientId, cached) -> {
+            if (!isStale(cached)) {
+                result.put(clientId, cached.voitures());
+            }
+        });
+        Set<Long> missing = new LinkedHashSet<>(clientIds);
+        missing.removeAll(result.keySet());
+        if (missing.isEmpty()) {
+            return result;
+        }
+        long invalidations = clientInvalidations.get();
+        long loadedAfter = voitureInvalidations.get();
+        for (Map.Entry<Long, List<Voiture>> loaded : loader.apply(missing).entrySet()) {
+            ClientVoitures voitures = new ClientVoitures(loadedAfter, null, List.copyOf(loaded.getValue()));
+            // Même verrou que invalidateClient() : l'invalidation a lieu avant (rien n'est inséré) ou après (supprimée)
+            byClientId.asMap().compute(loaded.getKey(), (clientId, cached) -> cached != null && !isStale(cached)
+                    ? cached
+                    : clientInvalidations.get() == invalidations ? voitures : null);
+            result.put(loaded.getKey(), voitures.voitures());
+        }
+        return result;
+    }
+
+    /**
+     * Invalide l'entrée d'une voiture, et les listes en cache qui la contiennent (à leur prochaine lecture)
+     * 
+     * @param id L'identifiant de la voiture modifiée ou supprimée
+     */
+    public void invalidateVoiture(Long id) {
+        if (id != null) {
+            if (trackInvalidations) {
+                recentlyInvalidatedIds.put(id, Boolean.TRUE);
+            }
+            invalidatedVoitures.asMap().merge(id, voitureInvalidations.incrementAndGet(), Math::max);
+            byId.invalidate(id);
+        }
+    }
+
+    /**
+     * Invalide la liste des voitures d'un client
+     * 
+     * @param clientId L'identifiant du client dont la liste a changé
+     */
+    public void invalidateClient(Long clientId) {
+        if (clientId != null) {
+            if (trackInvalidations) {
+                recentlyInvalidatedClientIds.put(clientId, Boolean.TRUE);
+            }
+            byClientId.asMap().compute(clientId, (key, voitures) -> {
+                clientInvalidations.incrementAndGet();
+                return null;
+            });
+        }
+    }
+
+    /**
+     * @param id L'identifiant d'une voiture
+     * @return true si la voiture a été invalidée il y a moins de freshReadWindow
+     */
+    public boolean isRecentlyInvalidatedVoiture(Long id) {
+        return id != null && recentlyInvalidatedIds.getIfPresent(id) != null;
+    }
+
+    /**
+     * @param clientId L'identifiant d'un client
+     * @return true si la liste des voitures du client a été invalidée il y a moins de freshReadWindow
+     */
+    public boolean isRecentlyInvalidatedClient(Long clientId) {
+        return clientId != null && recentlyInvalidatedClientIds.getIfPresent(clientId) != null;
+    }
+
+    /**
+     * Une liste est périmée si l'une de ses voitures a été invalidée après le début de son chargement
+     */
+    private boolean isStale(ClientVoitures cached) {
+        for (Voiture voiture : cached.voitures()) {
+            Long invalidation = invalidatedVoitures.getIfPresent(voiture.getId());
+            if (invalidation != null && invalidation > cached.loadedAfter()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Liste en cache des voitures d'un client, avec le numéro de la dernière invalidation de voiture
+     * antérieure à son chargement et la version de la liste (null si chargée par getByClientIds)
+     */
+    private record ClientVoitures(long loadedAfter, Long fleetVersion, List<Voiture> voitures) {
+    }
+}
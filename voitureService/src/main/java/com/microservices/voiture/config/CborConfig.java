@@ -0,0 +1,31 @@
+package com.microservices.voiture.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encodage binaire CBOR (RFC 8949) des réponses et des requêtes
+ * 
+ * Négocié avec l'en-tête Accept (ou Content-Type pour un body) : application/cbor.
+ * Sans préférence de l'appelant, ou avec Accept: application/json, les réponses restent en JSON.
+ * CBOR encode les nombres en binaire et les chaînes précédées de leur longueur (ni guillemets
+ * ni échappement) : les listes sont plus petites et plus rapides à produire et à lire qu'en JSON.
+ * Les noms de champs restent répétés à chaque objet ; la compression gzip du Gateway les absorbe.
+ * 
+ * Spring MVC ajoute déjà un convertisseur CBOR quand jackson-dataformat-cbor est présent, mais
+ * avec un ObjectMapper par défaut ; celui-ci le remplace avec la configuration Jackson de
+ * Spring Boot (spring.jackson.*, modules), la même que pour le JSON.
+ */
+@Configuration
+@Profile("!reactive") // Spring MVC uniquement (le profil "reactive" utilise les codecs WebFlux)
+public class CborConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,23 @@
+package com.microservices.voiture.config;
+
+import com.microservices.voiture.repository.ReactiveVoitureRepository;
+import com.microservices.voiture.repository.VoitureRepository;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Activation des repositories JPA (hors profil "reactive")
+ * 
+ * Le repository R2DBC est dans le même package : il est exclu explicitement,
+ * sinon Spring Data JPA refuse de démarrer ("Reactive Repositories are not supported by JPA").
+ */
+@Configuration
+@Profile("!reactive")
+@EnableJpaRepositories(
+        basePackageClasses = VoitureRepository.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ReactiveVoitureRepository.class))
+public class JpaRepositoriesConfig {
+}
@@ -0,0 +1,58 @@
+package com.microservices.voiture.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.SpringProperties;
+
+/**
+ * Exécution d'entraînement de l'archive CDS (profil Maven fast-startup, Dockerfile)
+ * 
+ * Lancée avec -Dspring.context.exit=onRefresh et -XX:ArchiveClassesAtExit=..., l'application
+ * s'arrête dès la fin du refresh du contexte (serveur web démarré, avant les ApplicationRunner
+ * et ApplicationReadyEvent) : la JVM enregistre alors les classes chargées par le démarrage.
+ * Spring Framework 6.1 gère lui-même cette propriété ; cette classe la reproduit en 6.0.
+ * 
+ * L'entraînement s'exécute sans base ni Consul (construction de l'image) : les migrations Flyway
+ * ne sont pas appliquées, et StartupTrainingEnvironment désactive les accès d'Hibernate
+ * à la base et l'enregistrement dans Consul.
+ */
+@Slf4j
+@Configuration
+public class StartupTrainingConfig {
+
+    static final String EXIT_PROPERTY = "spring.context.exit";
+
+    /**
+     * @return true pendant une exécution d'entraînement (-Dspring.context.exit=onRefresh)
+     */
+    static boolean isTrainingRun() {
+        return "onRefresh".equals(SpringProperties.getProperty(EXIT_PROPERTY));
+    }
+
+    /**
+     * Applique les migrations au démarrage, sauf pendant l'entraînement (aucune base accessible)
+     */
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy() {
+        return flyway -> {
+            if (isTrainingRun()) {
+                log.info("Exécution d'entraînement : migrations Flyway non appliquées");
+                return;
+            }
+            flyway.migrate();
+        };
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void exitAfterTraining() {
+        if (isTrainingRun()) {
+            log.info("Exécution d'entraînement terminée ({}=onRefresh) : arrêt de la JVM", EXIT_PROPERTY);
+            // halt et non System.exit : le hook d'arrêt de Spring attendrait la fin du refresh en cours
+            Runtime.getRuntime().halt(0);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.microservices.voiture.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Mode d'exécution "virtual threads" (Java 21)
+ * 
+ * Activé par voiture.virtual-threads.enabled=true : chaque requête HTTP (et chaque réponse
+ * asynchrone, ex. le streaming NDJSON) s'exécute sur un thread virtuel au lieu du pool
+ * de threads plateforme de Tomcat. Un appel JDBC bloquant ne mobilise plus un thread système.
+ * 
+ * Le nombre d'accès simultanés à la base reste limité par DatabaseBulkhead.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "voiture.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadsConfig implements WebMvcConfigurer {
+
+    /**
+     * Remplace l'exécuteur des requêtes Tomcat par un thread virtuel par requête
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory()));
+    }
+
+    /**
+     * Exécute aussi les traitements asynchrones de Spring MVC (StreamingResponseBody) sur des threads virtuels
+     */
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("mvc-async-vt-", 0).factory())));
+    }
+}
@@ -0,0 +1,94 @@
+package com.microservices.voiture.controller;
+
+import com.microservices.voiture.exception.ClientReplicaNotReadyException;
+import com.microservices.database.DatabaseOverloadedException;
+import com.microservices.voiture.exception.ImportConflictException;
+import com.microservices.voiture.exception.InvalidImportException;
+import com.microservices.voiture.exception.InvalidPatchException;
+import com.microservices.voiture.exception.InvalidQueryException;
+import com.microservices.voiture.exception.UnknownClientException;
+import com.microservices.voiture.exception.VersionConflictException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Traduction des exceptions en réponses HTTP pour tous les contrôleurs
+ * 
+ * @RestControllerAdvice : les méthodes @ExceptionHandler s'appliquent à tous les @RestController
+ * (l'exception est aussi reconnue lorsqu'elle est la cause d'une autre, ex. CannotCreateTransactionException)
+ */
+@RestControllerAdvice
+public class ControllerExceptionHandler {
+
+    /**
+     * Base saturée : 503 avec Retry-After (en secondes) pour que le client réessaie plus tard
+     */
+    @ExceptionHandler(DatabaseOverloadedException.class)
+    public ResponseEntity<String> handleDatabaseOverloaded(DatabaseOverloadedException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(e.getMessage());
+    }
+
+    /**
+     * Réplique des clients pas encore à jour (démarrage) : 503, la vérification sera possible sous peu
+     */
+    @ExceptionHandler(ClientReplicaNotReadyException.class)
+    public ResponseEntity<String> handleClientReplicaNotReady(ClientReplicaNotReadyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
+
+    /**
+     * Corps de PATCH invalide : 400 avec la raison
+     */
+    @ExceptionHandler(InvalidPatchException.class)
+    public ResponseEntity<String> handleInvalidPatch(InvalidPatchException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * Paramètres d'analyse invalides : 400 avec la raison
+     */
+    @ExceptionHandler(InvalidQueryException.class)
+    public ResponseEntity<String> handleInvalidQuery(InvalidQueryException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * Import impossible à commencer ou à poursuivre (en-tête, fichier différent, enregistrement trop long) : 400
+     */
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<String> handleInvalidImport(InvalidImportException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * Import avancé par un autre envoi du même fichier : 409, cet envoi est arrêté
+     */
+    @ExceptionHandler(ImportConflictException.class)
+    public ResponseEntity<String> handleImportConflict(ImportConflictException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    /**
+     * Client inconnu : 422, la requête est bien formée mais référence un client qui n'existe pas
+     */
+    @ExceptionHandler(UnknownClientException.class)
+    public ResponseEntity<String> handleUnknownClient(UnknownClientException e) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(e.getMessage());
+    }
+
+    /**
+     * Version attendue (If-Match) périmée : 412, l'appelant doit relire l'enregistrement
+     */
+    @ExceptionHandler(VersionConflictException.class)
+    public ResponseEntity<String> handleVersionConflict(VersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+    }
+}
@@ -0,0 +1,199 @@
+package com.microservices.voiture.controller;
+
+import com.microservices.database.ETags;
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoiturePage;
+import com.microservices.voiture.service.ReactiveVoitureService;
+import com.microservices.voiture.service.VoitureService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contrôleur REST réactif (WebFlux) pour les voitures, activé par le profil "reactive"
+ * 
+ * Expose exactement la même API que VoitureController (mêmes chemins, mêmes codes HTTP,
+ * même JSON), mais chaque méthode retourne un Mono/Flux au lieu de bloquer un thread.
+ */
+@RestController
+@RequestMapping("/api/voitures")
+@Profile("reactive")
+public class ReactiveVoitureController {
+
+    /**
+     * Injection du service réactif
+     */
+    @Autowired
+    private ReactiveVoitureService reactiveVoitureService;
+
+    /**
+     * Récupère toutes les voitures
+     * 
+     * GET /api/voitures
+     * 
+     * @return Toutes les voitures (tableau JSON écrit au fil de la lecture)
+     */
+    @GetMapping
+    public Flux<Voiture> getAllVoitures() {
+        return reactiveVoitureService.getAllVoitures();
+    }
+
+    /**
+     * Récupère une page de voitures (pagination par curseur)
+     * 
+     * GET /api/voitures?limit=N&after=<id>
+     * 
+     * @param after Le curseur renvoyé par la page précédente (absent pour la première page)
+     * @param limit Le nombre de voitures par page
+     * @return La page de voitures et le curseur suivant
+     */
+    @GetMapping(params = "limit")
+    public Mono<VoiturePage> getVoituresPage(@RequestParam(required = false) Long after,
+                                             @RequestParam int limit) {
+        return reactiveVoitureService.getVoituresPage(after, limit);
+    }
+
+    /**
+     * Récupère les voitures de plusieurs clients en un seul appel
+     * 
+     * GET /api/voitures?clientIds=1,2,3
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les voitures groupées par ID client
+     */
+    @GetMapping(params = "clientIds")
+    public Mono<Map<Long, List<Voiture>>> getVoituresByClientIds(@RequestParam List<Long> clientIds) {
+        return reactiveVoitureService.getVoituresByClientIds(clientIds);
+    }
+
+    /**
+     * Diffuse toutes les voitures en NDJSON
+     * 
+     * GET /api/voitures avec l'en-tête Accept: application/x-ndjson
+     * 
+     * @return Le flux NDJSON (une voiture par ligne, avec contre-pression sur la lecture en base)
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Voiture> streamVoitures() {
+        return reactiveVoitureService.getAllVoitures();
+    }
+
+    /**
+     * Récupère une voiture par son ID (ETag + 304 comme VoitureController)
+     * 
+     * GET /api/voitures/{id}
+     * 
+     * @param id L'identifiant de la voiture
+     * @param ifNoneMatch Les ETags déjà connus par l'appelant (optionnel)
+     * @return La voiture trouvée, 304 si elle n'a pas changé ou 404 si non trouvée
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Voiture>> getVoitureById(@PathVariable Long id,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<Voiture>> full = reactiveVoitureService.getVoitureById(id)
+                .map(voiture -> ResponseEntity.ok().eTag(ETags.of("v" + voiture.getVersion())).body(voiture))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+        if (ifNoneMatch == null) {
+            return full;
+        }
+        return reactiveVoitureService.getVoitureVersion(id)
+                .flatMap(version -> {
+                    String etag = ETags.of("v" + version);
+                    return ETags.matches(ifNoneMatch, etag)
+                            ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<Voiture>build())
+                            : full;
+                })
+                .switchIfEmpty(Mono.just(ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * Récupère toutes les voitures d'un client (ETag + 304 comme VoitureController)
+     * 
+     * GET /api/voitures/client/{clientId}
+     * 
+     * @param clientId L'identifiant du client
+     * @param ifNoneMatch Les ETags déjà connus par l'appelant (optionnel)
+     * @return Liste des voitures du client ou 304 si elle n'a pas changé
+     */
+    @GetMapping("/client/{clientId}")
+    public Mono<ResponseEntity<List<Voiture>>> getVoituresByClientId(@PathVariable Long clientId,
+                                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Version lue avant les voitures : l'ETag d'une réponse complète n'est jamais plus récent que la liste
+        return reactiveVoitureService.getFleetVersion(clientId)
+                .flatMap(version -> {
+                    String etag = ETags.of("l" + version);
+                    return ifNoneMatch != null && ETags.matches(ifNoneMatch, etag)
+                            ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).<List<Voiture>>build())
+                            : reactiveVoitureService.getVoituresByClientId(clientId)
+                                    .collectList()
+                                    .map(voitures -> ResponseEntity.ok().eTag(etag).body(voitures));
+                });
+    }
+
+    /**
+     * Crée une nouvelle voiture
+     * 
+     * POST /api/voitures
+     * 
+     * @param voiture La voiture à créer (reçue en JSON dans le body)
+     * @return La voiture créée avec le statut 201 (Created)
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Voiture>> createVoiture(@RequestBody Voiture voiture) {
+        return reactiveVoitureService.createVoiture(voiture)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+    }
+
+    /**
+     * Met à jour une voiture existante
+     * 
+     * PUT /api/voitures/{id}
+     * 
+     * @param id L'identifiant de la voiture à mettre à jour
+     * @param voiture Les nouvelles données de la voiture
+     * @return La voiture mise à jour ou 404 si non trouvée
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Voiture>> updateVoiture(@PathVariable Long id, @RequestBody Voiture voiture) {
+        return reactiveVoitureService.updateVoiture(id, voiture)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Supprime une voiture
+     * 
+     * DELETE /api/voitures/{id}
+     * 
+     * @param id L'identifiant de la voiture à supprimer
+     * @return 204 (No Content) si supprimée, 404 si non trouvée
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteVoiture(@PathVariable Long id) {
+        return reactiveVoitureService.deleteVoiture(id)
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * Endpoint de santé pour vérifier que le service est actif
+     * 
+     * GET /api/voitures/health
+     * 
+     * @return Message de confirmation
+     */
+    @GetMapping("/health")
+    public Mono<ResponseEntity<String>> health() {
+        return Mono.just(ResponseEntity.ok("Voiture Service is running!"));
+    }
+}
@@ -1,13 +1,42 @@
 package com.microservices.voiture.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.microservices.database.ETags;
+import com.microservices.voiture.model.ClientFleet;
+import com.microservices.voiture.model.FleetSummary;
+import com.microservices.voiture.model.FleetSummaryRebuild;
+import com.microservices.voiture.model.PrixStatistics;
 import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoitureImport;
+import com.microservices.voiture.model.VoitureImportRejection;
+import com.microservices.voiture.model.VoiturePage;
+import com.microservices.voiture.model.VoitureSuggestion;
 import com.microservices.voiture.service.VoitureService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Contrôleur REST pour gérer les opérations sur les voitures
@@ -19,6 +48,7 @@ import java.util.List;
  */
 @RestController
 @RequestMapping("/api/voitures")
+@Profile("!reactive") // Remplacé par ReactiveVoitureController avec le profil "reactive"
 public class VoitureController {
 
     /**
@@ -28,11 +58,40 @@ public class VoitureController {
     @Autowired
     private VoitureService voitureService;
 
+    /**
+     * ObjectMapper configuré par Spring Boot (utilisé pour le streaming NDJSON)
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Type de contenu NDJSON : un objet JSON par ligne
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    /**
+     * Type de contenu CSV accepté par l'import en masse
+     */
+    public static final String TEXT_CSV_VALUE = "text/csv";
+
+    /**
+     * Type de contenu JSON Merge Patch (RFC 7396) accepté par PATCH, en plus de application/json
+     */
+    public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    /**
+     * Nombre de lignes écrites entre deux flush de la réponse
+     */
+    private static final int STREAM_FLUSH_EVERY = 500;
+
     /**
      * Récupère toutes les voitures
      * 
      * GET /api/voitures
      * 
+     * En JSON par défaut, en CBOR avec l'en-tête Accept: application/cbor (voir CborConfig),
+     * comme les autres réponses de ce contrôleur hors NDJSON.
+     * 
      * @return Liste de toutes les voitures
      */
     @GetMapping
@@ -41,19 +100,229 @@ public class VoitureController {
         return ResponseEntity.ok(voitures);
     }
 
+    /**
+     * Récupère une page de voitures (pagination par curseur)
+     * 
+     * GET /api/voitures?limit=N&after=<id>
+     * 
+     * @param after Le curseur renvoyé par la page précédente (absent pour la première page)
+     * @param limit Le nombre de voitures par page
+     * @return La page de voitures et le curseur suivant
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<VoiturePage> getVoituresPage(@RequestParam(required = false) Long after,
+                                                       @RequestParam int limit) {
+        return ResponseEntity.ok(voitureService.getVoituresPage(after, limit));
+    }
+
+    /**
+     * Récupère les voitures de plusieurs clients en un seul appel
+     * 
+     * GET /api/voitures?clientIds=1,2,3
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les voitures groupées par ID client (liste vide pour un client sans voiture)
+     */
+    @GetMapping(params = "clientIds")
+    public ResponseEntity<Map<Long, List<Voiture>>> getVoituresByClientIds(@RequestParam List<Long> clientIds) {
+        return ResponseEntity.ok(voitureService.getVoituresByClientIds(clientIds));
+    }
+
+    /**
+     * Recherche par préfixe (autocomplétion) sur l'immatriculation, la marque et le modèle
+     * 
+     * GET /api/voitures/search?q=AB-12&limit=10
+     * 
+     * Servie par un index mémoire, sans requête en base.
+     * 
+     * @param q Le texte saisi ; chaque mot doit être le début d'un des champs
+     * @param limit Le nombre maximal de résultats (10 par défaut)
+     * @return Les voitures trouvées, les plus pertinentes d'abord
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<VoitureSuggestion>> searchVoitures(@RequestParam String q,
+                                                                  @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(voitureService.searchVoitures(q, limit));
+    }
+
+    /**
+     * Statistiques de prix par groupe, calculées en mémoire (aucune requête en base)
+     * 
+     * GET /api/voitures/analytics/prix?groupBy=marque,couleur&percentiles=50,95&marque=Renault
+     * 
+     * @param groupBy Champs de regroupement (marque, modele, couleur), aucun pour un seul groupe
+     * @param percentiles Centiles demandés (50 et 95 par défaut)
+     * @param marque Filtre sur la marque (optionnel)
+     * @param modele Filtre sur le modèle (optionnel)
+     * @param couleur Filtre sur la couleur (optionnel)
+     * @return Les statistiques par groupe, 400 si un paramètre est invalide,
+     *         503 tant que la copie en mémoire n'est pas construite (démarrage)
+     */
+    @GetMapping("/analytics/prix")
+    public ResponseEntity<PrixStatistics> getPrixStatistics(@RequestParam(required = false) List<String> groupBy,
+                                                            @RequestParam(defaultValue = "50,95") List<Double> percentiles,
+                                                            @RequestParam(required = false) String marque,
+                                                            @RequestParam(required = false) String modele,
+                                                            @RequestParam(required = false) String couleur) {
+        Map<String, String> filters = new LinkedHashMap<>();
+        if (marque != null) {
+            filters.put("marque", marque);
+        }
+        if (modele != null) {
+            filters.put("modele", modele);
+        }
+        if (couleur != null) {
+            filters.put("couleur", couleur);
+        }
+        PrixStatistics statistics = voitureService.getPrixStatistics(groupBy != null ? groupBy : List.of(), percentiles, filters);
+        if (statistics == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+        return ResponseEntity.ok(statistics);
+    }
+
+    /**
+     * Reconstruit depuis la base la copie en mémoire utilisée par /analytics/prix
+     * 
+     * POST /api/voitures/analytics/rebuild
+     * 
+     * @return 204 une fois la copie remplacée, 503 si la table n'a pas pu être lue
+     */
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<Void> rebuildPrixStatistics() {
+        if (voitureService.rebuildPrixStatistics() < 0) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Importe un fichier de voitures (CSV avec en-tête ou NDJSON), lu en streaming
+     * 
+     * PUT /api/voitures/imports/{importId} avec Content-Type text/csv ou application/x-ndjson
+     * (et Content-Encoding: gzip pour un fichier compressé)
+     * 
+     * Les voitures sont insérées par tranches validées une à une : après une interruption,
+     * renvoyer le même fichier avec le même importId reprend après la dernière tranche validée.
+     * L'avancement est consultable pendant l'import par GET /api/voitures/imports/{importId}.
+     * 
+     * @param importId Identifiant de l'import choisi par l'appelant (lettres, chiffres, '.', '_', '-')
+     * @param request La requête, dont le corps est le fichier
+     * @return 200 avec l'avancement final, 400 si l'import ne peut pas commencer ou continuer,
+     *         409 si le même import est en cours d'envoi par ailleurs
+     */
+    @PutMapping(value = "/imports/{importId}", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<VoitureImport> importVoitures(@PathVariable String importId, HttpServletRequest request)
+            throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        VoitureImport.Format format = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? VoitureImport.Format.CSV
+                : VoitureImport.Format.NDJSON;
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(request.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            body = new GZIPInputStream(body, 64 * 1024);
+        }
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        try (Reader reader = new InputStreamReader(body, charset)) {
+            return ResponseEntity.ok(voitureService.importVoitures(importId, format, reader));
+        }
+    }
+
+    /**
+     * Récupère l'avancement d'un import (compteurs des tranches validées)
+     * 
+     * GET /api/voitures/imports/{importId}
+     * 
+     * @param importId L'identifiant de l'import
+     * @return L'avancement, 404 si l'import n'existe pas
+     */
+    @GetMapping("/imports/{importId}")
+    public ResponseEntity<VoitureImport> getImport(@PathVariable String importId) {
+        VoitureImport voitureImport = voitureService.getImport(importId);
+        if (voitureImport == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(voitureImport);
+    }
+
+    /**
+     * Récupère les enregistrements rejetés d'un import, par pages
+     * 
+     * GET /api/voitures/imports/{importId}/rejections?after=0&limit=1000
+     * 
+     * @param importId L'identifiant de l'import
+     * @param after Le dernier numéro d'enregistrement de la page précédente (0 pour la première page)
+     * @param limit Le nombre de rejets souhaité (borné à MAX_PAGE_SIZE)
+     * @return Les rejets (numéro d'enregistrement, raison, contenu), 404 si l'import n'existe pas
+     */
+    @GetMapping("/imports/{importId}/rejections")
+    public ResponseEntity<List<VoitureImportRejection>> getImportRejections(@PathVariable String importId,
+                                                                           @RequestParam(defaultValue = "0") long after,
+                                                                           @RequestParam(defaultValue = "1000") int limit) {
+        if (voitureService.getImport(importId) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(voitureService.getImportRejections(importId, after, limit));
+    }
+
+    /**
+     * Diffuse toutes les voitures en NDJSON, au fur et à mesure de la lecture en base
+     * 
+     * GET /api/voitures avec l'en-tête Accept: application/x-ndjson
+     * 
+     * @return Le flux NDJSON (une voiture par ligne)
+     */
+    @GetMapping(produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamVoitures() {
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // Les voitures sont séparées par '\n' (et non par l'espace par défaut de Jackson)
+                generator.setRootValueSeparator(null);
+                int[] count = {0};
+                voitureService.streamVoitures(voiture -> {
+                    try {
+                        writer.writeValue(generator, voiture);
+                        generator.writeRaw('\n');
+                        if (++count[0] % STREAM_FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        // Client déconnecté : on interrompt la lecture du curseur
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(body);
+    }
+
     /**
      * Récupère une voiture par son ID
      * 
      * GET /api/voitures/{id}
      * 
+     * La réponse porte un ETag (version de la voiture) ; avec If-None-Match,
+     * seule la version est lue en base et la réponse est 304 si elle n'a pas changé.
+     * 
      * @param id L'identifiant de la voiture
-     * @return La voiture trouvée ou 404 si non trouvée
+     * @param ifNoneMatch Les ETags déjà connus par l'appelant (optionnel)
+     * @return La voiture trouvée, 304 si elle n'a pas changé ou 404 si non trouvée
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Voiture> getVoitureById(@PathVariable Long id) {
+    public ResponseEntity<Voiture> getVoitureById(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Long version = voitureService.getVoitureVersion(id);
+            if (version != null && ETags.matches(ifNoneMatch, ETags.of("v" + version))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of("v" + version)).build();
+            }
+        }
         Voiture voiture = voitureService.getVoitureById(id);
         if (voiture != null) {
-            return ResponseEntity.ok(voiture);
+            return ResponseEntity.ok().eTag(ETags.of("v" + voiture.getVersion())).body(voiture);
         }
         return ResponseEntity.notFound().build();
     }
@@ -63,13 +332,67 @@ public class VoitureController {
      * 
      * GET /api/voitures/client/{clientId}
      * 
+     * La réponse porte un ETag (version de la liste, incrémentée à chaque écriture d'une voiture
+     * du client) ; avec If-None-Match, seule la version est lue en base et la réponse est 304 si elle
+     * n'a pas changé. Une réponse complète porte la version lue avec la liste (celle du cache),
+     * jamais une version plus récente que son contenu.
+     * 
      * @param clientId L'identifiant du client
-     * @return Liste des voitures du client
+     * @param ifNoneMatch Les ETags déjà connus par l'appelant (optionnel)
+     * @return Liste des voitures du client ou 304 si elle n'a pas changé
      */
     @GetMapping("/client/{clientId}")
-    public ResponseEntity<List<Voiture>> getVoituresByClientId(@PathVariable Long clientId) {
-        List<Voiture> voitures = voitureService.getVoituresByClientId(clientId);
-        return ResponseEntity.ok(voitures);
+    public ResponseEntity<List<Voiture>> getVoituresByClientId(@PathVariable Long clientId,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Long minVersion = null;
+        if (ifNoneMatch != null) {
+            minVersion = voitureService.getFleetVersion(clientId);
+            if (ETags.matches(ifNoneMatch, ETags.of("l" + minVersion))) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of("l" + minVersion)).build();
+            }
+        }
+        ClientFleet fleet = voitureService.getFleetByClientId(clientId, minVersion);
+        return ResponseEntity.ok().eTag(ETags.of("l" + fleet.version())).body(fleet.voitures());
+    }
+
+    /**
+     * Récupère le résumé du parc d'un client : nombre de voitures, prix total et moyen, détail par marque
+     * 
+     * GET /api/voitures/client/{clientId}/summary
+     * 
+     * Lu dans les résumés précalculés, sans charger les voitures du client.
+     * 
+     * @param clientId L'identifiant du client
+     * @return Le résumé (0 voiture si le client n'en a aucune)
+     */
+    @GetMapping("/client/{clientId}/summary")
+    public ResponseEntity<FleetSummary> getFleetSummary(@PathVariable Long clientId) {
+        return ResponseEntity.ok(voitureService.getFleetSummary(clientId));
+    }
+
+    /**
+     * Récupère les résumés du parc de plusieurs clients en une seule requête
+     * 
+     * GET /api/voitures/summaries?clientIds=1,2,3
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les résumés par ID client
+     */
+    @GetMapping(value = "/summaries", params = "clientIds")
+    public ResponseEntity<Map<Long, FleetSummary>> getFleetSummaries(@RequestParam List<Long> clientIds) {
+        return ResponseEntity.ok(voitureService.getFleetSummaries(clientIds));
+    }
+
+    /**
+     * Réconcilie les résumés de parc avec la table voitures (recalcul des clients qui diffèrent)
+     * 
+     * POST /api/voitures/summaries/rebuild
+     * 
+     * @return Le nombre de clients comparés et corrigés
+     */
+    @PostMapping("/summaries/rebuild")
+    public ResponseEntity<FleetSummaryRebuild> rebuildFleetSummaries() {
+        return ResponseEntity.ok(voitureService.rebuildFleetSummaries());
     }
 
     /**
@@ -105,16 +428,53 @@ public class VoitureController {
     }
 
     /**
-     * Supprime une voiture
+     * Modifie uniquement les champs fournis d'une voiture (une seule requête UPDATE)
+     * 
+     * PATCH /api/voitures/{id} avec par ex. {"couleur": "Rouge", "prix": 15000}
+     * 
+     * Un champ à null est effacé (s'il est facultatif). Avec If-Match: "v<version>",
+     * la modification n'a lieu que si la voiture a encore cette version (sinon 412),
+     * et la réponse porte le nouvel ETag.
+     * 
+     * @param id L'identifiant de la voiture
+     * @param changes Les champs à modifier
+     * @param ifMatch L'ETag de la version attendue (optionnel)
+     * @return 204 (No Content) si modifiée, 404 si non trouvée, 400 si un champ est invalide,
+     *         409 si l'immatriculation est déjà utilisée
+     */
+    @PatchMapping(value = "/{id}", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_MERGE_PATCH_JSON_VALUE})
+    public ResponseEntity<Void> patchVoiture(@PathVariable Long id, @RequestBody Map<String, Object> changes,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETags.version(ifMatch, "v");
+        boolean patched;
+        try {
+            patched = voitureService.patchVoiture(id, changes, expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        if (patched) {
+            return expectedVersion != null
+                    ? ResponseEntity.noContent().eTag(ETags.of("v" + (expectedVersion + 1))).build()
+                    : ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Supprime une voiture (une seule requête DELETE)
      * 
      * DELETE /api/voitures/{id}
      * 
+     * Avec If-Match: "v<version>", la suppression n'a lieu que si la voiture a encore cette version (sinon 412).
+     * 
      * @param id L'identifiant de la voiture à supprimer
+     * @param ifMatch L'ETag de la version attendue (optionnel)
      * @return 204 (No Content) si supprimée, 404 si non trouvée
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteVoiture(@PathVariable Long id) {
-        boolean deleted = voitureService.deleteVoiture(id);
+    public ResponseEntity<Void> deleteVoiture(@PathVariable Long id,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        boolean deleted = voitureService.deleteVoiture(id, ETags.version(ifMatch, "v"));
         if (deleted) {
             return ResponseEntity.noContent().build();
         }
@@ -0,0 +1,13 @@
+package com.microservices.voiture.exception;
+
+/**
+ * Levée quand un clientId ne peut pas encore être vérifié : la réplique des clients n'a pas
+ * terminé son premier rattrapage du journal
+ * Traduite en 503 Service Unavailable avec l'en-tête Retry-After
+ */
+public class ClientReplicaNotReadyException extends RuntimeException {
+
+    public ClientReplicaNotReadyException(String message) {
+        super(message);
+    }
+}
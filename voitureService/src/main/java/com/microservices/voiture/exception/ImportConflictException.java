@@ -0,0 +1,13 @@
+package com.microservices.voiture.exception;
+
+/**
+ * Levée quand un autre envoi du même import a validé une tranche entre-temps
+ * (deux envois simultanés du même fichier) : la tranche en cours est annulée
+ * Traduite en 409 Conflict
+ */
+public class ImportConflictException extends RuntimeException {
+
+    public ImportConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.microservices.voiture.exception;
+
+/**
+ * Levée quand un import en masse ne peut pas commencer ou continuer : identifiant invalide,
+ * en-tête CSV sans colonne obligatoire, fichier différent de celui d'un import commencé,
+ * enregistrement trop long
+ * Traduite en 400 Bad Request
+ */
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.microservices.voiture.exception;
+
+/**
+ * Levée quand le corps d'un PATCH est invalide (champ inconnu ou non modifiable, type incorrect,
+ * null sur un champ obligatoire)
+ * Traduite en 400 Bad Request
+ */
+public class InvalidPatchException extends RuntimeException {
+
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.microservices.voiture.exception;
+
+/**
+ * Levée quand les paramètres d'une requête d'analyse sont invalides (champ de regroupement inconnu,
+ * centile hors de [0, 100], trop de groupes)
+ * Traduite en 400 Bad Request
+ */
+public class InvalidQueryException extends RuntimeException {
+
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+}
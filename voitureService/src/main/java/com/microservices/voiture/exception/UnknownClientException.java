@@ -0,0 +1,12 @@
+package com.microservices.voiture.exception;
+
+/**
+ * Levée quand une voiture est rattachée à un client inexistant (d'après la réplique des clients)
+ * Traduite en 422 Unprocessable Entity
+ */
+public class UnknownClientException extends RuntimeException {
+
+    public UnknownClientException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.microservices.voiture.exception;
+
+/**
+ * Levée quand la version indiquée par If-Match n'est plus celle de l'enregistrement
+ * (il a été modifié entre-temps)
+ * Traduite en 412 Precondition Failed
+ */
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.microservices.voiture.model;
+
+import java.util.List;
+
+/**
+ * Voitures d'un client avec la version de leur liste (voiture_client_versions)
+ * 
+ * La version est lue dans la même transaction que les voitures : elle ne peut pas être
+ * plus récente qu'elles, un ETag construit dessus ne masque donc aucune écriture.
+ * 
+ * @param version La version de la liste (0 si aucune voiture du client n'a jamais été écrite)
+ * @param voitures Les voitures du client (liste non modifiable)
+ */
+public record ClientFleet(long version, List<Voiture> voitures) {
+}
@@ -0,0 +1,54 @@
+package com.microservices.voiture.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Résumé du parc d'un client (GET /api/voitures/client/{clientId}/summary)
+ * 
+ * Lu dans la table voiture_client_summaries, tenue à jour à chaque écriture :
+ * le coût de la lecture ne dépend pas du nombre de voitures du client.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetSummary {
+
+    private Long clientId;
+
+    private long voitureCount;
+
+    /**
+     * Somme des prix (chaque prix arrondi au centime)
+     */
+    private BigDecimal prixTotal;
+
+    /**
+     * Prix moyen (null si le client n'a aucune voiture)
+     */
+    private BigDecimal prixMoyen;
+
+    /**
+     * Détail par marque, trié par marque
+     */
+    private Map<String, MarqueSummary> marques;
+
+    /**
+     * Voitures d'une marque dans le parc d'un client
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MarqueSummary {
+
+        private long voitureCount;
+
+        private BigDecimal prixTotal;
+
+        private BigDecimal prixMoyen;
+    }
+}
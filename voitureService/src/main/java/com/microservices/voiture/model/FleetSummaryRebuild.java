@@ -0,0 +1,26 @@
+package com.microservices.voiture.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat de la réconciliation des résumés de parc (POST /api/voitures/summaries/rebuild)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FleetSummaryRebuild {
+
+    /**
+     * Clients comparés (présents dans la table voitures ou dans les résumés)
+     */
+    private long clientsChecked;
+
+    /**
+     * Clients dont le résumé différait des voitures et a été recalculé
+     */
+    private long clientsCorrected;
+
+    private long durationMillis;
+}
@@ -0,0 +1,66 @@
+package com.microservices.voiture.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Statistiques de prix par groupe (GET /api/voitures/analytics/prix)
+ * 
+ * Calculées sur la copie en colonnes des voitures tenue en mémoire (VoitureAnalytics), sans requête en base.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrixStatistics {
+
+    /**
+     * Champs de regroupement demandés (marque, modele, couleur), vide pour un seul groupe
+     */
+    private List<String> groupBy;
+
+    /**
+     * Nombre de voitures retenues (après filtres)
+     */
+    private long voitureCount;
+
+    /**
+     * Durée du calcul
+     */
+    private long durationMicros;
+
+    /**
+     * Groupes non vides, du plus grand au plus petit
+     */
+    private List<Group> groups;
+
+    /**
+     * Statistiques d'un groupe
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Group {
+
+        /**
+         * Valeur de chaque champ de regroupement (null si le champ n'est pas renseigné)
+         */
+        private Map<String, String> key;
+
+        private long count;
+
+        private double min;
+
+        private double max;
+
+        private double moyenne;
+
+        /**
+         * Centiles demandés ("p50", "p95"...), méthode du rang le plus proche
+         */
+        private Map<String, Double> percentiles;
+    }
+}
@@ -10,9 +10,15 @@ import lombok.NoArgsConstructor;
  * 
  * @Entity : Indique que cette classe est une entité JPA
  * @Table : Spécifie le nom de la table dans la base de données
+ * 
+ * Les annotations Spring Data (org.springframework.data.*) décrivent la même table
+ * pour la variante réactive R2DBC (profil "reactive") ; Hibernate les ignore.
+ * La version y est gérée par ReactiveVoitureService (Spring Data JPA refuse
+ * l'annotation @Version de Spring Data sur une entité JPA).
  */
 @Entity
 @Table(name = "voitures")
+@org.springframework.data.relational.core.mapping.Table("voitures")
 @Data // Lombok : génère automatiquement getters, setters, toString, equals, hashCode
 @NoArgsConstructor // Lombok : génère un constructeur sans arguments
 @AllArgsConstructor // Lombok : génère un constructeur avec tous les arguments
@@ -23,6 +29,7 @@ public class Voiture {
      * @GeneratedValue : La valeur est générée automatiquement par la base de données
      */
     @Id
+    @org.springframework.data.annotation.Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
@@ -59,4 +66,12 @@ public class Voiture {
      * ID du client propriétaire (relation avec le service Client)
      */
     private Long clientId;
+
+    /**
+     * Version de l'enregistrement (verrouillage optimiste), incrémentée à chaque mise à jour
+     * Sert d'ETag pour les GET conditionnels
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
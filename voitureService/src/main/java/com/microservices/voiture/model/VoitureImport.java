@@ -0,0 +1,77 @@
+package com.microservices.voiture.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Avancement d'un import en masse de voitures (PUT /api/voitures/imports/{importId})
+ * 
+ * Les compteurs sont ceux des tranches validées en base : un import interrompu reprend
+ * à l'enregistrement recordCount + 1 quand le même fichier est renvoyé.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoitureImport {
+
+    /**
+     * Format du fichier importé
+     */
+    public enum Format {
+        CSV,   // En-tête (noms des champs) puis une voiture par ligne, séparateur virgule
+        NDJSON // Un objet JSON par ligne
+    }
+
+    /**
+     * Statut de l'import
+     */
+    public enum Status {
+        RUNNING,   // En cours (ou interrompu par l'arrêt du service : renvoyer le fichier pour reprendre)
+        COMPLETED, // Fichier entièrement traité
+        FAILED     // Interrompu par une erreur (voir error) : renvoyer le fichier pour reprendre
+    }
+
+    /**
+     * Identifiant choisi par l'appelant
+     */
+    private String id;
+
+    private Format format;
+
+    /**
+     * En-tête du fichier CSV (null en NDJSON) ; une reprise doit envoyer le même
+     */
+    private String header;
+
+    private Status status;
+
+    /**
+     * Enregistrements traités (importés ou rejetés)
+     */
+    private long recordCount;
+
+    /**
+     * Voitures insérées
+     */
+    private long importedCount;
+
+    /**
+     * Enregistrements rejetés (voir GET /api/voitures/imports/{importId}/rejections)
+     */
+    private long rejectedCount;
+
+    /**
+     * Cause de l'échec (uniquement si FAILED)
+     */
+    private String error;
+
+    private Instant createdAt;
+
+    /**
+     * Date de la dernière tranche validée
+     */
+    private Instant updatedAt;
+}
@@ -0,0 +1,29 @@
+package com.microservices.voiture.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Enregistrement rejeté par un import en masse
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoitureImportRejection {
+
+    /**
+     * Numéro de l'enregistrement dans le fichier (1 pour le premier, en-tête CSV exclu)
+     */
+    private long recordNumber;
+
+    /**
+     * Raison du rejet
+     */
+    private String message;
+
+    /**
+     * Enregistrement tel que reçu (tronqué à 1024 caractères)
+     */
+    private String content;
+}
@@ -0,0 +1,29 @@
+package com.microservices.voiture.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page de voitures pour la pagination par curseur (keyset pagination)
+ * 
+ * Au lieu d'un OFFSET (qui oblige la base à relire toutes les lignes précédentes),
+ * le client renvoie le dernier ID reçu via ?after=<nextCursor> pour obtenir la page suivante.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoiturePage {
+
+    /**
+     * Voitures de la page, triées par ID croissant
+     */
+    private List<Voiture> content;
+
+    /**
+     * Curseur à passer dans ?after= pour la page suivante (null s'il n'y a plus de page)
+     */
+    private Long nextCursor;
+}
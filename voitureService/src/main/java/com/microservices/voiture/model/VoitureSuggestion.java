@@ -0,0 +1,25 @@
+package com.microservices.voiture.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat de la recherche par préfixe (GET /api/voitures/search)
+ * 
+ * Seuls les champs affichés dans une liste d'autocomplétion ; le détail
+ * s'obtient ensuite par GET /api/voitures/{id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VoitureSuggestion {
+
+    private Long id;
+
+    private String immatriculation;
+
+    private String marque;
+
+    private String modele;
+}
@@ -0,0 +1,40 @@
+package com.microservices.voiture.replica;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Réponse de GET /api/clients/changes?since= (service client), limitée aux champs utilisés par ClientReplica
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientChangePage {
+
+    private List<Change> changes;
+
+    private long nextSince;
+
+    /**
+     * Inférieur au since envoyé si le journal a été recréé : la réplique repart de 0
+     */
+    private long lastSeq;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Change {
+
+        private long seq;
+
+        private Long clientId;
+
+        /**
+         * CREATED, UPDATED ou DELETED
+         */
+        private String type;
+    }
+}
@@ -0,0 +1,168 @@
+package com.microservices.voiture.replica;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ensemble d'IDs de clients en mémoire, sous forme de bitmap (un bit par ID)
+ * 
+ * Les IDs de clients sont attribués par AUTO_INCREMENT : ils sont denses à partir de 1,
+ * un million de clients occupe donc 125 Ko et contains() est un accès à un mot de 64 bits,
+ * sans objet Long ni table de hachage. Les IDs au-delà de maxDenseId (ou négatifs) sont
+ * conservés à part dans un ensemble, pour borner la taille du bitmap.
+ * 
+ * Lectures concurrentes sans verrou ; les écritures (add, remove, écriture du checkpoint)
+ * doivent être sérialisées par l'appelant (ClientReplica).
+ */
+public class ClientIdBitmap {
+
+    private static final int INITIAL_WORDS = 1024;
+
+    private final long maxDenseId;
+
+    /**
+     * Remplacé par une copie plus grande quand un ID dépasse sa capacité
+     */
+    private volatile AtomicLongArray words = new AtomicLongArray(INITIAL_WORDS);
+
+    private final Set<Long> overflow = ConcurrentHashMap.newKeySet();
+
+    private volatile long size;
+
+    /**
+     * @param maxDenseId Les IDs de 0 à maxDenseId - 1 sont dans le bitmap, les autres dans un ensemble à part
+     */
+    public ClientIdBitmap(long maxDenseId) {
+        this.maxDenseId = Math.min(maxDenseId, (long) Integer.MAX_VALUE << 6);
+    }
+
+    public boolean contains(long id) {
+        if (id >= 0 && id < maxDenseId) {
+            AtomicLongArray current = words;
+            int index = (int) (id >>> 6);
+            return index < current.length() && (current.get(index) & (1L << id)) != 0;
+        }
+        return overflow.contains(id);
+    }
+
+    /**
+     * @return true si l'ID n'était pas présent
+     */
+    public boolean add(long id) {
+        boolean added;
+        if (id >= 0 && id < maxDenseId) {
+            int index = (int) (id >>> 6);
+            AtomicLongArray current = capacity(index);
+            long word = current.get(index);
+            added = (word & (1L << id)) == 0;
+            current.set(index, word | (1L << id));
+        } else {
+            added = overflow.add(id);
+        }
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    /**
+     * @return true si l'ID était présent
+     */
+    public boolean remove(long id) {
+        boolean removed;
+        if (id >= 0 && id < maxDenseId) {
+            AtomicLongArray current = words;
+            int index = (int) (id >>> 6);
+            if (index >= current.length()) {
+                return false;
+            }
+            long word = current.get(index);
+            removed = (word & (1L << id)) != 0;
+            current.set(index, word & ~(1L << id));
+        } else {
+            removed = overflow.remove(id);
+        }
+        if (removed) {
+            size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Nombre d'IDs présents
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Mémoire occupée par le bitmap (hors ensemble des IDs hors bitmap), en octets
+     */
+    public long bitmapBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    private AtomicLongArray capacity(int index) {
+        AtomicLongArray current = words;
+        if (index < current.length()) {
+            return current;
+        }
+        int length = (int) Math.min(Integer.MAX_VALUE, Math.max(index + 1L, current.length() * 2L));
+        AtomicLongArray grown = new AtomicLongArray(length);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        words = grown;
+        return grown;
+    }
+
+    /**
+     * Écrit le contenu (mots du bitmap jusqu'au dernier non nul, puis IDs hors bitmap)
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        AtomicLongArray current = words;
+        int used = current.length();
+        while (used > 0 && current.get(used - 1) == 0) {
+            used--;
+        }
+        out.writeInt(used);
+        for (int i = 0; i < used; i++) {
+            out.writeLong(current.get(i));
+        }
+        Long[] others = overflow.toArray(new Long[0]);
+        out.writeInt(others.length);
+        for (Long id : others) {
+            out.writeLong(id);
+        }
+    }
+
+    /**
+     * Relit un contenu écrit par writeTo()
+     */
+    public static ClientIdBitmap readFrom(DataInput in, long maxDenseId) throws IOException {
+        ClientIdBitmap bitmap = new ClientIdBitmap(maxDenseId);
+        int used = in.readInt();
+        if (((long) used << 6) > bitmap.maxDenseId + 63) {
+            throw new IOException("Bitmap de " + used + " mots incompatible avec max-dense-id=" + maxDenseId);
+        }
+        if (used > 0) {
+            AtomicLongArray current = bitmap.capacity(used - 1);
+            long count = 0;
+            for (int i = 0; i < used; i++) {
+                long word = in.readLong();
+                current.set(i, word);
+                count += Long.bitCount(word);
+            }
+            bitmap.size = count;
+        }
+        int others = in.readInt();
+        for (int i = 0; i < others; i++) {
+            bitmap.add(in.readLong());
+        }
+        return bitmap;
+    }
+}
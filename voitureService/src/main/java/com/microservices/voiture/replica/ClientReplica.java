@@ -0,0 +1,504 @@
+package com.microservices.voiture.replica;
+
+import com.microservices.voiture.exception.ClientReplicaNotReadyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Réplique locale des IDs des clients existants, pour valider Voiture.clientId sans appel HTTP
+ * 
+ * Alimentée par le journal des changements du service client (GET /api/clients/changes?since=) :
+ * un thread (client-replica) rattrape le journal page par page, puis reste en attente longue
+ * du changement suivant. Les IDs sont dans un ClientIdBitmap (exists() ne fait qu'une lecture mémoire).
+ * 
+ * Le contenu et le dernier numéro lu sont enregistrés dans un checkpoint toutes les checkpoint-interval
+ * (et à l'arrêt) : au redémarrage, seuls les changements postérieurs sont relus.
+ * 
+ * Tant que le premier rattrapage n'est pas terminé, aucun clientId ne peut être vérifié :
+ * exists() et findUnknown() lèvent ClientReplicaNotReadyException (503, l'appelant réessaie),
+ * ou acceptent tous les IDs avec accept-until-ready=true (validation désactivée au démarrage).
+ * 
+ * Un ID absent déclenche une lecture immédiate du journal avant de répondre false : un client créé
+ * juste avant la voiture est accepté même si l'attente longue ne l'a pas encore reçu. Une seule
+ * lecture immédiate est en cours à tout moment, sans verrou pendant l'appel HTTP (borné par
+ * refresh-timeout) ; les appels qui arrivent pendant cette lecture l'attendent, puis en lancent
+ * une nouvelle si elle avait commencé avant eux.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+@ConditionalOnProperty(name = "voiture.client-replica.enabled", havingValue = "true")
+public class ClientReplica {
+
+    private static final int CHECKPOINT_MAGIC = 0x434c4931; // "CLI1"
+
+    @Autowired(required = false)
+    private DiscoveryClient discoveryClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    /**
+     * Nom du service client dans Consul
+     */
+    @Value("${voiture.client-replica.service-id:service-client}")
+    private String serviceId;
+
+    /**
+     * URL fixe du service client (remplace la découverte Consul si renseignée)
+     */
+    @Value("${voiture.client-replica.url:}")
+    private String url;
+
+    /**
+     * Attente longue demandée au service client une fois la réplique à jour
+     */
+    @Value("${voiture.client-replica.wait:30s}")
+    private Duration wait;
+
+    @Value("${voiture.client-replica.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * Les IDs au-delà sont conservés hors du bitmap
+     */
+    @Value("${voiture.client-replica.max-dense-id:268435456}")
+    private long maxDenseId;
+
+    @Value("${voiture.client-replica.checkpoint-file:data/client-replica.bin}")
+    private Path checkpointFile;
+
+    @Value("${voiture.client-replica.checkpoint-interval:10s}")
+    private Duration checkpointInterval;
+
+    /**
+     * Durée maximale d'une lecture immédiate du journal (ID absent)
+     */
+    @Value("${voiture.client-replica.refresh-timeout:2s}")
+    private Duration refreshTimeout;
+
+    /**
+     * true : tous les IDs sont acceptés tant que le premier rattrapage n'est pas terminé ;
+     * false : ils sont refusés en 503 (ClientReplicaNotReadyException)
+     */
+    @Value("${voiture.client-replica.accept-until-ready:false}")
+    private boolean acceptUntilReady;
+
+    /**
+     * Pause après un échec de lecture du journal
+     */
+    @Value("${voiture.client-replica.retry-delay:1s}")
+    private Duration retryDelay;
+
+    /**
+     * Sérialise les écritures de la réplique (thread client-replica et lectures immédiates de exists()) ;
+     * jamais pris pendant un appel HTTP
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Lecture immédiate en cours (au plus une)
+     */
+    private final AtomicReference<Refresh> refreshing = new AtomicReference<>();
+
+    private RestTemplate restTemplate;
+    private RestTemplate refreshTemplate;
+    private volatile ClientIdBitmap ids;
+    private volatile long seq;
+    private volatile boolean ready;
+    private volatile long lastSyncNanos = System.nanoTime();
+    private long checkpointSeq = -1;
+    private long lastCheckpointNanos = System.nanoTime();
+    private Counter errors;
+    private Counter refreshes;
+    private Thread thread;
+
+    /**
+     * Charge le checkpoint puis démarre le thread de lecture du journal, une fois l'application démarrée
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(wait.plusSeconds(10))
+                .build();
+        refreshTemplate = restTemplateBuilder
+                .setConnectTimeout(refreshTimeout)
+                .setReadTimeout(refreshTimeout)
+                .build();
+        ids = new ClientIdBitmap(maxDenseId);
+        loadCheckpoint();
+        Gauge.builder("client.replica.size", () -> ids.size())
+                .description("Nombre de clients dans la réplique").register(meterRegistry);
+        Gauge.builder("client.replica.seq", () -> seq)
+                .description("Dernier numéro du journal des changements appliqué").register(meterRegistry);
+        Gauge.builder("client.replica.staleness", () -> (System.nanoTime() - lastSyncNanos) / 1e9)
+                .description("Secondes depuis la dernière lecture réussie du journal").baseUnit("seconds")
+                .register(meterRegistry);
+        errors = Counter.builder("client.replica.errors")
+                .description("Lectures du journal en échec").register(meterRegistry);
+        refreshes = Counter.builder("client.replica.refreshes")
+                .description("Lectures immédiates du journal après un ID absent").register(meterRegistry);
+        thread = new Thread(this::run, "client-replica");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Arrête le thread (sans attendre la fin d'une attente longue en cours) et écrit le checkpoint
+     */
+    @PreDestroy
+    public void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            writeCheckpoint();
+        }
+    }
+
+    /**
+     * Indique si le client existe
+     * 
+     * @param clientId L'identifiant du client
+     * @return true si le client existe (ou, avec accept-until-ready, si la réplique n'a pas encore rattrapé le journal)
+     * @throws ClientReplicaNotReadyException si la réplique n'a pas encore rattrapé le journal
+     */
+    public boolean exists(long clientId) {
+        if (!ready) {
+            return notReady();
+        }
+        if (ids.contains(clientId)) {
+            return true;
+        }
+        refresh();
+        return ids.contains(clientId);
+    }
+
+    /**
+     * Variante de exists() pour un lot d'IDs (import en masse) : une seule lecture du journal
+     * pour tous les IDs absents, au lieu d'une par ID
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Ceux qui n'existent pas (vide avec accept-until-ready si la réplique n'a pas encore rattrapé le journal)
+     * @throws ClientReplicaNotReadyException si la réplique n'a pas encore rattrapé le journal
+     */
+    public Set<Long> findUnknown(Collection<Long> clientIds) {
+        Set<Long> unknown = new HashSet<>();
+        if (!ready) {
+            notReady();
+            return unknown;
+        }
+        for (Long clientId : clientIds) {
+            if (!ids.contains(clientId)) {
+                unknown.add(clientId);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            refresh();
+            unknown.removeIf(ids::contains);
+        }
+        return unknown;
+    }
+
+    /**
+     * true une fois le premier rattrapage du journal terminé
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Dernier numéro du journal appliqué
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Nombre de clients dans la réplique
+     */
+    public long size() {
+        return ids.size();
+    }
+
+    private boolean notReady() {
+        if (acceptUntilReady) {
+            return true;
+        }
+        throw new ClientReplicaNotReadyException("Réplique des clients en cours de chargement : clientId non vérifiable");
+    }
+
+    /**
+     * Lecture immédiate (sans attente) des changements non encore appliqués
+     * 
+     * Une lecture commencée après l'appel est attendue ; une lecture commencée avant a pu manquer
+     * le client cherché : elle est attendue, puis une nouvelle est lancée (ou rejointe).
+     */
+    private void refresh() {
+        long calledNanos = System.nanoTime();
+        while (true) {
+            Refresh current = refreshing.get();
+            if (current == null) {
+                Refresh started = new Refresh(System.nanoTime());
+                if (refreshing.compareAndSet(null, started)) {
+                    try {
+                        readNow();
+                    } finally {
+                        refreshing.set(null);
+                        started.done().complete(null);
+                    }
+                    return;
+                }
+            } else if (!current.await(refreshTimeout) || current.startedNanos() >= calledNanos) {
+                return;
+            }
+        }
+    }
+
+    private void readNow() {
+        refreshes.increment();
+        long since = seq;
+        try {
+            ClientChangePage page = fetch(refreshTemplate, since, Duration.ZERO);
+            writeLock.lock();
+            try {
+                apply(since, page);
+            } finally {
+                writeLock.unlock();
+            }
+        } catch (RestClientException e) {
+            errors.increment();
+            log.warn("Lecture immédiate du journal des clients impossible : {}", e.getMessage());
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                long since = seq;
+                ClientChangePage page = fetch(restTemplate, since, ready ? wait : Duration.ZERO);
+                boolean caughtUp;
+                writeLock.lock();
+                try {
+                    caughtUp = apply(since, page) && page.getChanges().size() < pageSize;
+                } finally {
+                    writeLock.unlock();
+                }
+                if (caughtUp && !ready) {
+                    ready = true;
+                    log.info("Réplique des clients à jour : {} clients, numéro {}", ids.size(), seq);
+                }
+                if (System.nanoTime() - lastCheckpointNanos >= checkpointInterval.toNanos()) {
+                    writeCheckpoint();
+                }
+            } catch (RestClientException e) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                errors.increment();
+                log.warn("Lecture du journal des clients impossible : {}", e.getMessage());
+                try {
+                    Thread.sleep(retryDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private ClientChangePage fetch(RestTemplate restTemplate, long since, Duration wait) {
+        URI uri = UriComponentsBuilder.fromUri(baseUri())
+                .path("/api/clients/changes")
+                .queryParam("since", since)
+                .queryParam("limit", pageSize)
+                .queryParam("wait", wait.toSeconds())
+                .build().toUri();
+        RequestEntity<Void> request = RequestEntity.get(uri).accept(MediaType.APPLICATION_JSON).build();
+        ClientChangePage page = restTemplate.exchange(request, ClientChangePage.class).getBody();
+        if (page == null || page.getChanges() == null) {
+            throw new RestClientException("Réponse vide de " + uri);
+        }
+        return page;
+    }
+
+    private URI baseUri() {
+        if (!url.isBlank()) {
+            return URI.create(url);
+        }
+        List<ServiceInstance> instances = discoveryClient != null ? discoveryClient.getInstances(serviceId) : List.of();
+        if (instances.isEmpty()) {
+            throw new RestClientException("Aucune instance de " + serviceId);
+        }
+        return instances.get(ThreadLocalRandom.current().nextInt(instances.size())).getUri();
+    }
+
+    /**
+     * Applique une page lue depuis since (appelé avec writeLock)
+     * 
+     * La page a pu être lue hors du verrou pendant qu'une autre était appliquée : ses changements
+     * déjà appliqués (numéro inférieur ou égal à seq) sont ignorés. Un changement validé après
+     * la lecture de seq a toujours un numéro supérieur, les changements ignorés sont donc déjà pris en compte.
+     * 
+     * @return false si la page a été ignorée (réplique reconstruite pendant la lecture) ou si le journal a été recréé
+     */
+    private boolean apply(long since, ClientChangePage page) {
+        if (since > seq) {
+            return false;
+        }
+        lastSyncNanos = System.nanoTime();
+        if (page.getLastSeq() < since) {
+            log.warn("Journal des clients recréé (numéro {} < {}) : reconstruction de la réplique", page.getLastSeq(), since);
+            ready = false;
+            ids = new ClientIdBitmap(maxDenseId);
+            seq = 0;
+            return false;
+        }
+        ClientIdBitmap current = ids;
+        long applied = seq;
+        for (ClientChangePage.Change change : page.getChanges()) {
+            if (change.getSeq() <= applied) {
+                continue;
+            }
+            if ("DELETED".equals(change.getType())) {
+                current.remove(change.getClientId());
+            } else {
+                current.add(change.getClientId());
+            }
+        }
+        seq = Math.max(applied, page.getNextSince());
+        return true;
+    }
+
+    private void loadCheckpoint() {
+        try (InputStream file = Files.newInputStream(checkpointFile)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file), new CRC32());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != CHECKPOINT_MAGIC) {
+                throw new IOException("format inconnu");
+            }
+            long checkpointSeq = in.readLong();
+            ClientIdBitmap checkpointIds = ClientIdBitmap.readFrom(in, maxDenseId);
+            long crc = checked.getChecksum().getValue();
+            if (in.readLong() != crc) {
+                throw new IOException("somme de contrôle incorrecte");
+            }
+            ids = checkpointIds;
+            seq = checkpointSeq;
+            this.checkpointSeq = checkpointSeq;
+            log.info("Réplique des clients chargée depuis {} : {} clients, numéro {}", checkpointFile, ids.size(), seq);
+        } catch (NoSuchFileException e) {
+            log.info("Pas de checkpoint {} : lecture du journal des clients depuis le début", checkpointFile);
+        } catch (IOException e) {
+            log.warn("Checkpoint {} illisible ({}) : lecture du journal des clients depuis le début", checkpointFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Écrit le checkpoint dans un fichier temporaire puis le renomme : un arrêt pendant l'écriture
+     * laisse le checkpoint précédent intact
+     */
+    private void writeCheckpoint() {
+        lastCheckpointNanos = System.nanoTime();
+        writeLock.lock();
+        try {
+            if (seq == checkpointSeq) {
+                return;
+            }
+            Path directory = checkpointFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, checkpointFile.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream file = Files.newOutputStream(temp)) {
+                    CheckedOutputStream checked = new CheckedOutputStream(new BufferedOutputStream(file), new CRC32());
+                    DataOutputStream out = new DataOutputStream(checked);
+                    out.writeInt(CHECKPOINT_MAGIC);
+                    out.writeLong(seq);
+                    ids.writeTo(out);
+                    out.writeLong(checked.getChecksum().getValue());
+                    out.flush();
+                }
+                Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            checkpointSeq = seq;
+        } catch (IOException e) {
+            log.warn("Écriture du checkpoint {} impossible : {}", checkpointFile, e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Lecture immédiate : début (System.nanoTime()) et fin
+     */
+    private record Refresh(long startedNanos, CompletableFuture<Void> done) {
+
+        Refresh(long startedNanos) {
+            this(startedNanos, new CompletableFuture<>());
+        }
+
+        /**
+         * @return false si la lecture n'est pas terminée au bout de timeout
+         */
+        boolean await(Duration timeout) {
+            try {
+                done.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+                return true;
+            } catch (TimeoutException | ExecutionException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.microservices.voiture.repository;
+
+import org.h2.tools.TriggerAdapter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Équivalent H2 des triggers MySQL qui incrémentent voiture_client_versions
+ * (db/vendor/mysql/V8__create_voiture_client_version_triggers.sql), installé sur la table voitures
+ * par db/vendor/h2/V8__create_voiture_client_version_triggers.sql
+ */
+public class H2VoitureClientVersionTrigger extends TriggerAdapter {
+
+    private static final String INCREMENT = "INSERT INTO voiture_client_versions (client_id, version) VALUES (?, 1) "
+            + "ON DUPLICATE KEY UPDATE version = version + 1";
+
+    @Override
+    public void fire(Connection conn, ResultSet oldRow, ResultSet newRow) throws SQLException {
+        Long before = clientId(oldRow);
+        Long after = clientId(newRow);
+        if (Objects.equals(before, after)) {
+            increment(conn, after);
+        } else if (after == null || (before != null && before < after)) {
+            increment(conn, before);
+            increment(conn, after);
+        } else {
+            increment(conn, after);
+            increment(conn, before);
+        }
+    }
+
+    private static void increment(Connection conn, Long clientId) throws SQLException {
+        if (clientId == null) {
+            return;
+        }
+        try (PreparedStatement increment = conn.prepareStatement(INCREMENT)) {
+            increment.setLong(1, clientId);
+            increment.executeUpdate();
+        }
+    }
+
+    private static Long clientId(ResultSet rs) throws SQLException {
+        return rs != null ? rs.getObject("CLIENT_ID", Long.class) : null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.microservices.voiture.repository;
+
+import org.h2.tools.TriggerAdapter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Objects;
+
+/**
+ * Équivalent H2 des triggers MySQL qui tiennent à jour voiture_client_summaries
+ * (db/vendor/mysql/V6__create_voiture_client_summary_triggers.sql), installé sur la table voitures
+ * par db/vendor/h2/V6__create_voiture_client_summary_triggers.sql
+ */
+public class H2VoitureSummaryTrigger extends TriggerAdapter {
+
+    private static final String UPSERT = "INSERT INTO voiture_client_summaries (client_id, marque, voiture_count, prix_total) "
+            + "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE voiture_count = voiture_count + ?, prix_total = prix_total + ?";
+
+    private static final String DELETE_EMPTY =
+            "DELETE FROM voiture_client_summaries WHERE client_id = ? AND marque = ? AND voiture_count <= 0";
+
+    @Override
+    public void fire(Connection conn, ResultSet oldRow, ResultSet newRow) throws SQLException {
+        Row before = Row.of(oldRow);
+        Row after = Row.of(newRow);
+        if (before != null && after != null && before.sameSummary(after)) {
+            return;
+        }
+        if (before != null) {
+            delta(conn, before, -1);
+        }
+        if (after != null) {
+            delta(conn, after, 1);
+        }
+    }
+
+    private static void delta(Connection conn, Row row, int count) throws SQLException {
+        if (row.clientId() == null) {
+            return;
+        }
+        BigDecimal prix = row.prix().multiply(BigDecimal.valueOf(count));
+        try (PreparedStatement upsert = conn.prepareStatement(UPSERT)) {
+            upsert.setLong(1, row.clientId());
+            upsert.setString(2, row.marque());
+            upsert.setInt(3, count);
+            upsert.setBigDecimal(4, prix);
+            upsert.setInt(5, count);
+            upsert.setBigDecimal(6, prix);
+            upsert.executeUpdate();
+        }
+        if (count < 0) {
+            try (PreparedStatement delete = conn.prepareStatement(DELETE_EMPTY)) {
+                delete.setLong(1, row.clientId());
+                delete.setString(2, row.marque());
+                delete.executeUpdate();
+            }
+        }
+    }
+
+    private record Row(Long clientId, String marque, BigDecimal prix) {
+
+        static Row of(ResultSet rs) throws SQLException {
+            if (rs == null) {
+                return null;
+            }
+            // Arrondi au centime comme CAST(prix AS DECIMAL(19, 2)) sur MySQL
+            return new Row(rs.getObject("CLIENT_ID", Long.class), rs.getString("MARQUE"),
+                    BigDecimal.valueOf(rs.getDouble("PRIX")).setScale(2, RoundingMode.HALF_UP));
+        }
+
+        boolean sameSummary(Row other) {
+            return Objects.equals(clientId, other.clientId) && marque.equals(other.marque) && prix.compareTo(other.prix) == 0;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.microservices.voiture.repository;
+
+import com.microservices.voiture.model.Voiture;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Repository R2DBC (non bloquant) pour les voitures, utilisé par le profil "reactive"
+ * 
+ * Mêmes requêtes que VoitureRepository, mais les résultats sont des Mono/Flux :
+ * aucune requête ne bloque un thread en attendant la base.
+ */
+@Repository
+public interface ReactiveVoitureRepository extends R2dbcRepository<Voiture, Long> {
+
+    /**
+     * Recherche toutes les voitures d'un client
+     * 
+     * @param clientId L'identifiant du client
+     * @return Les voitures du client
+     */
+    Flux<Voiture> findByClientId(Long clientId);
+
+    /**
+     * Recherche toutes les voitures de plusieurs clients en une requête
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les voitures de ces clients
+     */
+    Flux<Voiture> findByClientIdIn(Collection<Long> clientIds);
+
+    /**
+     * Récupère les voitures dont l'ID est strictement supérieur au curseur, triées par ID
+     * 
+     * @param id Le curseur (dernier ID de la page précédente)
+     * @param pageable La taille de page (toujours la page 0)
+     * @return Les voitures de la page
+     */
+    Flux<Voiture> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Lit uniquement la version d'une voiture
+     * 
+     * @param id L'identifiant de la voiture
+     * @return La version de la voiture si elle existe
+     */
+    @Query("SELECT version FROM voitures WHERE id = :id")
+    Mono<Long> findVersionById(Long id);
+
+    /**
+     * Lit la version de la liste des voitures d'un client (voiture_client_versions)
+     * 
+     * @param clientId L'identifiant du client
+     * @return La version, vide si aucune voiture du client n'a jamais été écrite
+     */
+    @Query("SELECT version FROM voiture_client_versions WHERE client_id = :clientId")
+    Mono<Long> findFleetVersionByClientId(Long clientId);
+}
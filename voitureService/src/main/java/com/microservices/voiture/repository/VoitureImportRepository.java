@@ -0,0 +1,132 @@
+package com.microservices.voiture.repository;
+
+import com.microservices.voiture.model.VoitureImport;
+import com.microservices.voiture.model.VoitureImportRejection;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import javax.sql.DataSource;
+
+/**
+ * Accès JDBC aux tables voiture_imports (avancement des imports en masse)
+ * et voiture_import_rejections (enregistrements rejetés)
+ * 
+ * advance() et insertRejections() sont appelées dans la transaction qui insère une tranche de voitures :
+ * l'avancement enregistré correspond toujours exactement aux voitures présentes en base.
+ */
+@Repository
+@Profile("!reactive")
+public class VoitureImportRepository {
+
+    private static final String SELECT_IMPORT = "SELECT id, format, header, status, record_count, imported_count, "
+            + "rejected_count, error, created_at, updated_at FROM voiture_imports WHERE id = ?";
+
+    private static final String INSERT_IMPORT = "INSERT INTO voiture_imports "
+            + "(id, format, header, status, record_count, imported_count, rejected_count, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, 0, 0, 0, ?, ?)";
+
+    private static final String ADVANCE = "UPDATE voiture_imports SET record_count = ?, "
+            + "imported_count = imported_count + ?, rejected_count = rejected_count + ?, updated_at = ? "
+            + "WHERE id = ? AND record_count = ?";
+
+    private static final String INSERT_REJECTION =
+            "INSERT INTO voiture_import_rejections (import_id, record_number, message, content) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VoitureImportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public Optional<VoitureImport> findById(String id) {
+        return jdbcTemplate.query(SELECT_IMPORT, (rs, rowNum) -> mapImport(rs), id).stream().findFirst();
+    }
+
+    /**
+     * Enregistre un nouvel import (statut RUNNING, aucun enregistrement traité)
+     * 
+     * @return false si un import de même ID existe déjà (créé entre-temps par un autre envoi)
+     */
+    public boolean create(String id, VoitureImport.Format format, String header) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            jdbcTemplate.update(INSERT_IMPORT, id, format.name(), header, VoitureImport.Status.RUNNING.name(), now, now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Enregistre une tranche traitée, si aucun autre envoi n'a avancé l'import entre-temps
+     * UPDATE ... WHERE id = ? AND record_count = ? (l'avancement attendu)
+     * 
+     * @param id L'identifiant de l'import
+     * @param expectedRecordCount Avancement au début de la tranche
+     * @param recordCount Avancement à la fin de la tranche
+     * @param imported Voitures insérées par la tranche
+     * @param rejected Enregistrements rejetés par la tranche
+     * @return 1, ou 0 si l'avancement n'était plus celui attendu
+     */
+    public int advance(String id, long expectedRecordCount, long recordCount, long imported, long rejected) {
+        return jdbcTemplate.update(ADVANCE, recordCount, imported, rejected, Timestamp.from(Instant.now()),
+                id, expectedRecordCount);
+    }
+
+    /**
+     * Change le statut d'un import (error : cause d'un échec, null sinon)
+     */
+    public void updateStatus(String id, VoitureImport.Status status, String error) {
+        jdbcTemplate.update("UPDATE voiture_imports SET status = ?, error = ?, updated_at = ? WHERE id = ?",
+                status.name(), error, Timestamp.from(Instant.now()), id);
+    }
+
+    /**
+     * Enregistre des rejets en un seul batch JDBC
+     */
+    public void insertRejections(String id, List<VoitureImportRejection> rejections) {
+        jdbcTemplate.batchUpdate(INSERT_REJECTION, rejections, rejections.size(), (ps, rejection) -> {
+            ps.setString(1, id);
+            ps.setLong(2, rejection.getRecordNumber());
+            ps.setString(3, rejection.getMessage());
+            ps.setString(4, rejection.getContent());
+        });
+    }
+
+    /**
+     * Lit les rejets d'un import par numéro d'enregistrement croissant (pagination par curseur)
+     * 
+     * @param id L'identifiant de l'import
+     * @param after Le dernier numéro de la page précédente (0 pour la première page)
+     * @param limit Le nombre de rejets souhaité
+     */
+    public List<VoitureImportRejection> findRejections(String id, long after, int limit) {
+        return jdbcTemplate.query("SELECT record_number, message, content FROM voiture_import_rejections "
+                        + "WHERE import_id = ? AND record_number > ? ORDER BY record_number LIMIT ?",
+                (rs, rowNum) -> new VoitureImportRejection(rs.getLong("record_number"), rs.getString("message"),
+                        rs.getString("content")),
+                id, after, limit);
+    }
+
+    private static VoitureImport mapImport(ResultSet rs) throws SQLException {
+        return new VoitureImport(
+                rs.getString("id"),
+                VoitureImport.Format.valueOf(rs.getString("format")),
+                rs.getString("header"),
+                VoitureImport.Status.valueOf(rs.getString("status")),
+                rs.getLong("record_count"),
+                rs.getLong("imported_count"),
+                rs.getLong("rejected_count"),
+                rs.getString("error"),
+                rs.getTimestamp("created_at").toInstant(),
+                rs.getTimestamp("updated_at").toInstant());
+    }
+}
@@ -0,0 +1,167 @@
+package com.microservices.voiture.repository;
+
+import com.microservices.voiture.model.Voiture;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+
+/**
+ * Accès JDBC direct à la table voitures pour les lectures volumineuses et les écritures partielles
+ * 
+ * JPA charge tout le résultat en mémoire (et dans le contexte de persistance) :
+ * ici les lignes sont lues via un curseur JDBC "forward-only" et transmises une par une,
+ * la mémoire reste donc constante quelle que soit la taille de la table. Seule la requête
+ * de streamAll lit en flux : les autres requêtes du service gardent le comportement par défaut du driver.
+ * 
+ * Les modifications partielles et suppressions sont une seule requête UPDATE/DELETE
+ * (JPA relit l'entité avant de la modifier ou de la supprimer).
+ * 
+ * Les insertions en masse sont envoyées en batch JDBC (Hibernate exécute chaque INSERT
+ * séparément avec GenerationType.IDENTITY) ; avec rewriteBatchedStatements=true (dans l'URL MySQL),
+ * le driver les réécrit en INSERT multi-lignes.
+ */
+@Repository
+@Profile("!reactive")
+public class VoitureJdbcRepository {
+
+    private static final String SELECT_ALL =
+            "SELECT id, marque, modele, couleur, immatriculation, prix, client_id, version FROM voitures ORDER BY id";
+
+    private static final String INSERT = "INSERT INTO voitures "
+            + "(marque, modele, couleur, immatriculation, prix, client_id, version) VALUES (?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    /**
+     * @param dataSource La source de données du service
+     * @param fetchSize Nombre de lignes ramenées par aller-retour réseau par streamAll (hors MySQL)
+     */
+    public VoitureJdbcRepository(DataSource dataSource,
+                                 @Value("${voiture.stream.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Parcourt toutes les voitures par ordre d'ID et les transmet au consumer au fil de l'eau
+     * 
+     * Sur MySQL, le fetch size Integer.MIN_VALUE de cette seule requête demande au driver un résultat
+     * en flux (lignes lues sur la socket au fil du parcours, sans curseur côté serveur ni useCursorFetch
+     * dans l'URL) ; la connexion n'exécute rien d'autre jusqu'à la fin du parcours. Les autres bases
+     * ramènent les lignes par paquets de fetchSize.
+     * 
+     * @param consumer Traitement appliqué à chaque voiture lue
+     */
+    public void streamAll(Consumer<Voiture> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_ALL, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize("MySQL".equals(connection.getMetaData().getDatabaseProductName())
+                    ? Integer.MIN_VALUE
+                    : fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs)));
+    }
+
+    /**
+     * Insère les voitures en un seul batch JDBC (version 0)
+     * Participe à la transaction Spring en cours s'il y en a une.
+     * 
+     * @param voitures Les voitures à insérer
+     * @return Les IDs générés, dans l'ordre des voitures
+     */
+    public List<Long> batchInsert(List<Voiture> voitures) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Voiture voiture : voitures) {
+                    ps.setString(1, voiture.getMarque());
+                    ps.setString(2, voiture.getModele());
+                    ps.setString(3, voiture.getCouleur());
+                    ps.setString(4, voiture.getImmatriculation());
+                    ps.setDouble(5, voiture.getPrix());
+                    ps.setObject(6, voiture.getClientId(), Types.BIGINT);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                List<Long> ids = new ArrayList<>(voitures.size());
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.add(keys.getLong(1));
+                    }
+                }
+                return ids;
+            }
+        });
+    }
+
+    /**
+     * Modifie les colonnes données d'une voiture et incrémente sa version, en une seule requête
+     * UPDATE voitures SET ..., version = version + 1 WHERE id = ? [AND version = ?]
+     * 
+     * @param id L'identifiant de la voiture
+     * @param columns Les colonnes modifiées et leurs valeurs (noms de colonnes issus d'une liste fixe)
+     * @param expectedVersion La version attendue, ou null pour modifier quelle que soit la version
+     * @return Le nombre de lignes modifiées (0 si la voiture n'existe pas ou n'a pas la version attendue)
+     */
+    public int update(Long id, Map<String, Object> columns, Long expectedVersion) {
+        StringBuilder sql = new StringBuilder("UPDATE voitures SET ");
+        List<Object> args = new ArrayList<>();
+        columns.forEach((column, value) -> {
+            sql.append(column).append(" = ?, ");
+            args.add(value);
+        });
+        sql.append("version = version + 1 WHERE id = ?");
+        args.add(id);
+        if (expectedVersion != null) {
+            sql.append(" AND version = ?");
+            args.add(expectedVersion);
+        }
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * Supprime une voiture en une seule requête DELETE
+     * 
+     * @param id L'identifiant de la voiture
+     * @param expectedVersion La version attendue, ou null pour supprimer quelle que soit la version
+     * @return Le nombre de lignes supprimées (0 si la voiture n'existe pas ou n'a pas la version attendue)
+     */
+    public int delete(Long id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return jdbcTemplate.update("DELETE FROM voitures WHERE id = ?", id);
+        }
+        return jdbcTemplate.update("DELETE FROM voitures WHERE id = ? AND version = ?", id, expectedVersion);
+    }
+
+    /**
+     * Convertit la ligne courante du ResultSet en Voiture
+     */
+    static Voiture mapRow(ResultSet rs) throws SQLException {
+        Voiture voiture = new Voiture();
+        voiture.setId(rs.getLong("id"));
+        voiture.setMarque(rs.getString("marque"));
+        voiture.setModele(rs.getString("modele"));
+        voiture.setCouleur(rs.getString("couleur"));
+        voiture.setImmatriculation(rs.getString("immatriculation"));
+        voiture.setPrix(rs.getObject("prix", Double.class));
+        voiture.setClientId(rs.getObject("client_id", Long.class));
+        voiture.setVersion(rs.getLong("version"));
+        return voiture;
+    }
+}
@@ -1,9 +1,15 @@
 package com.microservices.voiture.repository;
 
+import com.microservices.voiture.model.ClientFleet;
 import com.microservices.voiture.model.Voiture;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +33,16 @@ public interface VoitureRepository extends JpaRepository<Voiture, Long> {
      */
     Optional<Voiture> findByImmatriculation(String immatriculation);
 
+    /**
+     * Parmi les immatriculations données, celles déjà utilisées (import en masse)
+     * Une seule requête (WHERE immatriculation IN (...)) qui s'appuie sur l'index unique de la colonne
+     * 
+     * @param immatriculations Les immatriculations à vérifier
+     * @return Les immatriculations existantes
+     */
+    @Query("SELECT v.immatriculation FROM Voiture v WHERE v.immatriculation IN :immatriculations")
+    List<String> findExistingImmatriculations(@Param("immatriculations") Collection<String> immatriculations);
+
     /**
      * Recherche toutes les voitures d'un client
      * 
@@ -34,4 +50,53 @@ public interface VoitureRepository extends JpaRepository<Voiture, Long> {
      * @return Liste des voitures du client
      */
     List<Voiture> findByClientId(Long clientId);
+
+    /**
+     * Recherche toutes les voitures de plusieurs clients en une requête (WHERE client_id IN (...))
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les voitures de ces clients
+     */
+    List<Voiture> findByClientIdIn(Collection<Long> clientIds);
+
+    /**
+     * Récupère les voitures dont l'ID est strictement supérieur au curseur, triées par ID
+     * Utilisé pour la pagination par curseur : WHERE id > ? ORDER BY id LIMIT ?
+     * 
+     * @param id Le curseur (dernier ID de la page précédente)
+     * @param pageable La taille de page (toujours la page 0)
+     * @return Les voitures de la page
+     */
+    List<Voiture> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Lit uniquement la version d'une voiture (sans charger l'entité)
+     * 
+     * @param id L'identifiant de la voiture
+     * @return La version de la voiture si elle existe
+     */
+    @Query("SELECT v.version FROM Voiture v WHERE v.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Lit la version de la liste des voitures d'un client (lecture de clé primaire dans voiture_client_versions)
+     * 
+     * @param clientId L'identifiant du client
+     * @return La version, absente si aucune voiture du client n'a jamais été écrite
+     */
+    @Query(value = "SELECT version FROM voiture_client_versions WHERE client_id = :clientId", nativeQuery = true)
+    Optional<Long> findFleetVersionByClientId(@Param("clientId") Long clientId);
+
+    /**
+     * Lit la version de la liste puis les voitures d'un client, dans une même transaction en lecture seule :
+     * même connexion (donc même réplique), et sur MySQL même instantané (REPEATABLE READ)
+     * 
+     * @param clientId L'identifiant du client
+     * @return Les voitures du client et la version de leur liste
+     */
+    @Transactional(readOnly = true)
+    default ClientFleet findFleetByClientId(Long clientId) {
+        long version = findFleetVersionByClientId(clientId).orElse(0L);
+        return new ClientFleet(version, List.copyOf(findByClientId(clientId)));
+    }
 }
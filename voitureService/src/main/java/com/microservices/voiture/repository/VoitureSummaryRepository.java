@@ -0,0 +1,112 @@
+package com.microservices.voiture.repository;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+/**
+ * Accès JDBC à la table voiture_client_summaries (résumé du parc de chaque client, par marque)
+ * 
+ * Les résumés sont modifiés par deltas (+1 voiture et +prix, ou -1 et -prix) par les triggers
+ * de la table voitures (db/vendor/mysql), dans l'instruction qui écrit la voiture, sans relire
+ * les voitures du client. Les prix sont arrondis au centime par la base (CAST en DECIMAL),
+ * de la même façon à l'ajout, au retrait et au recalcul.
+ */
+@Repository
+@Profile("!reactive")
+public class VoitureSummaryRepository {
+
+    private static final String SELECT_COLUMNS = "SELECT client_id, marque, voiture_count, prix_total FROM voiture_client_summaries";
+
+    private static final String COUNT_VOITURES = "SELECT client_id, marque, COUNT(*) AS voiture_count, "
+            + "SUM(CAST(prix AS DECIMAL(19, 2))) AS prix_total FROM voitures";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VoitureSummaryRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Lit les résumés par marque de plusieurs clients (requête IN sur la clé primaire)
+     * 
+     * @param clientIds Les identifiants des clients (non vide)
+     * @return Les lignes trouvées, triées par client puis par marque
+     */
+    public List<SummaryRow> findByClientIds(Collection<Long> clientIds) {
+        String placeholders = String.join(", ", Collections.nCopies(clientIds.size(), "?"));
+        return jdbcTemplate.query(SELECT_COLUMNS + " WHERE client_id IN (" + placeholders + ") ORDER BY client_id, marque",
+                (rs, rowNum) -> new SummaryRow(rs.getLong("client_id"), rs.getString("marque"),
+                        rs.getLong("voiture_count"), rs.getBigDecimal("prix_total")),
+                clientIds.toArray());
+    }
+
+    /**
+     * Lit tous les résumés (réconciliation)
+     * 
+     * @return Nombre de voitures et total des prix par client et par marque
+     */
+    public Map<SummaryKey, SummaryRow> findAll() {
+        return collect(SELECT_COLUMNS);
+    }
+
+    /**
+     * Recalcule les résumés attendus à partir de la table voitures (réconciliation)
+     * 
+     * @return Nombre de voitures et total des prix par client et par marque
+     */
+    public Map<SummaryKey, SummaryRow> countVoitures() {
+        return collect(COUNT_VOITURES + " WHERE client_id IS NOT NULL GROUP BY client_id, marque");
+    }
+
+    /**
+     * Remplace les résumés d'un client par un recalcul à partir de ses voitures
+     * 
+     * Les lignes du client sont d'abord verrouillées (SELECT ... FOR UPDATE) : une écriture
+     * concurrente attend la fin du recalcul puis applique son delta au résultat.
+     * 
+     * @param clientId L'identifiant du client
+     */
+    public void recount(Long clientId) {
+        jdbcTemplate.query("SELECT client_id FROM voiture_client_summaries WHERE client_id = ? FOR UPDATE",
+                (RowCallbackHandler) rs -> { }, clientId);
+        jdbcTemplate.update("DELETE FROM voiture_client_summaries WHERE client_id = ?", clientId);
+        jdbcTemplate.update("INSERT INTO voiture_client_summaries (client_id, marque, voiture_count, prix_total) "
+                + COUNT_VOITURES + " WHERE client_id = ? GROUP BY client_id, marque", clientId);
+    }
+
+    private Map<SummaryKey, SummaryRow> collect(String sql) {
+        Map<SummaryKey, SummaryRow> rows = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            SummaryRow row = new SummaryRow(rs.getLong("client_id"), rs.getString("marque"),
+                    rs.getLong("voiture_count"), rs.getBigDecimal("prix_total"));
+            rows.put(new SummaryKey(row.clientId(), row.marque()), row);
+        });
+        return rows;
+    }
+
+    public record SummaryKey(Long clientId, String marque) {
+    }
+
+    /**
+     * Ligne de voiture_client_summaries
+     */
+    public record SummaryRow(Long clientId, String marque, long voitureCount, BigDecimal prixTotal) {
+
+        /**
+         * Même nombre de voitures et même total (quelle que soit l'échelle du DECIMAL)
+         */
+        public boolean sameTotals(SummaryRow other) {
+            return other != null && voitureCount == other.voitureCount && prixTotal.compareTo(other.prixTotal) == 0;
+        }
+    }
+}
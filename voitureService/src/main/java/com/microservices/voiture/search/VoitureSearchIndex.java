@@ -0,0 +1,493 @@
+package com.microservices.voiture.search;
+
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoitureSuggestion;
+import com.microservices.voiture.repository.VoitureJdbcRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Index mémoire pour la recherche par préfixe sur l'immatriculation, la marque et le modèle
+ * 
+ * Pour chaque champ, un dictionnaire trié (terme -> IDs des voitures) : les termes commençant
+ * par un préfixe forment un intervalle du dictionnaire, parcouru sans accès à la base.
+ * Les termes sont normalisés (minuscules, sans accents) :
+ * - immatriculation : un seul terme sans séparateurs ("AB-123-CD" -> "ab123cd")
+ * - marque et modèle : chaque mot, plus les mots accolés ("Mercedes-Benz" -> "mercedes", "benz", "mercedesbenz")
+ * 
+ * L'index est construit en arrière-plan au démarrage (lecture en streaming de la table) puis tenu à jour
+ * par VoitureService à chaque création, modification et suppression. Ces mises à jour ne couvrent que
+ * les écritures de cette instance du service : l'index est reconstruit toutes les rebuild-interval
+ * (le nouvel index remplace l'ancien une fois complet ; les deux coexistent en mémoire pendant la lecture).
+ * Avant la première construction, les recherches ne trouvent rien.
+ * 
+ * Les écritures sont sérialisées par un verrou ; les recherches ne prennent aucun verrou.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class VoitureSearchIndex {
+
+    /**
+     * Champs indexés, par ordre de priorité dans le classement des résultats
+     */
+    private enum Field {
+        IMMATRICULATION, MODELE, MARQUE
+    }
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /**
+     * Borne supérieure des termes commençant par un préfixe (les termes ne contiennent que [a-z0-9])
+     */
+    private static final char PREFIX_END = Character.MAX_VALUE;
+
+    /**
+     * Nombre maximal de voitures examinées par recherche : borne le temps de réponse lorsque
+     * plusieurs mots peu sélectifs ne se combinent que rarement (résultats alors incomplets)
+     */
+    private static final int MAX_CANDIDATES = 10_000;
+
+    /**
+     * Longueur maximale des préfixes dont le nombre de voitures est tenu à jour (prefixCounts)
+     */
+    private static final int COUNTED_PREFIX_LENGTH = 3;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final VoitureJdbcRepository voitureJdbcRepository;
+    private final Duration rebuildInterval;
+    private final Timer searchTimer;
+
+    /**
+     * Index interrogé ; remplacé à chaque reconstruction (sous le verrou)
+     */
+    private volatile Index index = new Index();
+
+    /**
+     * Écritures appliquées pendant une reconstruction, rejouées sur le nouvel index ; null en dehors
+     */
+    private List<Consumer<Index>> changesDuringRebuild;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * IDs des voitures ayant un terme donné ; size évite de compter l'ensemble (modifié sous le verrou)
+     */
+    private static final class Posting {
+        final ConcurrentSkipListSet<Long> ids = new ConcurrentSkipListSet<>();
+        volatile int size;
+    }
+
+    /**
+     * Termes indexés d'une voiture
+     */
+    private record Entry(VoitureSuggestion suggestion, long version, Map<Field, List<String>> terms) {
+
+        /**
+         * Chaque jeton doit être le préfixe d'au moins un terme de la voiture
+         */
+        boolean matchesAll(List<String> tokens) {
+            for (String token : tokens) {
+                if (!matches(token)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean matches(String token) {
+            for (List<String> fieldTerms : terms.values()) {
+                for (String term : fieldTerms) {
+                    if (term.startsWith(token)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Dictionnaires d'un index : modifiés par un seul thread à la fois, lus sans verrou
+     */
+    private static final class Index {
+
+        final Map<Field, ConcurrentSkipListMap<String, Posting>> postings = new EnumMap<>(Field.class);
+        final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+        /**
+         * Nombre de voitures par préfixe court des termes, tous champs confondus ("c" -> 350000) :
+         * évite de parcourir les milliers de termes d'un préfixe court pour estimer sa sélectivité
+         */
+        final Map<String, Integer> prefixCounts = new ConcurrentHashMap<>();
+
+        Index() {
+            for (Field field : Field.values()) {
+                postings.put(field, new ConcurrentSkipListMap<>());
+            }
+        }
+
+        void put(Voiture voiture) {
+            long version = voiture.getVersion() != null ? voiture.getVersion() : 0L;
+            Entry previous = entries.get(voiture.getId());
+            if (previous != null) {
+                if (previous.version() > version) {
+                    return;
+                }
+                removeTerms(voiture.getId(), previous);
+            }
+            Map<Field, List<String>> terms = new EnumMap<>(Field.class);
+            terms.put(Field.IMMATRICULATION, plateTerms(voiture.getImmatriculation()));
+            terms.put(Field.MODELE, textTerms(voiture.getModele()));
+            terms.put(Field.MARQUE, textTerms(voiture.getMarque()));
+            VoitureSuggestion suggestion = new VoitureSuggestion(voiture.getId(), voiture.getImmatriculation(),
+                    voiture.getMarque(), voiture.getModele());
+            entries.put(voiture.getId(), new Entry(suggestion, version, terms));
+            terms.forEach((field, fieldTerms) -> {
+                for (String term : fieldTerms) {
+                    Posting posting = postings.get(field).computeIfAbsent(term, key -> new Posting());
+                    if (posting.ids.add(voiture.getId())) {
+                        posting.size++;
+                        countPrefixes(term, 1);
+                    }
+                }
+            });
+        }
+
+        void patch(Long id, String immatriculation, String marque, String modele) {
+            Entry previous = entries.get(id);
+            if (previous == null) {
+                return;
+            }
+            VoitureSuggestion suggestion = previous.suggestion();
+            Voiture voiture = new Voiture();
+            voiture.setId(id);
+            voiture.setImmatriculation(immatriculation != null ? immatriculation : suggestion.getImmatriculation());
+            voiture.setMarque(marque != null ? marque : suggestion.getMarque());
+            voiture.setModele(modele != null ? modele : suggestion.getModele());
+            voiture.setVersion(previous.version() + 1);
+            put(voiture);
+        }
+
+        void remove(Long id) {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                removeTerms(id, previous);
+            }
+        }
+
+        private void removeTerms(Long id, Entry entry) {
+            entry.terms().forEach((field, fieldTerms) -> {
+                ConcurrentSkipListMap<String, Posting> terms = postings.get(field);
+                for (String term : fieldTerms) {
+                    Posting posting = terms.get(term);
+                    if (posting != null && posting.ids.remove(id)) {
+                        countPrefixes(term, -1);
+                        if (--posting.size == 0) {
+                            terms.remove(term, posting);
+                        }
+                    }
+                }
+            });
+        }
+
+        private void countPrefixes(String term, int delta) {
+            for (int length = 1; length <= Math.min(term.length(), COUNTED_PREFIX_LENGTH); length++) {
+                prefixCounts.merge(term.substring(0, length), delta, (count, change) -> count + change == 0 ? null : count + change);
+            }
+        }
+    }
+
+    /**
+     * @param voitureJdbcRepository Lecture en streaming de la table (construction de l'index)
+     * @param rebuildInterval Intervalle entre deux reconstructions (0 : au démarrage seulement)
+     * @param meterRegistry Registre Micrometer
+     */
+    public VoitureSearchIndex(VoitureJdbcRepository voitureJdbcRepository,
+                              @Value("${voiture.search.rebuild-interval:1h}") Duration rebuildInterval,
+                              MeterRegistry meterRegistry) {
+        this.voitureJdbcRepository = voitureJdbcRepository;
+        this.rebuildInterval = rebuildInterval;
+        Gauge.builder("voitures.search.index.size", this, searchIndex -> searchIndex.index.entries.size())
+                .description("Nombre de voitures dans l'index de recherche")
+                .register(meterRegistry);
+        this.searchTimer = Timer.builder("voitures.search")
+                .description("Durée des recherches dans l'index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Construit l'index une fois l'application démarrée (en arrière-plan), puis le reconstruit périodiquement
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "voiture-search-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(() -> rebuild());
+        if (!rebuildInterval.isZero()) {
+            scheduler.scheduleWithFixedDelay(() -> rebuild(), rebuildInterval.toMillis(), rebuildInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Construit un nouvel index à partir de la table puis remplace l'index courant
+     * 
+     * Les écritures appliquées pendant la lecture sont rejouées sur le nouvel index : une ligne lue
+     * avant sa modification ne remplace pas une version plus récente, une voiture supprimée est retirée.
+     * Les recherches continuent sur l'ancien index jusqu'au remplacement.
+     * 
+     * @return Le nombre de voitures du nouvel index, ou -1 si la lecture de la table a échoué
+     */
+    public synchronized long rebuild() {
+        long start = System.nanoTime();
+        writeLock.lock();
+        try {
+            changesDuringRebuild = new ArrayList<>();
+        } finally {
+            writeLock.unlock();
+        }
+        Index rebuilt = new Index();
+        try {
+            voitureJdbcRepository.streamAll(rebuilt::put);
+        } catch (RuntimeException e) {
+            log.warn("Construction de l'index de recherche des voitures impossible : {}", e.getMessage());
+            writeLock.lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+            return -1;
+        }
+        writeLock.lock();
+        try {
+            for (Consumer<Index> change : changesDuringRebuild) {
+                change.accept(rebuilt);
+            }
+            changesDuringRebuild = null;
+            index = rebuilt;
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Index de recherche des voitures construit : {} voitures en {} ms",
+                rebuilt.entries.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return rebuilt.entries.size();
+    }
+
+    /**
+     * Ajoute ou remplace une voiture dans l'index
+     * 
+     * @param voiture La voiture créée ou modifiée
+     */
+    public void index(Voiture voiture) {
+        apply(index -> index.put(voiture));
+    }
+
+    /**
+     * Applique une modification partielle à une voiture indexée (version + 1, comme l'UPDATE)
+     * 
+     * @param id L'identifiant de la voiture modifiée
+     * @param immatriculation La nouvelle immatriculation, ou null si inchangée
+     * @param marque La nouvelle marque, ou null si inchangée
+     * @param modele Le nouveau modèle, ou null si inchangé
+     */
+    public void patch(Long id, String immatriculation, String marque, String modele) {
+        apply(index -> index.patch(id, immatriculation, marque, modele));
+    }
+
+    /**
+     * Retire une voiture de l'index
+     * 
+     * @param id L'identifiant de la voiture supprimée
+     */
+    public void remove(Long id) {
+        apply(index -> index.remove(id));
+    }
+
+    private void apply(Consumer<Index> change) {
+        writeLock.lock();
+        try {
+            change.accept(index);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Recherche les voitures dont chaque mot de la requête est le préfixe d'un terme indexé
+     * 
+     * Classement (sur le mot le plus sélectif) : correspondances exactes avant les préfixes,
+     * puis immatriculation, modèle et marque ; à égalité, ordre alphabétique des termes puis des IDs.
+     * Seul le mot le plus sélectif de la requête (le moins de voitures) parcourt l'index,
+     * les autres filtrent les candidats : le parcours s'arrête dès que limit résultats
+     * sont trouvés, ou après MAX_CANDIDATES voitures.
+     * 
+     * @param query Le texte saisi (ex. "AB-12", "clio", "renault cl")
+     * @param limit Le nombre maximal de résultats
+     * @return Les voitures trouvées, les plus pertinentes d'abord
+     */
+    public List<VoitureSuggestion> search(String query, int limit) {
+        return searchTimer.record(() -> find(tokenize(query), limit));
+    }
+
+    private List<VoitureSuggestion> find(List<String> tokens, int limit) {
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Index index = this.index;
+        String driver = tokens.get(0);
+        if (tokens.size() > 1) {
+            long driverCount = Long.MAX_VALUE;
+            for (String token : tokens) {
+                long count = countWithPrefix(index, token, driverCount);
+                if (count == 0) {
+                    return List.of();
+                }
+                if (count < driverCount) {
+                    driver = token;
+                    driverCount = count;
+                }
+            }
+        }
+
+        List<VoitureSuggestion> results = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        for (boolean exact : new boolean[]{true, false}) {
+            for (Field field : Field.values()) {
+                NavigableMap<String, Posting> terms = index.postings.get(field);
+                Collection<Posting> matching = exact
+                        ? singletonOrEmpty(terms.get(driver))
+                        : terms.subMap(driver, false, driver + PREFIX_END, false).values();
+                for (Posting posting : matching) {
+                    for (Long id : posting.ids) {
+                        if (!seen.add(id)) {
+                            continue;
+                        }
+                        if (seen.size() > MAX_CANDIDATES) {
+                            return results;
+                        }
+                        Entry entry = index.entries.get(id);
+                        if (entry != null && entry.matchesAll(tokens)) {
+                            results.add(entry.suggestion());
+                            if (results.size() == limit) {
+                                return results;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Nombre (approché : une voiture peut compter dans plusieurs champs) de voitures dont
+     * un terme commence par le jeton ; le décompte s'arrête à max
+     */
+    private static long countWithPrefix(Index index, String token, long max) {
+        if (token.length() <= COUNTED_PREFIX_LENGTH) {
+            return Math.min(index.prefixCounts.getOrDefault(token, 0), max);
+        }
+        long count = 0;
+        for (NavigableMap<String, Posting> terms : index.postings.values()) {
+            for (Posting posting : terms.subMap(token, true, token + PREFIX_END, false).values()) {
+                count += posting.size;
+                if (count >= max) {
+                    return max;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static Collection<Posting> singletonOrEmpty(Posting posting) {
+        return posting != null ? List.of(posting) : List.of();
+    }
+
+    /**
+     * Mots de la requête, normalisés comme les immatriculations (séparateurs retirés)
+     */
+    private static List<String> tokenize(String query) {
+        List<String> tokens = new ArrayList<>();
+        if (query != null) {
+            for (String word : WHITESPACE.split(query.trim())) {
+                String token = NON_ALPHANUMERIC.matcher(normalize(word)).replaceAll("");
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> plateTerms(String immatriculation) {
+        if (immatriculation == null) {
+            return List.of();
+        }
+        String term = NON_ALPHANUMERIC.matcher(normalize(immatriculation)).replaceAll("");
+        return term.isEmpty() ? List.of() : List.of(term);
+    }
+
+    private static List<String> textTerms(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> words = new ArrayList<>(Arrays.asList(NON_ALPHANUMERIC.split(normalize(text))));
+        words.removeIf(String::isEmpty);
+        if (words.size() > 1) {
+            words.add(String.join("", words));
+        }
+        return words.stream().distinct().toList();
+    }
+
+    private static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
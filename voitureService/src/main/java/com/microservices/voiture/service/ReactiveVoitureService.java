@@ -0,0 +1,178 @@
+package com.microservices.voiture.service;
+
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoiturePage;
+import com.microservices.voiture.repository.ReactiveVoitureRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service métier réactif pour la gestion des voitures (profil "reactive")
+ * 
+ * Même logique que VoitureService, mais chaque méthode retourne un Mono/Flux :
+ * les appels à la base (R2DBC) ne bloquent aucun thread, quelques threads
+ * d'event loop suffisent pour servir des milliers de clients lents.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveVoitureService {
+
+    /**
+     * Injection du repository R2DBC
+     */
+    @Autowired
+    private ReactiveVoitureRepository reactiveVoitureRepository;
+
+    /**
+     * Client SQL R2DBC pour les requêtes sans entité (agrégats, suppression)
+     */
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Nombre maximal d'IDs par requête IN lors des recherches groupées
+     */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /**
+     * Récupère toutes les voitures, triées par ID, au fil de la lecture
+     * 
+     * @return Flux de toutes les voitures
+     */
+    public Flux<Voiture> getAllVoitures() {
+        return reactiveVoitureRepository.findAll(Sort.by("id"));
+    }
+
+    /**
+     * Récupère une page de voitures après le curseur donné
+     * 
+     * @param after Le dernier ID de la page précédente (null pour la première page)
+     * @param limit Le nombre de voitures souhaité (borné à VoitureService.MAX_PAGE_SIZE)
+     * @return La page et le curseur suivant
+     */
+    public Mono<VoiturePage> getVoituresPage(Long after, int limit) {
+        int size = Math.max(1, Math.min(limit, VoitureService.MAX_PAGE_SIZE));
+        long cursor = after != null ? after : 0L;
+        return reactiveVoitureRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, size))
+                .collectList()
+                .map(content -> new VoiturePage(content,
+                        content.size() == size ? content.get(content.size() - 1).getId() : null));
+    }
+
+    /**
+     * Récupère une voiture par son ID
+     * 
+     * @param id L'identifiant de la voiture
+     * @return La voiture ou un Mono vide si non trouvée
+     */
+    public Mono<Voiture> getVoitureById(Long id) {
+        return reactiveVoitureRepository.findById(id);
+    }
+
+    /**
+     * Récupère toutes les voitures d'un client
+     * 
+     * @param clientId L'identifiant du client
+     * @return Les voitures du client
+     */
+    public Flux<Voiture> getVoituresByClientId(Long clientId) {
+        return reactiveVoitureRepository.findByClientId(clientId);
+    }
+
+    /**
+     * Récupère uniquement la version de la liste des voitures d'un client (voir VoitureService.getFleetVersion)
+     * 
+     * @param clientId L'identifiant du client
+     * @return La version (0 si aucune voiture du client n'a jamais été écrite)
+     */
+    public Mono<Long> getFleetVersion(Long clientId) {
+        return reactiveVoitureRepository.findFleetVersionByClientId(clientId).defaultIfEmpty(0L);
+    }
+
+    /**
+     * Récupère les voitures de plusieurs clients (requêtes IN par paquets de IN_CLAUSE_CHUNK IDs)
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les voitures par client, dans l'ordre des IDs demandés (liste vide si aucune voiture)
+     */
+    public Mono<Map<Long, List<Voiture>>> getVoituresByClientIds(Collection<Long> clientIds) {
+        List<Long> keys = new ArrayList<>(new LinkedHashSet<>(clientIds));
+        keys.remove(null);
+        Map<Long, List<Voiture>> grouped = new LinkedHashMap<>();
+        for (Long clientId : keys) {
+            grouped.put(clientId, new ArrayList<>());
+        }
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < keys.size(); from += IN_CLAUSE_CHUNK) {
+            chunks.add(keys.subList(from, Math.min(from + IN_CLAUSE_CHUNK, keys.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(reactiveVoitureRepository::findByClientIdIn)
+                .collect(() -> grouped, (map, voiture) -> map.get(voiture.getClientId()).add(voiture));
+    }
+
+    /**
+     * Récupère uniquement la version d'une voiture
+     * 
+     * @param id L'identifiant de la voiture
+     * @return La version ou un Mono vide si la voiture n'existe pas
+     */
+    public Mono<Long> getVoitureVersion(Long id) {
+        return reactiveVoitureRepository.findVersionById(id);
+    }
+
+    /**
+     * Crée une nouvelle voiture
+     * 
+     * @param voiture La voiture à créer
+     * @return La voiture créée avec son ID généré
+     */
+    public Mono<Voiture> createVoiture(Voiture voiture) {
+        voiture.setId(null); // ID null : Spring Data exécute un INSERT
+        voiture.setVersion(0L);
+        return reactiveVoitureRepository.save(voiture);
+    }
+
+    /**
+     * Met à jour une voiture existante
+     * 
+     * @param id L'identifiant de la voiture à mettre à jour
+     * @param voiture Les nouvelles données de la voiture
+     * @return La voiture mise à jour ou un Mono vide si non trouvée
+     */
+    public Mono<Voiture> updateVoiture(Long id, Voiture voiture) {
+        return reactiveVoitureRepository.findVersionById(id)
+                .flatMap(version -> {
+                    voiture.setId(id); // S'assurer que l'ID est correct
+                    voiture.setVersion(version + 1); // Le PUT remplace la version courante, comme @Version en JPA
+                    return reactiveVoitureRepository.save(voiture);
+                });
+    }
+
+    /**
+     * Supprime une voiture en une seule requête DELETE
+     * 
+     * @param id L'identifiant de la voiture à supprimer
+     * @return true si supprimée, false si non trouvée
+     */
+    public Mono<Boolean> deleteVoiture(Long id) {
+        return databaseClient.sql("DELETE FROM voitures WHERE id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0);
+    }
+}
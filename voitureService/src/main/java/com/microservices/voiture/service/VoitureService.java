@@ -1,20 +1,69 @@
 package com.microservices.voiture.service;
 
+import com.microservices.voiture.analytics.VoitureAnalytics;
+import com.microservices.voiture.bulk.VoitureImporter;
+import com.microservices.voiture.cache.VoitureCache;
+import com.microservices.database.ReadRouting;
+import com.microservices.voiture.exception.InvalidPatchException;
+import com.microservices.voiture.exception.UnknownClientException;
+import com.microservices.voiture.exception.VersionConflictException;
+import com.microservices.voiture.model.ClientFleet;
+import com.microservices.voiture.model.FleetSummary;
+import com.microservices.voiture.model.FleetSummaryRebuild;
+import com.microservices.voiture.model.PrixStatistics;
 import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoitureImport;
+import com.microservices.voiture.model.VoitureImportRejection;
+import com.microservices.voiture.model.VoiturePage;
+import com.microservices.voiture.model.VoitureSuggestion;
+import com.microservices.voiture.replica.ClientReplica;
+import com.microservices.voiture.repository.VoitureJdbcRepository;
 import com.microservices.voiture.repository.VoitureRepository;
+import com.microservices.voiture.repository.VoitureSummaryRepository;
+import com.microservices.voiture.repository.VoitureSummaryRepository.SummaryKey;
+import com.microservices.voiture.repository.VoitureSummaryRepository.SummaryRow;
+import com.microservices.voiture.search.VoitureSearchIndex;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 /**
  * Service métier pour la gestion des voitures
  * 
  * @Service : Indique que cette classe est un service Spring
  * Contient la logique métier de l'application
+ * 
+ * Le résumé du parc de chaque client (voiture_client_summaries) est tenu à jour par les triggers
+ * de la table voitures, dans l'instruction même de chaque écriture (quelle qu'en soit l'origine) ;
+ * les caches et l'index de recherche ne sont modifiés qu'après la validation.
+ * 
+ * Les lectures getAll*, get*ById et getVoituresByClientId(s) peuvent aller à une réplique
+ * (ReadRouting.replicaRead()) ; un chargement du cache qui suit de moins de la fenêtre de lecture
+ * de ses écritures une modification faite ici lit la primaire.
  */
+@Slf4j
 @Service
+@Profile("!reactive")
 public class VoitureService {
 
     /**
@@ -23,13 +72,186 @@ public class VoitureService {
     @Autowired
     private VoitureRepository voitureRepository;
 
+    /**
+     * Repository JDBC pour la lecture en streaming
+     */
+    @Autowired
+    private VoitureJdbcRepository voitureJdbcRepository;
+
+    /**
+     * Cache des lectures par ID et par client
+     */
+    @Autowired
+    private VoitureCache voitureCache;
+
+    /**
+     * Index mémoire de la recherche par préfixe
+     */
+    @Autowired
+    private VoitureSearchIndex voitureSearchIndex;
+
+    /**
+     * Copie en colonnes pour les statistiques de prix, tenue à jour après chaque écriture
+     */
+    @Autowired
+    private VoitureAnalytics voitureAnalytics;
+
+    /**
+     * Import en masse depuis un fichier CSV ou NDJSON
+     */
+    @Autowired
+    private VoitureImporter voitureImporter;
+
+    /**
+     * Résumés du parc de chaque client
+     */
+    @Autowired
+    private VoitureSummaryRepository voitureSummaryRepository;
+
+    /**
+     * Transactions du PUT (lecture puis écriture) et des recalculs de résumés
+     */
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Réplique des IDs de clients pour valider clientId (absente si voiture.client-replica.enabled=false)
+     */
+    @Autowired(required = false)
+    private ClientReplica clientReplica;
+
+    /**
+     * Taille de page maximale autorisée pour la pagination par curseur
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Nombre maximal d'IDs par requête IN lors des recherches groupées
+     */
+    private static final int IN_CLAUSE_CHUNK = 1000;
+
+    /**
+     * Nombre maximal de résultats d'une recherche par préfixe
+     */
+    public static final int MAX_SEARCH_RESULTS = 100;
+
+    /**
+     * Champs modifiables par PATCH : propriété JSON -> colonne
+     */
+    private static final Map<String, String> PATCHABLE_COLUMNS = Map.of(
+            "marque", "marque",
+            "modele", "modele",
+            "couleur", "couleur",
+            "immatriculation", "immatriculation",
+            "prix", "prix",
+            "clientId", "client_id");
+
+    /**
+     * Champs qui ne peuvent pas être mis à null (colonnes NOT NULL)
+     */
+    private static final Set<String> REQUIRED_FIELDS = Set.of("marque", "modele", "immatriculation", "prix");
+
     /**
      * Récupère toutes les voitures
      * 
      * @return Liste de toutes les voitures
      */
     public List<Voiture> getAllVoitures() {
-        return voitureRepository.findAll();
+        return ReadRouting.replicaRead(voitureRepository::findAll);
+    }
+
+    /**
+     * Récupère une page de voitures après le curseur donné
+     * 
+     * @param after Le dernier ID de la page précédente (null pour la première page)
+     * @param limit Le nombre de voitures souhaité (borné à MAX_PAGE_SIZE)
+     * @return La page et le curseur suivant
+     */
+    public VoiturePage getVoituresPage(Long after, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        long cursor = after != null ? after : 0L;
+        List<Voiture> content = ReadRouting.replicaRead(
+                () -> voitureRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, size)));
+        // Page pleine : il peut rester des voitures après la dernière
+        Long nextCursor = content.size() == size ? content.get(content.size() - 1).getId() : null;
+        return new VoiturePage(content, nextCursor);
+    }
+
+    /**
+     * Parcourt toutes les voitures sans les charger en mémoire
+     * 
+     * @param consumer Traitement appliqué à chaque voiture, dans l'ordre des IDs
+     */
+    public void streamVoitures(Consumer<Voiture> consumer) {
+        voitureJdbcRepository.streamAll(consumer);
+    }
+
+    /**
+     * Recherche les voitures par préfixe d'immatriculation, de marque ou de modèle
+     * 
+     * @param query Le texte saisi
+     * @param limit Le nombre de résultats souhaité (borné à MAX_SEARCH_RESULTS)
+     * @return Les voitures trouvées, les plus pertinentes d'abord
+     */
+    public List<VoitureSuggestion> searchVoitures(String query, int limit) {
+        return voitureSearchIndex.search(query, Math.min(limit, MAX_SEARCH_RESULTS));
+    }
+
+    /**
+     * Statistiques de prix (min, max, moyenne, centiles) par groupe, calculées en mémoire
+     * 
+     * @param groupBy Champs de regroupement (marque, modele, couleur)
+     * @param percentiles Centiles demandés (entre 0 et 100)
+     * @param filters Valeur exigée par champ (marque, modele, couleur)
+     * @return Les statistiques, ou null si la copie en mémoire n'est pas encore construite
+     */
+    public PrixStatistics getPrixStatistics(List<String> groupBy, List<Double> percentiles, Map<String, String> filters) {
+        return voitureAnalytics.prixStatistics(groupBy, percentiles, filters);
+    }
+
+    /**
+     * Reconstruit la copie en mémoire des statistiques de prix à partir de la table
+     * (prise en compte immédiate des écritures des autres instances ou faites directement en SQL)
+     * 
+     * @return Le nombre de voitures copiées, ou -1 si la table n'a pas pu être lue
+     */
+    public long rebuildPrixStatistics() {
+        return voitureAnalytics.rebuild();
+    }
+
+    /**
+     * Importe un fichier de voitures par tranches, ou reprend son import après la dernière tranche validée
+     * 
+     * @param importId Identifiant de l'import choisi par l'appelant (le même pour reprendre)
+     * @param format Format du fichier (CSV avec en-tête, ou NDJSON)
+     * @param body Le contenu du fichier, lu en streaming
+     * @return L'avancement final de l'import
+     * @throws IOException si la lecture du fichier est interrompue (l'import peut être repris)
+     */
+    public VoitureImport importVoitures(String importId, VoitureImport.Format format, Reader body) throws IOException {
+        return voitureImporter.importVoitures(importId, format, body);
+    }
+
+    /**
+     * Récupère l'avancement d'un import
+     * 
+     * @param importId L'identifiant de l'import
+     * @return L'avancement, ou null si l'import n'existe pas
+     */
+    public VoitureImport getImport(String importId) {
+        return voitureImporter.getImport(importId).orElse(null);
+    }
+
+    /**
+     * Récupère une page des enregistrements rejetés d'un import
+     * 
+     * @param importId L'identifiant de l'import
+     * @param after Le dernier numéro d'enregistrement de la page précédente (0 pour la première page)
+     * @param limit Le nombre de rejets souhaité (borné à MAX_PAGE_SIZE)
+     * @return Les rejets, par numéro d'enregistrement croissant
+     */
+    public List<VoitureImportRejection> getImportRejections(String importId, long after, int limit) {
+        return voitureImporter.getRejections(importId, after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
     }
 
     /**
@@ -39,8 +261,9 @@ public class VoitureService {
      * @return La voiture trouvée ou null si non trouvée
      */
     public Voiture getVoitureById(Long id) {
-        Optional<Voiture> voiture = voitureRepository.findById(id);
-        return voiture.orElse(null);
+        return voitureCache.getById(id, key -> voitureCache.isRecentlyInvalidatedVoiture(key)
+                ? voitureRepository.findById(key).orElse(null)
+                : ReadRouting.replicaRead(() -> voitureRepository.findById(key).orElse(null)));
     }
 
     /**
@@ -50,7 +273,205 @@ public class VoitureService {
      * @return Liste des voitures du client
      */
     public List<Voiture> getVoituresByClientId(Long clientId) {
-        return voitureRepository.findByClientId(clientId);
+        return getFleetByClientId(clientId, null).voitures();
+    }
+
+    /**
+     * Récupère les voitures d'un client avec la version de leur liste (ETag de GET /client/{clientId})
+     * 
+     * @param clientId L'identifiant du client
+     * @param minVersion Version déjà lue par getFleetVersion (null : toute version) ; une liste en cache
+     *                   plus ancienne est rechargée
+     * @return Les voitures du client et la version de leur liste
+     */
+    public ClientFleet getFleetByClientId(Long clientId, Long minVersion) {
+        return voitureCache.getFleetByClientId(clientId, minVersion, key -> loadFleetByClientId(key, minVersion));
+    }
+
+    /**
+     * Récupère uniquement la version de la liste des voitures d'un client
+     * 
+     * Compteur voiture_client_versions, incrémenté par les triggers de voitures à chaque écriture
+     * (ancien et nouveau propriétaire) : une lecture de clé primaire, sans charger les voitures.
+     * 
+     * @param clientId L'identifiant du client
+     * @return La version (0 si aucune voiture du client n'a jamais été écrite)
+     */
+    public long getFleetVersion(Long clientId) {
+        return voitureRepository.findFleetVersionByClientId(clientId).orElse(0L);
+    }
+
+    /**
+     * Chargement des voitures d'un client pour le cache : sur la primaire si la liste vient d'être
+     * invalidée par une écriture, sinon sur une réplique ; une liste lue sur une réplique qui contient
+     * une voiture modifiée récemment (PATCH ou DELETE, qui n'invalident que la voiture), ou plus ancienne
+     * que la version minVersion déjà lue, est relue sur la primaire
+     */
+    private ClientFleet loadFleetByClientId(Long clientId, Long minVersion) {
+        if (!voitureCache.isRecentlyInvalidatedClient(clientId)) {
+            ClientFleet fleet = ReadRouting.replicaRead(() -> voitureRepository.findFleetByClientId(clientId));
+            if ((minVersion == null || fleet.version() >= minVersion) && !containsRecentlyInvalidated(fleet.voitures())) {
+                return fleet;
+            }
+        }
+        return voitureRepository.findFleetByClientId(clientId);
+    }
+
+    private boolean containsRecentlyInvalidated(List<Voiture> voitures) {
+        return voitures.stream().anyMatch(voiture -> voitureCache.isRecentlyInvalidatedVoiture(voiture.getId()));
+    }
+
+    /**
+     * Récupère les voitures de plusieurs clients en une seule fois
+     * 
+     * Les listes déjà en cache sont réutilisées ; les autres sont chargées par des requêtes
+     * IN découpées en paquets de IN_CLAUSE_CHUNK IDs (au lieu d'une requête par client).
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les voitures par client, dans l'ordre des IDs demandés (liste vide si aucune voiture)
+     */
+    public Map<Long, List<Voiture>> getVoituresByClientIds(Collection<Long> clientIds) {
+        Set<Long> keys = new LinkedHashSet<>(clientIds);
+        keys.remove(null);
+        Map<Long, List<Voiture>> cached = voitureCache.getByClientIds(keys, this::loadVoituresByClientIds);
+        Map<Long, List<Voiture>> result = new LinkedHashMap<>();
+        for (Long clientId : keys) {
+            result.put(clientId, cached.getOrDefault(clientId, List.of()));
+        }
+        return result;
+    }
+
+    private Map<Long, List<Voiture>> loadVoituresByClientIds(Set<? extends Long> clientIds) {
+        Set<Long> fromPrimary = new HashSet<>();
+        Set<Long> fromReplica = new HashSet<>();
+        for (Long clientId : clientIds) {
+            (voitureCache.isRecentlyInvalidatedClient(clientId) ? fromPrimary : fromReplica).add(clientId);
+        }
+        Map<Long, List<Voiture>> grouped = ReadRouting.replicaRead(() -> findVoituresByClientIds(fromReplica));
+        grouped.forEach((clientId, voitures) -> {
+            if (containsRecentlyInvalidated(voitures)) {
+                fromPrimary.add(clientId);
+            }
+        });
+        if (!fromPrimary.isEmpty()) {
+            grouped.putAll(findVoituresByClientIds(fromPrimary));
+        }
+        return grouped;
+    }
+
+    private Map<Long, List<Voiture>> findVoituresByClientIds(Set<Long> clientIds) {
+        Map<Long, List<Voiture>> grouped = new HashMap<>();
+        for (Long clientId : clientIds) {
+            grouped.put(clientId, new ArrayList<>());
+        }
+        List<Long> ids = new ArrayList<>(clientIds);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+            for (Voiture voiture : voitureRepository.findByClientIdIn(chunk)) {
+                grouped.get(voiture.getClientId()).add(voiture);
+            }
+        }
+        grouped.replaceAll((clientId, voitures) -> List.copyOf(voitures));
+        return grouped;
+    }
+
+    /**
+     * Récupère uniquement la version d'une voiture
+     * 
+     * @param id L'identifiant de la voiture
+     * @return La version ou null si la voiture n'existe pas
+     */
+    public Long getVoitureVersion(Long id) {
+        return voitureRepository.findVersionById(id).orElse(null);
+    }
+
+    /**
+     * Récupère le résumé du parc d'un client (nombre de voitures, prix total et moyen, détail par marque)
+     * 
+     * Lu dans les résumés précalculés : une ligne par marque, quel que soit le nombre de voitures.
+     * 
+     * @param clientId L'identifiant du client
+     * @return Le résumé (0 voiture si le client n'en a aucune)
+     */
+    public FleetSummary getFleetSummary(Long clientId) {
+        return getFleetSummaries(List.of(clientId)).get(clientId);
+    }
+
+    /**
+     * Récupère les résumés du parc de plusieurs clients, par requêtes IN de IN_CLAUSE_CHUNK clients
+     * 
+     * @param clientIds Les identifiants des clients
+     * @return Les résumés par client, dans l'ordre des IDs demandés
+     */
+    public Map<Long, FleetSummary> getFleetSummaries(Collection<Long> clientIds) {
+        Set<Long> keys = new LinkedHashSet<>(clientIds);
+        keys.remove(null);
+        Map<Long, List<SummaryRow>> rowsByClient = new HashMap<>();
+        List<Long> ids = new ArrayList<>(keys);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK, ids.size()));
+            for (SummaryRow row : voitureSummaryRepository.findByClientIds(chunk)) {
+                rowsByClient.computeIfAbsent(row.clientId(), key -> new ArrayList<>()).add(row);
+            }
+        }
+        Map<Long, FleetSummary> result = new LinkedHashMap<>();
+        for (Long clientId : keys) {
+            result.put(clientId, fleetSummary(clientId, rowsByClient.getOrDefault(clientId, List.of())));
+        }
+        return result;
+    }
+
+    private static FleetSummary fleetSummary(Long clientId, List<SummaryRow> rows) {
+        Map<String, FleetSummary.MarqueSummary> marques = new TreeMap<>();
+        long voitureCount = 0;
+        BigDecimal prixTotal = BigDecimal.ZERO;
+        for (SummaryRow row : rows) {
+            marques.put(row.marque(), new FleetSummary.MarqueSummary(row.voitureCount(), row.prixTotal(),
+                    average(row.prixTotal(), row.voitureCount())));
+            voitureCount += row.voitureCount();
+            prixTotal = prixTotal.add(row.prixTotal());
+        }
+        return new FleetSummary(clientId, voitureCount, prixTotal, average(prixTotal, voitureCount), marques);
+    }
+
+    private static BigDecimal average(BigDecimal total, long count) {
+        return count == 0 ? null : total.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Réconcilie les résumés avec la table voitures
+     * 
+     * Les résumés attendus (GROUP BY client et marque sur voitures) sont comparés aux résumés stockés ;
+     * seuls les clients qui diffèrent sont recalculés, chacun dans sa propre transaction
+     * (voir VoitureSummaryRepository.recount), sans bloquer les écritures des autres clients.
+     * 
+     * @return Le nombre de clients comparés et corrigés
+     */
+    public FleetSummaryRebuild rebuildFleetSummaries() {
+        long start = System.nanoTime();
+        Map<SummaryKey, SummaryRow> expected = voitureSummaryRepository.countVoitures();
+        Map<SummaryKey, SummaryRow> actual = voitureSummaryRepository.findAll();
+        Set<Long> clients = new HashSet<>();
+        Set<Long> different = new LinkedHashSet<>();
+        for (Map.Entry<SummaryKey, SummaryRow> entry : expected.entrySet()) {
+            clients.add(entry.getKey().clientId());
+            if (!entry.getValue().sameTotals(actual.get(entry.getKey()))) {
+                different.add(entry.getKey().clientId());
+            }
+        }
+        for (SummaryKey key : actual.keySet()) {
+            clients.add(key.clientId());
+            if (!expected.containsKey(key)) {
+                different.add(key.clientId());
+            }
+        }
+        for (Long clientId : different) {
+            transactionTemplate.executeWithoutResult(status -> voitureSummaryRepository.recount(clientId));
+        }
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Résumés de parc réconciliés : {} client(s) comparé(s), {} corrigé(s) en {} ms",
+                clients.size(), different.size(), durationMillis);
+        return new FleetSummaryRebuild(clients.size(), different.size(), durationMillis);
     }
 
     /**
@@ -58,9 +479,16 @@ public class VoitureService {
      * 
      * @param voiture La voiture à créer
      * @return La voiture créée avec son ID généré
+     * @throws UnknownClientException si le client de la voiture n'existe pas
      */
     public Voiture createVoiture(Voiture voiture) {
-        return voitureRepository.save(voiture);
+        checkClient(voiture.getClientId());
+        voiture.setVersion(null); // Version initialisée par Hibernate
+        Voiture created = voitureRepository.save(voiture);
+        voitureCache.invalidateClient(created.getClientId());
+        voitureSearchIndex.index(created);
+        voitureAnalytics.upserted(created);
+        return created;
     }
 
     /**
@@ -69,16 +497,66 @@ public class VoitureService {
      * @param id L'identifiant de la voiture à mettre à jour
      * @param voiture Les nouvelles données de la voiture
      * @return La voiture mise à jour ou null si non trouvée
+     * @throws UnknownClientException si le client de la voiture n'existe pas
      */
     public Voiture updateVoiture(Long id, Voiture voiture) {
-        Optional<Voiture> existingVoiture = voitureRepository.findById(id);
-        if (existingVoiture.isPresent()) {
+        checkClient(voiture.getClientId());
+        Replaced replaced = transactionTemplate.execute(status -> {
+            Optional<Voiture> existingVoiture = voitureRepository.findById(id);
+            if (existingVoiture.isEmpty()) {
+                return null;
+            }
+            // Lu avant save() : l'entité lue reçoit les nouvelles valeurs (même contexte de persistance)
+            Voiture existing = existingVoiture.get();
+            Long previousClientId = existing.getClientId();
             voiture.setId(id); // S'assurer que l'ID est correct
-            return voitureRepository.save(voiture);
+            voiture.setVersion(existing.getVersion()); // Le PUT remplace la version courante
+            return new Replaced(previousClientId, voitureRepository.save(voiture));
+        });
+        if (replaced != null) {
+            Voiture updated = replaced.updated();
+            // Invalider l'ancienne et la nouvelle liste en cas de changement de propriétaire
+            voitureCache.invalidateVoiture(id);
+            voitureCache.invalidateClient(replaced.previousClientId());
+            voitureCache.invalidateClient(updated.getClientId());
+            voitureSearchIndex.index(updated);
+            voitureAnalytics.upserted(updated);
+            return updated;
         }
         return null;
     }
 
+    /**
+     * Modifie uniquement les champs donnés d'une voiture, en une seule requête UPDATE
+     * 
+     * La voiture n'est pas relue : le résumé du parc est corrigé par le trigger de l'UPDATE, et
+     * les listes en cache qui contiennent la voiture sont rechargées à leur prochaine lecture
+     * (VoitureCache.invalidateVoiture), sans avoir à connaître son propriétaire précédent.
+     * 
+     * @param id L'identifiant de la voiture
+     * @param changes Les champs modifiés (propriété JSON -> nouvelle valeur, null pour effacer)
+     * @param expectedVersion La version attendue (If-Match), ou null
+     * @return true si modifiée, false si non trouvée
+     * @throws InvalidPatchException si un champ est inconnu, non modifiable ou invalide
+     * @throws VersionConflictException si la voiture existe mais n'a plus la version attendue
+     * @throws UnknownClientException si le nouveau client n'existe pas
+     */
+    public boolean patchVoiture(Long id, Map<String, Object> changes, Long expectedVersion) {
+        Map<String, Object> columns = patchColumns(changes);
+        checkClient((Long) columns.get("client_id"));
+        if (voitureJdbcRepository.update(id, columns, expectedVersion) == 0) {
+            return versionConflict(id, expectedVersion);
+        }
+        voitureCache.invalidateVoiture(id);
+        if (columns.get("client_id") != null) {
+            voitureCache.invalidateClient((Long) columns.get("client_id"));
+        }
+        voitureSearchIndex.patch(id, (String) changes.get("immatriculation"),
+                (String) changes.get("marque"), (String) changes.get("modele"));
+        voitureAnalytics.patched(id, columns);
+        return true;
+    }
+
     /**
      * Supprime une voiture
      * 
@@ -86,10 +564,101 @@ public class VoitureService {
      * @return true si supprimée, false si non trouvée
      */
     public boolean deleteVoiture(Long id) {
-        if (voitureRepository.existsById(id)) {
-            voitureRepository.deleteById(id);
-            return true;
+        return deleteVoiture(id, null);
+    }
+
+    /**
+     * Supprime une voiture en une seule requête DELETE
+     * 
+     * La voiture est retirée du résumé du parc de son client par le trigger du DELETE.
+     * 
+     * @param id L'identifiant de la voiture à supprimer
+     * @param expectedVersion La version attendue (If-Match), ou null
+     * @return true si supprimée, false si non trouvée
+     * @throws VersionConflictException si la voiture existe mais n'a plus la version attendue
+     */
+    public boolean deleteVoiture(Long id, Long expectedVersion) {
+        if (voitureJdbcRepository.delete(id, expectedVersion) == 0) {
+            return versionConflict(id, expectedVersion);
+        }
+        voitureCache.invalidateVoiture(id);
+        voitureSearchIndex.remove(id);
+        voitureAnalytics.removed(id);
+        return true;
+    }
+
+    /**
+     * Aucune ligne modifiée : voiture absente (retourne false), ou présente avec une autre version
+     * que celle attendue (exception). La version n'est relue que dans ce cas.
+     */
+    private boolean versionConflict(Long id, Long expectedVersion) {
+        if (expectedVersion != null) {
+            Optional<Long> version = voitureRepository.findVersionById(id);
+            if (version.isPresent()) {
+                throw new VersionConflictException("Version attendue " + expectedVersion
+                        + ", version actuelle " + version.get());
+            }
         }
         return false;
     }
+
+    /**
+     * Valide le corps d'un PATCH et le convertit en colonnes SQL
+     */
+    private static Map<String, Object> patchColumns(Map<String, Object> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new InvalidPatchException("Aucun champ à modifier");
+        }
+        Map<String, Object> columns = new LinkedHashMap<>();
+        changes.forEach((field, value) -> {
+            String column = PATCHABLE_COLUMNS.get(field);
+            if (column == null) {
+                throw new InvalidPatchException("Champ inconnu ou non modifiable : " + field);
+            }
+            if (value == null && REQUIRED_FIELDS.contains(field)) {
+                throw new InvalidPatchException("Le champ " + field + " est obligatoire");
+            }
+            columns.put(column, patchValue(field, value));
+        });
+        return columns;
+    }
+
+    /**
+     * Vérifie dans la réplique des clients qu'un client existe (aucune vérification pour null
+     * ou si la réplique est désactivée)
+     */
+    private void checkClient(Long clientId) {
+        if (clientId != null && clientReplica != null && !clientReplica.exists(clientId)) {
+            throw new UnknownClientException("Client inconnu : " + clientId);
+        }
+    }
+
+    private static Object patchValue(String field, Object value) {
+        if (value == null) {
+            return null;
+        }
+        switch (field) {
+            case "prix":
+                if (value instanceof Number number) {
+                    return number.doubleValue();
+                }
+                break;
+            case "clientId":
+                if (value instanceof Integer || value instanceof Long) {
+                    return ((Number) value).longValue();
+                }
+                break;
+            default:
+                if (value instanceof String) {
+                    return value;
+                }
+        }
+        throw new InvalidPatchException("Valeur invalide pour le champ " + field + " : " + value);
+    }
+
+    /**
+     * Résultat d'un PUT : ancien propriétaire et voiture enregistrée
+     */
+    private record Replaced(Long previousClientId, Voiture updated) {
+    }
 }
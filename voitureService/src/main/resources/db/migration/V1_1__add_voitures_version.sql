@@ -0,0 +1,3 @@
+-- Version de chaque voiture (verrouillage optimiste, ETag "v<version>")
+-- Absente des bases créées par Hibernate avant les migrations : les voitures existantes partent de 0
+ALTER TABLE voitures ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
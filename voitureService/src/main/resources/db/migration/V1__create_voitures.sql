@@ -0,0 +1,14 @@
+-- Schéma initial de la table voitures (identique à celui généré auparavant par Hibernate)
+-- IF NOT EXISTS : une base existante créée par ddl-auto=update est reprise telle quelle,
+-- la colonne version lui est ajoutée par V1_1
+CREATE TABLE IF NOT EXISTS voitures (
+    id              BIGINT       NOT NULL AUTO_INCREMENT,
+    marque          VARCHAR(255) NOT NULL,
+    modele          VARCHAR(255) NOT NULL,
+    couleur         VARCHAR(255),
+    immatriculation VARCHAR(255) NOT NULL,
+    prix            DOUBLE       NOT NULL,
+    client_id       BIGINT,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_voitures_immatriculation UNIQUE (immatriculation)
+) ENGINE = InnoDB;
@@ -0,0 +1,7 @@
+-- Index utilisés par les requêtes du service
+
+-- findByClientId, findByClientIdIn
+CREATE INDEX idx_voitures_client_id_version ON voitures (client_id, version);
+
+-- Recherche par marque, ou par marque et modèle
+CREATE INDEX idx_voitures_marque_modele ON voitures (marque, modele);
@@ -0,0 +1,18 @@
+-- Résumé du parc de chaque client (read model tenu à jour à chaque écriture par les triggers de db/vendor)
+-- Une ligne par client et par marque : GET /api/voitures/client/{clientId}/summary lit les lignes
+-- d'un client par la clé primaire, sans parcourir ses voitures.
+-- prix_total est en DECIMAL : les ajouts et retraits successifs ne cumulent pas d'erreur d'arrondi.
+CREATE TABLE IF NOT EXISTS voiture_client_summaries (
+    client_id     BIGINT         NOT NULL,
+    marque        VARCHAR(255)   NOT NULL,
+    voiture_count BIGINT         NOT NULL,
+    prix_total    DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (client_id, marque)
+) ENGINE = InnoDB;
+
+-- Remplissage initial à partir des voitures existantes (les voitures sans client ne sont pas comptées)
+INSERT INTO voiture_client_summaries (client_id, marque, voiture_count, prix_total)
+SELECT client_id, marque, COUNT(*), SUM(CAST(prix AS DECIMAL(19, 2)))
+FROM voitures
+WHERE client_id IS NOT NULL
+GROUP BY client_id, marque;
@@ -0,0 +1,27 @@
+-- Imports en masse de voitures (PUT /api/voitures/imports/{importId})
+-- record_count est le nombre d'enregistrements du fichier déjà traités (importés ou rejetés) :
+-- il est modifié dans la transaction de chaque tranche, une reprise repart donc juste après
+-- la dernière tranche validée.
+CREATE TABLE IF NOT EXISTS voiture_imports (
+    id             VARCHAR(64)   NOT NULL,
+    format         VARCHAR(16)   NOT NULL,
+    header         VARCHAR(1024),
+    status         VARCHAR(16)   NOT NULL,
+    record_count   BIGINT        NOT NULL DEFAULT 0,
+    imported_count BIGINT        NOT NULL DEFAULT 0,
+    rejected_count BIGINT        NOT NULL DEFAULT 0,
+    error          VARCHAR(1024),
+    created_at     TIMESTAMP     NOT NULL,
+    updated_at     TIMESTAMP     NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- Enregistrements rejetés d'un import (numérotés à partir de 1, en-tête CSV exclu), dans la limite
+-- de voiture.import.max-stored-rejections par import ; le contenu est tronqué à 1024 caractères
+CREATE TABLE IF NOT EXISTS voiture_import_rejections (
+    import_id     VARCHAR(64)   NOT NULL,
+    record_number BIGINT        NOT NULL,
+    message       VARCHAR(255)  NOT NULL,
+    content       VARCHAR(1024),
+    PRIMARY KEY (import_id, record_number)
+) ENGINE = InnoDB;
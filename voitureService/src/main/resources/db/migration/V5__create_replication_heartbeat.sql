@@ -0,0 +1,10 @@
+-- Battement de réplication (une seule ligne) : écrit sur la primaire toutes les
+-- read-replicas.check-interval et relu sur chaque réplique ; le retard d'une réplique est l'âge
+-- du battement qu'elle a reçu (millisecondes depuis l'époque, 0 avant le premier battement)
+CREATE TABLE IF NOT EXISTS replication_heartbeat (
+    id   INT    NOT NULL,
+    beat BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO replication_heartbeat (id, beat) VALUES (1, 0);
@@ -0,0 +1,10 @@
+-- Version de la liste des voitures de chaque client (ETag de GET /api/voitures/client/{clientId})
+-- Incrémentée par les triggers de db/vendor (V8) à chaque INSERT, UPDATE ou DELETE d'une voiture,
+-- pour l'ancien et le nouveau propriétaire : If-None-Match se vérifie par une lecture de clé primaire,
+-- sans charger les voitures. Les lignes ne sont jamais supprimées : une version ne revient jamais
+-- en arrière, même quand le client n'a plus de voiture. Un client sans ligne est en version 0.
+CREATE TABLE IF NOT EXISTS voiture_client_versions (
+    client_id BIGINT NOT NULL,
+    version   BIGINT NOT NULL,
+    PRIMARY KEY (client_id)
+) ENGINE = InnoDB;
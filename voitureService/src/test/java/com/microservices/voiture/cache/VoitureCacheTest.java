@@ -0,0 +1,100 @@
+package com.microservices.voiture.cache;
+
+import com.microservices.voiture.model.ClientFleet;
+import com.microservices.voiture.model.Voiture;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Invalidation des listes par client quand seule la voiture modifiée est connue (PATCH, DELETE),
+ * et rechargement d'une liste plus ancienne que la version lue en base (If-None-Match)
+ */
+class VoitureCacheTest {
+
+    private final VoitureCache cache = new VoitureCache(100, Duration.ofMinutes(5), false, Duration.ofSeconds(5),
+            new SimpleMeterRegistry());
+
+    @Test
+    void listeRechargeeApresInvalidationDUneDeSesVoitures() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getFleetByClientId(1L, null, clientId -> load(loads, voiture(10L, clientId), voiture(11L, clientId)));
+        cache.getFleetByClientId(2L, null, clientId -> load(loads, voiture(20L, clientId)));
+        assertThat(loads).hasValue(2);
+
+        cache.invalidateVoiture(11L);
+
+        cache.getFleetByClientId(1L, null, clientId -> load(loads, voiture(10L, clientId)));
+        assertThat(loads).as("liste du client 1 rechargée").hasValue(3);
+        assertThat(cache.getFleetByClientId(1L, null, clientId -> load(loads)).voitures())
+                .extracting(Voiture::getId).containsExactly(10L);
+        cache.getFleetByClientId(2L, null, clientId -> load(loads));
+        assertThat(loads).as("liste du client 2 toujours en cache").hasValue(3);
+    }
+
+    @Test
+    void chargementGroupeIgnoreLesListesPerimees() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getFleetByClientId(3L, null, clientId -> load(loads, voiture(30L, clientId)));
+        cache.invalidateVoiture(30L);
+
+        Map<Long, List<Voiture>> grouped = cache.getByClientIds(Set.of(3L), missing -> {
+            loads.incrementAndGet();
+            return Map.of(3L, List.of());
+        });
+        assertThat(loads).hasValue(2);
+        assertThat(grouped.get(3L)).isEmpty();
+        assertThat(cache.getByClientIds(Set.of(3L), missing -> {
+            loads.incrementAndGet();
+            return Map.of(3L, List.of());
+        }).get(3L)).isEmpty();
+        assertThat(loads).as("liste chargée par lot mise en cache").hasValue(2);
+    }
+
+    @Test
+    void listePlusAncienneQueLaVersionLueRechargee() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getFleetByClientId(4L, null, clientId -> load(loads, 5, voiture(40L, clientId)));
+
+        assertThat(cache.getFleetByClientId(4L, 5L, clientId -> load(loads, 6)).version()).isEqualTo(5L);
+        assertThat(loads).as("version en cache à jour").hasValue(1);
+
+        ClientFleet reloaded = cache.getFleetByClientId(4L, 6L, clientId -> load(loads, 6));
+        assertThat(loads).as("écriture d'une autre instance : liste rechargée").hasValue(2);
+        assertThat(reloaded.version()).isEqualTo(6L);
+        assertThat(reloaded.voitures()).isEmpty();
+    }
+
+    @Test
+    void listeChargeeParLotRechargeePourSaVersion() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getByClientIds(Set.of(5L), missing -> {
+            loads.incrementAndGet();
+            return Map.of(5L, List.of(voiture(50L, 5L)));
+        });
+
+        assertThat(cache.getFleetByClientId(5L, null, clientId -> load(loads, 3, voiture(50L, clientId))).version())
+                .isEqualTo(3L);
+        assertThat(loads).hasValue(2);
+    }
+
+    private static ClientFleet load(AtomicInteger loads, Voiture... voitures) {
+        return load(loads, 0, voitures);
+    }
+
+    private static ClientFleet load(AtomicInteger loads, long version, Voiture... voitures) {
+        loads.incrementAndGet();
+        return new ClientFleet(version, List.of(voitures));
+    }
+
+    private static Voiture voiture(Long id, Long clientId) {
+        return new Voiture(id, "Renault", "Clio", "Rouge", "AA-" + id, 15_000.0, clientId, 0L);
+    }
+}
@@ -0,0 +1,58 @@
+package com.microservices.voiture.config;
+
+import com.microservices.voiture.model.FleetSummary;
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.service.VoitureService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reprise d'une base créée par Hibernate (ddl-auto=update) avant les migrations Flyway
+ * 
+ * La table voitures est créée avec le schéma généré alors par Hibernate (sans colonne version)
+ * avant le démarrage du service : Flyway adopte la base en version 0, applique les migrations,
+ * puis Hibernate valide les entités (ddl-auto=validate).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "test.database=legacy_voitures")
+@ActiveProfiles("test")
+class LegacySchemaMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:legacy_voitures;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private VoitureService voitureService;
+
+    @DynamicPropertySource
+    static void legacySchema(DynamicPropertyRegistry registry) {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbc.execute("create table voitures (id bigint not null auto_increment, client_id bigint, couleur varchar(255), "
+                + "immatriculation varchar(255) not null, marque varchar(255) not null, modele varchar(255) not null, "
+                + "prix float(53) not null, primary key (id)) engine=InnoDB");
+        jdbc.execute("alter table voitures add constraint UK_immatriculation unique (immatriculation)");
+        jdbc.update("insert into voitures (client_id, couleur, immatriculation, marque, modele, prix) "
+                + "values (7, 'Rouge', 'LG-001-AA', 'Renault', 'Clio', 15000), (7, 'Bleu', 'LG-002-AA', 'Renault', 'Megane', 22000)");
+    }
+
+    @Test
+    void voituresExistantesEnVersionZero() {
+        Voiture existing = voitureService.getVoituresByClientId(7L).get(0);
+        assertThat(existing.getVersion()).isZero();
+
+        existing.setCouleur("Vert");
+        assertThat(voitureService.updateVoiture(existing.getId(), existing).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void resumesRemplisDepuisLesVoituresExistantes() {
+        FleetSummary summary = voitureService.getFleetSummary(7L);
+        assertThat(summary.getVoitureCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,226 @@
+package com.microservices.voiture.config;
+
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.service.VoitureService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routage des lectures vers une réplique, avec deux bases H2 en mémoire : la primaire du service
+ * et une "réplique" tenue à jour par le test (copie des tables à la demande, battement de
+ * réplication recopié toutes les 100 ms tant que la réplication n'est pas suspendue)
+ * 
+ * La réplique contient des lignes marquées (modele = "réplique") : on voit ainsi quelle base a servi
+ * chaque lecture.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "test.database=routing_voitures",
+        "voiture.read-replicas.enabled=true",
+        "voiture.read-replicas.pool-size=4",
+        "voiture.read-replicas.max-lag=1s",
+        "voiture.read-replicas.check-interval=200ms",
+        "voiture.read-replicas.read-your-writes-window=2s"})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadReplicaRoutingTest {
+
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing_voitures_replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int VOITURES = 1000;
+    private static final int CLIENTS = 50;
+    private static final String REPLICA_MARK = "réplique";
+
+    @Autowired
+    private VoitureService voitureService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate primary;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private volatile boolean paused;
+    private Thread heartbeat;
+
+    /**
+     * Crée la base de la réplique (mêmes migrations que la primaire) avant le démarrage du contexte
+     */
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/migration").load().migrate();
+        registry.add("voiture.read-replicas.urls", () -> REPLICA_URL);
+    }
+
+    @BeforeAll
+    void startReplication() {
+        List<Object[]> rows = new ArrayList<>(VOITURES);
+        for (int i = 0; i < VOITURES; i++) {
+            rows.add(new Object[]{"Renault", "Clio", "Rouge", String.format("AB-%03d-%02d", i / 100, i % 100),
+                    10_000.0 + i, (long) (i % CLIENTS + 1)});
+        }
+        primary.batchUpdate("INSERT INTO voitures (marque, modele, couleur, immatriculation, prix, client_id, version) "
+                + "VALUES (?, ?, ?, ?, ?, ?, 0)", rows);
+        copy("voitures");
+        replica.update("UPDATE voitures SET modele = ?", REPLICA_MARK);
+
+        heartbeat = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!paused) {
+                    Long beat = primary.queryForObject("SELECT beat FROM replication_heartbeat WHERE id = 1", Long.class);
+                    replica.update("UPDATE replication_heartbeat SET beat = ? WHERE id = 1", beat);
+                }
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "replication-heartbeat");
+        heartbeat.setDaemon(true);
+        heartbeat.start();
+    }
+
+    @AfterAll
+    void stopReplication() {
+        heartbeat.interrupt();
+    }
+
+    @BeforeEach
+    void replicaUpToDate() {
+        paused = false;
+        awaitTrue(() -> replicaLag() <= 1.0);
+    }
+
+    @Test
+    void readsGoToUpToDateReplica() {
+        double replicaReads = reads("replica-1");
+
+        assertThat(voitureService.getAllVoitures()).isNotEmpty().allMatch(ReadReplicaRoutingTest::fromReplica);
+        assertThat(voitureService.getVoituresPage(null, 100).getContent()).isNotEmpty()
+                .allMatch(ReadReplicaRoutingTest::fromReplica);
+        assertThat(fromReplica(voitureService.getVoitureById(500L))).isTrue();
+        assertThat(voitureService.getVoituresByClientId(7L)).isNotEmpty().allMatch(ReadReplicaRoutingTest::fromReplica);
+        assertThat(voitureService.getVoituresByClientIds(List.of(8L, 9L)).values())
+                .allSatisfy(voitures -> assertThat(voitures).isNotEmpty().allMatch(ReadReplicaRoutingTest::fromReplica));
+        assertThat(reads("replica-1")).isGreaterThan(replicaReads);
+    }
+
+    @Test
+    void replicaReadsUseTheReplicaBulkhead() {
+        long replicaPermits = bulkheadWaits("replica-1");
+
+        voitureService.getVoitureById(400L);
+
+        assertThat(bulkheadWaits("replica-1")).isGreaterThan(replicaPermits);
+        Gauge limit = meterRegistry.find("db.bulkhead.limit").tag("pool", "replica-1").gauge();
+        assertThat(limit).isNotNull();
+        assertThat(limit.value()).isEqualTo(4.0);
+    }
+
+    @Test
+    void cacheReloadAfterWriteReadsThePrimary() {
+        Voiture voiture = voitureService.getVoitureById(1L);
+        voiture.setModele("Modifiée");
+        voitureService.updateVoiture(1L, voiture);
+
+        assertThat(voitureService.getVoitureById(1L).getModele()).isEqualTo("Modifiée");
+        assertThat(voitureService.getVoituresByClientId(voiture.getClientId()))
+                .anyMatch(v -> v.getId() == 1L && "Modifiée".equals(v.getModele()));
+
+        // Voitures 2 et 3 : listes de leurs propriétaires pas encore en cache, propriétaire non relu par le PATCH
+        voitureService.patchVoiture(2L, Map.of("couleur", "Vert"), null);
+        voitureService.patchVoiture(3L, Map.of("couleur", "Vert"), null);
+        Long owner2 = primary.queryForObject("SELECT client_id FROM voitures WHERE id = 2", Long.class);
+        Long owner3 = primary.queryForObject("SELECT client_id FROM voitures WHERE id = 3", Long.class);
+
+        assertThat(voitureService.getVoituresByClientId(owner2))
+                .anyMatch(v -> v.getId() == 2L && "Vert".equals(v.getCouleur()));
+        assertThat(voitureService.getVoituresByClientIds(List.of(owner3)).get(owner3))
+                .anyMatch(v -> v.getId() == 3L && "Vert".equals(v.getCouleur()));
+        assertThat(fromReplica(voitureService.getVoitureById(600L))).isTrue();
+    }
+
+    @Test
+    void laggingReplicaIsBypassedUntilItCatchesUp() {
+        paused = true;
+        awaitTrue(() -> !(replicaLag() <= 1.0));
+        double laggingReads = reads("primary");
+
+        assertThat(voitureService.getAllVoitures()).noneMatch(ReadReplicaRoutingTest::fromReplica);
+        assertThat(reads("primary")).isGreaterThan(laggingReads);
+
+        paused = false;
+        awaitTrue(() -> replicaLag() <= 1.0);
+
+        assertThat(voitureService.getAllVoitures()).isNotEmpty().allMatch(ReadReplicaRoutingTest::fromReplica);
+    }
+
+    /**
+     * Recopie toute la table de la primaire sur la réplique
+     */
+    private void copy(String table) {
+        List<Map<String, Object>> rows = primary.queryForList("SELECT * FROM " + table);
+        replica.update("DELETE FROM " + table);
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + "?, ".repeat(columns.size() - 1) + "?)";
+        replica.batchUpdate(sql, rows.stream().map(row -> columns.stream().map(row::get).toArray()).toList());
+    }
+
+    /**
+     * Retard mesuré de la réplique en secondes (NaN tant qu'il est inconnu)
+     */
+    private double replicaLag() {
+        Gauge gauge = meterRegistry.find("db.replica.lag").tag("replica", "replica-1").gauge();
+        return gauge != null ? gauge.value() : Double.NaN;
+    }
+
+    private double reads(String target) {
+        return meterRegistry.find("db.routing.reads").tag("target", target).counters().stream()
+                .mapToDouble(Counter::count).sum();
+    }
+
+    private long bulkheadWaits(String pool) {
+        Timer timer = meterRegistry.find("db.bulkhead.wait").tag("pool", pool).timer();
+        return timer != null ? timer.count() : 0;
+    }
+
+    private static boolean fromReplica(Voiture voiture) {
+        return voiture != null && REPLICA_MARK.equals(voiture.getModele());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("délai dépassé").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.microservices.voiture.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Contrat de l'API sur la variante WebFlux + R2DBC (profil "reactive")
+ * 
+ * Le profil "reactive" pointe sur MySQL : la base H2 est donnée ici pour R2DBC et pour Flyway (JDBC).
+ */
+@ActiveProfiles({"reactive", "test"})
+@TestPropertySource(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///contract_reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.flyway.url=jdbc:h2:mem:contract_reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.flyway.user=sa",
+        "spring.flyway.password="})
+class ReactiveVoitureControllerContractTest extends VoitureApiContract {
+}
@@ -0,0 +1,288 @@
+package com.microservices.voiture.controller;
+
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.model.VoiturePage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contrat de l'API /api/voitures, commun aux deux variantes du service :
+ * VoitureController (Spring MVC + JPA) et ReactiveVoitureController (WebFlux + R2DBC)
+ * 
+ * Chaque sous-classe démarre le service complet sur un port aléatoire, avec sa base H2 en mémoire,
+ * et passe exactement les mêmes requêtes HTTP : mêmes chemins, mêmes codes, même JSON, mêmes ETags.
+ * Chaque test travaille sur ses propres clients (IDs distincts) : l'ordre des tests n'a pas d'importance.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureWebTestClient
+abstract class VoitureApiContract {
+
+    private static final ParameterizedTypeReference<List<Voiture>> VOITURES = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<Map<Long, List<Voiture>>> VOITURES_BY_CLIENT =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private static final AtomicLong NEXT_CLIENT = new AtomicLong(1000);
+    private static final AtomicLong NEXT_PLATE = new AtomicLong();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void healthRepondOk() {
+        webTestClient.get().uri("/api/voitures/health")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("Voiture Service is running!");
+    }
+
+    @Test
+    void createPuisGetParId() {
+        long clientId = NEXT_CLIENT.incrementAndGet();
+        Voiture created = create(clientId, "Peugeot", 18_500.0);
+
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getVersion()).isZero();
+        assertThat(created.getMarque()).isEqualTo("Peugeot");
+        assertThat(created.getClientId()).isEqualTo(clientId);
+
+        Voiture read = webTestClient.get().uri("/api/voitures/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v0\"")
+                .expectBody(Voiture.class).returnResult().getResponseBody();
+        assertThat(read).isEqualTo(created);
+    }
+
+    @Test
+    void getParIdAvecIfNoneMatch() {
+        Voiture created = create(NEXT_CLIENT.incrementAndGet(), "Renault", 12_000.0);
+
+        webTestClient.get().uri("/api/voitures/{id}", created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v0\"");
+        webTestClient.get().uri("/api/voitures/{id}", created.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v7\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v0\"");
+    }
+
+    @Test
+    void voitureInconnue() {
+        webTestClient.get().uri("/api/voitures/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri("/api/voitures/{id}", Long.MAX_VALUE)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"v0\"")
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.put().uri("/api/voitures/{id}", Long.MAX_VALUE)
+                .bodyValue(voiture(NEXT_CLIENT.incrementAndGet(), "Fiat", 9_000.0))
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/api/voitures/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void voituresDuClientAvecEtag() {
+        long clientId = NEXT_CLIENT.incrementAndGet();
+        Voiture first = create(clientId, "Citroën", 15_000.0);
+        Voiture second = create(clientId, "Dacia", 11_000.0);
+
+        List<Voiture> voitures = webTestClient.get().uri("/api/voitures/client/{clientId}", clientId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(VOITURES).returnResult().getResponseBody();
+        assertThat(voitures).containsExactlyInAnyOrder(first, second);
+        String etag = clientEtag(clientId, null, HttpStatus.OK);
+
+        assertThat(clientEtag(clientId, etag, HttpStatus.NOT_MODIFIED)).isEqualTo(etag);
+
+        // Une modification change la version de la liste : réponse complète avec le nouvel ETag
+        first.setCouleur("Bleu");
+        update(first);
+        String changed = clientEtag(clientId, etag, HttpStatus.OK);
+        assertThat(changed).isNotEqualTo(etag);
+
+        // Suppression en une requête : la liste en cache est rechargée avec la nouvelle version
+        webTestClient.delete().uri("/api/voitures/{id}", second.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        String deleted = clientEtag(clientId, changed, HttpStatus.OK);
+        assertThat(deleted).isNotEqualTo(changed);
+        assertThat(webTestClient.get().uri("/api/voitures/client/{clientId}", clientId)
+                .header(HttpHeaders.IF_NONE_MATCH, changed)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, deleted)
+                .expectBody(VOITURES).returnResult().getResponseBody())
+                .extracting(Voiture::getId).containsExactly(first.getId());
+    }
+
+    @Test
+    void clientSansVoiture() {
+        webTestClient.get().uri("/api/voitures/client/{clientId}", NEXT_CLIENT.incrementAndGet())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(VOITURES).isEqualTo(List.of());
+    }
+
+    @Test
+    void voituresDePlusieursClients() {
+        long withVoitures = NEXT_CLIENT.incrementAndGet();
+        long withoutVoiture = NEXT_CLIENT.incrementAndGet();
+        Voiture voiture = create(withVoitures, "Toyota", 21_000.0);
+
+        Map<Long, List<Voiture>> grouped = webTestClient.get()
+                .uri("/api/voitures?clientIds={a},{b}", withVoitures, withoutVoiture)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(VOITURES_BY_CLIENT).returnResult().getResponseBody();
+        assertThat(grouped).containsOnlyKeys(withVoitures, withoutVoiture);
+        assertThat(grouped.get(withVoitures)).containsExactly(voiture);
+        assertThat(grouped.get(withoutVoiture)).isEmpty();
+    }
+
+    @Test
+    void paginationParCurseur() {
+        long clientId = NEXT_CLIENT.incrementAndGet();
+        for (int i = 0; i < 3; i++) {
+            create(clientId, "Skoda", 14_000.0 + i);
+        }
+
+        VoiturePage first = page(null, 2);
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.getNextCursor()).isEqualTo(first.getContent().get(1).getId());
+
+        VoiturePage second = page(first.getNextCursor(), 2);
+        assertThat(second.getContent()).isNotEmpty()
+                .allMatch(voiture -> voiture.getId() > first.getNextCursor());
+    }
+
+    @Test
+    void toutesLesVoituresEnJsonEtEnNdjson() {
+        Voiture created = create(NEXT_CLIENT.incrementAndGet(), "Volvo", 32_000.0);
+
+        assertThat(webTestClient.get().uri("/api/voitures")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(VOITURES).returnResult().getResponseBody())
+                .contains(created);
+
+        assertThat(webTestClient.get().uri("/api/voitures")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Voiture.class).getResponseBody().collectList().block())
+                .contains(created);
+    }
+
+    @Test
+    void updateRemplaceLaVoiture() {
+        Voiture created = create(NEXT_CLIENT.incrementAndGet(), "Opel", 13_000.0);
+        created.setPrix(12_500.0);
+        created.setCouleur("Noir");
+
+        Voiture updated = update(created);
+        assertThat(updated.getId()).isEqualTo(created.getId());
+        assertThat(updated.getPrix()).isEqualTo(12_500.0);
+        assertThat(updated.getCouleur()).isEqualTo("Noir");
+        assertThat(updated.getVersion()).isEqualTo(1L);
+
+        webTestClient.get().uri("/api/voitures/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"v1\"")
+                .expectBody(Voiture.class).isEqualTo(updated);
+    }
+
+    @Test
+    void deleteSupprimeLaVoiture() {
+        long clientId = NEXT_CLIENT.incrementAndGet();
+        Voiture created = create(clientId, "Seat", 16_000.0);
+
+        webTestClient.delete().uri("/api/voitures/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/api/voitures/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.delete().uri("/api/voitures/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+        webTestClient.get().uri("/api/voitures/client/{clientId}", clientId)
+                .exchange()
+                .expectBody(VOITURES).isEqualTo(List.of());
+    }
+
+    private Voiture create(long clientId, String marque, double prix) {
+        return webTestClient.post().uri("/api/voitures")
+                .bodyValue(voiture(clientId, marque, prix))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Voiture.class).returnResult().getResponseBody();
+    }
+
+    private Voiture update(Voiture voiture) {
+        return webTestClient.put().uri("/api/voitures/{id}", voiture.getId())
+                .bodyValue(voiture)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Voiture.class).returnResult().getResponseBody();
+    }
+
+    private VoiturePage page(Long after, int limit) {
+        return webTestClient.get()
+                .uri(builder -> builder.path("/api/voitures")
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .queryParam("limit", limit)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(VoiturePage.class).returnResult().getResponseBody();
+    }
+
+    /**
+     * GET /api/voitures/client/{clientId}, avec If-None-Match si etag n'est pas null
+     * 
+     * @return L'ETag de la réponse
+     */
+    private String clientEtag(long clientId, String etag, HttpStatus expected) {
+        WebTestClient.RequestHeadersSpec<?> request = webTestClient.get().uri("/api/voitures/client/{clientId}", clientId);
+        if (etag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        return request.exchange()
+                .expectStatus().isEqualTo(expected)
+                .returnResult(Void.class).getResponseHeaders().getETag();
+    }
+
+    /**
+     * Voiture à créer, avec une immatriculation unique
+     */
+    private static Voiture voiture(long clientId, String marque, double prix) {
+        String immatriculation = String.format("CT-%03d-%02d", NEXT_PLATE.incrementAndGet(), clientId % 100);
+        return new Voiture(null, marque, "Modèle", "Gris", immatriculation, prix, clientId, null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.microservices.voiture.controller;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Contrat de l'API sur la variante Spring MVC + JPA (profil par défaut)
+ */
+@ActiveProfiles("test")
+@TestPropertySource(properties = "test.database=contract_mvc")
+class VoitureControllerContractTest extends VoitureApiContract {
+}
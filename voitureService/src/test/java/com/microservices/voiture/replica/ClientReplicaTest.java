@@ -0,0 +1,363 @@
+package com.microservices.voiture.replica;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservices.voiture.VoitureServiceApplication;
+import com.microservices.voiture.exception.ClientReplicaNotReadyException;
+import com.microservices.voiture.exception.UnknownClientException;
+import com.microservices.voiture.model.Voiture;
+import com.microservices.voiture.service.VoitureService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Réplique des IDs de clients (ClientReplica) alimentée par un journal des changements simulé
+ * (GET /api/clients/changes servi par un serveur HTTP local, avec attente longue)
+ * 
+ * Le journal contient CLIENTS clients au démarrage et ne répond qu'une fois ouvert par le premier test :
+ * la réplique est d'abord vérifiée avant son premier rattrapage.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "test.database=replica_voitures",
+        "voiture.client-replica.enabled=true",
+        "voiture.client-replica.wait=2s",
+        "voiture.client-replica.page-size=100",
+        "voiture.client-replica.checkpoint-interval=500ms",
+        "voiture.client-replica.retry-delay=100ms"})
+@ActiveProfiles("test")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ClientReplicaTest {
+
+    private static final int CLIENTS = 1000;
+
+    /**
+     * Délai maximal de propagation d'un changement par l'attente longue
+     */
+    private static final Duration PROPAGATION = Duration.ofSeconds(2);
+
+    private static final Path CHECKPOINT = Path.of("target", "client-replica-test", "client-replica.bin");
+
+    private static final ClientChangeJournal journal = new ClientChangeJournal(CLIENTS);
+    private static final ClientChangeServer server = new ClientChangeServer(journal);
+
+    private static final AtomicLong NEXT_PLATE = new AtomicLong();
+
+    @Autowired
+    private ClientReplica replica;
+
+    @Autowired
+    private VoitureService voitureService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) throws IOException {
+        Files.deleteIfExists(CHECKPOINT);
+        registry.add("voiture.client-replica.url", server::url);
+        registry.add("voiture.client-replica.checkpoint-file", CHECKPOINT::toString);
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.close();
+    }
+
+    @BeforeEach
+    void replicaReady() {
+        if (journal.isOpen()) {
+            awaitTrue(replica::isReady, Duration.ofSeconds(10));
+        }
+    }
+
+    @Test
+    @Order(1)
+    void refuseLesClientsAvantLePremierRattrapage() {
+        assertThat(replica.isReady()).isFalse();
+        assertThatThrownBy(() -> replica.exists(1)).isInstanceOf(ClientReplicaNotReadyException.class);
+        assertThatThrownBy(() -> voitureService.createVoiture(voiture(1)))
+                .isInstanceOf(ClientReplicaNotReadyException.class);
+
+        journal.open();
+        awaitTrue(replica::isReady, Duration.ofSeconds(10));
+
+        assertThat(replica.size()).isEqualTo(CLIENTS);
+        assertThat(replica.getSeq()).isEqualTo(CLIENTS);
+        assertThat(replica.exists(CLIENTS / 2)).isTrue();
+    }
+
+    @Test
+    void propageCreationsEtSuppressions() {
+        for (int i = 0; i < 20; i++) {
+            long size = replica.size();
+            long clientId = journal.nextClientId();
+            journal.append(clientId, "CREATED");
+            awaitTrue(() -> replica.size() == size + 1, PROPAGATION);
+            journal.append(clientId, "DELETED");
+            awaitTrue(() -> replica.size() == size, PROPAGATION);
+        }
+    }
+
+    @Test
+    void valideLeClientDesVoitures() {
+        // Client créé juste avant la voiture, pas encore reçu par l'attente longue : lecture immédiate du journal
+        long created = journal.nextClientId();
+        journal.appendUnpublished(created, "CREATED");
+        double refreshes = refreshes();
+        assertThat(voitureService.createVoiture(voiture(created)).getId()).isNotNull();
+        assertThat(refreshes()).isGreaterThan(refreshes);
+        journal.publish();
+
+        long size = replica.size();
+        journal.append(created, "DELETED");
+        awaitTrue(() -> replica.size() == size - 1, PROPAGATION);
+        assertThatThrownBy(() -> voitureService.createVoiture(voiture(created)))
+                .isInstanceOf(UnknownClientException.class);
+        assertThatThrownBy(() -> voitureService.createVoiture(voiture(Long.MAX_VALUE)))
+                .isInstanceOf(UnknownClientException.class);
+    }
+
+    @Test
+    void redemarreDepuisLeCheckpoint() throws IOException {
+        awaitTrue(() -> checkpointSeq() == replica.getSeq(), Duration.ofSeconds(5));
+        long checkpointSeq = checkpointSeq();
+        for (int i = 0; i < 50; i++) {
+            journal.append(journal.nextClientId(), "CREATED");
+        }
+        awaitTrue(() -> replica.getSeq() == journal.lastSeq(), PROPAGATION);
+
+        try (ClientChangeServer restartServer = new ClientChangeServer(journal);
+             ConfigurableApplicationContext restarted = new SpringApplicationBuilder(VoitureServiceApplication.class)
+                     .web(WebApplicationType.NONE)
+                     .profiles("test")
+                     // Arguments de ligne de commande : prioritaires sur application-test.properties
+                     .run("--test.database=replica_voitures_restart",
+                             "--voiture.client-replica.enabled=true",
+                             "--voiture.client-replica.url=" + restartServer.url(),
+                             "--voiture.client-replica.checkpoint-file=" + CHECKPOINT,
+                             "--voiture.client-replica.wait=2s",
+                             "--voiture.client-replica.page-size=100")) {
+            ClientReplica restartedReplica = restarted.getBean(ClientReplica.class);
+            awaitTrue(restartedReplica::isReady, Duration.ofSeconds(10));
+
+            assertThat(restartedReplica.size()).isEqualTo(replica.size());
+            assertThat(restartedReplica.getSeq()).isEqualTo(journal.lastSeq());
+            // Seuls les changements postérieurs au checkpoint sont relus
+            assertThat(restartServer.sinces().get(0)).isEqualTo(checkpointSeq).isPositive();
+        }
+    }
+
+    private double refreshes() {
+        return meterRegistry.counter("client.replica.refreshes").count();
+    }
+
+    /**
+     * Numéro enregistré dans le checkpoint (-1 s'il n'existe pas encore)
+     */
+    private static long checkpointSeq() {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(CHECKPOINT))) {
+            in.readInt();
+            return in.readLong();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static Voiture voiture(long clientId) {
+        return new Voiture(null, "Renault", "Clio", "Rouge",
+                String.format("CR-%03d-%02d", NEXT_PLATE.incrementAndGet(), clientId % 100), 15_000.0, clientId, null);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("délai dépassé (%d ms)", timeout.toMillis()).isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Journal des changements de clients du service client, en mémoire
+     * 
+     * Un changement ajouté sans être publié n'est visible que des lectures immédiates (wait=0) :
+     * c'est un changement que l'attente longue en cours n'a pas encore reçu.
+     */
+    static final class ClientChangeJournal {
+
+        private final List<ClientChangePage.Change> changes = new ArrayList<>();
+        private final CountDownLatch opened = new CountDownLatch(1);
+        private long published;
+        private long nextClientId;
+
+        ClientChangeJournal(int clients) {
+            for (long clientId = 1; clientId <= clients; clientId++) {
+                changes.add(new ClientChangePage.Change(clientId, clientId, "CREATED"));
+            }
+            published = clients;
+            nextClientId = clients + 1;
+        }
+
+        /**
+         * Les lectures répondent à partir de maintenant
+         */
+        void open() {
+            opened.countDown();
+        }
+
+        boolean isOpen() {
+            return opened.getCount() == 0;
+        }
+
+        synchronized long nextClientId() {
+            return nextClientId++;
+        }
+
+        synchronized void append(long clientId, String type) {
+            appendUnpublished(clientId, type);
+            publish();
+        }
+
+        synchronized void appendUnpublished(long clientId, String type) {
+            changes.add(new ClientChangePage.Change(changes.size() + 1, clientId, type));
+        }
+
+        synchronized void publish() {
+            published = changes.size();
+            notifyAll();
+        }
+
+        synchronized long lastSeq() {
+            return changes.size();
+        }
+
+        /**
+         * Changements postérieurs à since (numéro = position dans le journal) ; avec une attente,
+         * attend au plus wait un changement publié
+         */
+        ClientChangePage read(long since, int limit, Duration wait) throws InterruptedException {
+            opened.await();
+            synchronized (this) {
+                long deadline = System.nanoTime() + wait.toNanos();
+                long remaining;
+                while (published <= since && (remaining = deadline - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                long visible = wait.isZero() ? changes.size() : published;
+                List<ClientChangePage.Change> page = new ArrayList<>(
+                        changes.subList((int) Math.min(since, visible), (int) Math.min(since + limit, visible)));
+                long nextSince = page.isEmpty() ? since : page.get(page.size() - 1).getSeq();
+                // lastSeq : dernier numéro du journal, jamais inférieur à un numéro déjà lu (sinon journal recréé)
+                return new ClientChangePage(page, nextSince, changes.size());
+            }
+        }
+    }
+
+    /**
+     * GET /api/clients/changes?since=&limit=&wait= sur un port local, qui note les since demandés
+     */
+    static final class ClientChangeServer implements AutoCloseable {
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final List<Long> sinces = new CopyOnWriteArrayList<>();
+        private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "client-changes-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        private final HttpServer server;
+
+        ClientChangeServer(ClientChangeJournal journal) {
+            try {
+                server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            server.setExecutor(executor);
+            server.createContext("/api/clients/changes", exchange -> respond(exchange, journal));
+            server.start();
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + server.getAddress().getPort();
+        }
+
+        List<Long> sinces() {
+            return sinces;
+        }
+
+        private void respond(HttpExchange exchange, ClientChangeJournal journal) throws IOException {
+            try (InputStream ignored = exchange.getRequestBody()) {
+                Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+                long since = Long.parseLong(query.getOrDefault("since", "0"));
+                sinces.add(since);
+                ClientChangePage page = journal.read(since, Integer.parseInt(query.getOrDefault("limit", "1000")),
+                        Duration.ofSeconds(Long.parseLong(query.getOrDefault("wait", "0"))));
+                byte[] body = objectMapper.writeValueAsBytes(page);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                exchange.sendResponseHeaders(503, -1);
+            }
+        }
+
+        private static Map<String, String> query(String rawQuery) {
+            Map<String, String> parameters = new HashMap<>();
+            if (rawQuery != null) {
+                for (String parameter : rawQuery.split("&")) {
+                    int equals = parameter.indexOf('=');
+                    if (equals > 0) {
+                        parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+                    }
+                }
+            }
+            return parameters;
+        }
+
+        @Override
+        public void close() {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.microservices.voiture.service;
+
+import com.microservices.voiture.model.FleetSummary;
+import com.microservices.voiture.model.Voiture;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Résumés du parc tenus à jour par les triggers de la table voitures (équivalent H2 en test)
+ * lors des créations, PUT, PATCH et DELETE faits par VoitureService
+ * 
+ * Chaque test travaille sur ses propres clients : l'ordre des tests n'a pas d'importance.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "test.database=summaries")
+@ActiveProfiles("test")
+class FleetSummaryTest {
+
+    private static final AtomicLong NEXT_CLIENT = new AtomicLong(5000);
+    private static final AtomicLong NEXT_PLATE = new AtomicLong();
+
+    @Autowired
+    private VoitureService voitureService;
+
+    @Test
+    void creationsEtSuppression() {
+        long clientId = NEXT_CLIENT.incrementAndGet();
+        voitureService.createVoiture(voiture(clientId, "Renault", 10_000.0));
+        Voiture deleted = voitureService.createVoiture(voiture(clientId, "Renault", 20_000.0));
+        voitureService.createVoiture(voiture(clientId, "Peugeot", 15_000.0));
+
+        assertSummary(clientId, 3, "45000.00");
+        assertThat(voitureService.getFleetSummary(clientId).getMarques().get("Renault").getVoitureCount()).isEqualTo(2);
+
+        assertThat(voitureService.deleteVoiture(deleted.getId(), deleted.getVersion())).isTrue();
+        assertSummary(clientId, 2, "25000.00");
+    }
+
+    @Test
+    void patchDuPrixDeLaMarqueEtDuProprietaire() {
+        long first = NEXT_CLIENT.incrementAndGet();
+        long second = NEXT_CLIENT.incrementAndGet();
+        Voiture voiture = voitureService.createVoiture(voiture(first, "Renault", 10_000.0));
+
+        voitureService.patchVoiture(voiture.getId(), Map.of("couleur", "Bleu"), null);
+        assertSummary(first, 1, "10000.00");
+
+        voitureService.patchVoiture(voiture.getId(), Map.of("prix", 12_000.0, "marque", "Dacia"), null);
+        assertSummary(first, 1, "12000.00");
+        assertThat(voitureService.getFleetSummary(first).getMarques()).containsOnlyKeys("Dacia");
+
+        voitureService.patchVoiture(voiture.getId(), Map.of("clientId", second), null);
+        assertSummary(first, 0, "0");
+        assertThat(voitureService.getFleetSummary(first).getMarques()).isEmpty();
+        assertSummary(second, 1, "12000.00");
+    }
+
+    @Test
+    void putChangeDeProprietaire() {
+        long first = NEXT_CLIENT.incrementAndGet();
+        long second = NEXT_CLIENT.incrementAndGet();
+        Voiture voiture = voitureService.createVoiture(voiture(first, "Toyota", 21_000.0));
+
+        voiture.setClientId(second);
+        voiture.setPrix(20_000.0);
+        voitureService.updateVoiture(voiture.getId(), voiture);
+
+        assertSummary(first, 0, "0");
+        assertSummary(second, 1, "20000.00");
+        assertThat(voitureService.rebuildFleetSummaries().getClientsCorrected()).isZero();
+    }
+
+    private void assertSummary(long clientId, long voitureCount, String prixTotal) {
+        FleetSummary summary = voitureService.getFleetSummary(clientId);
+        assertThat(summary.getVoitureCount()).isEqualTo(voitureCount);
+        assertThat(summary.getPrixTotal()).isEqualByComparingTo(new BigDecimal(prixTotal));
+    }
+
+    private static Voiture voiture(long clientId, String marque, double prix) {
+        return new Voiture(null, marque, "Modèle", "Gris", "FS-" + NEXT_PLATE.incrementAndGet(), prix, clientId, null);
+    }
+}